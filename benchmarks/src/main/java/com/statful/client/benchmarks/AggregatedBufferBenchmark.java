@@ -0,0 +1,57 @@
+package com.statful.client.benchmarks;
+
+import com.statful.client.core.buffer.AggregatedBuffer;
+import com.statful.client.domain.api.Aggregation;
+import com.statful.client.domain.api.AggregationFrequency;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+
+/**
+ * Measures concurrent writes to and drains of the {@link com.statful.client.core.buffer.AggregatedBuffer}.
+ */
+@State(Scope.Benchmark)
+public class AggregatedBufferBenchmark {
+
+    private static final int MAX_BUFFER_SIZE = 5000;
+    private static final int FLUSH_SIZE = 10;
+    private static final String METRIC = "application.timer.response_time,unit=ms 42 1476280800 100";
+
+    private AggregatedBuffer buffer;
+
+    /**
+     * Creates the buffer with the same sizes the client uses.
+     */
+    @Setup
+    public final void setUp() {
+        buffer = new AggregatedBuffer(MAX_BUFFER_SIZE, FLUSH_SIZE);
+    }
+
+    /**
+     * Adds a metric, draining the buffer when it is full so the benchmark never measures rejections only.
+     *
+     * @return Whether the metric was added
+     */
+    @Benchmark
+    public final boolean addToBuffer() {
+        boolean added = buffer.addToBuffer(METRIC, Aggregation.AVG, AggregationFrequency.FREQ_10);
+        if (!added) {
+            buffer.readBuffer(Aggregation.AVG, AggregationFrequency.FREQ_10);
+        }
+        return added;
+    }
+
+    /**
+     * Adds a full flush worth of metrics and reads them back, as the put path followed by a flush does.
+     *
+     * @return The flushed payload
+     */
+    @Benchmark
+    public final String addAndReadBuffer() {
+        for (int i = 0; i < FLUSH_SIZE; i++) {
+            buffer.addToBuffer(METRIC, Aggregation.AVG, AggregationFrequency.FREQ_10);
+        }
+        return buffer.readBuffer(Aggregation.AVG, AggregationFrequency.FREQ_10);
+    }
+}
@@ -0,0 +1,57 @@
+package com.statful.client.benchmarks;
+
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.profile.GCProfiler;
+import org.openjdk.jmh.runner.Runner;
+import org.openjdk.jmh.runner.RunnerException;
+import org.openjdk.jmh.runner.options.Options;
+import org.openjdk.jmh.runner.options.OptionsBuilder;
+
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Runs the benchmark suite at 1, 4 and 16 threads with the GC profiler enabled.
+ * <p>
+ * Each thread count is measured twice: in throughput mode, reporting operations per second, and in sample time mode,
+ * reporting latency percentiles (including p99). The GC profiler adds the bytes allocated per operation
+ * (<code>gc.alloc.rate.norm</code>) to both.
+ * <p>
+ * An optional argument restricts the benchmarks to run with a regular expression, as JMH does.
+ */
+public final class BenchmarkRunner {
+
+    private static final int[] THREADS = new int[] {1, 4, 16};
+    private static final int WARMUP_ITERATIONS = 5;
+    private static final int MEASUREMENT_ITERATIONS = 5;
+    private static final int FORKS = 1;
+
+    private BenchmarkRunner() { }
+
+    /**
+     * Entry point.
+     *
+     * @param args An optional regular expression of the benchmarks to include
+     * @throws RunnerException Thrown when JMH fails to run a benchmark
+     */
+    public static void main(final String[] args) throws RunnerException {
+        String include = args.length > 0 ? args[0] : BenchmarkRunner.class.getPackage().getName() + ".*";
+
+        for (int threads : THREADS) {
+            new Runner(options(include, threads, Mode.Throughput, TimeUnit.SECONDS)).run();
+            new Runner(options(include, threads, Mode.SampleTime, TimeUnit.NANOSECONDS)).run();
+        }
+    }
+
+    private static Options options(final String include, final int threads, final Mode mode, final TimeUnit timeUnit) {
+        return new OptionsBuilder()
+                .include(include)
+                .threads(threads)
+                .mode(mode)
+                .timeUnit(timeUnit)
+                .warmupIterations(WARMUP_ITERATIONS)
+                .measurementIterations(MEASUREMENT_ITERATIONS)
+                .forks(FORKS)
+                .addProfiler(GCProfiler.class)
+                .build();
+    }
+}
@@ -0,0 +1,40 @@
+package com.statful.client.benchmarks;
+
+import com.statful.client.core.CustomStatfulFactory;
+import com.statful.client.core.api.StatfulClientBuilder;
+import com.statful.client.core.transport.TransportSender;
+import com.statful.client.domain.api.ClientConfiguration;
+import com.statful.client.domain.api.Transport;
+
+/**
+ * A factory for Statful clients backed by a {@link NoOpTransportSender}, which runs the whole client pipeline locally.
+ */
+public final class BenchmarkStatfulFactory {
+
+    private static final NoOpClientFactory NO_OP_CLIENT_FACTORY = new NoOpClientFactory();
+
+    private BenchmarkStatfulFactory() { }
+
+    /**
+     * Instantiates a new {@link com.statful.client.core.api.StatfulClientBuilder} which discards every flush.
+     *
+     * @return A Statful client builder, ready for configure or bootstrap
+     */
+    public static StatfulClientBuilder buildNoOpClient() {
+        return NO_OP_CLIENT_FACTORY.buildClient();
+    }
+
+    /**
+     * Private no-op client factory.
+     */
+    private static class NoOpClientFactory extends CustomStatfulFactory {
+        NoOpClientFactory() {
+            super(Transport.OTHER);
+        }
+
+        @Override
+        protected TransportSender buildTransportSender(final ClientConfiguration configuration) {
+            return new NoOpTransportSender();
+        }
+    }
+}
@@ -0,0 +1,42 @@
+package com.statful.client.benchmarks;
+
+import com.statful.client.core.message.MessageBuilder;
+import com.statful.client.domain.api.Aggregation;
+import com.statful.client.domain.api.AggregationFrequency;
+import com.statful.client.domain.api.Aggregations;
+import com.statful.client.domain.api.Tags;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.State;
+
+/**
+ * Measures the serialization of a single metric line.
+ */
+@State(Scope.Thread)
+public class MessageBuilderBenchmark {
+
+    private static final long TIMESTAMP = 1476280800L;
+    private static final int SAMPLE_RATE = 100;
+
+    private final Tags tags = Tags.from(new String[] {"unit", "ms", "app", "benchmark", "endpoint", "/users"});
+    private final Aggregations aggregations = Aggregations.from(Aggregation.AVG, Aggregation.P90, Aggregation.COUNT);
+
+    /**
+     * Builds a timer-like metric line with tags and aggregations.
+     *
+     * @return The metric line
+     */
+    @Benchmark
+    public final String build() {
+        return MessageBuilder.newBuilder()
+                .withNamespace("application")
+                .withName("timer.response_time")
+                .withValue("42")
+                .withTags(tags)
+                .withAggregations(aggregations)
+                .withAggregationFreq(AggregationFrequency.FREQ_10)
+                .withTimestamp(TIMESTAMP)
+                .withSampleRate(SAMPLE_RATE)
+                .build();
+    }
+}
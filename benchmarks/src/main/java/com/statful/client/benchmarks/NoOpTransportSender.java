@@ -0,0 +1,19 @@
+package com.statful.client.benchmarks;
+
+import com.statful.client.core.transport.TransportSender;
+
+/**
+ * A {@link com.statful.client.core.transport.TransportSender} that discards every message, so benchmarks measure the
+ * client itself instead of the network.
+ */
+public final class NoOpTransportSender implements TransportSender {
+
+    @Override
+    public void send(final String message) { }
+
+    @Override
+    public void send(final String message, final String uri) { }
+
+    @Override
+    public void shutdown() { }
+}
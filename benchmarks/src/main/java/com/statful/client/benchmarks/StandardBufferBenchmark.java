@@ -0,0 +1,61 @@
+package com.statful.client.benchmarks;
+
+import com.statful.client.core.buffer.StandardBuffer;
+import com.statful.client.domain.api.BufferStrategy;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+
+/**
+ * Measures concurrent writes to and drains of the {@link com.statful.client.core.buffer.StandardBuffer}, for every
+ * {@link BufferStrategy}.
+ */
+@State(Scope.Benchmark)
+public class StandardBufferBenchmark {
+
+    private static final int MAX_BUFFER_SIZE = 5000;
+    private static final int FLUSH_SIZE = 10;
+    private static final String METRIC = "application.timer.response_time,unit=ms 42 1476280800 avg,p90,count,10 100";
+
+    @Param({"BLOCKING_QUEUE", "RING_BUFFER", "STRIPED"})
+    private BufferStrategy bufferStrategy;
+
+    private StandardBuffer buffer;
+
+    /**
+     * Creates the buffer with the same sizes the client uses.
+     */
+    @Setup
+    public final void setUp() {
+        buffer = new StandardBuffer(MAX_BUFFER_SIZE, FLUSH_SIZE, bufferStrategy);
+    }
+
+    /**
+     * Adds a metric, draining the buffer when it is full so the benchmark never measures rejections only.
+     *
+     * @return Whether the metric was added
+     */
+    @Benchmark
+    public final boolean addToBuffer() {
+        boolean added = buffer.addToBuffer(METRIC);
+        if (!added) {
+            buffer.readBuffer();
+        }
+        return added;
+    }
+
+    /**
+     * Adds a full flush worth of metrics and reads them back, as the put path followed by a flush does.
+     *
+     * @return The flushed payload
+     */
+    @Benchmark
+    public final String addAndReadBuffer() {
+        for (int i = 0; i < FLUSH_SIZE; i++) {
+            buffer.addToBuffer(METRIC);
+        }
+        return buffer.readBuffer();
+    }
+}
@@ -0,0 +1,66 @@
+package com.statful.client.benchmarks;
+
+import com.statful.client.domain.api.StatfulClient;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+
+/**
+ * Measures a metric going through the whole client, from the fluent API down to the transport.
+ */
+@State(Scope.Benchmark)
+public class StatfulClientBenchmark {
+
+    private static final int FLUSH_SIZE = 500;
+    private static final int FLUSH_INTERVAL = 1000;
+    private static final long TIMER_VALUE = 42L;
+    private static final double GAUGE_VALUE = 0.75D;
+
+    private StatfulClient client;
+
+    /**
+     * Builds a client which discards every flush.
+     */
+    @Setup
+    public final void setUp() {
+        client = BenchmarkStatfulFactory.buildNoOpClient().with()
+                .app("benchmark")
+                .flushSize(FLUSH_SIZE)
+                .flushInterval(FLUSH_INTERVAL)
+                .build();
+    }
+
+    /**
+     * Shuts the client down.
+     */
+    @TearDown
+    public final void tearDown() {
+        client.shutdown();
+    }
+
+    /**
+     * Sends a timer with a tag.
+     */
+    @Benchmark
+    public final void timer() {
+        client.timer("response_time", TIMER_VALUE).with().tag("endpoint", "/users").send();
+    }
+
+    /**
+     * Sends a counter with a tag.
+     */
+    @Benchmark
+    public final void counter() {
+        client.counter("requests").with().tag("status", "200").send();
+    }
+
+    /**
+     * Sends a gauge with a tag.
+     */
+    @Benchmark
+    public final void gauge() {
+        client.gauge("pool_usage", GAUGE_VALUE).with().tag("pool", "database").send();
+    }
+}
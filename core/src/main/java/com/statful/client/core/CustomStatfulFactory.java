@@ -4,13 +4,18 @@ import com.statful.client.core.api.ConfigurationBuilder;
 import com.statful.client.core.api.ConfigurationBuilderChain;
 import com.statful.client.core.api.StatfulClientBuilder;
 import com.statful.client.core.sender.BufferedMetricsSender;
+import com.statful.client.core.spool.DiskSpool;
+import com.statful.client.core.spool.SpoolTransportSender;
+import com.statful.client.core.transport.CircuitBreaker;
+import com.statful.client.core.transport.CircuitBreakerTransportSender;
 import com.statful.client.core.transport.TransportSender;
 import com.statful.client.domain.api.ClientConfiguration;
 import com.statful.client.domain.api.MetricsSender;
 import com.statful.client.domain.api.StatfulClient;
 import com.statful.client.domain.api.Transport;
 
-import java.util.concurrent.ScheduledThreadPoolExecutor;
+import java.io.File;
+import java.io.IOException;
 import java.util.logging.Logger;
 
 /**
@@ -19,6 +24,7 @@ import java.util.logging.Logger;
 public abstract class CustomStatfulFactory {
 
     private static final Logger LOGGER = Logger.getLogger(CustomStatfulFactory.class.getName());
+    private static final int SPOOL_CIRCUIT_BREAKER_THRESHOLD = 5;
 
     private final Transport transport;
     private final ConfigurationBuilderChain<StatfulClient> builderChain;
@@ -28,9 +34,8 @@ public abstract class CustomStatfulFactory {
         this.builderChain = new ConfigurationBuilderChain<StatfulClient>() {
             @Override
             public StatfulClient build(final ClientConfiguration configuration) {
-                TransportSender transportSender = buildTransportSender(configuration);
-                ScheduledThreadPoolExecutor executorService = new ScheduledThreadPoolExecutor(configuration.getWorkersPoolSize());
-                MetricsSender bufferedMetricsSender = new BufferedMetricsSender(transportSender, configuration, executorService);
+                TransportSender transportSender = decorateTransportSender(buildTransportSender(configuration), configuration);
+                MetricsSender bufferedMetricsSender = new BufferedMetricsSender(transportSender, configuration);
                 return new StatfulClientImpl(bufferedMetricsSender, configuration);
             }
         };
@@ -51,6 +56,40 @@ public abstract class CustomStatfulFactory {
         return new StatfulClientBuilder(configurationBuilder);
     }
 
+    private static TransportSender decorateTransportSender(final TransportSender transportSender, final ClientConfiguration configuration) {
+        SpoolTransportSender spool = buildSpool(configuration);
+
+        int threshold = configuration.getCircuitBreakerThreshold();
+        if (threshold == 0 && spool != null) {
+            threshold = SPOOL_CIRCUIT_BREAKER_THRESHOLD;
+        }
+        if (threshold == 0) {
+            return transportSender;
+        }
+
+        CircuitBreaker circuitBreaker = new CircuitBreaker(threshold, configuration.getCircuitBreakerOpenMillis());
+        CircuitBreakerTransportSender decorated = CircuitBreakerTransportSender.wrap(transportSender, circuitBreaker, spool);
+        if (spool != null) {
+            spool.startReplay(decorated);
+        }
+        return decorated;
+    }
+
+    private static SpoolTransportSender buildSpool(final ClientConfiguration configuration) {
+        if (configuration.getSpoolDirectory() == null) {
+            return null;
+        }
+
+        try {
+            DiskSpool spool = new DiskSpool(new File(configuration.getSpoolDirectory()), configuration.getSpoolMaxBytes(),
+                    configuration.getSpoolSyncPolicy());
+            return new SpoolTransportSender(spool);
+        } catch (IOException e) {
+            LOGGER.warning("Unable to open the Statful spool, metrics won't be kept during outages: " + e.getMessage());
+            return null;
+        }
+    }
+
     /**
      * Abstract method to be implemented by custom Statful client implementations.
      *
@@ -2,8 +2,10 @@ package com.statful.client.core;
 
 import com.statful.client.core.api.MetricsSenderAPI;
 import com.statful.client.core.api.StatfulClientFacade;
+import com.statful.client.core.diagnostics.Diagnostics;
 import com.statful.client.domain.api.*;
 
+import java.util.concurrent.TimeUnit;
 import java.util.logging.Logger;
 
 /**
@@ -12,6 +14,7 @@ import java.util.logging.Logger;
 class StatfulClientImpl implements StatfulClient {
 
     private static final Logger LOGGER = Logger.getLogger(StatfulClientImpl.class.getName());
+    private static final Diagnostics DIAGNOSTICS = new Diagnostics(LOGGER);
 
     private final MetricsSender metricsSender;
     private final ClientConfiguration configuration;
@@ -37,7 +40,7 @@ class StatfulClientImpl implements StatfulClient {
                 .aggregationFrequency(configuration.getTimerAggregationFrequency())
                 .tags(configuration.getTimerTags())
                 .name("timer." + metricName)
-                .value(Long.toString(value));
+                .value(value);
 
         return new StatfulClientFacade(metricsSenderAPI);
     }
@@ -55,7 +58,7 @@ class StatfulClientImpl implements StatfulClient {
                 .aggregationFrequency(configuration.getCounterAggregationFrequency())
                 .tags(configuration.getCounterTags())
                 .name("counter." + metricName)
-                .value(Integer.toString(value));
+                .value((long) value);
 
         return new StatfulClientFacade(metricsSenderAPI);
     }
@@ -63,42 +66,42 @@ class StatfulClientImpl implements StatfulClient {
 
     @Override
     public final SenderFacade gauge(final String metricName, final Long value) {
-        return gauge(metricName, value.toString());
+        return new StatfulClientFacade(gaugeSender(metricName).value(value.longValue()));
     }
 
     @Override
     public final SenderFacade gauge(final String metricName, final Double value) {
-        return gauge(metricName, value.toString());
+        return new StatfulClientFacade(gaugeSender(metricName).value(value.doubleValue()));
     }
 
     @Override
     public final SenderFacade gauge(final String metricName, final Float value) {
-        return gauge(metricName, value.toString());
+        return new StatfulClientFacade(gaugeSender(metricName).value(value.toString()));
     }
 
     @Override
     public final SenderFacade gauge(final String metricName, final Integer value) {
-        return gauge(metricName, value.toString());
+        return new StatfulClientFacade(gaugeSender(metricName).value(value.longValue()));
     }
 
     @Override
     public final SenderFacade put(final String metricName, final Long value) {
-        return put(metricName, Long.toString(value));
+        return new StatfulClientFacade(putSender(metricName).value(value.longValue()));
     }
 
     @Override
     public final SenderFacade put(final String metricName, final Double value) {
-        return put(metricName, Double.toString(value));
+        return new StatfulClientFacade(putSender(metricName).value(value.doubleValue()));
     }
 
     @Override
     public final SenderFacade put(final String metricName, final Float value) {
-        return put(metricName, Float.toString(value));
+        return new StatfulClientFacade(putSender(metricName).value(Float.toString(value)));
     }
 
     @Override
     public final SenderFacade put(final String metricName, final Integer value) {
-        return put(metricName, Integer.toString(value));
+        return new StatfulClientFacade(putSender(metricName).value(value.longValue()));
     }
 
     @Override
@@ -110,7 +113,7 @@ class StatfulClientImpl implements StatfulClient {
                 .aggregationFrequency(aggregationFrequency)
                 .tags(configuration.getTimerTags())
                 .name("timer." + metricName)
-                .value(Long.toString(value));
+                .value(value);
 
         return new StatfulClientFacade(metricsSenderAPI);
     }
@@ -124,7 +127,7 @@ class StatfulClientImpl implements StatfulClient {
                 .aggregationFrequency(aggregationFrequency)
                 .tags(configuration.getCounterTags())
                 .name("counter." + metricName)
-                .value(Long.toString(value));
+                .value((long) value);
 
         return new StatfulClientFacade(metricsSenderAPI);
     }
@@ -132,50 +135,50 @@ class StatfulClientImpl implements StatfulClient {
     @Override
     public final SenderFacade aggregatedGauge(final String metricName, final Long value, final Aggregation aggregation,
                                               final AggregationFrequency aggregationFrequency) {
-        return aggregatedGauge(metricName, value.toString(), aggregation, aggregationFrequency);
+        return new StatfulClientFacade(aggregatedGaugeSender(metricName, aggregation, aggregationFrequency).value(value.longValue()));
     }
 
     @Override
     public final SenderFacade aggregatedGauge(final String metricName, final Double value, final Aggregation aggregation,
                                               final AggregationFrequency aggregationFrequency) {
-        return aggregatedGauge(metricName, value.toString(), aggregation, aggregationFrequency);
+        return new StatfulClientFacade(aggregatedGaugeSender(metricName, aggregation, aggregationFrequency).value(value.doubleValue()));
     }
 
     @Override
     public final SenderFacade aggregatedGauge(final String metricName, final Float value, final Aggregation aggregation,
                                               final AggregationFrequency aggregationFrequency) {
-        return aggregatedGauge(metricName, value.toString(), aggregation, aggregationFrequency);
+        return new StatfulClientFacade(aggregatedGaugeSender(metricName, aggregation, aggregationFrequency).value(value.toString()));
     }
 
     @Override
     public final SenderFacade aggregatedGauge(final String metricName, final Integer value,
                                               final Aggregation aggregation,
                                               final AggregationFrequency aggregationFrequency) {
-        return aggregatedGauge(metricName, value.toString(), aggregation, aggregationFrequency);
+        return new StatfulClientFacade(aggregatedGaugeSender(metricName, aggregation, aggregationFrequency).value(value.longValue()));
     }
 
     @Override
     public SenderFacade aggregatedPut(final String metricName, final Long value, final Aggregation aggregation,
                                       final AggregationFrequency aggregationFrequency) {
-        return aggregatedPut(metricName, Long.toString(value), aggregation, aggregationFrequency);
+        return new StatfulClientFacade(aggregatedPutSender(metricName, aggregation, aggregationFrequency).value(value.longValue()));
     }
 
     @Override
     public SenderFacade aggregatedPut(final String metricName, final Double value, final Aggregation aggregation,
                                       final AggregationFrequency aggregationFrequency) {
-        return aggregatedPut(metricName, Double.toString(value), aggregation, aggregationFrequency);
+        return new StatfulClientFacade(aggregatedPutSender(metricName, aggregation, aggregationFrequency).value(value.doubleValue()));
     }
 
     @Override
     public SenderFacade aggregatedPut(final String metricName, final Float value, final Aggregation aggregation,
                                       final AggregationFrequency aggregationFrequency) {
-        return aggregatedPut(metricName, Float.toString(value), aggregation, aggregationFrequency);
+        return new StatfulClientFacade(aggregatedPutSender(metricName, aggregation, aggregationFrequency).value(Float.toString(value)));
     }
 
     @Override
     public final SenderFacade aggregatedPut(final String metricName, final Integer value, final Aggregation aggregation,
                                             final AggregationFrequency aggregationFrequency) {
-        return aggregatedPut(metricName, Integer.toString(value), aggregation, aggregationFrequency);
+        return new StatfulClientFacade(aggregatedPutSender(metricName, aggregation, aggregationFrequency).value(value.longValue()));
     }
 
     @Override
@@ -188,7 +191,7 @@ class StatfulClientImpl implements StatfulClient {
             try {
                 metricsSender.put(name, value, tags, aggregations, aggregationFrequency, sampleRate, namespace, timestamp);
             } catch (Exception e) {
-                LOGGER.warning("Unable to send metric: " + e.toString());
+                DIAGNOSTICS.warning("Unable to send metric", e);
             }
         } else {
             LOGGER.fine("Statful client is disabled. The metric was not sent.");
@@ -204,7 +207,73 @@ class StatfulClientImpl implements StatfulClient {
                 metricsSender.aggregatedPut(name, value, tags, aggregation, aggregationFrequency, sampleRate, namespace,
                         timestamp);
             } catch (Exception e) {
-                LOGGER.warning("Unable to send metric: " + e.toString());
+                DIAGNOSTICS.warning("Unable to send metric", e);
+            }
+        } else {
+            LOGGER.fine("Statful client is disabled. The metric was not sent.");
+        }
+    }
+
+    @Override
+    public final void put(
+            final String name, final long value, final Tags tags, final Aggregations aggregations,
+            final AggregationFrequency aggregationFrequency, final Integer sampleRate, final String namespace,
+            final long timestamp
+    ) {
+        if (enabled) {
+            try {
+                metricsSender.put(name, value, tags, aggregations, aggregationFrequency, sampleRate, namespace, timestamp);
+            } catch (Exception e) {
+                DIAGNOSTICS.warning("Unable to send metric", e);
+            }
+        } else {
+            LOGGER.fine("Statful client is disabled. The metric was not sent.");
+        }
+    }
+
+    @Override
+    public final void put(
+            final String name, final double value, final Tags tags, final Aggregations aggregations,
+            final AggregationFrequency aggregationFrequency, final Integer sampleRate, final String namespace,
+            final long timestamp
+    ) {
+        if (enabled) {
+            try {
+                metricsSender.put(name, value, tags, aggregations, aggregationFrequency, sampleRate, namespace, timestamp);
+            } catch (Exception e) {
+                DIAGNOSTICS.warning("Unable to send metric", e);
+            }
+        } else {
+            LOGGER.fine("Statful client is disabled. The metric was not sent.");
+        }
+    }
+
+    @Override
+    public final void aggregatedPut(final String name, final long value, final Tags tags,
+                                    final Aggregation aggregation, final AggregationFrequency aggregationFrequency,
+                                    final Integer sampleRate, final String namespace, final long timestamp) {
+        if (enabled) {
+            try {
+                metricsSender.aggregatedPut(name, value, tags, aggregation, aggregationFrequency, sampleRate, namespace,
+                        timestamp);
+            } catch (Exception e) {
+                DIAGNOSTICS.warning("Unable to send metric", e);
+            }
+        } else {
+            LOGGER.fine("Statful client is disabled. The metric was not sent.");
+        }
+    }
+
+    @Override
+    public final void aggregatedPut(final String name, final double value, final Tags tags,
+                                    final Aggregation aggregation, final AggregationFrequency aggregationFrequency,
+                                    final Integer sampleRate, final String namespace, final long timestamp) {
+        if (enabled) {
+            try {
+                metricsSender.aggregatedPut(name, value, tags, aggregation, aggregationFrequency, sampleRate, namespace,
+                        timestamp);
+            } catch (Exception e) {
+                DIAGNOSTICS.warning("Unable to send metric", e);
             }
         } else {
             LOGGER.fine("Statful client is disabled. The metric was not sent.");
@@ -226,55 +295,53 @@ class StatfulClientImpl implements StatfulClient {
         metricsSender.shutdown();
     }
 
+    @Override
+    public final long shutdown(final long timeout, final TimeUnit unit) {
+        return metricsSender.shutdown(timeout, unit);
+    }
+
+    @Override
+    public final ClientStats getStats() {
+        return metricsSender.getStats();
+    }
+
     @Override
     public void forceSyncFlush() {
         metricsSender.forceSyncFlush();
     }
 
-    private SenderFacade put(final String metricName, final String value) {
-        SenderAPI metricsSenderAPI = MetricsSenderAPI.newInstance(this).with()
+    private SenderAPI putSender(final String metricName) {
+        return MetricsSenderAPI.newInstance(this).with()
                 .configuration(configuration)
                 .aggregationFrequency(configuration.getDefaultAggregationFreq())
-                .name(metricName)
-                .value(value);
-
-        return new StatfulClientFacade(metricsSenderAPI);
+                .name(metricName);
     }
 
-    private SenderFacade aggregatedPut(final String metricName, final String value, final Aggregation aggregation,
-                                       final AggregationFrequency aggregationFrequency) {
-        SenderAPI metricsSenderAPI = MetricsSenderAPI.newInstance(this, true).with()
+    private SenderAPI aggregatedPutSender(final String metricName, final Aggregation aggregation,
+                                          final AggregationFrequency aggregationFrequency) {
+        return MetricsSenderAPI.newInstance(this, true).with()
                 .configuration(configuration)
                 .aggregation(aggregation)
                 .aggregationFrequency(aggregationFrequency)
-                .name(metricName)
-                .value(value);
-
-        return new StatfulClientFacade(metricsSenderAPI);
+                .name(metricName);
     }
 
-    private SenderFacade gauge(final String metricName, final String value) {
-        SenderAPI metricsSenderAPI = MetricsSenderAPI.newInstance(this).with()
+    private SenderAPI gaugeSender(final String metricName) {
+        return MetricsSenderAPI.newInstance(this).with()
                 .configuration(configuration)
                 .aggregations(configuration.getGaugeAggregations())
                 .aggregationFrequency(configuration.getGaugeAggregationFrequency())
                 .tags(configuration.getGaugeTags())
-                .name("gauge." + metricName)
-                .value(value);
-
-        return new StatfulClientFacade(metricsSenderAPI);
+                .name("gauge." + metricName);
     }
 
-    private SenderFacade aggregatedGauge(final String metricName, final String value, final Aggregation aggregation,
-                                         final AggregationFrequency aggregationFrequency) {
-        SenderAPI metricsSenderAPI = MetricsSenderAPI.newInstance(this, true).with()
+    private SenderAPI aggregatedGaugeSender(final String metricName, final Aggregation aggregation,
+                                            final AggregationFrequency aggregationFrequency) {
+        return MetricsSenderAPI.newInstance(this, true).with()
                 .configuration(configuration)
                 .aggregation(aggregation)
                 .aggregationFrequency(aggregationFrequency)
                 .tags(configuration.getGaugeTags())
-                .name("gauge." + metricName)
-                .value(value);
-
-        return new StatfulClientFacade(metricsSenderAPI);
+                .name("gauge." + metricName);
     }
 }
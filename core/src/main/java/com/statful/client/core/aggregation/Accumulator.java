@@ -0,0 +1,153 @@
+package com.statful.client.core.aggregation;
+
+import com.statful.client.domain.api.Aggregation;
+
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * Accumulates the values of a single series during a single aggregation window.
+ * <p>
+ * Values are added without locking. Once the window is over the accumulator is sealed, which makes any further
+ * {@link #add(double)} fail and waits for the writers still adding values, so that the aggregated values read
+ * afterwards account for every value that was successfully added.
+ * <p>
+ * Instances of this class are thread-safe.
+ */
+final class Accumulator {
+
+    private static final double P90 = 0.9;
+    private static final double P95 = 0.95;
+
+    private final AtomicInteger writers = new AtomicInteger();
+    private final AtomicLong count = new AtomicLong();
+    private final AtomicLong sum = new AtomicLong(Double.doubleToRawLongBits(0D));
+    private final AtomicLong min = new AtomicLong(Double.doubleToRawLongBits(Double.POSITIVE_INFINITY));
+    private final AtomicLong max = new AtomicLong(Double.doubleToRawLongBits(Double.NEGATIVE_INFINITY));
+    private final AtomicLong first = new AtomicLong();
+    private final AtomicLong last = new AtomicLong();
+    private final LogHistogram histogram;
+
+    private volatile boolean sealed;
+
+    /**
+     * Default constructor.
+     *
+     * @param trackPercentiles Whether values should be recorded in a histogram to estimate percentiles
+     */
+    Accumulator(final boolean trackPercentiles) {
+        this.histogram = trackPercentiles ? new LogHistogram() : null;
+    }
+
+    /**
+     * Adds a value to the accumulator.
+     *
+     * @param value The value to add
+     * @return False if the accumulator is already sealed, in which case the value wasn't added
+     */
+    boolean add(final double value) {
+        writers.incrementAndGet();
+        try {
+            if (sealed) {
+                return false;
+            }
+
+            long bits = Double.doubleToRawLongBits(value);
+            if (count.incrementAndGet() == 1) {
+                first.set(bits);
+            }
+            last.set(bits);
+            addToSum(value);
+            updateMin(value);
+            updateMax(value);
+
+            if (histogram != null) {
+                histogram.add(value);
+            }
+            return true;
+        } finally {
+            writers.decrementAndGet();
+        }
+    }
+
+    /**
+     * Seals the accumulator, waiting for any concurrent {@link #add(double)} to finish.
+     */
+    void seal() {
+        sealed = true;
+        while (writers.get() != 0) {
+            Thread.yield();
+        }
+    }
+
+    /**
+     * Returns the number of values added to the accumulator.
+     *
+     * @return The number of values
+     */
+    long getCount() {
+        return count.get();
+    }
+
+    /**
+     * Returns the aggregated value for the given aggregation. Should only be called once the accumulator is sealed.
+     *
+     * @param aggregation The {@link Aggregation} to compute
+     * @return The aggregated value
+     */
+    double get(final Aggregation aggregation) {
+        switch (aggregation) {
+            case AVG:
+                return valueOf(sum) / count.get();
+            case COUNT:
+                return count.get();
+            case SUM:
+                return valueOf(sum);
+            case MIN:
+                return valueOf(min);
+            case MAX:
+                return valueOf(max);
+            case FIRST:
+                return valueOf(first);
+            case LAST:
+                return valueOf(last);
+            case P90:
+                return clamp(histogram.quantile(P90));
+            case P95:
+                return clamp(histogram.quantile(P95));
+            default:
+                throw new IllegalArgumentException("Unsupported aggregation: " + aggregation);
+        }
+    }
+
+    private double clamp(final double value) {
+        return Math.max(valueOf(min), Math.min(valueOf(max), value));
+    }
+
+    private void addToSum(final double value) {
+        long current;
+        long updated;
+        do {
+            current = sum.get();
+            updated = Double.doubleToRawLongBits(Double.longBitsToDouble(current) + value);
+        } while (!sum.compareAndSet(current, updated));
+    }
+
+    private void updateMin(final double value) {
+        long current = min.get();
+        while (value < Double.longBitsToDouble(current) && !min.compareAndSet(current, Double.doubleToRawLongBits(value))) {
+            current = min.get();
+        }
+    }
+
+    private void updateMax(final double value) {
+        long current = max.get();
+        while (value > Double.longBitsToDouble(current) && !max.compareAndSet(current, Double.doubleToRawLongBits(value))) {
+            current = max.get();
+        }
+    }
+
+    private static double valueOf(final AtomicLong bits) {
+        return Double.longBitsToDouble(bits.get());
+    }
+}
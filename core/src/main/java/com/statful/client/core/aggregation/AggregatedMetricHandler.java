@@ -0,0 +1,19 @@
+package com.statful.client.core.aggregation;
+
+import com.statful.client.domain.api.Aggregation;
+import com.statful.client.domain.api.AggregationFrequency;
+
+/**
+ * Receives the pre-aggregated metrics emitted by a {@link MetricAggregator}.
+ */
+public interface AggregatedMetricHandler {
+
+    /**
+     * Handles a pre-aggregated metric.
+     *
+     * @param metric The metric line, already built
+     * @param aggregation The {@link Aggregation} that produced the metric value
+     * @param aggregationFrequency The {@link AggregationFrequency} of the metric
+     */
+    void handle(String metric, Aggregation aggregation, AggregationFrequency aggregationFrequency);
+}
@@ -0,0 +1,106 @@
+package com.statful.client.core.aggregation;
+
+import java.util.concurrent.atomic.AtomicLongArray;
+
+/**
+ * A fixed size histogram with logarithmically spaced buckets, used to estimate percentiles of the aggregated values.
+ * <p>
+ * Every bucket spans values whose bounds differ by a constant ratio, so the estimated percentiles have a bounded
+ * relative error no matter the order of magnitude of the values. Negative values are counted in buckets mirroring the
+ * positive ones, and values whose magnitude is below {@link #MIN_TRACKABLE_VALUE}, including zero, are counted in a
+ * single bucket between them, estimated as zero. Values beyond the outermost buckets are counted in them. Since two
+ * histograms have the same buckets, they can be merged by adding the counts bucket by bucket.
+ * <p>
+ * Instances of this class are thread-safe.
+ */
+final class LogHistogram {
+
+    private static final double MIN_TRACKABLE_VALUE = 1.0E-3;
+    private static final double MAX_TRACKABLE_VALUE = 1.0E9;
+    private static final double RELATIVE_ACCURACY = 0.02;
+
+    private static final double GAMMA = (1 + RELATIVE_ACCURACY) / (1 - RELATIVE_ACCURACY);
+    private static final double LOG_GAMMA = Math.log(GAMMA);
+    private static final int ZERO_BUCKET = magnitudeBucketOf(MAX_TRACKABLE_VALUE);
+    private static final int BUCKETS = 2 * ZERO_BUCKET + 1;
+
+    private final AtomicLongArray counts = new AtomicLongArray(BUCKETS);
+
+    /**
+     * Records a value.
+     *
+     * @param value The value to record
+     */
+    void add(final double value) {
+        counts.incrementAndGet(bucketOf(value));
+    }
+
+    /**
+     * Adds the counts of another histogram to this one.
+     *
+     * @param other The {@link LogHistogram} to merge
+     */
+    void merge(final LogHistogram other) {
+        for (int i = 0; i < BUCKETS; i++) {
+            long count = other.counts.get(i);
+            if (count > 0) {
+                counts.addAndGet(i, count);
+            }
+        }
+    }
+
+    /**
+     * Estimates the value below which the given fraction of the recorded values fall.
+     *
+     * @param quantile The quantile to estimate, between 0 and 1
+     * @return The estimated value or {@link Double#NaN} if no values were recorded
+     */
+    double quantile(final double quantile) {
+        long total = 0;
+        for (int i = 0; i < BUCKETS; i++) {
+            total += counts.get(i);
+        }
+
+        if (total == 0) {
+            return Double.NaN;
+        }
+
+        long rank = Math.max(1, (long) Math.ceil(quantile * total));
+        long seen = 0;
+        for (int i = 0; i < BUCKETS; i++) {
+            seen += counts.get(i);
+            if (seen >= rank) {
+                return valueOf(i);
+            }
+        }
+
+        return valueOf(BUCKETS - 1);
+    }
+
+    private static int bucketOf(final double value) {
+        if (value > 0) {
+            return ZERO_BUCKET + Math.min(magnitudeBucketOf(value), ZERO_BUCKET);
+        }
+        if (value < 0) {
+            return ZERO_BUCKET - Math.min(magnitudeBucketOf(-value), ZERO_BUCKET);
+        }
+        return ZERO_BUCKET;
+    }
+
+    private static int magnitudeBucketOf(final double magnitude) {
+        if (!(magnitude > MIN_TRACKABLE_VALUE)) {
+            return 0;
+        }
+        return (int) Math.ceil(Math.log(magnitude / MIN_TRACKABLE_VALUE) / LOG_GAMMA);
+    }
+
+    private static double valueOf(final int bucket) {
+        if (bucket == ZERO_BUCKET) {
+            return 0;
+        }
+
+        int magnitudeBucket = Math.abs(bucket - ZERO_BUCKET);
+        double magnitude = MIN_TRACKABLE_VALUE * Math.pow(GAMMA, magnitudeBucket) * 2 / (1 + GAMMA);
+        return bucket < ZERO_BUCKET ? -magnitude : magnitude;
+    }
+}
@@ -0,0 +1,123 @@
+package com.statful.client.core.aggregation;
+
+import com.statful.client.core.message.MessageBuilder;
+import com.statful.client.domain.api.Aggregation;
+import com.statful.client.domain.api.AggregationFrequency;
+import com.statful.client.domain.api.Aggregations;
+import com.statful.client.domain.api.Tags;
+
+import java.util.Collection;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
+
+/**
+ * Pre-aggregates metrics on the client, so that a single metric is sent per series, aggregation and aggregation
+ * window instead of a metric per value.
+ * <p>
+ * Series are identified by namespace, name, tags, aggregations and aggregation frequency. Values are accumulated in
+ * windows aligned with the epoch, as the server would aggregate them, according with the timestamp of each value.
+ * Once a window is over, {@link #collect(long, AggregatedMetricHandler)} emits a metric per aggregation of each of
+ * its series, timestamped with the start of the window, and forgets those series.
+ * <p>
+ * Instances of this class are thread-safe.
+ */
+public final class MetricAggregator {
+
+    private final ConcurrentMap<SeriesKey, Accumulator> series = new ConcurrentHashMap<SeriesKey, Accumulator>();
+
+    /**
+     * Adds a value to the series it belongs to.
+     *
+     * @param name The metric name
+     * @param value The metric value
+     * @param tags The metric tags
+     * @param aggregations The aggregations to compute
+     * @param aggregationFrequency The aggregation frequency
+     * @param namespace The metric namespace
+     * @param timestamp The metric timestamp as an unix timestamp in seconds
+     * @return False if the metric can't be pre-aggregated, because it doesn't have a name, aggregations or an
+     * aggregation frequency
+     */
+    public boolean add(final String name, final double value, final Tags tags, final Aggregations aggregations,
+                       final AggregationFrequency aggregationFrequency, final String namespace, final long timestamp) {
+        if (name == null || aggregationFrequency == null || aggregations == null
+                || aggregations.getAggregations().isEmpty()) {
+            return false;
+        }
+
+        long windowStart = timestamp - timestamp % aggregationFrequency.getValue();
+        SeriesKey key = new SeriesKey(namespace, name, tags, aggregations, aggregationFrequency, windowStart);
+
+        while (true) {
+            Accumulator accumulator = series.get(key);
+
+            if (accumulator == null) {
+                Accumulator created = new Accumulator(tracksPercentiles(aggregations.getAggregations()));
+                accumulator = series.putIfAbsent(key.copy(), created);
+
+                if (accumulator == null) {
+                    accumulator = created;
+                }
+            }
+
+            // A sealed accumulator was already collected, so a new one has to be created for the same window
+            if (accumulator.add(value)) {
+                return true;
+            }
+        }
+    }
+
+    /**
+     * Emits the series whose aggregation window is over at the given timestamp.
+     *
+     * @param timestamp The current time as an unix timestamp in seconds
+     * @param handler The {@link AggregatedMetricHandler} to emit the metrics to
+     */
+    public void collect(final long timestamp, final AggregatedMetricHandler handler) {
+        for (Map.Entry<SeriesKey, Accumulator> entry : series.entrySet()) {
+            SeriesKey key = entry.getKey();
+            Accumulator accumulator = entry.getValue();
+
+            if (key.getWindowEnd() <= timestamp && series.remove(key, accumulator)) {
+                accumulator.seal();
+                emit(key, accumulator, handler);
+            }
+        }
+    }
+
+    /**
+     * Emits every series, including the ones whose aggregation window isn't over yet.
+     *
+     * @param handler The {@link AggregatedMetricHandler} to emit the metrics to
+     */
+    public void collectAll(final AggregatedMetricHandler handler) {
+        collect(Long.MAX_VALUE, handler);
+    }
+
+    private static void emit(final SeriesKey key, final Accumulator accumulator, final AggregatedMetricHandler handler) {
+        if (accumulator.getCount() == 0) {
+            return;
+        }
+
+        for (Aggregation aggregation : key.getAggregations()) {
+            MessageBuilder messageBuilder = MessageBuilder.newBuilder()
+                    .withNamespace(key.getNamespace())
+                    .withName(key.getName())
+                    .withTags(key.getTags())
+                    .withTimestamp(key.getWindowStart());
+
+            if (aggregation == Aggregation.COUNT) {
+                messageBuilder.withValue(accumulator.getCount());
+            } else {
+                messageBuilder.withValue(accumulator.get(aggregation));
+            }
+
+            handler.handle(messageBuilder.build(), aggregation, key.getAggregationFrequency());
+        }
+    }
+
+    private static boolean tracksPercentiles(final Collection<Aggregation> aggregations) {
+        return aggregations.contains(Aggregation.P90) || aggregations.contains(Aggregation.P95);
+    }
+}
@@ -0,0 +1,134 @@
+package com.statful.client.core.aggregation;
+
+import com.statful.client.domain.api.Aggregation;
+import com.statful.client.domain.api.AggregationFrequency;
+import com.statful.client.domain.api.Aggregations;
+import com.statful.client.domain.api.Tags;
+
+import java.util.Collection;
+import java.util.Collections;
+import java.util.Map;
+
+/**
+ * Identifies a series within an aggregation window.
+ * <p>
+ * Lookup keys reference the tags and aggregations of the metric being aggregated, which may change afterwards, so
+ * {@link #copy()} must be used before storing a key.
+ */
+final class SeriesKey {
+
+    private static final int HASH_MULTIPLIER = 31;
+    private static final int INT_BITS = 32;
+
+    private final String namespace;
+    private final String name;
+    private final Tags tags;
+    private final Aggregations aggregations;
+    private final AggregationFrequency aggregationFrequency;
+    private final long windowStart;
+    private final int hashCode;
+
+    /**
+     * Default constructor.
+     *
+     * @param namespace The namespace of the series
+     * @param name The name of the series
+     * @param tags The {@link Tags} of the series
+     * @param aggregations The {@link Aggregations} to compute for the series
+     * @param aggregationFrequency The {@link AggregationFrequency} of the series
+     * @param windowStart The start of the aggregation window as an unix timestamp in seconds
+     */
+    SeriesKey(final String namespace, final String name, final Tags tags, final Aggregations aggregations,
+              final AggregationFrequency aggregationFrequency, final long windowStart) {
+        this.namespace = namespace;
+        this.name = name;
+        this.tags = tags;
+        this.aggregations = aggregations;
+        this.aggregationFrequency = aggregationFrequency;
+        this.windowStart = windowStart;
+        this.hashCode = computeHashCode();
+    }
+
+    /**
+     * Creates a copy of this key which doesn't share any mutable state with it.
+     *
+     * @return A new {@link SeriesKey}
+     */
+    SeriesKey copy() {
+        Aggregations aggregationsCopy = new Aggregations();
+        aggregationsCopy.putAll(aggregations.getAggregations());
+
+        return new SeriesKey(namespace, name, tags == null ? null : Tags.from(tags), aggregationsCopy,
+                aggregationFrequency, windowStart);
+    }
+
+    String getNamespace() {
+        return namespace;
+    }
+
+    String getName() {
+        return name;
+    }
+
+    Tags getTags() {
+        return tags;
+    }
+
+    Collection<Aggregation> getAggregations() {
+        return aggregations.getAggregations();
+    }
+
+    AggregationFrequency getAggregationFrequency() {
+        return aggregationFrequency;
+    }
+
+    long getWindowStart() {
+        return windowStart;
+    }
+
+    long getWindowEnd() {
+        return windowStart + aggregationFrequency.getValue();
+    }
+
+    @Override
+    public boolean equals(final Object o) {
+        if (this == o) {
+            return true;
+        }
+        if (!(o instanceof SeriesKey)) {
+            return false;
+        }
+
+        SeriesKey other = (SeriesKey) o;
+        return hashCode == other.hashCode
+                && windowStart == other.windowStart
+                && aggregationFrequency == other.aggregationFrequency
+                && name.equals(other.name)
+                && equal(namespace, other.namespace)
+                && tagsOf(this).equals(tagsOf(other))
+                && getAggregations().equals(other.getAggregations());
+    }
+
+    @Override
+    public int hashCode() {
+        return hashCode;
+    }
+
+    private int computeHashCode() {
+        int result = name.hashCode();
+        result = HASH_MULTIPLIER * result + (namespace != null ? namespace.hashCode() : 0);
+        result = HASH_MULTIPLIER * result + tagsOf(this).hashCode();
+        result = HASH_MULTIPLIER * result + getAggregations().hashCode();
+        result = HASH_MULTIPLIER * result + aggregationFrequency.hashCode();
+        result = HASH_MULTIPLIER * result + (int) (windowStart ^ (windowStart >>> INT_BITS));
+        return result;
+    }
+
+    private static Map<String, String> tagsOf(final SeriesKey key) {
+        return key.tags == null ? Collections.<String, String>emptyMap() : key.tags.getTags();
+    }
+
+    private static boolean equal(final String a, final String b) {
+        return a == null ? b == null : a.equals(b);
+    }
+}
@@ -1,10 +1,17 @@
 package com.statful.client.core.api;
 
 import com.statful.client.core.config.DefaultClientConfiguration;
+import com.statful.client.domain.api.AddressSelection;
+import com.statful.client.domain.api.BufferStrategy;
 import com.statful.client.domain.api.ClientConfiguration;
+import com.statful.client.domain.api.OverflowPolicy;
+import com.statful.client.domain.api.SpoolSyncPolicy;
 import com.statful.client.domain.api.Tags;
 import com.statful.client.domain.api.Transport;
 
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.ScheduledExecutorService;
+
 /**
  * This is a {@link com.statful.client.domain.api.ClientConfiguration} builder which allows to chain a
  * <code>T</code> type to return <code>T</code> upon build.
@@ -17,6 +24,8 @@ import com.statful.client.domain.api.Transport;
  */
 public final class ConfigurationBuilder<T> {
 
+    private static final int MAX_UDP_PAYLOAD_SIZE = 65507;
+
     private DefaultClientConfiguration result;
     private ConfigurationBuilderChain<T> builderChain;
 
@@ -185,6 +194,344 @@ public final class ConfigurationBuilder<T> {
         return this;
     }
 
+    /**
+     * Sets if metrics should be pre-aggregated by the client. Pre-aggregated metrics are sent once per aggregation
+     * and aggregation window, using the aggregated metrics API.
+     *
+     * @param preAggregationEnabled The flag to set if metrics should be pre-aggregated
+     * @return A reference to this configuration builder
+     */
+    public ConfigurationBuilder<T> preAggregation(final boolean preAggregationEnabled) {
+        this.result.setPreAggregationEnabled(preAggregationEnabled);
+        return this;
+    }
+
+    /**
+     * Sets if the client should send its own statistics, such as buffer depths and dropped metrics, as metrics under
+     * the statful_client namespace.
+     *
+     * @param selfMetricsEnabled The flag to set if the client statistics should be sent
+     * @return A reference to this configuration builder
+     */
+    public ConfigurationBuilder<T> selfMetrics(final boolean selfMetricsEnabled) {
+        this.result.setSelfMetricsEnabled(selfMetricsEnabled);
+        return this;
+    }
+
+    /**
+     * Sets if the client should register a management bean, exposing its statistics and allowing to tune the flush
+     * size, flush interval and sample rate at runtime through JMX.
+     *
+     * @param jmxEnabled The flag to set if the management bean should be registered
+     * @return A reference to this configuration builder
+     */
+    public ConfigurationBuilder<T> jmx(final boolean jmxEnabled) {
+        this.result.setJmxEnabled(jmxEnabled);
+        return this;
+    }
+
+    /**
+     * Sets the maximum payload size of each UDP datagram, such as 1432 bytes for a standard Ethernet MTU or 8932
+     * bytes for jumbo frames. Sizes above the largest UDP payload of 65507 bytes are ignored.
+     *
+     * @param udpMaxPayloadSize The maximum payload size in bytes
+     * @return A reference to this configuration builder
+     */
+    public ConfigurationBuilder<T> udpMaxPayloadSize(final int udpMaxPayloadSize) {
+        if (udpMaxPayloadSize > 0 && udpMaxPayloadSize <= MAX_UDP_PAYLOAD_SIZE) {
+            this.result.setUdpMaxPayloadSize(udpMaxPayloadSize);
+        }
+        return this;
+    }
+
+    /**
+     * Sets the interval between resolutions of the host by the UDP transports, so that metrics follow the host when
+     * it moves to another address. Zero resolves the host only once.
+     *
+     * @param dnsRefreshIntervalMs The DNS refresh interval in milliseconds
+     * @return A reference to this configuration builder
+     */
+    public ConfigurationBuilder<T> dnsRefreshIntervalMs(final long dnsRefreshIntervalMs) {
+        if (dnsRefreshIntervalMs >= 0) {
+            this.result.setDnsRefreshIntervalMillis(dnsRefreshIntervalMs);
+        }
+        return this;
+    }
+
+    /**
+     * Sets how the UDP transports choose where to send metrics when the host resolves to several addresses.
+     *
+     * @param addressSelection The address selection
+     * @return A reference to this configuration builder
+     */
+    public ConfigurationBuilder<T> addressSelection(final AddressSelection addressSelection) {
+        if (addressSelection != null) {
+            this.result.setAddressSelection(addressSelection);
+        }
+        return this;
+    }
+
+    /**
+     * Sets the maximum size of the request bodies in flight of the non-blocking HTTP transport. Once reached, sending
+     * waits for room up to the socket timeout and then drops the metrics.
+     *
+     * @param httpMaxInFlightBytes The maximum bytes in flight
+     * @return A reference to this configuration builder
+     */
+    public ConfigurationBuilder<T> httpMaxInFlightBytes(final int httpMaxInFlightBytes) {
+        if (httpMaxInFlightBytes > 0) {
+            this.result.setHttpMaxInFlightBytes(httpMaxInFlightBytes);
+        }
+        return this;
+    }
+
+    /**
+     * Sets if the HTTP transports should gzip the request bodies of at least the compression minimum size.
+     *
+     * @param httpCompressionEnabled The flag to set if the request bodies should be compressed
+     * @return A reference to this configuration builder
+     */
+    public ConfigurationBuilder<T> httpCompression(final boolean httpCompressionEnabled) {
+        this.result.setHttpCompressionEnabled(httpCompressionEnabled);
+        return this;
+    }
+
+    /**
+     * Sets the minimum size of the request bodies the HTTP transports compress, when compression is enabled.
+     *
+     * @param httpCompressionMinBytes The minimum size in bytes
+     * @return A reference to this configuration builder
+     */
+    public ConfigurationBuilder<T> httpCompressionMinBytes(final int httpCompressionMinBytes) {
+        if (httpCompressionMinBytes >= 0) {
+            this.result.setHttpCompressionMinBytes(httpCompressionMinBytes);
+        }
+        return this;
+    }
+
+    /**
+     * Sets the maximum number of times the HTTP transport retries a failed request. Zero disables retries.
+     *
+     * @param httpMaxRetries The maximum number of retries
+     * @return A reference to this configuration builder
+     */
+    public ConfigurationBuilder<T> httpMaxRetries(final int httpMaxRetries) {
+        if (httpMaxRetries >= 0) {
+            this.result.setHttpMaxRetries(httpMaxRetries);
+        }
+        return this;
+    }
+
+    /**
+     * Sets the backoff before the first retry of a failed HTTP request, doubled for each further retry.
+     *
+     * @param httpRetryBackoffMs The backoff in milliseconds
+     * @return A reference to this configuration builder
+     */
+    public ConfigurationBuilder<T> httpRetryBackoffMs(final long httpRetryBackoffMs) {
+        if (httpRetryBackoffMs >= 0) {
+            this.result.setHttpRetryBackoffMillis(httpRetryBackoffMs);
+        }
+        return this;
+    }
+
+    /**
+     * Sets the maximum number of retries per second of the HTTP transport, across every request.
+     *
+     * @param httpRetryBudgetPerSecond The maximum number of retries per second
+     * @return A reference to this configuration builder
+     */
+    public ConfigurationBuilder<T> httpRetryBudgetPerSecond(final int httpRetryBudgetPerSecond) {
+        if (httpRetryBudgetPerSecond >= 0) {
+            this.result.setHttpRetryBudgetPerSecond(httpRetryBudgetPerSecond);
+        }
+        return this;
+    }
+
+    /**
+     * Sets the number of consecutive failed sends which opens the circuit breaker around the transport. Zero
+     * disables the circuit breaker.
+     *
+     * @param circuitBreakerThreshold The failure threshold
+     * @return A reference to this configuration builder
+     */
+    public ConfigurationBuilder<T> circuitBreakerThreshold(final int circuitBreakerThreshold) {
+        if (circuitBreakerThreshold >= 0) {
+            this.result.setCircuitBreakerThreshold(circuitBreakerThreshold);
+        }
+        return this;
+    }
+
+    /**
+     * Sets how long the circuit breaker stays open before letting a probe through.
+     *
+     * @param circuitBreakerOpenMs The open interval in milliseconds
+     * @return A reference to this configuration builder
+     */
+    public ConfigurationBuilder<T> circuitBreakerOpenMs(final long circuitBreakerOpenMs) {
+        if (circuitBreakerOpenMs > 0) {
+            this.result.setCircuitBreakerOpenMillis(circuitBreakerOpenMs);
+        }
+        return this;
+    }
+
+    /**
+     * Sets the directory of the spool which keeps metrics on disk while the transport is failing. Enables the
+     * circuit breaker with a threshold of 5 if it isn't.
+     *
+     * @param spoolDirectory The spool directory
+     * @return A reference to this configuration builder
+     */
+    public ConfigurationBuilder<T> spoolDirectory(final String spoolDirectory) {
+        if (isStringSafe(spoolDirectory)) {
+            this.result.setSpoolDirectory(spoolDirectory);
+        }
+        return this;
+    }
+
+    /**
+     * Sets the maximum total size of the spool files.
+     *
+     * @param spoolMaxBytes The maximum size in bytes
+     * @return A reference to this configuration builder
+     */
+    public ConfigurationBuilder<T> spoolMaxBytes(final long spoolMaxBytes) {
+        if (spoolMaxBytes > 0) {
+            this.result.setSpoolMaxBytes(spoolMaxBytes);
+        }
+        return this;
+    }
+
+    /**
+     * Sets when the spool files are flushed to the disk.
+     *
+     * @param spoolSyncPolicy The spool sync policy
+     * @return A reference to this configuration builder
+     */
+    public ConfigurationBuilder<T> spoolSyncPolicy(final SpoolSyncPolicy spoolSyncPolicy) {
+        if (spoolSyncPolicy != null) {
+            this.result.setSpoolSyncPolicy(spoolSyncPolicy);
+        }
+        return this;
+    }
+
+    /**
+     * Sets if metrics are sent on virtual threads, one per batch, instead of on the workers pool. Falls back to the
+     * workers pool on runtimes without virtual threads.
+     *
+     * @param virtualThreads The flag to enable virtual threads
+     * @return A reference to this configuration builder
+     */
+    public ConfigurationBuilder<T> virtualThreads(final boolean virtualThreads) {
+        this.result.setVirtualThreadsEnabled(virtualThreads);
+        return this;
+    }
+
+    /**
+     * Sets the maximum number of batches sent concurrently on virtual threads.
+     *
+     * @param virtualThreadsMaxConcurrency The maximum concurrency
+     * @return A reference to this configuration builder
+     */
+    public ConfigurationBuilder<T> virtualThreadsMaxConcurrency(final int virtualThreadsMaxConcurrency) {
+        if (virtualThreadsMaxConcurrency > 0) {
+            this.result.setVirtualThreadsMaxConcurrency(virtualThreadsMaxConcurrency);
+        }
+        return this;
+    }
+
+    /**
+     * Sets the scheduler running the periodic tasks of the client, which may be shared by several clients and isn't
+     * shut down with them.
+     *
+     * @param scheduler The scheduler
+     * @return A reference to this configuration builder
+     */
+    public ConfigurationBuilder<T> scheduler(final ScheduledExecutorService scheduler) {
+        if (scheduler != null) {
+            this.result.setScheduler(scheduler);
+        }
+        return this;
+    }
+
+    /**
+     * Sets the executor running the sender workers, which may be shared by several clients and isn't shut down with
+     * them. Each client runs up to {@code workerPoolSize} workers on it.
+     *
+     * @param workerExecutor The worker executor
+     * @return A reference to this configuration builder
+     */
+    public ConfigurationBuilder<T> workerExecutor(final ExecutorService workerExecutor) {
+        if (workerExecutor != null) {
+            this.result.setWorkerExecutor(workerExecutor);
+        }
+        return this;
+    }
+
+    /**
+     * Sets if flushes should follow the arrival rate of metrics, between batches of {@code flushSize} metrics and a
+     * maximum wait of {@code flushIntervalMillis}.
+     *
+     * @param adaptiveFlush The flag to enable adaptive flushes
+     * @return A reference to this configuration builder
+     */
+    public ConfigurationBuilder<T> adaptiveFlush(final boolean adaptiveFlush) {
+        this.result.setAdaptiveFlushEnabled(adaptiveFlush);
+        return this;
+    }
+
+    /**
+     * Sets the strategy to buffer metrics before they're flushed.
+     *
+     * @param bufferStrategy The buffer strategy
+     * @return A reference to this configuration builder
+     */
+    public ConfigurationBuilder<T> bufferStrategy(final BufferStrategy bufferStrategy) {
+        if (bufferStrategy != null) {
+            this.result.setBufferStrategy(bufferStrategy);
+        }
+        return this;
+    }
+
+    /**
+     * Sets the policy to handle metrics put while the buffer is full.
+     *
+     * @param overflowPolicy The overflow policy
+     * @return A reference to this configuration builder
+     */
+    public ConfigurationBuilder<T> overflowPolicy(final OverflowPolicy overflowPolicy) {
+        if (overflowPolicy != null) {
+            this.result.setOverflowPolicy(overflowPolicy);
+        }
+        return this;
+    }
+
+    /**
+     * Sets how long to wait for room in a full buffer when using the block overflow policy.
+     *
+     * @param overflowBlockTimeoutMs The timeout in milliseconds
+     * @return A reference to this configuration builder
+     */
+    public ConfigurationBuilder<T> overflowBlockTimeoutMs(final long overflowBlockTimeoutMs) {
+        if (overflowBlockTimeoutMs >= 0) {
+            this.result.setOverflowBlockTimeoutMillis(overflowBlockTimeoutMs);
+        }
+        return this;
+    }
+
+    /**
+     * Sets the N in the one in every N metrics kept above the high-water mark when using the sample overflow policy.
+     *
+     * @param overflowSampleRate The overflow sample rate
+     * @return A reference to this configuration builder
+     */
+    public ConfigurationBuilder<T> overflowSampleRate(final int overflowSampleRate) {
+        if (overflowSampleRate > 0) {
+            this.result.setOverflowSampleRate(overflowSampleRate);
+        }
+        return this;
+    }
+
     /**
      * Sets the metrics namespace.
      *
@@ -1,5 +1,6 @@
 package com.statful.client.core.api;
 
+import com.statful.client.core.diagnostics.Diagnostics;
 import com.statful.client.domain.api.*;
 
 import java.util.logging.Logger;
@@ -11,6 +12,7 @@ import java.util.logging.Logger;
 public final class MetricsSenderAPI implements SenderAPI {
 
     private static final Logger LOGGER = Logger.getLogger(MetricsSenderAPI.class.getName());
+    private static final Diagnostics DIAGNOSTICS = new Diagnostics(LOGGER);
 
     private static final long TIMESTAMP_DIVIDER = 1000L;
 
@@ -19,6 +21,9 @@ public final class MetricsSenderAPI implements SenderAPI {
 
     private String name;
     private String value;
+    private long longValue;
+    private double doubleValue;
+    private ValueType valueType = ValueType.NONE;
     private String namespace;
     private Tags tags;
     private Integer sampleRate;
@@ -81,11 +86,20 @@ public final class MetricsSenderAPI implements SenderAPI {
 
     /**
      * A getter for the metric value.
+     * <p>
+     * Primitive values are formatted on every call, since they're carried unformatted until serialization.
      *
      * @return The metric value
      */
     public String getValue() {
-        return value;
+        switch (valueType) {
+            case LONG:
+                return Long.toString(longValue);
+            case DOUBLE:
+                return Double.toString(doubleValue);
+            default:
+                return value;
+        }
     }
 
     /**
@@ -145,10 +159,25 @@ public final class MetricsSenderAPI implements SenderAPI {
     public SenderAPI value(final String value) {
         if (isStringSafe(value)) {
             this.value = value;
+            this.valueType = ValueType.STRING;
         }
         return this;
     }
 
+    @Override
+    public SenderAPI value(final long value) {
+        this.longValue = value;
+        this.valueType = ValueType.LONG;
+        return this;
+    }
+
+    @Override
+    public SenderAPI value(final double value) {
+        this.doubleValue = value;
+        this.valueType = ValueType.DOUBLE;
+        return this;
+    }
+
     @Override
     public SenderAPI configuration(final ClientConfiguration configuration) {
         if (configuration != null) {
@@ -230,13 +259,25 @@ public final class MetricsSenderAPI implements SenderAPI {
             if (isValid()) {
                 long unixTimestamp = getUnixTimestamp();
 
-                metricsSenderProxy.put(name, value, tags, aggregations, aggregationFrequency, sampleRate, namespace,
-                        unixTimestamp, aggregated);
+                switch (valueType) {
+                    case LONG:
+                        metricsSenderProxy.put(name, longValue, tags, aggregations, aggregationFrequency, sampleRate,
+                                namespace, unixTimestamp, aggregated);
+                        break;
+                    case DOUBLE:
+                        metricsSenderProxy.put(name, doubleValue, tags, aggregations, aggregationFrequency, sampleRate,
+                                namespace, unixTimestamp, aggregated);
+                        break;
+                    default:
+                        metricsSenderProxy.put(name, value, tags, aggregations, aggregationFrequency, sampleRate,
+                                namespace, unixTimestamp, aggregated);
+                        break;
+                }
             } else {
-                LOGGER.warning("Unable to send metric because it's not valid. Please see the client documentation.");
+                DIAGNOSTICS.warning("Unable to send metric because it's not valid. Please see the client documentation.");
             }
         } catch (Exception e) {
-            LOGGER.severe("An exception has occurred while sending the metric to Statful: " + e.toString());
+            DIAGNOSTICS.severe("An exception has occurred while sending the metric to Statful", e);
         }
     }
 
@@ -249,10 +290,14 @@ public final class MetricsSenderAPI implements SenderAPI {
 
     private boolean isValid() {
         if (aggregated) {
-            return isStringSafe(name) && isStringSafe(value) && isAggregatedMetricValid();
+            return isStringSafe(name) && hasValue() && isAggregatedMetricValid();
         }
 
-        return isStringSafe(name) && isStringSafe(value);
+        return isStringSafe(name) && hasValue();
+    }
+
+    private boolean hasValue() {
+        return valueType != ValueType.NONE;
     }
 
     private boolean isAggregatedMetricValid() {
@@ -287,4 +332,11 @@ public final class MetricsSenderAPI implements SenderAPI {
         }
         return aggregations;
     }
+
+    /**
+     * The representation of the metric value.
+     */
+    private enum ValueType {
+        NONE, STRING, LONG, DOUBLE
+    }
 }
@@ -41,4 +41,56 @@ public class MetricsSenderProxy {
             metricsSender.put(name, value, tags, aggregations, aggregationFrequency, sampleRate, namespace, timestamp);
         }
     }
+
+    /**
+     * Proxies the put method of the {@link MetricsSender} interface.
+     *
+     * @param name The name of the metric
+     * @param value The value of the metric, formatted only when the metric is serialized
+     * @param tags A {@link Tags} the tags to be associated with the metric
+     * @param aggregations {@link Aggregations} with aggregations of the metric
+     * @param aggregationFrequency {@link AggregationFrequency} of the metric
+     * @param sampleRate The metrics sample rate
+     * @param namespace The namespace of the metric
+     * @param timestamp The timestamp associated with the metric
+     * @param isAggregated Flag stating if the metric is aggregated
+     */
+    public final void put(final String name, final long value, final Tags tags, final Aggregations aggregations,
+                          final AggregationFrequency aggregationFrequency, final Integer sampleRate,
+                          final String namespace, final long timestamp, final boolean isAggregated) {
+        if (isAggregated) {
+            Aggregation aggregation = aggregations.getAggregations().iterator().next();
+
+            metricsSender.aggregatedPut(name, value, tags, aggregation, aggregationFrequency, sampleRate, namespace,
+                    timestamp);
+        } else {
+            metricsSender.put(name, value, tags, aggregations, aggregationFrequency, sampleRate, namespace, timestamp);
+        }
+    }
+
+    /**
+     * Proxies the put method of the {@link MetricsSender} interface.
+     *
+     * @param name The name of the metric
+     * @param value The value of the metric, formatted only when the metric is serialized
+     * @param tags A {@link Tags} the tags to be associated with the metric
+     * @param aggregations {@link Aggregations} with aggregations of the metric
+     * @param aggregationFrequency {@link AggregationFrequency} of the metric
+     * @param sampleRate The metrics sample rate
+     * @param namespace The namespace of the metric
+     * @param timestamp The timestamp associated with the metric
+     * @param isAggregated Flag stating if the metric is aggregated
+     */
+    public final void put(final String name, final double value, final Tags tags, final Aggregations aggregations,
+                          final AggregationFrequency aggregationFrequency, final Integer sampleRate,
+                          final String namespace, final long timestamp, final boolean isAggregated) {
+        if (isAggregated) {
+            Aggregation aggregation = aggregations.getAggregations().iterator().next();
+
+            metricsSender.aggregatedPut(name, value, tags, aggregation, aggregationFrequency, sampleRate, namespace,
+                    timestamp);
+        } else {
+            metricsSender.put(name, value, tags, aggregations, aggregationFrequency, sampleRate, namespace, timestamp);
+        }
+    }
 }
@@ -13,9 +13,12 @@ import java.util.concurrent.ConcurrentHashMap;
  */
 public class AggregatedBuffer implements MetricsBuffer {
 
-    private Map<String, Map<String, ArrayBlockingQueue<String>>> buffer;
+    private Map<String, Map<String, MetricsQueue>> buffer;
     private int maxBufferSize;
-    private int flushSize;
+    private volatile int flushSize;
+    private OverflowHandler overflowHandler;
+    private volatile int highWaterMark;
+    private volatile Runnable highWaterListener;
 
     /**
      * Constructor.
@@ -23,19 +26,48 @@ public class AggregatedBuffer implements MetricsBuffer {
      * @param flushSize A {@link Integer} representing the flush size
      */
     public AggregatedBuffer(final int maxBufferSize, final int flushSize) {
-        this.buffer = new ConcurrentHashMap<String, Map<String, ArrayBlockingQueue<String>>>();
+        this(maxBufferSize, flushSize, OverflowHandler.dropNewest());
+    }
+
+    /**
+     * Constructor.
+     * @param maxBufferSize A {@link Integer} representing the max buffer size
+     * @param flushSize A {@link Integer} representing the flush size
+     * @param overflowHandler The {@link OverflowHandler} to add metrics with
+     */
+    public AggregatedBuffer(final int maxBufferSize, final int flushSize, final OverflowHandler overflowHandler) {
+        this.buffer = new ConcurrentHashMap<String, Map<String, MetricsQueue>>();
         this.maxBufferSize = maxBufferSize;
         this.flushSize = flushSize;
+        this.overflowHandler = overflowHandler;
     }
 
     /**
      * Get the current buffer.
      * @return The {@link Map} current buffer.
      */
-    public final Map<String, Map<String, ArrayBlockingQueue<String>>> getBuffer() {
+    public final Map<String, Map<String, MetricsQueue>> getQueues() {
         return buffer;
     }
 
+    /**
+     * Get the current buffer as blocking queues. The maps are copies, but the queues are the ones of the buffer.
+     * @return The {@link Map} current buffer.
+     * @deprecated Use {@link #getQueues()}.
+     */
+    @Deprecated
+    public final Map<String, Map<String, ArrayBlockingQueue<String>>> getBuffer() {
+        Map<String, Map<String, ArrayBlockingQueue<String>>> queues = new HashMap<String, Map<String, ArrayBlockingQueue<String>>>();
+        for (Map.Entry<String, Map<String, MetricsQueue>> aggregation : buffer.entrySet()) {
+            Map<String, ArrayBlockingQueue<String>> frequencies = new HashMap<String, ArrayBlockingQueue<String>>();
+            for (Map.Entry<String, MetricsQueue> frequency : aggregation.getValue().entrySet()) {
+                frequencies.put(frequency.getKey(), ((BlockingMetricsQueue) frequency.getValue()).getBackingQueue());
+            }
+            queues.put(aggregation.getKey(), frequencies);
+        }
+        return queues;
+    }
+
     /**
      * Adds an aggregated metric to the buffer.
      * @param metric The {@link String} metric name
@@ -44,26 +76,39 @@ public class AggregatedBuffer implements MetricsBuffer {
      * @return A {@link Boolean} with the success of the operation
      */
     public final boolean addToBuffer(final String metric, final Aggregation aggregation, final AggregationFrequency aggregationFrequency) {
-        Map<String, ArrayBlockingQueue<String>> aggregatedBuffer = buffer.get(aggregation.toString());
+        return addToBuffer(metric, aggregation, aggregationFrequency, true);
+    }
 
-        ArrayBlockingQueue<String> aggregatedFreqBuffer;
+    /**
+     * Adds an aggregated metric to the buffer, without waiting for room if the caller may not block.
+     * @param metric The {@link String} metric name
+     * @param aggregation The {@link com.statful.client.domain.api.Aggregation} aggregation of the metric
+     * @param aggregationFrequency The {@link AggregationFrequency} aggregation freq of the metric
+     * @param mayBlock Whether the caller may wait for room in the buffer
+     * @return A {@link Boolean} with the success of the operation
+     */
+    public final boolean addToBuffer(final String metric, final Aggregation aggregation, final AggregationFrequency aggregationFrequency,
+                                     final boolean mayBlock) {
+        Map<String, MetricsQueue> aggregatedBuffer = buffer.get(aggregation.toString());
+
+        MetricsQueue aggregatedFreqBuffer;
 
         if (aggregatedBuffer == null) {
-            aggregatedBuffer = new ConcurrentHashMap<String, ArrayBlockingQueue<String>>();
+            aggregatedBuffer = new ConcurrentHashMap<String, MetricsQueue>();
 
-            aggregatedFreqBuffer = new ArrayBlockingQueue<String>(this.maxBufferSize);
+            aggregatedFreqBuffer = newQueue();
         } else {
             aggregatedFreqBuffer = aggregatedBuffer.get(aggregationFrequency.toString());
 
             if (aggregatedFreqBuffer == null) {
-                aggregatedFreqBuffer = new ArrayBlockingQueue<String>(this.maxBufferSize);
+                aggregatedFreqBuffer = newQueue();
             }
         }
 
         aggregatedBuffer.put(aggregationFrequency.toString(), aggregatedFreqBuffer);
         buffer.put(aggregation.toString(), aggregatedBuffer);
 
-        return aggregatedFreqBuffer.offer(metric);
+        return overflowHandler.offer(aggregatedFreqBuffer, metric, mayBlock);
     }
 
     /**
@@ -73,26 +118,63 @@ public class AggregatedBuffer implements MetricsBuffer {
      * @return A {@link String} with all the metrics for a particular aggregation
      */
     public final String readBuffer(final Aggregation aggregation, final AggregationFrequency aggregationFrequency) {
-        Map<String, ArrayBlockingQueue<String>> aggregatedBuffer = buffer.get(aggregation.toString());
-        ArrayBlockingQueue<String> aggregatedFreqBuffer;
+        StringBuilder sb = new StringBuilder();
+        for (String metric : drainBuffer(aggregation, aggregationFrequency)) {
+            sb.append(metric).append("\n");
+        }
+
+        return sb.toString();
+    }
+
+    /**
+     * Drains up to the flush size metrics from the buffer of a particular aggregation, without joining them.
+     * @param aggregation The {@link Aggregation} aggregation to drain the buffer of
+     * @param aggregationFrequency The {@link AggregationFrequency} aggregation frequency to drain the buffer of
+     * @return A {@link List} with the metrics for a particular aggregation
+     */
+    public final List<String> drainBuffer(final Aggregation aggregation, final AggregationFrequency aggregationFrequency) {
+        Map<String, MetricsQueue> aggregatedBuffer = buffer.get(aggregation.toString());
+        List<String> messages = new ArrayList<String>();
 
         if (aggregatedBuffer != null) {
-            aggregatedFreqBuffer = aggregatedBuffer.get(aggregationFrequency.toString());
+            MetricsQueue aggregatedFreqBuffer = aggregatedBuffer.get(aggregationFrequency.toString());
 
             if (aggregatedFreqBuffer != null) {
-                Collection<String> messages = new ArrayList<String>();
                 aggregatedFreqBuffer.drainTo(messages, flushSize);
+            }
+        }
 
-                StringBuilder sb = new StringBuilder();
-                for (String metric : messages) {
-                    sb.append(metric).append("\n");
-                }
+        return messages;
+    }
 
-                return sb.toString();
+    /**
+     * Returns the number of metrics in every aggregation buffer.
+     * @return An {@link Integer} with the number of metrics
+     */
+    public final int size() {
+        int size = 0;
+        for (Map<String, MetricsQueue> aggregatedBuffer : buffer.values()) {
+            for (MetricsQueue aggregatedFreqBuffer : aggregatedBuffer.values()) {
+                size += aggregatedFreqBuffer.size();
             }
         }
+        return size;
+    }
 
-        return "";
+    /**
+     * Returns the number of aggregation buffers holding metrics, each of them read as a batch.
+     * @return An {@link Integer} with the number of non-empty buffers
+     */
+    public final int countNonEmptyBuffers() {
+        int buffers = 0;
+        for (Map<String, MetricsQueue> aggregatedBuffer : buffer.values()) {
+            for (MetricsQueue aggregatedFreqBuffer : aggregatedBuffer.values()) {
+                if (aggregatedFreqBuffer.size() > 0) {
+                    buffers++;
+                }
+            }
+        }
+        return buffers;
     }
 
     /**
@@ -116,7 +198,7 @@ public class AggregatedBuffer implements MetricsBuffer {
      * @return A {@link Set} set with the current aggregations frequencies buffers
      */
     public final Set<AggregationFrequency> getAggregationFrequencies(final Aggregation aggregation) {
-        Map<String, ArrayBlockingQueue<String>> aggregationFreqBuffer = buffer.get(aggregation.toString());
+        Map<String, MetricsQueue> aggregationFreqBuffer = buffer.get(aggregation.toString());
 
         Set<AggregationFrequency> aggregationFrequencies = new HashSet<AggregationFrequency>();
 
@@ -129,6 +211,37 @@ public class AggregatedBuffer implements MetricsBuffer {
         return aggregationFrequencies;
     }
 
+    /**
+     * Sets the listener run by the put which fills the buffer of an aggregation up to the high-water mark.
+     * @param highWaterMark An {@link Integer} representing the number of metrics which triggers the listener
+     * @param listener The {@link Runnable} to run, or null to remove it
+     */
+    public final void setHighWaterListener(final int highWaterMark, final Runnable listener) {
+        this.highWaterMark = highWaterMark;
+        this.highWaterListener = listener;
+        for (Map<String, MetricsQueue> aggregatedBuffer : buffer.values()) {
+            for (MetricsQueue aggregatedFreqBuffer : aggregatedBuffer.values()) {
+                aggregatedFreqBuffer.setHighWaterListener(highWaterMark, listener);
+            }
+        }
+    }
+
+    /**
+     * Get the flush size.
+     * @return An {@link Integer} representing the flush size
+     */
+    public final int getFlushSize() {
+        return flushSize;
+    }
+
+    /**
+     * Changes the flush size, which takes effect on the next read.
+     * @param flushSize An {@link Integer} representing the flush size
+     */
+    public final void setFlushSize(final int flushSize) {
+        this.flushSize = flushSize;
+    }
+
     @Override
     public final boolean isTimeToFlush() {
         Set<Aggregation> aggregations = getAggregations();
@@ -152,11 +265,17 @@ public class AggregatedBuffer implements MetricsBuffer {
      * @param aggregationFreq An {@link AggregationFrequency} aggregation frequency
      * @return A {@link Boolean} stating if a particular aggregation buffer should be flushed
      */
+    private MetricsQueue newQueue() {
+        MetricsQueue queue = new BlockingMetricsQueue(this.maxBufferSize);
+        queue.setHighWaterListener(highWaterMark, highWaterListener);
+        return queue;
+    }
+
     private boolean isTimeToFlushAggregation(final String aggregation, final String aggregationFreq) {
-        Map<String, ArrayBlockingQueue<String>> aggregatedBuffer = buffer.get(aggregation);
+        Map<String, MetricsQueue> aggregatedBuffer = buffer.get(aggregation);
 
         if (aggregatedBuffer != null) {
-            ArrayBlockingQueue<String> aggregatedFreqBuffer = aggregatedBuffer.get(aggregationFreq);
+            MetricsQueue aggregatedFreqBuffer = aggregatedBuffer.get(aggregationFreq);
 
             if (aggregatedFreqBuffer != null) {
                 int bufferSize = aggregatedFreqBuffer.size();
@@ -0,0 +1,79 @@
+package com.statful.client.core.buffer;
+
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.List;
+import java.util.concurrent.ArrayBlockingQueue;
+
+/**
+ * A {@link MetricsQueue} backed by an {@link ArrayBlockingQueue}.
+ */
+public final class BlockingMetricsQueue implements MetricsQueue {
+
+    private final ArrayBlockingQueue<String> queue;
+    private volatile int highWaterMark;
+    private volatile Runnable highWaterListener;
+
+    /**
+     * Constructor.
+     *
+     * @param capacity The maximum number of metrics in the queue
+     */
+    public BlockingMetricsQueue(final int capacity) {
+        this.queue = new ArrayBlockingQueue<String>(capacity);
+    }
+
+    @Override
+    public boolean offer(final String metric) {
+        if (!queue.offer(metric)) {
+            return false;
+        }
+
+        // The backing queue can't tell which put reached the mark, so every put past it runs the listener
+        Runnable listener = highWaterListener;
+        if (listener != null && queue.size() >= highWaterMark) {
+            listener.run();
+        }
+        return true;
+    }
+
+    @Override
+    public int drainTo(final Collection<? super String> collection, final int maxMetrics) {
+        return queue.drainTo(collection, maxMetrics);
+    }
+
+    @Override
+    public void collectPending() {
+        // Inserted metrics are available to be drained right away
+    }
+
+    @Override
+    public int size() {
+        return queue.size();
+    }
+
+    @Override
+    public int readySize() {
+        return queue.size();
+    }
+
+    @Override
+    public void setHighWaterListener(final int highWaterMark, final Runnable listener) {
+        this.highWaterMark = highWaterMark;
+        this.highWaterListener = listener;
+    }
+
+    @Override
+    public List<String> snapshot() {
+        return new ArrayList<String>(queue);
+    }
+
+    /**
+     * Returns the queue backing this one, for the accessors which exposed it before {@link MetricsQueue} existed.
+     *
+     * @return The {@link ArrayBlockingQueue} backing this queue
+     */
+    ArrayBlockingQueue<String> getBackingQueue() {
+        return queue;
+    }
+}
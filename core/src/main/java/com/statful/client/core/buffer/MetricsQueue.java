@@ -0,0 +1,64 @@
+package com.statful.client.core.buffer;
+
+import java.util.Collection;
+import java.util.List;
+
+/**
+ * A bounded queue of metrics, which many threads can put metrics into and which is drained in batches upon flush.
+ */
+public interface MetricsQueue {
+
+    /**
+     * Inserts a metric at the tail of the queue if it isn't full.
+     *
+     * @param metric The metric to insert
+     * @return A {@link Boolean} with the success of the operation
+     */
+    boolean offer(String metric);
+
+    /**
+     * Removes at most the given number of metrics from the head of the queue and adds them to the given collection.
+     *
+     * @param collection The {@link Collection} to add the metrics to
+     * @param maxMetrics The maximum number of metrics to remove
+     * @return The number of metrics removed
+     */
+    int drainTo(Collection<? super String> collection, int maxMetrics);
+
+    /**
+     * Makes every metric inserted so far available to be drained, for queues which hold metrics back until then.
+     */
+    void collectPending();
+
+    /**
+     * Returns the number of metrics in the queue.
+     *
+     * @return The number of metrics
+     */
+    int size();
+
+    /**
+     * Returns the number of metrics which can be drained without collecting the pending ones first. It only reads a
+     * counter, so that it's cheap enough to be called whenever a metric is put.
+     *
+     * @return The number of metrics ready to be drained
+     */
+    int readySize();
+
+    /**
+     * Sets the listener run by the put which fills the queue up to the high-water mark, so that it can be drained
+     * before it's full. The queue detects it while inserting the metric, instead of being checked on every put, so
+     * the listener may be run more than once, or missed while the queue is being drained.
+     *
+     * @param highWaterMark The number of metrics which triggers the listener
+     * @param listener The {@link Runnable} to run on the putting thread, or null to remove it
+     */
+    void setHighWaterListener(int highWaterMark, Runnable listener);
+
+    /**
+     * Returns a copy of the metrics in the queue, from head to tail, without removing them.
+     *
+     * @return A {@link List} with the metrics
+     */
+    List<String> snapshot();
+}
@@ -0,0 +1,154 @@
+package com.statful.client.core.buffer;
+
+import com.statful.client.domain.api.OverflowPolicy;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.locks.LockSupport;
+
+/**
+ * Adds metrics to a {@link MetricsQueue} according with an {@link OverflowPolicy}, counting every metric dropped.
+ * <p>
+ * Instances of this class are thread-safe and can be shared by several queues with the same capacity.
+ */
+public final class OverflowHandler {
+
+    private static final double HIGH_WATER_MARK_RATIO = 0.8;
+    private static final long BLOCK_PARK_NANOS = TimeUnit.MILLISECONDS.toNanos(1);
+
+    private final OverflowPolicy overflowPolicy;
+    private final long blockTimeoutNanos;
+    private final int sampleRate;
+    private final int highWaterMark;
+    private final Runnable drainRequest;
+    private final AtomicLong sampled = new AtomicLong();
+    private final AtomicLong droppedMetrics = new AtomicLong();
+
+    /**
+     * Constructor.
+     *
+     * @param overflowPolicy The {@link OverflowPolicy} to apply, defaulting to {@link OverflowPolicy#DROP_NEWEST} if null
+     * @param blockTimeoutMillis How long to wait for room in the queue with {@link OverflowPolicy#BLOCK}
+     * @param sampleRate The N in the one in every N metrics kept with {@link OverflowPolicy#SAMPLE}
+     * @param capacity The capacity of the queues
+     * @param drainRequest A {@link Runnable} which drains the queues, run before waiting for room in them, or null
+     */
+    public OverflowHandler(final OverflowPolicy overflowPolicy, final long blockTimeoutMillis, final int sampleRate,
+                           final int capacity, final Runnable drainRequest) {
+        this.overflowPolicy = overflowPolicy != null ? overflowPolicy : OverflowPolicy.DROP_NEWEST;
+        this.blockTimeoutNanos = TimeUnit.MILLISECONDS.toNanos(Math.max(0, blockTimeoutMillis));
+        this.sampleRate = Math.max(1, sampleRate);
+        this.highWaterMark = (int) (capacity * HIGH_WATER_MARK_RATIO);
+        this.drainRequest = drainRequest;
+    }
+
+    /**
+     * Creates an handler which drops the metrics put while the queue is full.
+     *
+     * @return An {@link OverflowHandler} with the {@link OverflowPolicy#DROP_NEWEST} policy
+     */
+    public static OverflowHandler dropNewest() {
+        return new OverflowHandler(OverflowPolicy.DROP_NEWEST, 0, 1, 0, null);
+    }
+
+    /**
+     * Adds a metric to a queue.
+     *
+     * @param queue The {@link MetricsQueue} to add the metric to
+     * @param metric The metric to add
+     * @return A {@link Boolean} with the success of the operation
+     */
+    public boolean offer(final MetricsQueue queue, final String metric) {
+        return offer(queue, metric, true);
+    }
+
+    /**
+     * Adds a metric to a queue, without waiting for room if the caller may not block, such as the thread running the
+     * periodic flushes, which would have to free the room itself. {@link OverflowPolicy#BLOCK} drops the metric instead.
+     *
+     * @param queue The {@link MetricsQueue} to add the metric to
+     * @param metric The metric to add
+     * @param mayBlock Whether the caller may wait for room in the queue
+     * @return A {@link Boolean} with the success of the operation
+     */
+    public boolean offer(final MetricsQueue queue, final String metric, final boolean mayBlock) {
+        switch (overflowPolicy) {
+            case DROP_OLDEST:
+                return offerDroppingOldest(queue, metric);
+            case BLOCK:
+                return mayBlock ? offerBlocking(queue, metric) : offerOrDrop(queue, metric);
+            case SAMPLE:
+                return offerSampling(queue, metric);
+            default:
+                return offerOrDrop(queue, metric);
+        }
+    }
+
+    /**
+     * Returns the number of metrics dropped so far.
+     *
+     * @return The number of dropped metrics
+     */
+    public long getDroppedMetrics() {
+        return droppedMetrics.get();
+    }
+
+    private boolean offerOrDrop(final MetricsQueue queue, final String metric) {
+        if (queue.offer(metric)) {
+            return true;
+        }
+
+        droppedMetrics.incrementAndGet();
+        return false;
+    }
+
+    private boolean offerDroppingOldest(final MetricsQueue queue, final String metric) {
+        List<String> oldest = null;
+
+        while (!queue.offer(metric)) {
+            if (oldest == null) {
+                oldest = new ArrayList<String>(1);
+            }
+            oldest.clear();
+
+            if (queue.drainTo(oldest, 1) == 0) {
+                // Nothing which can be dropped yet, the queue is full of metrics still being put
+                droppedMetrics.incrementAndGet();
+                return false;
+            }
+            droppedMetrics.incrementAndGet();
+        }
+        return true;
+    }
+
+    private boolean offerBlocking(final MetricsQueue queue, final String metric) {
+        if (queue.offer(metric)) {
+            return true;
+        }
+
+        if (drainRequest != null) {
+            drainRequest.run();
+        }
+
+        long deadline = System.nanoTime() + blockTimeoutNanos;
+        while (!queue.offer(metric)) {
+            if (System.nanoTime() - deadline >= 0) {
+                droppedMetrics.incrementAndGet();
+                return false;
+            }
+            LockSupport.parkNanos(BLOCK_PARK_NANOS);
+        }
+        return true;
+    }
+
+    private boolean offerSampling(final MetricsQueue queue, final String metric) {
+        if (queue.size() >= highWaterMark && sampled.incrementAndGet() % sampleRate != 0) {
+            droppedMetrics.incrementAndGet();
+            return false;
+        }
+
+        return offerOrDrop(queue, metric);
+    }
+}
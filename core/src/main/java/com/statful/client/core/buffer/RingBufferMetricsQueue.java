@@ -0,0 +1,162 @@
+package com.statful.client.core.buffer;
+
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.List;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.AtomicReferenceArray;
+import java.util.concurrent.locks.ReentrantLock;
+
+/**
+ * A bounded lock-free {@link MetricsQueue}, backed by a ring buffer.
+ * <p>
+ * Producers claim a slot by incrementing the producer sequence with a CAS and then publish the metric into it, so
+ * threads putting metrics never block each other nor the flush. Drains are serialized by a lock, which is only
+ * contended by concurrent flushes, and stop at the first slot which was claimed but not published yet, in order to
+ * keep the metrics ordered.
+ * <p>
+ * Both sequences are padded to live in their own cache lines, so that producers and the draining thread don't
+ * invalidate each other's cache lines when updating them.
+ */
+public final class RingBufferMetricsQueue implements MetricsQueue {
+
+    private final int capacity;
+    private final int mask;
+    private final AtomicReferenceArray<String> slots;
+    private final PaddedSequence producerSequence = new PaddedSequence();
+    private final PaddedSequence consumerSequence = new PaddedSequence();
+    private final ReentrantLock drainLock = new ReentrantLock();
+    private volatile int highWaterMark;
+    private volatile Runnable highWaterListener;
+
+    /**
+     * Constructor.
+     *
+     * @param capacity The maximum number of metrics in the queue
+     */
+    public RingBufferMetricsQueue(final int capacity) {
+        if (capacity < 1) {
+            throw new IllegalArgumentException("Capacity should be positive");
+        }
+
+        int slotsSize = Integer.highestOneBit(capacity);
+        if (slotsSize < capacity) {
+            slotsSize <<= 1;
+        }
+
+        this.capacity = capacity;
+        this.mask = slotsSize - 1;
+        this.slots = new AtomicReferenceArray<String>(slotsSize);
+    }
+
+    @Override
+    public boolean offer(final String metric) {
+        if (metric == null) {
+            throw new NullPointerException();
+        }
+
+        long sequence;
+        long consumed;
+        do {
+            sequence = producerSequence.get();
+            consumed = consumerSequence.get();
+            if (sequence - consumed >= capacity) {
+                return false;
+            }
+        } while (!producerSequence.compareAndSet(sequence, sequence + 1));
+
+        slots.lazySet(indexOf(sequence), metric);
+
+        // The sequence claimed tells whether this put filled the queue up to the mark, without reading anything else
+        Runnable listener = highWaterListener;
+        if (listener != null && sequence + 1 - consumed == highWaterMark) {
+            listener.run();
+        }
+        return true;
+    }
+
+    @Override
+    public int drainTo(final Collection<? super String> collection, final int maxMetrics) {
+        drainLock.lock();
+        try {
+            long sequence = consumerSequence.get();
+            int drained = 0;
+
+            while (drained < maxMetrics) {
+                int index = indexOf(sequence);
+                String metric = slots.get(index);
+                if (metric == null) {
+                    break;
+                }
+
+                slots.lazySet(index, null);
+                collection.add(metric);
+                sequence++;
+                drained++;
+            }
+
+            // Publishing the consumer sequence after clearing the slots keeps producers from reusing them too early
+            consumerSequence.lazySet(sequence);
+            return drained;
+        } finally {
+            drainLock.unlock();
+        }
+    }
+
+    @Override
+    public void collectPending() {
+        // Inserted metrics are available to be drained right away
+    }
+
+    @Override
+    public int size() {
+        long size = producerSequence.get() - consumerSequence.get();
+        return (int) Math.max(0, Math.min(capacity, size));
+    }
+
+    @Override
+    public int readySize() {
+        return size();
+    }
+
+    @Override
+    public void setHighWaterListener(final int highWaterMark, final Runnable listener) {
+        this.highWaterMark = highWaterMark;
+        this.highWaterListener = listener;
+    }
+
+    @Override
+    public List<String> snapshot() {
+        List<String> metrics = new ArrayList<String>();
+        long end = producerSequence.get();
+
+        for (long sequence = consumerSequence.get(); sequence < end; sequence++) {
+            String metric = slots.get(indexOf(sequence));
+            if (metric != null) {
+                metrics.add(metric);
+            }
+        }
+        return metrics;
+    }
+
+    private int indexOf(final long sequence) {
+        return (int) sequence & mask;
+    }
+
+    /**
+     * An {@link AtomicLong} padded up to the size of a cache line, so that it doesn't share one with other fields.
+     */
+    @SuppressWarnings("unused")
+    private static final class PaddedSequence extends AtomicLong {
+
+        private static final long serialVersionUID = 1L;
+
+        private long p1;
+        private long p2;
+        private long p3;
+        private long p4;
+        private long p5;
+        private long p6;
+        private long p7;
+    }
+}
@@ -1,9 +1,10 @@
 package com.statful.client.core.buffer;
 
+import com.statful.client.domain.api.BufferStrategy;
 import com.statful.client.domain.api.MetricsBuffer;
 
 import java.util.ArrayList;
-import java.util.Collection;
+import java.util.List;
 import java.util.concurrent.ArrayBlockingQueue;
 
 /**
@@ -11,9 +12,13 @@ import java.util.concurrent.ArrayBlockingQueue;
  */
 public class StandardBuffer implements MetricsBuffer {
 
-    private ArrayBlockingQueue<String> buffer;
+    private static final int STRIPED_CHUNK_SIZE = 64;
+    private static final long STRIPED_CHUNK_MAX_AGE_MILLIS = 1000;
+
+    private MetricsQueue buffer;
     private int maxBufferSize;
-    private int flushSize;
+    private volatile int flushSize;
+    private OverflowHandler overflowHandler;
 
     /**
      * Constructor.
@@ -21,17 +26,54 @@ public class StandardBuffer implements MetricsBuffer {
      * @param flushSize A {@link Integer} representing the flush size
      */
     public StandardBuffer(final int maxBufferSize, final int flushSize) {
+        this(maxBufferSize, flushSize, BufferStrategy.BLOCKING_QUEUE);
+    }
+
+    /**
+     * Constructor.
+     * @param maxBufferSize A {@link Integer} representing the max buffer size
+     * @param flushSize A {@link Integer} representing the flush size
+     * @param bufferStrategy The {@link BufferStrategy} to use, defaulting to a blocking queue if null
+     */
+    public StandardBuffer(final int maxBufferSize, final int flushSize, final BufferStrategy bufferStrategy) {
+        this(maxBufferSize, flushSize, bufferStrategy, OverflowHandler.dropNewest());
+    }
+
+    /**
+     * Constructor.
+     * @param maxBufferSize A {@link Integer} representing the max buffer size
+     * @param flushSize A {@link Integer} representing the flush size
+     * @param bufferStrategy The {@link BufferStrategy} to use, defaulting to a blocking queue if null
+     * @param overflowHandler The {@link OverflowHandler} to add metrics with
+     */
+    public StandardBuffer(final int maxBufferSize, final int flushSize, final BufferStrategy bufferStrategy,
+                          final OverflowHandler overflowHandler) {
         this.maxBufferSize = maxBufferSize;
         this.flushSize = flushSize;
-        this.buffer = new ArrayBlockingQueue<String>(this.maxBufferSize);
+        this.buffer = createQueue(bufferStrategy, this.maxBufferSize, flushSize);
+        this.overflowHandler = overflowHandler;
     }
 
     /**
      * Get the current buffer.
+     * @return The {@link MetricsQueue} current buffer.
+     */
+    public final MetricsQueue getQueue() {
+        return buffer;
+    }
+
+    /**
+     * Get the current buffer, when it's a blocking queue.
      * @return The {@link ArrayBlockingQueue} current buffer.
+     * @throws UnsupportedOperationException If the buffer strategy isn't {@link BufferStrategy#BLOCKING_QUEUE}
+     * @deprecated Use {@link #getQueue()}, which supports every buffer strategy.
      */
+    @Deprecated
     public final ArrayBlockingQueue<String> getBuffer() {
-        return buffer;
+        if (!(buffer instanceof BlockingMetricsQueue)) {
+            throw new UnsupportedOperationException("Only the blocking queue buffer strategy is backed by an ArrayBlockingQueue, use getQueue()");
+        }
+        return ((BlockingMetricsQueue) buffer).getBackingQueue();
     }
 
     /**
@@ -40,7 +82,24 @@ public class StandardBuffer implements MetricsBuffer {
      * @return A {@link Boolean} with the success of the operation
      */
     public final boolean addToBuffer(final String metric) {
-        return buffer.offer(metric);
+        return addToBuffer(metric, true);
+    }
+
+    /**
+     * Adds a metric to the buffer, without waiting for room if the caller may not block.
+     * @param metric The {@link String} metric name
+     * @param mayBlock Whether the caller may wait for room in the buffer
+     * @return A {@link Boolean} with the success of the operation
+     */
+    public final boolean addToBuffer(final String metric, final boolean mayBlock) {
+        return overflowHandler.offer(buffer, metric, mayBlock);
+    }
+
+    /**
+     * Makes every metric added so far available to be read, even if the buffer strategy would hold it back.
+     */
+    public final void collectPending() {
+        buffer.collectPending();
     }
 
     /**
@@ -48,19 +107,80 @@ public class StandardBuffer implements MetricsBuffer {
      * @return A {@link String} with all the metrics
      */
     public final String readBuffer() {
-        Collection<String> messages = new ArrayList<String>();
-        buffer.drainTo(messages, flushSize);
+        List<String> messages = drainBuffer();
+
+        if (messages.isEmpty()) {
+            return "";
+        }
 
-        StringBuilder sb = new StringBuilder();
+        StringBuilder sb = new StringBuilder(messages.size() * messages.get(0).length() + messages.size());
         for (String metric : messages) {
             sb.append(metric).append("\n");
         }
         return sb.toString();
     }
 
+    /**
+     * Drains up to the flush size metrics from the buffer, without joining them.
+     * @return A {@link List} with the metrics
+     */
+    public final List<String> drainBuffer() {
+        int maxMessages = flushSize;
+        List<String> messages = new ArrayList<String>(Math.max(0, Math.min(maxMessages, buffer.size())));
+        buffer.drainTo(messages, maxMessages);
+        return messages;
+    }
+
+    /**
+     * Sets the listener run by the put which fills the buffer up to the high-water mark.
+     * @param highWaterMark An {@link Integer} representing the number of metrics which triggers the listener
+     * @param listener The {@link Runnable} to run, or null to remove it
+     */
+    public final void setHighWaterListener(final int highWaterMark, final Runnable listener) {
+        buffer.setHighWaterListener(highWaterMark, listener);
+    }
+
+    /**
+     * Get the flush size.
+     * @return An {@link Integer} representing the flush size
+     */
+    public final int getFlushSize() {
+        return flushSize;
+    }
+
+    /**
+     * Changes the flush size, which takes effect on the next read.
+     * @param flushSize An {@link Integer} representing the flush size
+     */
+    public final void setFlushSize(final int flushSize) {
+        this.flushSize = flushSize;
+    }
+
+    /**
+     * Checks whether the metrics ready to be read reach the flush size. With the
+     * {@link BufferStrategy#STRIPED} strategy, the metrics of chunks still being filled aren't counted.
+     * @return A {@link Boolean} with whether a flush is due
+     */
     @Override
     public final boolean isTimeToFlush() {
-        int bufferSize = buffer.size();
+        int bufferSize = buffer.readySize();
         return bufferSize > 0 && flushSize <= bufferSize;
     }
+
+    private static MetricsQueue createQueue(final BufferStrategy bufferStrategy, final int capacity, final int flushSize) {
+        if (bufferStrategy == null) {
+            return new BlockingMetricsQueue(capacity);
+        }
+
+        switch (bufferStrategy) {
+            case RING_BUFFER:
+                return new RingBufferMetricsQueue(capacity);
+            case STRIPED:
+                // Chunks no larger than the flush size are handed off, and trigger a flush, once a thread fills one
+                int chunkSize = Math.max(1, Math.min(STRIPED_CHUNK_SIZE, flushSize));
+                return new StripedMetricsQueue(capacity, chunkSize, STRIPED_CHUNK_MAX_AGE_MILLIS);
+            default:
+                return new BlockingMetricsQueue(capacity);
+        }
+    }
 }
@@ -0,0 +1,340 @@
+package com.statful.client.core.buffer;
+
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.Iterator;
+import java.util.List;
+import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.locks.ReentrantLock;
+
+/**
+ * A bounded {@link MetricsQueue} which stripes metrics over per-thread chunks.
+ * <p>
+ * Each thread putting metrics appends them to its own chunk, so that the put path doesn't write to any memory shared
+ * with other threads. Chunks are handed off to be drained once they're full, or once they're older than the maximum
+ * chunk age when the queue is drained. Only the metrics of chunks handed off are counted by {@link #readySize()},
+ * which reads a single counter, so that checking whether it's time to flush on every put doesn't read the chunks of
+ * other threads: flushes by size are triggered as full chunks are handed off. When the chunks handed off don't make up the batch being drained but the open
+ * ones would, they're all handed off too. {@link #collectPending()} hands off every chunk regardless of its age.
+ * <p>
+ * The capacity is reserved a chunk at a time, so it's never exceeded, but metrics are only ordered within the
+ * chunk of each thread. Chunks shrink as more threads hold one, so that the capacity is shared by all of them, and
+ * when none can be reserved the open chunks are handed off to release the capacity they reserved but didn't use.
+ * <p>
+ * Instances of this class are thread-safe.
+ */
+public final class StripedMetricsQueue implements MetricsQueue {
+
+    private final int capacity;
+    private final int chunkSize;
+    private final long maxChunkAgeNanos;
+    private final AtomicInteger reserved = new AtomicInteger();
+    private final AtomicInteger ready = new AtomicInteger();
+    private final AtomicInteger openChunkCount = new AtomicInteger();
+    private final ConcurrentLinkedQueue<Chunk> openChunks = new ConcurrentLinkedQueue<Chunk>();
+    private final ConcurrentLinkedQueue<Chunk> readyChunks = new ConcurrentLinkedQueue<Chunk>();
+    private final ReentrantLock drainLock = new ReentrantLock();
+    private final ThreadLocal<Chunk> currentChunk = new ThreadLocal<Chunk>();
+    private volatile int highWaterMark;
+    private volatile Runnable highWaterListener;
+
+    private Chunk drainingChunk;
+
+    /**
+     * Constructor.
+     *
+     * @param capacity The maximum number of metrics in the queue
+     * @param chunkSize The maximum number of metrics in the chunk of each thread
+     * @param maxChunkAgeMillis The age after which a chunk is drained even if it isn't full, in milliseconds
+     */
+    public StripedMetricsQueue(final int capacity, final int chunkSize, final long maxChunkAgeMillis) {
+        if (capacity < 1 || chunkSize < 1) {
+            throw new IllegalArgumentException("Capacity and chunk size should be positive");
+        }
+
+        this.capacity = capacity;
+        this.chunkSize = chunkSize;
+        this.maxChunkAgeNanos = TimeUnit.MILLISECONDS.toNanos(maxChunkAgeMillis);
+    }
+
+    @Override
+    public boolean offer(final String metric) {
+        if (metric == null) {
+            throw new NullPointerException();
+        }
+
+        Chunk chunk = currentChunk.get();
+        while (true) {
+            if (chunk == null) {
+                chunk = newChunk();
+                if (chunk == null) {
+                    return false;
+                }
+                currentChunk.set(chunk);
+            }
+
+            if (chunk.append(metric)) {
+                return true;
+            }
+
+            // The chunk is either full or was sealed while being drained
+            handOff(chunk);
+            chunk = null;
+            currentChunk.remove();
+        }
+    }
+
+    @Override
+    public int drainTo(final Collection<? super String> collection, final int maxMetrics) {
+        drainLock.lock();
+        try {
+            handOffOpenChunks(ready.get() < maxMetrics && size() >= maxMetrics);
+
+            int drained = 0;
+            while (drained < maxMetrics) {
+                if (drainingChunk == null) {
+                    drainingChunk = readyChunks.poll();
+                    if (drainingChunk == null) {
+                        break;
+                    }
+                }
+
+                drained += drainingChunk.drainTo(collection, maxMetrics - drained);
+                if (drainingChunk.isDrained()) {
+                    drainingChunk = null;
+                }
+            }
+
+            ready.addAndGet(-drained);
+            reserved.addAndGet(-drained);
+            return drained;
+        } finally {
+            drainLock.unlock();
+        }
+    }
+
+    /**
+     * Hands off every chunk to be drained, including the ones which aren't full nor expired.
+     */
+    @Override
+    public void collectPending() {
+        drainLock.lock();
+        try {
+            handOffOpenChunks(true);
+        } finally {
+            drainLock.unlock();
+        }
+    }
+
+    /**
+     * Returns the number of metrics in the queue, including the ones in chunks not handed off yet. Reads the chunks
+     * of every thread, so it's meant for flushes rather than the put path.
+     *
+     * @return The number of metrics
+     */
+    @Override
+    public int size() {
+        int size = ready.get();
+        for (Chunk chunk : openChunks) {
+            size += chunk.size();
+        }
+        return size;
+    }
+
+    /**
+     * Returns the number of metrics in the chunks handed off and not drained yet.
+     *
+     * @return The number of metrics ready to be drained
+     */
+    @Override
+    public int readySize() {
+        return ready.get();
+    }
+
+    /**
+     * Sets the listener run when reserving a chunk makes the capacity reserved reach the high-water mark, so that it's
+     * detected once per chunk rather than on every put.
+     *
+     * @param highWaterMark The number of metrics reserved which triggers the listener
+     * @param listener The {@link Runnable} to run on the putting thread, or null to remove it
+     */
+    @Override
+    public void setHighWaterListener(final int highWaterMark, final Runnable listener) {
+        this.highWaterMark = highWaterMark;
+        this.highWaterListener = listener;
+    }
+
+    @Override
+    public List<String> snapshot() {
+        List<String> metrics = new ArrayList<String>();
+
+        drainLock.lock();
+        try {
+            if (drainingChunk != null) {
+                drainingChunk.copyTo(metrics);
+            }
+            for (Chunk chunk : readyChunks) {
+                chunk.copyTo(metrics);
+            }
+            for (Chunk chunk : openChunks) {
+                if (!chunk.isSealed()) {
+                    chunk.copyTo(metrics);
+                }
+            }
+        } finally {
+            drainLock.unlock();
+        }
+        return metrics;
+    }
+
+    private Chunk newChunk() {
+        Chunk chunk = reserveChunk();
+        if (chunk == null) {
+            // The capacity may be reserved by the chunks of other threads without being used
+            handOffOpenChunks(true);
+            chunk = reserveChunk();
+        }
+        return chunk;
+    }
+
+    private Chunk reserveChunk() {
+        int stripeSize = Math.max(1, Math.min(chunkSize, capacity / (openChunkCount.get() + 1)));
+
+        int current;
+        int reservation;
+        do {
+            current = reserved.get();
+            reservation = Math.min(stripeSize, capacity - current);
+            if (reservation <= 0) {
+                return null;
+            }
+        } while (!reserved.compareAndSet(current, current + reservation));
+
+        Chunk chunk = new Chunk(reservation, System.nanoTime());
+        openChunkCount.incrementAndGet();
+        openChunks.offer(chunk);
+
+        Runnable listener = highWaterListener;
+        if (listener != null && current < highWaterMark && current + reservation >= highWaterMark) {
+            listener.run();
+        }
+        return chunk;
+    }
+
+    private void handOff(final Chunk chunk) {
+        int size = chunk.seal();
+        if (size < 0) {
+            // Already handed off by someone else
+            return;
+        }
+
+        openChunkCount.decrementAndGet();
+        reserved.addAndGet(size - chunk.capacity());
+        if (size > 0) {
+            ready.addAndGet(size);
+            readyChunks.offer(chunk);
+        }
+    }
+
+    private void handOffOpenChunks(final boolean all) {
+        long now = System.nanoTime();
+
+        Iterator<Chunk> iterator = openChunks.iterator();
+        while (iterator.hasNext()) {
+            Chunk chunk = iterator.next();
+
+            if (chunk.isSealed()) {
+                iterator.remove();
+            } else if (all || now - chunk.getCreatedNanos() >= maxChunkAgeNanos) {
+                handOff(chunk);
+                iterator.remove();
+            }
+        }
+    }
+
+    /**
+     * A chunk of metrics appended by a single thread.
+     * <p>
+     * The number of metrics and the sealed flag share the same {@link AtomicInteger}, so that appending a metric and
+     * sealing the chunk can't race: a metric is only part of the chunk if its size was incremented before the chunk
+     * was sealed.
+     */
+    private static final class Chunk {
+
+        private static final int SEALED = Integer.MIN_VALUE;
+
+        private final String[] metrics;
+        private final long createdNanos;
+        private final AtomicInteger state = new AtomicInteger();
+
+        private int size = -1;
+        private int drained;
+
+        private Chunk(final int capacity, final long createdNanos) {
+            this.metrics = new String[capacity];
+            this.createdNanos = createdNanos;
+        }
+
+        private boolean append(final String metric) {
+            int current = state.get();
+            if ((current & SEALED) != 0 || current == metrics.length) {
+                return false;
+            }
+
+            metrics[current] = metric;
+            return state.compareAndSet(current, current + 1);
+        }
+
+        private int seal() {
+            while (true) {
+                int current = state.get();
+                if ((current & SEALED) != 0) {
+                    return -1;
+                }
+                if (state.compareAndSet(current, current | SEALED)) {
+                    size = current;
+                    return current;
+                }
+            }
+        }
+
+        private boolean isSealed() {
+            return (state.get() & SEALED) != 0;
+        }
+
+        private int size() {
+            int current = state.get();
+            return (current & SEALED) != 0 ? 0 : current;
+        }
+
+        private int drainTo(final Collection<? super String> collection, final int maxMetrics) {
+            int count = Math.min(size - drained, maxMetrics);
+            for (int i = 0; i < count; i++) {
+                collection.add(metrics[drained]);
+                metrics[drained++] = null;
+            }
+            return count;
+        }
+
+        private boolean isDrained() {
+            return drained == size;
+        }
+
+        private void copyTo(final List<String> list) {
+            int end = state.get() & ~SEALED;
+            for (int i = drained; i < end; i++) {
+                list.add(metrics[i]);
+            }
+        }
+
+        private int capacity() {
+            return metrics.length;
+        }
+
+        private long getCreatedNanos() {
+            return createdNanos;
+        }
+    }
+}
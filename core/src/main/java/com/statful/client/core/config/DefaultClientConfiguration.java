@@ -2,6 +2,9 @@ package com.statful.client.core.config;
 
 import com.statful.client.domain.api.*;
 
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.ScheduledExecutorService;
+
 /**
  * This is thh default client configuration class.
  */
@@ -23,6 +26,22 @@ public class DefaultClientConfiguration implements ClientConfiguration {
     private static final int DEFAULT_FLUSH_SIZE = 10;
     private static final int DEFAULT_FLUSH_INTERVAL_MS = 5000;
     private static final AggregationFrequency DEFAULT_AGGREGATION_FREQ = AggregationFrequency.FREQ_10;
+    private static final BufferStrategy DEFAULT_BUFFER_STRATEGY = BufferStrategy.BLOCKING_QUEUE;
+    private static final OverflowPolicy DEFAULT_OVERFLOW_POLICY = OverflowPolicy.DROP_NEWEST;
+    private static final long DEFAULT_OVERFLOW_BLOCK_TIMEOUT_MS = 100;
+    private static final int DEFAULT_OVERFLOW_SAMPLE_RATE = 10;
+    private static final int DEFAULT_UDP_MAX_PAYLOAD_SIZE = 1432;
+    private static final long DEFAULT_DNS_REFRESH_INTERVAL_MS = 30000;
+    private static final AddressSelection DEFAULT_ADDRESS_SELECTION = AddressSelection.FIRST;
+    private static final int DEFAULT_HTTP_MAX_IN_FLIGHT_BYTES = 4 * 1024 * 1024;
+    private static final int DEFAULT_HTTP_COMPRESSION_MIN_BYTES = 1024;
+    private static final int DEFAULT_HTTP_MAX_RETRIES = 2;
+    private static final long DEFAULT_HTTP_RETRY_BACKOFF_MS = 100;
+    private static final int DEFAULT_HTTP_RETRY_BUDGET_PER_SECOND = 10;
+    private static final long DEFAULT_CIRCUIT_BREAKER_OPEN_MS = 10000;
+    private static final long DEFAULT_SPOOL_MAX_BYTES = 64 * 1024 * 1024;
+    private static final SpoolSyncPolicy DEFAULT_SPOOL_SYNC_POLICY = SpoolSyncPolicy.ON_ROTATE;
+    private static final int DEFAULT_VIRTUAL_THREADS_MAX_CONCURRENCY = 64;
 
     private static final Tags DEFAULT_APP_TAGS = Tags.from("statful_client", "java");
     private static final Tags DEFAULT_TIMER_TAGS = Tags.from("unit", "ms");
@@ -39,6 +58,32 @@ public class DefaultClientConfiguration implements ClientConfiguration {
     private long flushIntervalMillis = DEFAULT_FLUSH_INTERVAL_MS;
 
     private boolean isDryRun;
+    private boolean preAggregationEnabled;
+    private boolean selfMetricsEnabled;
+    private boolean jmxEnabled;
+    private BufferStrategy bufferStrategy = DEFAULT_BUFFER_STRATEGY;
+    private OverflowPolicy overflowPolicy = DEFAULT_OVERFLOW_POLICY;
+    private long overflowBlockTimeoutMillis = DEFAULT_OVERFLOW_BLOCK_TIMEOUT_MS;
+    private int overflowSampleRate = DEFAULT_OVERFLOW_SAMPLE_RATE;
+    private int udpMaxPayloadSize = DEFAULT_UDP_MAX_PAYLOAD_SIZE;
+    private long dnsRefreshIntervalMillis = DEFAULT_DNS_REFRESH_INTERVAL_MS;
+    private AddressSelection addressSelection = DEFAULT_ADDRESS_SELECTION;
+    private int httpMaxInFlightBytes = DEFAULT_HTTP_MAX_IN_FLIGHT_BYTES;
+    private boolean httpCompressionEnabled;
+    private int httpCompressionMinBytes = DEFAULT_HTTP_COMPRESSION_MIN_BYTES;
+    private int httpMaxRetries = DEFAULT_HTTP_MAX_RETRIES;
+    private long httpRetryBackoffMillis = DEFAULT_HTTP_RETRY_BACKOFF_MS;
+    private int httpRetryBudgetPerSecond = DEFAULT_HTTP_RETRY_BUDGET_PER_SECOND;
+    private int circuitBreakerThreshold;
+    private long circuitBreakerOpenMillis = DEFAULT_CIRCUIT_BREAKER_OPEN_MS;
+    private String spoolDirectory;
+    private long spoolMaxBytes = DEFAULT_SPOOL_MAX_BYTES;
+    private SpoolSyncPolicy spoolSyncPolicy = DEFAULT_SPOOL_SYNC_POLICY;
+    private boolean virtualThreadsEnabled;
+    private int virtualThreadsMaxConcurrency = DEFAULT_VIRTUAL_THREADS_MAX_CONCURRENCY;
+    private ScheduledExecutorService scheduler;
+    private ExecutorService workerExecutor;
+    private boolean adaptiveFlushEnabled;
     private boolean secure = DEFAULT_SECURE;
     private Transport transport;
     private String token;
@@ -156,6 +201,136 @@ public class DefaultClientConfiguration implements ClientConfiguration {
         return TASK_KILLER_INTERVAL;
     }
 
+    @Override
+    public final boolean isPreAggregationEnabled() {
+        return preAggregationEnabled;
+    }
+
+    @Override
+    public final boolean isSelfMetricsEnabled() {
+        return selfMetricsEnabled;
+    }
+
+    @Override
+    public final boolean isJmxEnabled() {
+        return jmxEnabled;
+    }
+
+    @Override
+    public final int getUdpMaxPayloadSize() {
+        return udpMaxPayloadSize;
+    }
+
+    @Override
+    public final long getDnsRefreshIntervalMillis() {
+        return dnsRefreshIntervalMillis;
+    }
+
+    @Override
+    public final AddressSelection getAddressSelection() {
+        return addressSelection;
+    }
+
+    @Override
+    public final int getHttpMaxInFlightBytes() {
+        return httpMaxInFlightBytes;
+    }
+
+    @Override
+    public final boolean isHttpCompressionEnabled() {
+        return httpCompressionEnabled;
+    }
+
+    @Override
+    public final int getHttpCompressionMinBytes() {
+        return httpCompressionMinBytes;
+    }
+
+    @Override
+    public final int getHttpMaxRetries() {
+        return httpMaxRetries;
+    }
+
+    @Override
+    public final long getHttpRetryBackoffMillis() {
+        return httpRetryBackoffMillis;
+    }
+
+    @Override
+    public final int getHttpRetryBudgetPerSecond() {
+        return httpRetryBudgetPerSecond;
+    }
+
+    @Override
+    public final int getCircuitBreakerThreshold() {
+        return circuitBreakerThreshold;
+    }
+
+    @Override
+    public final long getCircuitBreakerOpenMillis() {
+        return circuitBreakerOpenMillis;
+    }
+
+    @Override
+    public final String getSpoolDirectory() {
+        return spoolDirectory;
+    }
+
+    @Override
+    public final long getSpoolMaxBytes() {
+        return spoolMaxBytes;
+    }
+
+    @Override
+    public final SpoolSyncPolicy getSpoolSyncPolicy() {
+        return spoolSyncPolicy;
+    }
+
+    @Override
+    public final boolean isVirtualThreadsEnabled() {
+        return virtualThreadsEnabled;
+    }
+
+    @Override
+    public final int getVirtualThreadsMaxConcurrency() {
+        return virtualThreadsMaxConcurrency;
+    }
+
+    @Override
+    public final ScheduledExecutorService getScheduler() {
+        return scheduler;
+    }
+
+    @Override
+    public final ExecutorService getWorkerExecutor() {
+        return workerExecutor;
+    }
+
+    @Override
+    public final boolean isAdaptiveFlushEnabled() {
+        return adaptiveFlushEnabled;
+    }
+
+    @Override
+    public final BufferStrategy getBufferStrategy() {
+        return bufferStrategy;
+    }
+
+    @Override
+    public final OverflowPolicy getOverflowPolicy() {
+        return overflowPolicy;
+    }
+
+    @Override
+    public final long getOverflowBlockTimeoutMillis() {
+        return overflowBlockTimeoutMillis;
+    }
+
+    @Override
+    public final int getOverflowSampleRate() {
+        return overflowSampleRate;
+    }
+
     @Override
     public final Tags getTimerTags() {
         return timerTags;
@@ -344,6 +519,240 @@ public class DefaultClientConfiguration implements ClientConfiguration {
         this.socketTimeoutMillis = socketTimeoutMillis;
     }
 
+    /**
+     * Setter for pre-aggregation.
+     *
+     * @param preAggregationEnabled The pre-aggregation flag
+     */
+    public final void setPreAggregationEnabled(final boolean preAggregationEnabled) {
+        this.preAggregationEnabled = preAggregationEnabled;
+    }
+
+    /**
+     * Setter for self-metrics.
+     *
+     * @param selfMetricsEnabled The self-metrics flag
+     */
+    public final void setSelfMetricsEnabled(final boolean selfMetricsEnabled) {
+        this.selfMetricsEnabled = selfMetricsEnabled;
+    }
+
+    /**
+     * Setter for JMX.
+     *
+     * @param jmxEnabled The JMX flag
+     */
+    public final void setJmxEnabled(final boolean jmxEnabled) {
+        this.jmxEnabled = jmxEnabled;
+    }
+
+    /**
+     * Setter for the UDP maximum payload size.
+     *
+     * @param udpMaxPayloadSize The maximum payload size of each UDP datagram, in bytes
+     */
+    public final void setUdpMaxPayloadSize(final int udpMaxPayloadSize) {
+        this.udpMaxPayloadSize = udpMaxPayloadSize;
+    }
+
+    /**
+     * Setter for the DNS refresh interval.
+     *
+     * @param dnsRefreshIntervalMillis The interval between resolutions of the host, in milliseconds
+     */
+    public final void setDnsRefreshIntervalMillis(final long dnsRefreshIntervalMillis) {
+        this.dnsRefreshIntervalMillis = dnsRefreshIntervalMillis;
+    }
+
+    /**
+     * Setter for the address selection.
+     *
+     * @param addressSelection The {@link com.statful.client.domain.api.AddressSelection} to use
+     */
+    public final void setAddressSelection(final AddressSelection addressSelection) {
+        this.addressSelection = addressSelection;
+    }
+
+    /**
+     * Setter for the HTTP maximum bytes in flight.
+     *
+     * @param httpMaxInFlightBytes The maximum size of the request bodies in flight, in bytes
+     */
+    public final void setHttpMaxInFlightBytes(final int httpMaxInFlightBytes) {
+        this.httpMaxInFlightBytes = httpMaxInFlightBytes;
+    }
+
+    /**
+     * Setter for the HTTP compression flag.
+     *
+     * @param httpCompressionEnabled The HTTP compression flag
+     */
+    public final void setHttpCompressionEnabled(final boolean httpCompressionEnabled) {
+        this.httpCompressionEnabled = httpCompressionEnabled;
+    }
+
+    /**
+     * Setter for the HTTP compression minimum size.
+     *
+     * @param httpCompressionMinBytes The minimum size of the request bodies to compress, in bytes
+     */
+    public final void setHttpCompressionMinBytes(final int httpCompressionMinBytes) {
+        this.httpCompressionMinBytes = httpCompressionMinBytes;
+    }
+
+    /**
+     * Setter for the HTTP maximum retries.
+     *
+     * @param httpMaxRetries The maximum number of retries of each request
+     */
+    public final void setHttpMaxRetries(final int httpMaxRetries) {
+        this.httpMaxRetries = httpMaxRetries;
+    }
+
+    /**
+     * Setter for the HTTP retry backoff.
+     *
+     * @param httpRetryBackoffMillis The backoff before the first retry, in milliseconds
+     */
+    public final void setHttpRetryBackoffMillis(final long httpRetryBackoffMillis) {
+        this.httpRetryBackoffMillis = httpRetryBackoffMillis;
+    }
+
+    /**
+     * Setter for the HTTP retry budget.
+     *
+     * @param httpRetryBudgetPerSecond The maximum number of retries per second
+     */
+    public final void setHttpRetryBudgetPerSecond(final int httpRetryBudgetPerSecond) {
+        this.httpRetryBudgetPerSecond = httpRetryBudgetPerSecond;
+    }
+
+    /**
+     * Setter for the circuit breaker failure threshold.
+     *
+     * @param circuitBreakerThreshold The number of consecutive failures which opens the circuit, or zero to disable it
+     */
+    public final void setCircuitBreakerThreshold(final int circuitBreakerThreshold) {
+        this.circuitBreakerThreshold = circuitBreakerThreshold;
+    }
+
+    /**
+     * Setter for the circuit breaker open interval.
+     *
+     * @param circuitBreakerOpenMillis How long the circuit stays open, in milliseconds
+     */
+    public final void setCircuitBreakerOpenMillis(final long circuitBreakerOpenMillis) {
+        this.circuitBreakerOpenMillis = circuitBreakerOpenMillis;
+    }
+
+    /**
+     * Setter for the spool directory.
+     *
+     * @param spoolDirectory The directory of the spool files, or null to disable the spool
+     */
+    public final void setSpoolDirectory(final String spoolDirectory) {
+        this.spoolDirectory = spoolDirectory;
+    }
+
+    /**
+     * Setter for the spool maximum size.
+     *
+     * @param spoolMaxBytes The maximum total size of the spool files, in bytes
+     */
+    public final void setSpoolMaxBytes(final long spoolMaxBytes) {
+        this.spoolMaxBytes = spoolMaxBytes;
+    }
+
+    /**
+     * Setter for the spool sync policy.
+     *
+     * @param spoolSyncPolicy The {@link com.statful.client.domain.api.SpoolSyncPolicy} to use
+     */
+    public final void setSpoolSyncPolicy(final SpoolSyncPolicy spoolSyncPolicy) {
+        this.spoolSyncPolicy = spoolSyncPolicy;
+    }
+
+    /**
+     * Setter for the virtual threads flag.
+     *
+     * @param virtualThreadsEnabled Flag to send metrics on virtual threads
+     */
+    public final void setVirtualThreadsEnabled(final boolean virtualThreadsEnabled) {
+        this.virtualThreadsEnabled = virtualThreadsEnabled;
+    }
+
+    /**
+     * Setter for the virtual threads maximum concurrency.
+     *
+     * @param virtualThreadsMaxConcurrency The maximum number of batches sent concurrently on virtual threads
+     */
+    public final void setVirtualThreadsMaxConcurrency(final int virtualThreadsMaxConcurrency) {
+        this.virtualThreadsMaxConcurrency = virtualThreadsMaxConcurrency;
+    }
+
+    /**
+     * Setter for the scheduler.
+     *
+     * @param scheduler The {@link java.util.concurrent.ScheduledExecutorService} running the periodic tasks
+     */
+    public final void setScheduler(final ScheduledExecutorService scheduler) {
+        this.scheduler = scheduler;
+    }
+
+    /**
+     * Setter for the worker executor.
+     *
+     * @param workerExecutor The {@link java.util.concurrent.ExecutorService} running the sender workers
+     */
+    public final void setWorkerExecutor(final ExecutorService workerExecutor) {
+        this.workerExecutor = workerExecutor;
+    }
+
+    /**
+     * Setter for the adaptive flush flag.
+     *
+     * @param adaptiveFlushEnabled Flag to schedule flushes according to the arrival rate of metrics
+     */
+    public final void setAdaptiveFlushEnabled(final boolean adaptiveFlushEnabled) {
+        this.adaptiveFlushEnabled = adaptiveFlushEnabled;
+    }
+
+    /**
+     * Setter for the buffer strategy.
+     *
+     * @param bufferStrategy The {@link com.statful.client.domain.api.BufferStrategy} to use
+     */
+    public final void setBufferStrategy(final BufferStrategy bufferStrategy) {
+        this.bufferStrategy = bufferStrategy;
+    }
+
+    /**
+     * Setter for the overflow policy.
+     *
+     * @param overflowPolicy The {@link com.statful.client.domain.api.OverflowPolicy} to apply
+     */
+    public final void setOverflowPolicy(final OverflowPolicy overflowPolicy) {
+        this.overflowPolicy = overflowPolicy;
+    }
+
+    /**
+     * Setter for the overflow block timeout.
+     *
+     * @param overflowBlockTimeoutMillis The timeout in milliseconds
+     */
+    public final void setOverflowBlockTimeoutMillis(final long overflowBlockTimeoutMillis) {
+        this.overflowBlockTimeoutMillis = overflowBlockTimeoutMillis;
+    }
+
+    /**
+     * Setter for the overflow sample rate.
+     *
+     * @param overflowSampleRate The overflow sample rate
+     */
+    public final void setOverflowSampleRate(final int overflowSampleRate) {
+        this.overflowSampleRate = overflowSampleRate;
+    }
+
     /**
      * Setter for aggregation frequency for timer.
      *
@@ -0,0 +1,219 @@
+package com.statful.client.core.diagnostics;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.WeakHashMap;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.AtomicReference;
+import java.util.logging.Level;
+import java.util.logging.Logger;
+
+/**
+ * Counts the failures of the client and logs them in a single summarised line per interval, instead of a line per
+ * failure.
+ * <p>
+ * Failures are identified by a constant message. Any detail about a failure, such as an exception, is only kept as
+ * the last detail of its kind and converted to a {@link String} when the summary is logged, so that recording a
+ * failure never builds log messages. The first failure is logged as soon as it's recorded, and the failures recorded
+ * afterwards are summarised once the interval is over, by the first failure recorded past the end of the interval,
+ * by {@link #reportDue()}, which the client runs periodically so that the last failures before a quiet period are
+ * logged too, or by an explicit {@link #report()}. The client reports every instance on shutdown with
+ * {@link #reportAll()}.
+ * <p>
+ * Instances of this class are thread-safe.
+ */
+public final class Diagnostics {
+
+    private static final long DEFAULT_REPORT_INTERVAL_MILLIS = 10000;
+    // Weakly referenced, so that instances which aren't held in a static field don't outlive their owners
+    private static final Set<Diagnostics> INSTANCES = Collections.synchronizedSet(
+            Collections.newSetFromMap(new WeakHashMap<Diagnostics, Boolean>()));
+
+    private final Logger logger;
+    private final long reportIntervalNanos;
+    private final AtomicLong nextReportNanos;
+    private final ConcurrentMap<String, Failure> failures = new ConcurrentHashMap<String, Failure>();
+
+    /**
+     * Constructor which summarises failures every 10 seconds.
+     *
+     * @param logger The {@link Logger} to log the summaries to
+     */
+    public Diagnostics(final Logger logger) {
+        this(logger, DEFAULT_REPORT_INTERVAL_MILLIS);
+    }
+
+    /**
+     * Constructor.
+     *
+     * @param logger The {@link Logger} to log the summaries to
+     * @param reportIntervalMillis The interval between summaries, in milliseconds
+     */
+    public Diagnostics(final Logger logger, final long reportIntervalMillis) {
+        this.logger = logger;
+        this.reportIntervalNanos = TimeUnit.MILLISECONDS.toNanos(reportIntervalMillis);
+        this.nextReportNanos = new AtomicLong(System.nanoTime());
+        INSTANCES.add(this);
+    }
+
+    /**
+     * Logs the failures recorded by every instance whose interval is over since its last summary.
+     */
+    public static void reportDue() {
+        for (Diagnostics diagnostics : instances()) {
+            // Quiet instances keep their interval over, so that their next failure is logged right away
+            if (diagnostics.hasPendingFailures()) {
+                diagnostics.reportIfDue();
+            }
+        }
+    }
+
+    /**
+     * Logs the failures recorded by every instance since its last summary, regardless of its interval.
+     */
+    public static void reportAll() {
+        for (Diagnostics diagnostics : instances()) {
+            diagnostics.report();
+        }
+    }
+
+    /**
+     * Records a failure logged as a warning.
+     *
+     * @param message The constant message identifying the failure
+     */
+    public void warning(final String message) {
+        record(Level.WARNING, message, null);
+    }
+
+    /**
+     * Records a failure logged as a warning.
+     *
+     * @param message The constant message identifying the failure
+     * @param detail The detail of the failure, only converted to a {@link String} if it's logged
+     */
+    public void warning(final String message, final Object detail) {
+        record(Level.WARNING, message, detail);
+    }
+
+    /**
+     * Records a failure logged as severe.
+     *
+     * @param message The constant message identifying the failure
+     * @param detail The detail of the failure, only converted to a {@link String} if it's logged
+     */
+    public void severe(final String message, final Object detail) {
+        record(Level.SEVERE, message, detail);
+    }
+
+    /**
+     * Returns how many times a failure was recorded since this instance was created.
+     *
+     * @param message The constant message identifying the failure
+     * @return The number of failures
+     */
+    public long getCount(final String message) {
+        Failure failure = failures.get(message);
+        return failure != null ? failure.total.get() : 0;
+    }
+
+    /**
+     * Logs the failures recorded since the last summary, if any.
+     */
+    public void report() {
+        StringBuilder summary = null;
+        Level level = Level.WARNING;
+
+        for (Map.Entry<String, Failure> entry : failures.entrySet()) {
+            Failure failure = entry.getValue();
+            long count = failure.pending.getAndSet(0);
+            if (count == 0) {
+                continue;
+            }
+
+            if (summary == null) {
+                summary = new StringBuilder("Statful client failures since last report: ");
+            } else {
+                summary.append("; ");
+            }
+            summary.append(entry.getKey()).append(" (x").append(count);
+
+            Object detail = failure.lastDetail.getAndSet(null);
+            if (detail != null) {
+                summary.append(", last: ").append(detail);
+            }
+            summary.append(')');
+
+            if (failure.level.intValue() > level.intValue()) {
+                level = failure.level;
+            }
+        }
+
+        if (summary != null) {
+            logger.log(level, summary.toString());
+        }
+    }
+
+    private void record(final Level level, final String message, final Object detail) {
+        Failure failure = failures.get(message);
+        if (failure == null) {
+            Failure created = new Failure(level);
+            failure = failures.putIfAbsent(message, created);
+            if (failure == null) {
+                failure = created;
+            }
+        }
+
+        failure.total.incrementAndGet();
+        failure.pending.incrementAndGet();
+        if (detail != null) {
+            failure.lastDetail.lazySet(detail);
+        }
+
+        reportIfDue();
+    }
+
+    private void reportIfDue() {
+        long next = nextReportNanos.get();
+        long now = System.nanoTime();
+        if (now - next >= 0 && nextReportNanos.compareAndSet(next, now + reportIntervalNanos)) {
+            report();
+        }
+    }
+
+    private boolean hasPendingFailures() {
+        for (Failure failure : failures.values()) {
+            if (failure.pending.get() > 0) {
+                return true;
+            }
+        }
+        return false;
+    }
+
+    private static List<Diagnostics> instances() {
+        synchronized (INSTANCES) {
+            return new ArrayList<Diagnostics>(INSTANCES);
+        }
+    }
+
+    /**
+     * The counters of a single kind of failure.
+     */
+    private static final class Failure {
+
+        private final Level level;
+        private final AtomicLong total = new AtomicLong();
+        private final AtomicLong pending = new AtomicLong();
+        private final AtomicReference<Object> lastDetail = new AtomicReference<Object>();
+
+        private Failure(final Level level) {
+            this.level = level;
+        }
+    }
+}
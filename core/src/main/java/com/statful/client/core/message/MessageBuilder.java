@@ -5,23 +5,47 @@ import com.statful.client.domain.api.AggregationFrequency;
 import com.statful.client.domain.api.Aggregations;
 import com.statful.client.domain.api.Tags;
 
+import java.lang.invoke.MethodHandle;
+import java.lang.invoke.MethodHandles;
+import java.lang.invoke.MethodType;
 import java.util.ArrayList;
+import java.util.Collection;
 import java.util.HashMap;
-import java.util.List;
 import java.util.Map;
 
 /**
  * Statful message builder. This is an internal class to build messages from the metric data.
  * <p>
  * Message format follows the specification of Statful API.
+ * <p>
+ * The builder keeps references to the passed tags and aggregations instead of copying them, and writes the message
+ * into a reusable per-thread {@link StringBuilder}, so building a message only allocates the resulting line. Virtual
+ * threads are usually short-lived and may number in the millions, so on them the builder writes into a new
+ * {@link StringBuilder} instead, rather than leaving one behind on each of them.
  */
 public final class MessageBuilder {
 
+    private static final int INITIAL_LINE_CAPACITY = 256;
+    private static final int MAX_RETAINED_LINE_CAPACITY = 4096;
+    private static final double MAX_PLAIN_DOUBLE = 1.0E7;
+
+    private static final MethodHandle IS_VIRTUAL = findIsVirtual();
+
+    private static final ThreadLocal<StringBuilder> LINE_BUILDER = new ThreadLocal<StringBuilder>() {
+        @Override
+        protected StringBuilder initialValue() {
+            return new StringBuilder(INITIAL_LINE_CAPACITY);
+        }
+    };
+
     private String namespace;
     private String name;
-    private Map<String, String> tags = new HashMap<String, String>();
-    private List<Aggregation> aggregations = new ArrayList<Aggregation>();
+    private Map<String, String> tags;
+    private Collection<Aggregation> aggregations;
     private String value;
+    private long longValue;
+    private double doubleValue;
+    private ValueType valueType = ValueType.NONE;
     private long timestamp;
     private AggregationFrequency aggregationFrequency = AggregationFrequency.FREQ_10;
     private Integer sampleRate;
@@ -70,7 +94,13 @@ public final class MessageBuilder {
      */
     public MessageBuilder withTags(final Tags tags) {
         if (tags != null) {
-            this.tags.putAll(tags.getTags());
+            if (this.tags == null) {
+                this.tags = tags.getTags();
+            } else {
+                Map<String, String> mergedTags = new HashMap<String, String>(this.tags);
+                mergedTags.putAll(tags.getTags());
+                this.tags = mergedTags;
+            }
         }
         return this;
     }
@@ -83,6 +113,32 @@ public final class MessageBuilder {
      */
     public MessageBuilder withValue(final String value) {
         this.value = value;
+        this.valueType = value != null ? ValueType.STRING : ValueType.NONE;
+        return this;
+    }
+
+    /**
+     * Sets the metric value, which is formatted straight into the message.
+     *
+     * @param value The metric value
+     * @return A reference to this builder
+     */
+    public MessageBuilder withValue(final long value) {
+        this.longValue = value;
+        this.valueType = ValueType.LONG;
+        return this;
+    }
+
+    /**
+     * Sets the metric value, which is formatted straight into the message the same way as
+     * {@link Double#toString(double)}.
+     *
+     * @param value The metric value
+     * @return A reference to this builder
+     */
+    public MessageBuilder withValue(final double value) {
+        this.doubleValue = value;
+        this.valueType = ValueType.DOUBLE;
         return this;
     }
 
@@ -94,7 +150,13 @@ public final class MessageBuilder {
      */
     public MessageBuilder withAggregations(final Aggregations aggregations) {
         if (aggregations != null) {
-            this.aggregations.addAll(aggregations.getAggregations());
+            if (this.aggregations == null) {
+                this.aggregations = aggregations.getAggregations();
+            } else {
+                Collection<Aggregation> mergedAggregations = new ArrayList<Aggregation>(this.aggregations);
+                mergedAggregations.addAll(aggregations.getAggregations());
+                this.aggregations = mergedAggregations;
+            }
         }
         return this;
     }
@@ -142,67 +204,160 @@ public final class MessageBuilder {
     public String build() {
         validate();
 
-        StringBuilder sb = new StringBuilder();
+        boolean virtual = isVirtualThread();
+        StringBuilder sb = virtual ? new StringBuilder(INITIAL_LINE_CAPACITY) : LINE_BUILDER.get();
+        sb.setLength(0);
 
         if (namespace != null) {
             //append namespace
-            sb.append(escapeMeasurement(namespace)).append(".");
+            appendEscapedMeasurement(sb, namespace);
+            sb.append('.');
         }
 
         //append name
-        sb.append(escapeMeasurement(name));
+        appendEscapedMeasurement(sb, name);
 
         //append tags
-        for (Map.Entry<String, String> entry : tags.entrySet()) {
-            sb.append(",")
-                    .append(escapeTag(entry.getKey()))
-                    .append("=")
-                    .append(escapeTag(entry.getValue()));
+        if (tags != null) {
+            for (Map.Entry<String, String> entry : tags.entrySet()) {
+                sb.append(',');
+                appendEscapedTag(sb, entry.getKey());
+                sb.append('=');
+                appendEscapedTag(sb, entry.getValue());
+            }
         }
 
         //append value
-        sb.append(" ").append(value).append(" ");
+        sb.append(' ');
+        appendValue(sb);
+        sb.append(' ');
 
         //append timestamp
         sb.append(timestamp);
 
         //append aggregation information
-        if (!aggregations.isEmpty()) {
-            sb.append(" ");
+        if (aggregations != null && !aggregations.isEmpty()) {
+            sb.append(' ');
             for (Aggregation aggr : aggregations) {
-                sb.append(aggr.getName()).append(",");
+                sb.append(aggr.getName()).append(',');
             }
 
             sb.append(aggregationFrequency.getValue());
         }
 
         if (sampleRate != null) {
-            sb.append(" ").append(sampleRate);
+            sb.append(' ').append(sampleRate.intValue());
+        }
+
+        String line = sb.toString();
+
+        if (!virtual && sb.capacity() > MAX_RETAINED_LINE_CAPACITY) {
+            LINE_BUILDER.remove();
         }
 
-        return sb.toString();
+        return line;
+    }
+
+    private static boolean isVirtualThread() {
+        if (IS_VIRTUAL == null) {
+            return false;
+        }
+
+        try {
+            return (boolean) IS_VIRTUAL.invokeExact(Thread.currentThread());
+        } catch (Throwable t) {
+            return false;
+        }
+    }
+
+    private static MethodHandle findIsVirtual() {
+        // Thread.isVirtual only exists on Java 21 and later, where virtual threads are available
+        try {
+            return MethodHandles.publicLookup().findVirtual(Thread.class, "isVirtual", MethodType.methodType(boolean.class));
+        } catch (NoSuchMethodException e) {
+            return null;
+        } catch (IllegalAccessException e) {
+            return null;
+        }
+    }
+
+    private void appendValue(final StringBuilder sb) {
+        switch (valueType) {
+            case LONG:
+                sb.append(longValue);
+                break;
+            case DOUBLE:
+                appendDouble(sb, doubleValue);
+                break;
+            default:
+                sb.append(value);
+                break;
+        }
+    }
+
+    /**
+     * Appends a double exactly as {@link Double#toString(double)} would, taking a shortcut for integral values, which
+     * are the most common ones.
+     *
+     * @param sb The {@link StringBuilder} to append the value to
+     * @param value The value to append
+     */
+    private static void appendDouble(final StringBuilder sb, final double value) {
+        long integralValue = (long) value;
+        boolean isPositiveZero = value == 0 && Double.doubleToRawLongBits(value) == 0L;
+
+        if (integralValue == value && Math.abs(value) < MAX_PLAIN_DOUBLE && (value != 0 || isPositiveZero)) {
+            sb.append(integralValue).append(".0");
+        } else {
+            sb.append(value);
+        }
     }
 
     /**
      * This method adds an escape character in a tag type or tag value (<code>\</code>) before any of the following
      * characters: <code>\s</code>, <code>,</code> and <code>=</code>.
      *
+     * @param sb The {@link StringBuilder} to append the escaped string to
      * @param string The tag key or tag value to escape
-     * @return The escaped string
      */
-    private static String escapeTag(final String string) {
-        return string.replaceAll("[\\s,=]", "\\\\$0");
+    private static void appendEscapedTag(final StringBuilder sb, final String string) {
+        appendEscaped(sb, string, true);
     }
 
     /**
      * This method adds an escape character in a measurement (<code>\</code>) before any of the following characters:
      * <code>\s</code> and <code>,</code>.
      *
+     * @param sb The {@link StringBuilder} to append the escaped string to
      * @param string The measurement to escape
-     * @return The escaped string
      */
-    private static String escapeMeasurement(final String string) {
-        return string.replaceAll("[\\s,]", "\\\\$0");
+    private static void appendEscapedMeasurement(final StringBuilder sb, final String string) {
+        appendEscaped(sb, string, false);
+    }
+
+    private static void appendEscaped(final StringBuilder sb, final String string, final boolean escapeEquals) {
+        int length = string.length();
+        int start = 0;
+
+        for (int i = 0; i < length; i++) {
+            char c = string.charAt(i);
+            if (c == ',' || isRegexWhitespace(c) || (escapeEquals && c == '=')) {
+                sb.append(string, start, i).append('\\');
+                start = i;
+            }
+        }
+
+        sb.append(string, start, length);
+    }
+
+    /**
+     * Matches the same characters as the <code>\s</code> regular expression class: <code>[ \t\n\x0B\f\r]</code>.
+     *
+     * @param c The character to check
+     * @return True if the character is a whitespace
+     */
+    private static boolean isRegexWhitespace(final char c) {
+        return c == ' ' || c == '\t' || c == '\n' || c == '\u000B' || c == '\f' || c == '\r';
     }
 
     private void validate() {
@@ -210,8 +365,15 @@ public final class MessageBuilder {
             throw new IllegalStateException("Name should not be null");
         }
 
-        if (value == null) {
+        if (valueType == ValueType.NONE) {
             throw new IllegalStateException("Value should not be null");
         }
     }
+
+    /**
+     * The representation of the metric value.
+     */
+    private enum ValueType {
+        NONE, STRING, LONG, DOUBLE
+    }
 }
@@ -0,0 +1,105 @@
+package com.statful.client.core.sender;
+
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Works out the interval between flushes and the size of each batch from the arrival rate of metrics.
+ * <p>
+ * The arrival rate is a moving average of the metrics put between flushes, whether they were buffered or dropped. At the rate a target batch would
+ * fill, the next flush is scheduled when it's expected to be full, but never sooner than the minimum interval nor
+ * later than the maximum one, which bounds the latency of metrics under light load. Under heavy load, flushes happen
+ * at the minimum interval and batches grow with the rate, up to the maximum batch size, so that fewer and larger
+ * sends are made.
+ * <p>
+ * Instances of this class aren't thread-safe.
+ */
+final class AdaptiveFlusher {
+
+    private static final double SMOOTHING = 0.3;
+
+    private final int maxBatchSize;
+    private final long minIntervalMillis;
+    private final long maxIntervalMillis;
+
+    private int targetBatchSize;
+    private double ratePerMilli = -1;
+    private long intervalMillis;
+    private int batchSize;
+
+    /**
+     * Default constructor, starting with flushes at the minimum interval until the arrival rate is known.
+     *
+     * @param targetBatchSize The number of metrics each batch should have
+     * @param maxBatchSize The maximum number of metrics of each batch
+     * @param minIntervalMillis The minimum interval between flushes, in milliseconds
+     * @param maxIntervalMillis The maximum interval between flushes, in milliseconds
+     */
+    AdaptiveFlusher(final int targetBatchSize, final int maxBatchSize, final long minIntervalMillis, final long maxIntervalMillis) {
+        this.maxBatchSize = Math.max(1, maxBatchSize);
+        this.targetBatchSize = Math.min(Math.max(1, targetBatchSize), this.maxBatchSize);
+        this.minIntervalMillis = minIntervalMillis;
+        this.maxIntervalMillis = Math.max(minIntervalMillis, maxIntervalMillis);
+        this.intervalMillis = minIntervalMillis;
+        this.batchSize = this.targetBatchSize;
+    }
+
+    /**
+     * Updates the arrival rate with the metrics put since the last update, and works out the next interval and batch
+     * size.
+     *
+     * @param arrivals The number of metrics put since the last update, buffered or dropped
+     * @param elapsedNanos The time since the last update, in nanoseconds
+     */
+    void update(final long arrivals, final long elapsedNanos) {
+        double elapsedMillis = (double) elapsedNanos / TimeUnit.MILLISECONDS.toNanos(1);
+        if (elapsedMillis <= 0) {
+            return;
+        }
+
+        double sample = arrivals / elapsedMillis;
+        ratePerMilli = ratePerMilli < 0 ? sample : ratePerMilli + SMOOTHING * (sample - ratePerMilli);
+
+        if (ratePerMilli * maxIntervalMillis < targetBatchSize) {
+            intervalMillis = maxIntervalMillis;
+        } else {
+            intervalMillis = Math.max(minIntervalMillis, (long) (targetBatchSize / ratePerMilli));
+        }
+        batchSize = (int) Math.min(maxBatchSize, Math.max(targetBatchSize, Math.ceil(ratePerMilli * intervalMillis)));
+    }
+
+    /**
+     * Returns the number of metrics each batch should have.
+     *
+     * @return The target batch size
+     */
+    int getTargetBatchSize() {
+        return targetBatchSize;
+    }
+
+    /**
+     * Changes the number of metrics each batch should have, from the next update on.
+     *
+     * @param targetBatchSize The target batch size
+     */
+    void setTargetBatchSize(final int targetBatchSize) {
+        this.targetBatchSize = Math.min(Math.max(1, targetBatchSize), maxBatchSize);
+    }
+
+    /**
+     * Returns the interval until the next flush.
+     *
+     * @return The interval in milliseconds
+     */
+    long getIntervalMillis() {
+        return intervalMillis;
+    }
+
+    /**
+     * Returns the number of metrics of each batch drained from a buffer on the next flush.
+     *
+     * @return The batch size
+     */
+    int getBatchSize() {
+        return batchSize;
+    }
+}
@@ -1,17 +1,32 @@
 package com.statful.client.core.sender;
 
+import com.statful.client.core.aggregation.AggregatedMetricHandler;
+import com.statful.client.core.aggregation.MetricAggregator;
 import com.statful.client.core.buffer.AggregatedBuffer;
+import com.statful.client.core.buffer.OverflowHandler;
 import com.statful.client.core.buffer.StandardBuffer;
+import com.statful.client.core.diagnostics.Diagnostics;
 import com.statful.client.core.message.MessageBuilder;
+import com.statful.client.core.stats.StatsCounter;
+import com.statful.client.core.stats.StatsGauge;
+import com.statful.client.core.stats.StatsRegistry;
+import com.statful.client.core.stats.StatsSource;
 import com.statful.client.core.transport.ApiUriFactory;
+import com.statful.client.core.transport.BatchTransportSender;
+import com.statful.client.core.transport.BoundedShutdownTransportSender;
+import com.statful.client.core.transport.StreamingTransportSender;
 import com.statful.client.core.transport.TransportSender;
 import com.statful.client.domain.api.*;
 
 import java.util.*;
 import java.util.concurrent.*;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicInteger;
+import javax.management.ObjectName;
+import java.lang.management.ManagementFactory;
+import java.util.logging.Level;
 import java.util.logging.Logger;
 
-import static java.util.Arrays.asList;
 
 /**
  * This class sends the metrics to Statful using a {@link com.statful.client.core.transport.TransportSender}.
@@ -21,59 +36,171 @@ import static java.util.Arrays.asList;
  * It sends the metrics using {@link com.statful.client.core.transport.TransportSender} in both a periodic way and
  * by checking the number of metrics in the buffer according with the
  * {@link com.statful.client.domain.api.ClientConfiguration} passed in the constructor. The periodic flushes are
- * handled by a {@link java.util.concurrent.ScheduledExecutorService} passed in the constructor.
+ * handled by the scheduler of the configuration, which may be shared by several clients, or by a single daemon
+ * thread of the client otherwise.
  * <p>
- * The flushes are execute asynchronously by the passed {@link java.util.concurrent.ScheduledExecutorService}, which
- * can be handled by a single thread in the majority of the cases.
+ * The sends are executed asynchronously by the sender workers, which can be handled by a single thread in the
+ * majority of the cases.
+ * <p>
+ * If pre-aggregation is enabled, numeric metrics are accumulated by a
+ * {@link com.statful.client.core.aggregation.MetricAggregator} instead, and the aggregated metrics it emits once per
+ * aggregation window are buffered as any other aggregated metric.
+ * <p>
+ * The sends are handed over to a {@link SenderPipeline}, whose workers take them from a bounded queue. While the
+ * queue is full, flushes are deferred and the metrics wait in the buffers, subject to the overflow policy.
+ * <p>
+ * If the transport sender is a {@link com.statful.client.core.transport.BatchTransportSender}, each flush sends
+ * every buffer from a single batch, instead of a batch per buffer. If it's a
+ * {@link com.statful.client.core.transport.StreamingTransportSender}, the drained metrics are handed over without
+ * being joined in a message.
+ * <p>
+ * With adaptive flushes, an {@link AdaptiveFlusher} schedules each flush according to the arrival rate of metrics,
+ * between batches of the flush size and the flush interval, instead of flushing whenever a buffer reaches the flush
+ * size. The rate counts every metric put, including the ones dropped, so that it doesn't stay low while the buffers
+ * overflow. Each flush drains everything buffered, in batches of the size the flusher works out. Between flushes, a
+ * buffer filling past 80% of its capacity, or a metric which doesn't fit, triggers a flush right away.
+ * <p>
+ * {@link #shutdown(long, TimeUnit)} stops accepting metrics and flushes until the buffers are empty. As on any flush,
+ * each round sends a batch of up to the flush size from every buffer in its own worker task, or every batch in a
+ * single task for a {@link com.statful.client.core.transport.BatchTransportSender}. It waits for the sends up to a
+ * timeout, and then closes the transport sender within the time left. The metrics it couldn't send in time are
+ * reported as lost. {@link #shutdown()} flushes the buffers once, but doesn't wait for the sends.
  * <p>
  * Instances of this class are thread-safe.
  */
 public class BufferedMetricsSender implements MetricsSender {
 
     private static final Logger LOGGER = Logger.getLogger(BufferedMetricsSender.class.getName());
+    private static final Diagnostics DIAGNOSTICS = new Diagnostics(LOGGER);
 
     private static final int MAX_BUFFER_SIZE = 5000;
+    private static final int HIGH_WATER_PERCENT = 80;
+    private static final int HIGH_WATER_MARK = MAX_BUFFER_SIZE * HIGH_WATER_PERCENT / 100;
     private static final int MIN_SAMPLE_RATE = 1;
     private static final int MAX_SAMPLE_RATE = 100;
     private static final int SAMPLE_RATE_DIVIDER = 100;
     private static final int MIN_FLUSH_INTERVAL = 50;
+    private static final int PRE_AGGREGATION_COLLECT_INTERVAL = 1000;
+    private static final int SELF_METRICS_INTERVAL = 10000;
+    private static final int DIAGNOSTICS_REPORT_INTERVAL = 1000;
+    private static final String SELF_METRICS_NAMESPACE = "statful_client";
+    private static final long NANOS_PER_MICRO = 1000;
+    private static final String MBEAN_DOMAIN = "com.statful.client";
+    private static final AtomicInteger MBEAN_IDS = new AtomicInteger();
+    private static final long WORKER_KEEP_ALIVE_MS = 60000;
 
-    private static final int FUTURE_QUEUE_MAX_SIZE = 5000;
+    static final String STAT_STANDARD_BUFFER_SIZE = "buffer.standard.size";
+    static final String STAT_AGGREGATED_BUFFER_SIZE = "buffer.aggregated.size";
+    static final String STAT_ENQUEUED = "buffer.enqueued";
+    static final String STAT_DROPPED = "buffer.dropped";
+    static final String STAT_SENDS = "send.count";
+    static final String STAT_SHUTDOWN_LOST = "shutdown.lost";
 
     private final ClientConfiguration configuration;
     private final TransportSender transportSender;
-    private final ScheduledThreadPoolExecutor executorService;
     private final boolean dryRun;
     private final StandardBuffer standardBuffer;
     private final AggregatedBuffer aggregatedBuffer;
-    private final ArrayBlockingQueue<Future<?>> futuresQueue;
+    private final OverflowHandler overflowHandler;
+    private final SenderPipeline senderPipeline;
+    private final MetricAggregator metricAggregator;
+    private final StatsRegistry statsRegistry = new StatsRegistry();
+    private final StatsCounter flushes = statsRegistry.counter("flush.count");
+    private final StatsCounter deferredFlushes = statsRegistry.counter("flush.deferred");
+    private final StatsCounter flushTimeMicros = statsRegistry.counter("flush.time_micros");
+    private final StatsCounter drained = statsRegistry.counter("buffer.drained");
+    private final StatsCounter sends = statsRegistry.counter(STAT_SENDS);
+    private final StatsCounter sendTimeMicros = statsRegistry.counter("send.time_micros");
+    private final StatsCounter lostOnShutdown = statsRegistry.counter(STAT_SHUTDOWN_LOST);
+
+    private final ScheduledExecutorService helperExecutorService;
+    private final boolean ownsHelperExecutorService;
+    private final ExecutorService ownedWorkerExecutorService;
+    private final List<ScheduledFuture<?>> scheduledTasks = new ArrayList<ScheduledFuture<?>>();
+    private final AtomicBoolean highWaterFlushPending = new AtomicBoolean();
+    private final ObjectName mbeanName;
 
-    private final ScheduledExecutorService helperExecutorService = Executors.newSingleThreadScheduledExecutor();
+    private ScheduledFuture<?> flushTask;
+    private long flushIntervalMillis;
+    private AdaptiveFlusher adaptiveFlusher;
+    private long adaptiveOffered;
+    private long adaptiveUpdateNanos;
+    private volatile boolean adaptiveFlush;
+    private volatile int sampleRateOverride;
+    private volatile boolean closed;
+
+    /**
+     * Constructor which runs the sender workers on the worker executor of the configuration, if there's one, or on
+     * virtual threads, if enabled and supported, or on a pool of {@code workersPoolSize} daemon threads otherwise.
+     * Executors created by the client are stopped by {@link #shutdown()}, but not the ones of the configuration.
+     *
+     * @param transportSender The {@link com.statful.client.core.transport.TransportSender} to send metrics
+     * @param configuration The {@link com.statful.client.domain.api.ClientConfiguration}
+     */
+    public BufferedMetricsSender(final TransportSender transportSender, final ClientConfiguration configuration) {
+        this(transportSender, configuration, Workers.create(configuration));
+    }
 
     /**
-     * Default constructor.
+     * Constructor with the executor to run the sender workers on, which isn't stopped by {@link #shutdown()}.
      *
      * @param transportSender The {@link com.statful.client.core.transport.TransportSender} to send metrics
      * @param configuration The {@link com.statful.client.domain.api.ClientConfiguration}
-     * @param executorService The {@link java.util.concurrent.ScheduledExecutorService} to handle flushes
+     * @param executorService The {@link java.util.concurrent.ScheduledThreadPoolExecutor} to run the sender workers on,
+     *                        one per core thread
      */
     public BufferedMetricsSender(
             final TransportSender transportSender,
             final ClientConfiguration configuration,
             final ScheduledThreadPoolExecutor executorService
     ) {
+        this(transportSender, configuration, executorService, executorService.getCorePoolSize());
+    }
+
+    /**
+     * Constructor with an executor of any kind, such as one starting a virtual thread per task, which isn't stopped
+     * by {@link #shutdown()}.
+     *
+     * @param transportSender The {@link com.statful.client.core.transport.TransportSender} to send metrics
+     * @param configuration The {@link com.statful.client.domain.api.ClientConfiguration}
+     * @param executorService The {@link java.util.concurrent.ExecutorService} to run the sender workers on
+     * @param maxWorkers The maximum number of sender workers, which is the maximum number of concurrent sends
+     */
+    public BufferedMetricsSender(
+            final TransportSender transportSender,
+            final ClientConfiguration configuration,
+            final ExecutorService executorService,
+            final int maxWorkers
+    ) {
+        this(transportSender, configuration, new Workers(executorService, maxWorkers, false));
+    }
+
+    private BufferedMetricsSender(final TransportSender transportSender, final ClientConfiguration configuration, final Workers workers) {
         this.configuration = configuration;
         this.transportSender = transportSender;
-        this.executorService = executorService;
         this.dryRun = configuration.isDryRun();
-        this.standardBuffer = new StandardBuffer(MAX_BUFFER_SIZE, configuration.getFlushSize());
-        this.aggregatedBuffer = new AggregatedBuffer(MAX_BUFFER_SIZE, configuration.getFlushSize());
+        this.overflowHandler = new OverflowHandler(configuration.getOverflowPolicy(),
+                configuration.getOverflowBlockTimeoutMillis(), configuration.getOverflowSampleRate(), MAX_BUFFER_SIZE,
+                flusher());
+        this.standardBuffer = new StandardBuffer(MAX_BUFFER_SIZE, configuration.getFlushSize(),
+                configuration.getBufferStrategy(), overflowHandler);
+        this.aggregatedBuffer = new AggregatedBuffer(MAX_BUFFER_SIZE, configuration.getFlushSize(), overflowHandler);
+
+        this.senderPipeline = new SenderPipeline(workers.executorService, workers.maxWorkers,
+                configuration.getMaxWorkerTasksQueueSize(), configuration.getWorkerTaskKillerInterval());
+        this.ownedWorkerExecutorService = workers.owned ? workers.executorService : null;
+        this.ownsHelperExecutorService = configuration.getScheduler() == null;
+        this.helperExecutorService = ownsHelperExecutorService ? createScheduler() : configuration.getScheduler();
+        this.metricAggregator = createMetricAggregator(configuration);
 
-        this.futuresQueue = new ArrayBlockingQueue<Future<?>>(FUTURE_QUEUE_MAX_SIZE);
+        registerStats();
 
-        executorService.setRemoveOnCancelPolicy(true);
+        this.adaptiveFlush = configuration.isAdaptiveFlushEnabled();
         startFlushInterval(configuration.getFlushIntervalMillis());
-        startKillerInterval();
+        startPreAggregationInterval();
+        startSelfMetricsInterval();
+        startDiagnosticsInterval();
+        this.mbeanName = registerMBean();
     }
 
     @Override
@@ -82,23 +209,46 @@ public class BufferedMetricsSender implements MetricsSender {
             final AggregationFrequency aggregationFrequency, final Integer sampleRate, final String namespace,
             final long timestamp
     ) {
-        if (shouldPutMetric(sampleRate)) {
-            String rawMessage = MessageBuilder.newBuilder()
-                    .withName(name)
-                    .withValue(value)
-                    .withTags(tags)
-                    .withAggregations(aggregations)
-                    .withAggregationFreq(aggregationFrequency)
-                    .withNamespace(namespace)
-                    .withTimestamp(timestamp)
-                    .withSampleRate(sampleRate)
-                    .build();
-
-            if (!dryRun) {
-                this.putRaw(rawMessage);
-            } else {
-                LOGGER.fine("Dry metric: " + rawMessage);
-            }
+        Integer effectiveSampleRate = effectiveSampleRate(sampleRate);
+        if (shouldPutMetric(effectiveSampleRate)) {
+            putMessage(MessageBuilder.newBuilder().withValue(value), name, tags, aggregations, aggregationFrequency,
+                    effectiveSampleRate, namespace, timestamp, true);
+        }
+    }
+
+    @Override
+    public final void put(
+            final String name, final long value, final Tags tags, final Aggregations aggregations,
+            final AggregationFrequency aggregationFrequency, final Integer sampleRate, final String namespace,
+            final long timestamp
+    ) {
+        if (metricAggregator != null && !closed
+                && metricAggregator.add(name, value, tags, aggregations, aggregationFrequency, namespace, timestamp)) {
+            return;
+        }
+
+        Integer effectiveSampleRate = effectiveSampleRate(sampleRate);
+        if (shouldPutMetric(effectiveSampleRate)) {
+            putMessage(MessageBuilder.newBuilder().withValue(value), name, tags, aggregations, aggregationFrequency,
+                    effectiveSampleRate, namespace, timestamp, true);
+        }
+    }
+
+    @Override
+    public final void put(
+            final String name, final double value, final Tags tags, final Aggregations aggregations,
+            final AggregationFrequency aggregationFrequency, final Integer sampleRate, final String namespace,
+            final long timestamp
+    ) {
+        if (metricAggregator != null && !closed
+                && metricAggregator.add(name, value, tags, aggregations, aggregationFrequency, namespace, timestamp)) {
+            return;
+        }
+
+        Integer effectiveSampleRate = effectiveSampleRate(sampleRate);
+        if (shouldPutMetric(effectiveSampleRate)) {
+            putMessage(MessageBuilder.newBuilder().withValue(value), name, tags, aggregations, aggregationFrequency,
+                    effectiveSampleRate, namespace, timestamp, true);
         }
     }
 
@@ -106,33 +256,130 @@ public class BufferedMetricsSender implements MetricsSender {
     public final void aggregatedPut(final String name, final String value, final Tags tags, final Aggregation aggregation,
                                     final AggregationFrequency aggregationFrequency, final Integer sampleRate,
                                     final String namespace, final long timestamp) {
-        if (shouldPutMetric(sampleRate)) {
-            String rawMessage = MessageBuilder.newBuilder()
-                    .withName(name)
-                    .withValue(value)
-                    .withTags(tags)
-                    .withNamespace(namespace)
-                    .withTimestamp(timestamp)
-                    .withSampleRate(sampleRate)
-                    .build();
-
-            if (!dryRun) {
-                this.putAggregatedRaw(rawMessage, aggregation, aggregationFrequency);
-            } else {
-                LOGGER.fine("Dry metric: " + rawMessage
-                        + " Aggregation: " + aggregation
-                        + " Frequency: " + aggregationFrequency);
-            }
+        Integer effectiveSampleRate = effectiveSampleRate(sampleRate);
+        if (shouldPutMetric(effectiveSampleRate)) {
+            putAggregatedMessage(MessageBuilder.newBuilder().withValue(value), name, tags, aggregation, aggregationFrequency,
+                    effectiveSampleRate, namespace, timestamp, true);
+        }
+    }
+
+    @Override
+    public final void aggregatedPut(final String name, final long value, final Tags tags, final Aggregation aggregation,
+                                    final AggregationFrequency aggregationFrequency, final Integer sampleRate,
+                                    final String namespace, final long timestamp) {
+        Integer effectiveSampleRate = effectiveSampleRate(sampleRate);
+        if (shouldPutMetric(effectiveSampleRate)) {
+            putAggregatedMessage(MessageBuilder.newBuilder().withValue(value), name, tags, aggregation, aggregationFrequency,
+                    effectiveSampleRate, namespace, timestamp, true);
         }
     }
 
     @Override
-    public final void shutdown() {
+    public final void aggregatedPut(final String name, final double value, final Tags tags, final Aggregation aggregation,
+                                    final AggregationFrequency aggregationFrequency, final Integer sampleRate,
+                                    final String namespace, final long timestamp) {
+        Integer effectiveSampleRate = effectiveSampleRate(sampleRate);
+        if (shouldPutMetric(effectiveSampleRate)) {
+            putAggregatedMessage(MessageBuilder.newBuilder().withValue(value), name, tags, aggregation, aggregationFrequency,
+                    effectiveSampleRate, namespace, timestamp, true);
+        }
+    }
+
+    /**
+     * Shutdowns the sender without waiting: it hands the buffered metrics to the workers once, as the next periodic
+     * flush would, stops accepting metrics, and closes the transport sender and the executors it created without
+     * interrupting the sends already handed to the workers. Nothing is counted as lost, since the caller didn't ask to
+     * wait for the sends.
+     */
+    @Override
+    public final synchronized void shutdown() {
+        if (closed) {
+            return;
+        }
+
+        cancelScheduledTasks();
+        if (metricAggregator != null) {
+            metricAggregator.collectAll(preAggregatedMetricHandler());
+        }
+        standardBuffer.collectPending();
+        drainBuffers();
+        closed = true;
+
         transportSender.shutdown();
+        if (ownsHelperExecutorService) {
+            helperExecutorService.shutdown();
+        }
+        if (ownedWorkerExecutorService != null) {
+            ownedWorkerExecutorService.shutdown();
+        }
+        unregisterMBean();
+        Diagnostics.reportAll();
+    }
+
+    @Override
+    public final synchronized long shutdown(final long timeout, final TimeUnit unit) {
+        if (closed) {
+            return 0;
+        }
+        closed = true;
+        long deadlineNanos = System.nanoTime() + unit.toNanos(Math.max(0, timeout));
+
+        cancelScheduledTasks();
+        senderPipeline.drain(deadlineNanos);
+        if (metricAggregator != null) {
+            metricAggregator.collectAll(preAggregatedMetricHandler());
+        }
+        standardBuffer.collectPending();
+        do {
+            // Submits wait for room while draining, so every buffer is sent
+            sendBuffers(Integer.MAX_VALUE);
+        } while (bufferedMetrics() > 0 && deadlineNanos - System.nanoTime() > 0);
+        lostOnShutdown.add(bufferedMetrics() + senderPipeline.shutdown(deadlineNanos));
+        lostOnShutdown.add(shutdownTransportSender(deadlineNanos));
+
+        if (ownsHelperExecutorService) {
+            helperExecutorService.shutdown();
+        }
+        if (ownedWorkerExecutorService != null) {
+            ownedWorkerExecutorService.shutdownNow();
+        }
+        unregisterMBean();
+
+        long lost = lostOnShutdown.getValue();
+        if (lost > 0) {
+            DIAGNOSTICS.warning("Unable to send every metric before the shutdown timeout, metrics lost.");
+        }
+        Diagnostics.reportAll();
+        return lost;
+    }
+
+    /**
+     * Shutdowns the transport sender, within the time left until the deadline if it supports a bounded shutdown.
+     *
+     * @return The number of metrics the transport sender lost
+     */
+    private long shutdownTransportSender(final long deadlineNanos) {
+        if (transportSender instanceof BoundedShutdownTransportSender) {
+            return ((BoundedShutdownTransportSender) transportSender).shutdown(Math.max(0, deadlineNanos - System.nanoTime()),
+                    TimeUnit.NANOSECONDS);
+        }
+        transportSender.shutdown();
+        return 0;
+    }
+
+    @Override
+    public final ClientStats getStats() {
+        return statsRegistry.snapshot();
     }
 
     @Override
     public final void forceSyncFlush() {
+        if (metricAggregator != null) {
+            metricAggregator.collectAll(preAggregatedMetricHandler());
+        }
+
+        standardBuffer.collectPending();
+
         String message = standardBuffer.readBuffer();
         if (!message.isEmpty()) {
             sendMetricSynchronously(message);
@@ -151,15 +398,283 @@ public class BufferedMetricsSender implements MetricsSender {
         }
     }
 
-    private void startFlushInterval(final long flushInterval) {
-        if (flushInterval >= MIN_FLUSH_INTERVAL) {
-            helperExecutorService.scheduleAtFixedRate(flusher(), flushInterval, flushInterval, TimeUnit.MILLISECONDS);
+    /**
+     * Returns the number of metrics that triggers a flush. With adaptive flushes, it's the size of the next batch.
+     *
+     * @return The flush size
+     */
+    public final int getFlushSize() {
+        return standardBuffer.getFlushSize();
+    }
+
+    /**
+     * Changes the number of metrics that triggers a flush, overriding the configured flush size. With adaptive
+     * flushes, it's the target batch size instead.
+     *
+     * @param flushSize The flush size
+     */
+    public final synchronized void setFlushSize(final int flushSize) {
+        if (flushSize < 1) {
+            throw new IllegalArgumentException("The flush size should be positive");
+        }
+
+        applyFlushSize(flushSize);
+        if (adaptiveFlusher != null) {
+            adaptiveFlusher.setTargetBatchSize(flushSize);
+        }
+    }
+
+    /**
+     * Returns the interval between periodic flushes. With adaptive flushes, it's the interval until the next flush.
+     *
+     * @return The flush interval in milliseconds
+     */
+    public final synchronized long getFlushIntervalMillis() {
+        return flushIntervalMillis;
+    }
+
+    /**
+     * Changes the interval between periodic flushes, overriding the configured flush interval. Intervals bellow 50
+     * milliseconds disable periodic flushes. With adaptive flushes, it's the maximum interval instead, and intervals
+     * bellow 50 milliseconds switch back to flushes triggered by the flush size.
+     *
+     * @param flushIntervalMillis The flush interval in milliseconds
+     */
+    public final synchronized void setFlushIntervalMillis(final long flushIntervalMillis) {
+        if (flushTask != null) {
+            flushTask.cancel(false);
+            flushTask = null;
         }
+        startFlushInterval(flushIntervalMillis);
+    }
+
+    /**
+     * Returns the sample rate overriding the sample rate of every metric, or 0 if there's none.
+     *
+     * @return The sample rate override
+     */
+    public final int getSampleRateOverride() {
+        return sampleRateOverride;
+    }
+
+    /**
+     * Overrides the sample rate of every metric put from now on, or restores the sample rate of each metric if 0.
+     *
+     * @param sampleRate The sample rate, between 1 and 100, or 0
+     */
+    public final void setSampleRateOverride(final int sampleRate) {
+        if (sampleRate < 0 || sampleRate > MAX_SAMPLE_RATE) {
+            throw new IllegalArgumentException("The sample rate should be between 1 and 100, or 0 to disable the override");
+        }
+
+        this.sampleRateOverride = sampleRate;
+    }
+
+    private synchronized void startFlushInterval(final long flushInterval) {
+        if (adaptiveFlush && flushInterval >= MIN_FLUSH_INTERVAL) {
+            startAdaptiveFlush(flushInterval);
+            return;
+        }
+
+        adaptiveFlush = false;
+        adaptiveFlusher = null;
+        setHighWaterListener(null);
+        this.flushIntervalMillis = flushInterval;
+        if (!closed && flushInterval >= MIN_FLUSH_INTERVAL) {
+            flushTask = helperExecutorService.scheduleAtFixedRate(flusher(), flushInterval, flushInterval, TimeUnit.MILLISECONDS);
+        }
+    }
+
+    private synchronized void startAdaptiveFlush(final long maxIntervalMillis) {
+        int targetBatchSize = adaptiveFlusher != null ? adaptiveFlusher.getTargetBatchSize() : standardBuffer.getFlushSize();
+        adaptiveFlusher = new AdaptiveFlusher(targetBatchSize, MAX_BUFFER_SIZE, MIN_FLUSH_INTERVAL, maxIntervalMillis);
+        adaptiveOffered = offeredMetrics();
+        adaptiveUpdateNanos = System.nanoTime();
+        setHighWaterListener(new Runnable() {
+            @Override
+            public void run() {
+                requestHighWaterFlush();
+            }
+        });
+        scheduleAdaptiveFlush(adaptiveFlusher);
     }
 
-    private void startKillerInterval() {
-        long killerInterval = configuration.getWorkerTaskKillerInterval();
-        helperExecutorService.scheduleAtFixedRate(tasksKiller(), killerInterval, killerInterval, TimeUnit.MILLISECONDS);
+    private void setHighWaterListener(final Runnable listener) {
+        standardBuffer.setHighWaterListener(HIGH_WATER_MARK, listener);
+        aggregatedBuffer.setHighWaterListener(HIGH_WATER_MARK, listener);
+    }
+
+    private synchronized void scheduleAdaptiveFlush(final AdaptiveFlusher flusher) {
+        if (closed) {
+            return;
+        }
+
+        flushIntervalMillis = flusher.getIntervalMillis();
+        flushTask = helperExecutorService.schedule(new Runnable() {
+            @Override
+            public void run() {
+                adaptiveFlush(flusher);
+            }
+        }, flushIntervalMillis, TimeUnit.MILLISECONDS);
+    }
+
+    private void adaptiveFlush(final AdaptiveFlusher flusher) {
+        drainBuffers();
+
+        synchronized (this) {
+            // Replaced by a new interval, which has its own flush task
+            if (flusher != adaptiveFlusher) {
+                return;
+            }
+
+            long offered = offeredMetrics();
+            long now = System.nanoTime();
+            // Batches drained by other threads may not be counted yet
+            flusher.update(Math.max(0, offered - adaptiveOffered), now - adaptiveUpdateNanos);
+            adaptiveOffered = offered;
+            adaptiveUpdateNanos = now;
+
+            applyFlushSize(flusher.getBatchSize());
+            scheduleAdaptiveFlush(flusher);
+        }
+    }
+
+    /**
+     * Flushes until the metrics buffered when it started are drained, which bounds it by the capacity of the buffers,
+     * or until the sender pipeline has no room left. Metrics arriving meanwhile are left for the next flush. Holds the
+     * lock of the sender, so that a shutdown waits for the batches being drained instead of racing with them.
+     */
+    private synchronized void drainBuffers() {
+        if (closed) {
+            return;
+        }
+
+        long remaining = bufferedMetrics();
+        while (remaining > 0) {
+            long before = drained.getValue();
+            if (!flush()) {
+                return;
+            }
+
+            long flushed = drained.getValue() - before;
+            if (flushed <= 0) {
+                return;
+            }
+            remaining -= flushed;
+        }
+    }
+
+    /**
+     * Drains the buffers right away on the scheduler thread when, between adaptive flushes, a buffer fills up past
+     * the high-water mark or a metric doesn't fit. Only one such flush is pending at a time, so requesting it again
+     * meanwhile only costs a flag check.
+     */
+    private void requestHighWaterFlush() {
+        if (highWaterFlushPending.get() || !highWaterFlushPending.compareAndSet(false, true)) {
+            return;
+        }
+
+        try {
+            helperExecutorService.execute(new Runnable() {
+                @Override
+                public void run() {
+                    try {
+                        drainBuffers();
+                    } finally {
+                        highWaterFlushPending.set(false);
+                    }
+                }
+            });
+        } catch (RejectedExecutionException e) {
+            // The scheduler was shut down along with the client
+            highWaterFlushPending.set(false);
+        }
+    }
+
+    private void applyFlushSize(final int flushSize) {
+        standardBuffer.setFlushSize(flushSize);
+        aggregatedBuffer.setFlushSize(flushSize);
+    }
+
+    private synchronized void schedule(final Runnable task, final long intervalMillis) {
+        scheduledTasks.add(helperExecutorService.scheduleAtFixedRate(task, intervalMillis, intervalMillis, TimeUnit.MILLISECONDS));
+    }
+
+    private synchronized void cancelScheduledTasks() {
+        if (flushTask != null) {
+            flushTask.cancel(false);
+            flushTask = null;
+        }
+        for (ScheduledFuture<?> task : scheduledTasks) {
+            task.cancel(false);
+        }
+        scheduledTasks.clear();
+    }
+
+    private static ScheduledExecutorService createScheduler() {
+        ScheduledThreadPoolExecutor scheduler = new ScheduledThreadPoolExecutor(1, new NamedThreadFactory("statful-scheduler"));
+        scheduler.setRemoveOnCancelPolicy(true);
+        return scheduler;
+    }
+
+    private ObjectName registerMBean() {
+        if (!configuration.isJmxEnabled()) {
+            return null;
+        }
+
+        final StatfulClientManagement management = new StatfulClientManagement(this, senderPipeline);
+        try {
+            ObjectName name = new ObjectName(MBEAN_DOMAIN + ":type=StatfulClient,id=" + MBEAN_IDS.incrementAndGet());
+            ManagementFactory.getPlatformMBeanServer().registerMBean(management, name);
+
+            schedule(new Runnable() {
+                @Override
+                public void run() {
+                    management.updateRates();
+                }
+            }, StatfulClientManagement.RATE_INTERVAL_MILLIS);
+            return name;
+        } catch (Exception e) {
+            LOGGER.warning("Unable to register the Statful client MBean: " + e.toString());
+            return null;
+        }
+    }
+
+    private void unregisterMBean() {
+        if (mbeanName == null) {
+            return;
+        }
+
+        try {
+            ManagementFactory.getPlatformMBeanServer().unregisterMBean(mbeanName);
+        } catch (Exception e) {
+            LOGGER.warning("Unable to unregister the Statful client MBean: " + e.toString());
+        }
+    }
+
+    private void startPreAggregationInterval() {
+        if (metricAggregator != null) {
+            schedule(preAggregatedMetricsCollector(), PRE_AGGREGATION_COLLECT_INTERVAL);
+        }
+    }
+
+    private void startSelfMetricsInterval() {
+        if (configuration.isSelfMetricsEnabled()) {
+            schedule(selfMetricsReporter(), SELF_METRICS_INTERVAL);
+        }
+    }
+
+    /**
+     * Logs the failures summaries which are due, so that failures aren't left unreported when no other failure
+     * follows them. Each summary still waits for the interval of its {@link Diagnostics}.
+     */
+    private void startDiagnosticsInterval() {
+        schedule(new Runnable() {
+            @Override
+            public void run() {
+                Diagnostics.reportDue();
+            }
+        }, DIAGNOSTICS_REPORT_INTERVAL);
     }
 
     private Runnable flusher() {
@@ -171,52 +686,281 @@ public class BufferedMetricsSender implements MetricsSender {
         };
     }
 
+    private Runnable selfMetricsReporter() {
+        return new Runnable() {
+            @Override
+            public void run() {
+                long timestamp = TimeUnit.MILLISECONDS.toSeconds(System.currentTimeMillis());
+                Integer sampleRate = effectiveSampleRate(MAX_SAMPLE_RATE);
+                for (Map.Entry<String, Long> stat : getStats().getValues().entrySet()) {
+                    // Put from the scheduler thread, which must not wait for room in the buffer
+                    if (shouldPutMetric(sampleRate)) {
+                        putMessage(MessageBuilder.newBuilder().withValue(stat.getValue().longValue()), stat.getKey(), null, null, null,
+                                sampleRate, SELF_METRICS_NAMESPACE, timestamp, false);
+                    }
+                }
+            }
+        };
+    }
+
+    private void registerStats() {
+        statsRegistry.register(STAT_STANDARD_BUFFER_SIZE, new StatsGauge() {
+            @Override
+            public long getValue() {
+                return standardBuffer.getQueue().size();
+            }
+        });
+        statsRegistry.register(STAT_AGGREGATED_BUFFER_SIZE, new StatsGauge() {
+            @Override
+            public long getValue() {
+                return aggregatedBuffer.size();
+            }
+        });
+        // Derived from the metrics drained, counted once per batch, so that puts don't contend on a counter
+        statsRegistry.register(STAT_ENQUEUED, new StatsGauge() {
+            @Override
+            public long getValue() {
+                return enqueuedMetrics();
+            }
+        });
+        statsRegistry.register(STAT_DROPPED, new StatsGauge() {
+            @Override
+            public long getValue() {
+                return overflowHandler.getDroppedMetrics();
+            }
+        });
+        senderPipeline.registerStats(statsRegistry);
+
+        if (transportSender instanceof StatsSource) {
+            ((StatsSource) transportSender).registerStats(statsRegistry);
+        }
+    }
+
+    private Runnable preAggregatedMetricsCollector() {
+        return new Runnable() {
+            @Override
+            public void run() {
+                metricAggregator.collect(TimeUnit.MILLISECONDS.toSeconds(System.currentTimeMillis()),
+                        preAggregatedMetricHandler());
+            }
+        };
+    }
+
+    private AggregatedMetricHandler preAggregatedMetricHandler() {
+        return new AggregatedMetricHandler() {
+            @Override
+            public void handle(final String metric, final Aggregation aggregation,
+                               final AggregationFrequency aggregationFrequency) {
+                // Emitted from the scheduler thread, which must not wait for room in the buffer
+                putAggregatedMetric(metric, aggregation, aggregationFrequency, false);
+            }
+        };
+    }
+
+    private static MetricAggregator createMetricAggregator(final ClientConfiguration configuration) {
+        if (!configuration.isPreAggregationEnabled()) {
+            return null;
+        }
+
+        if (configuration.getTransport() == Transport.UDP) {
+            LOGGER.warning("Pre-aggregation isn't supported by the UDP transport, metrics won't be pre-aggregated.");
+            return null;
+        }
+
+        return new MetricAggregator();
+    }
+
     private boolean shouldPutMetric(final int sampleRate) {
         int newSampleRate = sanitizeSampleRate(sampleRate);
         return Math.random() <= (double) newSampleRate / SAMPLE_RATE_DIVIDER;
     }
 
+    private Integer effectiveSampleRate(final Integer sampleRate) {
+        int override = sampleRateOverride;
+        if (override > 0) {
+            return override;
+        }
+        return sampleRate;
+    }
+
     private int sanitizeSampleRate(final int sampleRate) {
-        int newSampleRate = MAX_SAMPLE_RATE;
+        int newSampleRate = sampleRate;
         if (sampleRate < MIN_SAMPLE_RATE) {
             newSampleRate = MIN_SAMPLE_RATE;
-            LOGGER.warning("The configured sample rate is bellow 1, assuming 1.");
+            DIAGNOSTICS.warning("The configured sample rate is bellow 1, assuming 1.");
         } else if (sampleRate > MAX_SAMPLE_RATE) {
             newSampleRate = MAX_SAMPLE_RATE;
-            LOGGER.warning("The configured sample rate is above 100, assuming 100.");
+            DIAGNOSTICS.warning("The configured sample rate is above 100, assuming 100.");
         }
 
         return newSampleRate;
     }
 
-    private void putRaw(final String metric) {
-        boolean inserted = standardBuffer.addToBuffer(metric);
+    private void putMessage(final MessageBuilder messageBuilder, final String name, final Tags tags,
+                            final Aggregations aggregations, final AggregationFrequency aggregationFrequency,
+                            final Integer sampleRate, final String namespace, final long timestamp, final boolean mayBlock) {
+        String rawMessage = messageBuilder
+                .withName(name)
+                .withTags(tags)
+                .withAggregations(aggregations)
+                .withAggregationFreq(aggregationFrequency)
+                .withNamespace(namespace)
+                .withTimestamp(timestamp)
+                .withSampleRate(sampleRate)
+                .build();
+
+        if (!dryRun) {
+            this.putRaw(rawMessage, mayBlock);
+        } else {
+            if (LOGGER.isLoggable(Level.FINE)) {
+                LOGGER.fine("Dry metric: " + rawMessage);
+            }
+        }
+    }
+
+    private void putAggregatedMessage(final MessageBuilder messageBuilder, final String name, final Tags tags,
+                                      final Aggregation aggregation, final AggregationFrequency aggregationFrequency,
+                                      final Integer sampleRate, final String namespace, final long timestamp,
+                                      final boolean mayBlock) {
+        String rawMessage = messageBuilder
+                .withName(name)
+                .withTags(tags)
+                .withNamespace(namespace)
+                .withTimestamp(timestamp)
+                .withSampleRate(sampleRate)
+                .build();
+
+        putAggregatedMetric(rawMessage, aggregation, aggregationFrequency, mayBlock);
+    }
+
+    private void putAggregatedMetric(final String rawMessage, final Aggregation aggregation,
+                                     final AggregationFrequency aggregationFrequency, final boolean mayBlock) {
+        if (!dryRun) {
+            this.putAggregatedRaw(rawMessage, aggregation, aggregationFrequency, mayBlock);
+        } else {
+            if (LOGGER.isLoggable(Level.FINE)) {
+                LOGGER.fine("Dry metric: " + rawMessage
+                        + " Aggregation: " + aggregation
+                        + " Frequency: " + aggregationFrequency);
+            }
+        }
+    }
+
+    private void putRaw(final String metric, final boolean mayBlock) {
+        if (closed) {
+            lostOnShutdown.increment();
+            return;
+        }
+
+        boolean inserted = standardBuffer.addToBuffer(metric, mayBlock);
         if (!inserted) {
-            // We should discard older metrics instead
-            LOGGER.warning("The buffer is full, metric ignored!.");
+            DIAGNOSTICS.warning("The buffer is full, metric ignored!.");
         }
 
-        if (standardBuffer.isTimeToFlush()) {
+        if (adaptiveFlush) {
+            // Filling past the high-water mark is detected by the buffer itself
+            if (!inserted) {
+                requestHighWaterFlush();
+            }
+        } else if (standardBuffer.isTimeToFlush()) {
             flush();
         }
     }
 
-    private void putAggregatedRaw(final String metric, final Aggregation aggregation, final AggregationFrequency aggregationFrequency) {
-        boolean inserted = aggregatedBuffer.addToBuffer(metric, aggregation, aggregationFrequency);
+    private void putAggregatedRaw(final String metric, final Aggregation aggregation, final AggregationFrequency aggregationFrequency,
+                                  final boolean mayBlock) {
+        if (closed) {
+            lostOnShutdown.increment();
+            return;
+        }
+
+        boolean inserted = aggregatedBuffer.addToBuffer(metric, aggregation, aggregationFrequency, mayBlock);
         if (!inserted) {
-            // We should discard older metrics instead
-            LOGGER.warning("The buffer is full, metric ignored!.");
+            DIAGNOSTICS.warning("The buffer is full, metric ignored!.");
         }
 
-        if (aggregatedBuffer.isTimeToFlush()) {
+        if (adaptiveFlush) {
+            if (!inserted) {
+                requestHighWaterFlush();
+            }
+        } else if (aggregatedBuffer.isTimeToFlush()) {
             flush();
         }
     }
 
-    private void flush() {
+    /**
+     * Sends a batch from every buffer, as long as the sender pipeline has room for them.
+     *
+     * @return False if the flush was deferred because the pipeline is full
+     */
+    private boolean flush() {
+        // Room is reserved for every batch before draining, so that no drained batch is rejected
+        int batches = senderPipeline.reserve(Math.max(1, batchesToFlush()));
+        if (batches == 0) {
+            deferredFlushes.increment();
+            return false;
+        }
+
+        long start = System.nanoTime();
+        try {
+            sendBuffers(batches);
+        } finally {
+            senderPipeline.release(batches);
+        }
+        flushes.increment();
+        flushTimeMicros.add((System.nanoTime() - start) / NANOS_PER_MICRO);
+        return true;
+    }
+
+    /**
+     * Returns the number of batches a flush would submit now: one for every buffer holding metrics, or a single one
+     * with a batch transport sender.
+     */
+    private int batchesToFlush() {
+        if (transportSender instanceof BatchTransportSender) {
+            return 1;
+        }
+        return (standardBuffer.getQueue().size() > 0 ? 1 : 0) + aggregatedBuffer.countNonEmptyBuffers();
+    }
+
+    private void sendBuffers(final int maxBatches) {
+        if (transportSender instanceof BatchTransportSender) {
+            flushBatches((BatchTransportSender) transportSender);
+        } else if (transportSender instanceof StreamingTransportSender) {
+            flushLines((StreamingTransportSender) transportSender, maxBatches);
+        } else {
+            flushBuffers(maxBatches);
+        }
+    }
+
+    private long bufferedMetrics() {
+        return standardBuffer.getQueue().size() + aggregatedBuffer.size();
+    }
+
+    /**
+     * Returns the number of metrics added to the buffers so far, which are either drained or still buffered.
+     */
+    private long enqueuedMetrics() {
+        return drained.getValue() + bufferedMetrics();
+    }
+
+    /**
+     * Returns the number of metrics put so far, either enqueued or dropped because the buffers were full, which is
+     * the arrival rate adaptive flushes should keep up with.
+     */
+    private long offeredMetrics() {
+        return enqueuedMetrics() + overflowHandler.getDroppedMetrics();
+    }
+
+    /**
+     * Sends a batch from each buffer, up to a maximum number of batches, leaving the other buffers for the next flush.
+     */
+    private void flushBuffers(final int maxBatches) {
+        int batches = 0;
         String standardMessages = standardBuffer.readBuffer();
         if (!standardMessages.isEmpty()) {
             sendMetric(standardMessages);
+            batches++;
         }
 
         Set<Aggregation> aggregations = aggregatedBuffer.getAggregations();
@@ -224,20 +968,121 @@ public class BufferedMetricsSender implements MetricsSender {
         for (Aggregation aggregation : aggregations) {
             Set<AggregationFrequency> aggregationFrequencies = aggregatedBuffer.getAggregationFrequencies(aggregation);
             for (AggregationFrequency aggregationFrequency : aggregationFrequencies) {
+                if (batches >= maxBatches) {
+                    return;
+                }
                 String aggregatedMessages = aggregatedBuffer.readBuffer(aggregation, aggregationFrequency);
 
                 if (!aggregatedMessages.isEmpty()) {
                     sendAggregatedMetric(aggregatedMessages, aggregation, aggregationFrequency);
+                    batches++;
                 }
             }
         }
     }
 
+    /**
+     * Sends the metrics drained from each buffer, up to a maximum number of batches, leaving the other buffers for the
+     * next flush.
+     */
+    private void flushLines(final StreamingTransportSender streamingTransportSender, final int maxBatches) {
+        int batches = 0;
+        List<String> standardMetrics = standardBuffer.drainBuffer();
+        if (!standardMetrics.isEmpty()) {
+            sendLines(streamingTransportSender, standardMetrics, null);
+            batches++;
+        }
+
+        for (Aggregation aggregation : aggregatedBuffer.getAggregations()) {
+            for (AggregationFrequency aggregationFrequency : aggregatedBuffer.getAggregationFrequencies(aggregation)) {
+                if (batches >= maxBatches) {
+                    return;
+                }
+                List<String> aggregatedMetrics = aggregatedBuffer.drainBuffer(aggregation, aggregationFrequency);
+
+                if (!aggregatedMetrics.isEmpty()) {
+                    sendLines(streamingTransportSender, aggregatedMetrics, buildAggregatedUri(aggregation, aggregationFrequency));
+                    batches++;
+                }
+            }
+        }
+    }
+
+    private void sendLines(final StreamingTransportSender streamingTransportSender, final List<String> metrics, final String uri) {
+        scheduleTask(metrics.size(), new Runnable() {
+            @Override
+            public void run() {
+                long start = System.nanoTime();
+                if (uri == null) {
+                    streamingTransportSender.sendLines(metrics);
+                } else {
+                    streamingTransportSender.sendLines(metrics, uri);
+                }
+                recordSend(start);
+            }
+        });
+    }
+
+    private void flushBatches(final BatchTransportSender batchTransportSender) {
+        // Every full batch buffered so far goes in the same send, so the transport packs them together
+        int batches = Math.max(1, standardBuffer.getQueue().size() / Math.max(1, standardBuffer.getFlushSize()));
+        final List<String> messages = new ArrayList<String>(batches);
+        final List<String> aggregatedMessages = new ArrayList<String>();
+        final List<String> aggregatedUris = new ArrayList<String>();
+
+        for (int i = 0; i < batches; i++) {
+            String standardMessages = standardBuffer.readBuffer();
+            if (standardMessages.isEmpty()) {
+                break;
+            }
+            messages.add(standardMessages);
+        }
+
+        for (Aggregation aggregation : aggregatedBuffer.getAggregations()) {
+            for (AggregationFrequency aggregationFrequency : aggregatedBuffer.getAggregationFrequencies(aggregation)) {
+                String messagesToSend = aggregatedBuffer.readBuffer(aggregation, aggregationFrequency);
+
+                if (!messagesToSend.isEmpty()) {
+                    aggregatedMessages.add(messagesToSend);
+                    aggregatedUris.add(buildAggregatedUri(aggregation, aggregationFrequency));
+                }
+            }
+        }
+
+        if (messages.isEmpty() && aggregatedMessages.isEmpty()) {
+            return;
+        }
+
+        int metrics = 0;
+        for (String message : messages) {
+            metrics += countMetrics(message);
+        }
+        for (String message : aggregatedMessages) {
+            metrics += countMetrics(message);
+        }
+
+        scheduleTask(metrics, new Runnable() {
+            @Override
+            public void run() {
+                long start = System.nanoTime();
+                if (!messages.isEmpty()) {
+                    batchTransportSender.send(messages);
+                }
+                for (int i = 0; i < aggregatedMessages.size(); i++) {
+                    batchTransportSender.send(aggregatedMessages.get(i), aggregatedUris.get(i));
+                }
+                recordSend(start);
+            }
+        });
+    }
+
     private void sendMetric(final String metric) {
-        scheduleTask(new Runnable() {
+        scheduleTask(countMetrics(metric), new Runnable() {
             @Override
             public void run() {
+                long start = System.nanoTime();
                 transportSender.send(metric);
+                recordSend(start);
             }
         });
     }
@@ -245,21 +1090,30 @@ public class BufferedMetricsSender implements MetricsSender {
     private void sendAggregatedMetric(final String metric,
                                       final Aggregation aggregation,
                                       final AggregationFrequency aggregationFrequency) {
-        scheduleTask(new Runnable() {
+        scheduleTask(countMetrics(metric), new Runnable() {
             @Override
             public void run() {
+                long start = System.nanoTime();
                 transportSender.send(metric, buildAggregatedUri(aggregation, aggregationFrequency));
+                recordSend(start);
             }
         });
     }
 
+    private void recordSend(final long start) {
+        sends.increment();
+        sendTimeMicros.add((System.nanoTime() - start) / NANOS_PER_MICRO);
+    }
+
     private void sendMetricSynchronously(final String metric) {
+        drained.add(countMetrics(metric));
         transportSender.send(metric);
     }
 
     private void sendAggregatedMetricSynchronously(final String metric,
                                                    final Aggregation aggregation,
                                                    final AggregationFrequency aggregationFrequency) {
+        drained.add(countMetrics(metric));
         transportSender.send(metric, buildAggregatedUri(aggregation, aggregationFrequency));
     }
 
@@ -272,6 +1126,15 @@ public class BufferedMetricsSender implements MetricsSender {
                 .replace("{frequency}", Integer.toString(aggregationFrequency.getValue()));
     }
 
+    /**
+     * Returns the number of metrics dropped because the buffers were full.
+     *
+     * @return The number of dropped metrics
+     */
+    final long getDroppedMetrics() {
+        return overflowHandler.getDroppedMetrics();
+    }
+
     /**
      * Returns a copy of the representation of the standard buffer as a {@link java.util.List}.
      * <p>
@@ -280,8 +1143,7 @@ public class BufferedMetricsSender implements MetricsSender {
      * @return A {@link java.util.List} containing the messages of the buffer
      */
     final List<String> getStandardBuffer() {
-        ArrayBlockingQueue<String> buffer = standardBuffer.getBuffer();
-        return asList(buffer.toArray(new String[buffer.size()]));
+        return standardBuffer.getQueue().snapshot();
     }
 
     /**
@@ -301,10 +1163,8 @@ public class BufferedMetricsSender implements MetricsSender {
             for (AggregationFrequency aggregationFrequency : aggregationFrequencies) {
 
                 // Current buffer content
-                ArrayBlockingQueue<String> currentAggregationFreqQueue =
-                        aggregatedBuffer.getBuffer().get(aggregation.toString()).get(aggregationFrequency.toString());
                 List<String> currentAggregationFreqList =
-                        asList(currentAggregationFreqQueue.toArray(new String[currentAggregationFreqQueue.size()]));
+                        aggregatedBuffer.getQueues().get(aggregation.toString()).get(aggregationFrequency.toString()).snapshot();
 
                 Map<AggregationFrequency, List<String>> aggregationFreqMap = buffersAsList.get(aggregation);
                 if (aggregationFreqMap != null) {
@@ -326,37 +1186,60 @@ public class BufferedMetricsSender implements MetricsSender {
         return buffersAsList;
     }
 
-    private void scheduleTask(final Runnable runnable) {
-        boolean wasScheduled = false;
-        if (executorService.getQueue().size() < configuration.getMaxWorkerTasksQueueSize()) {
-            Future<?> futureTask = executorService.schedule(runnable, 0, TimeUnit.MILLISECONDS);
-
-            wasScheduled = futuresQueue.offer(futureTask);
+    private void scheduleTask(final int metrics, final Runnable runnable) {
+        drained.add(metrics);
+        if (!senderPipeline.submit(runnable, metrics) && closed) {
+            lostOnShutdown.add(metrics);
         }
+    }
 
-        if (!wasScheduled) {
-            LOGGER.warning("Unable to send metric! The tasks queue is full. Please lower your timeouts or increase the worker thread pool.");
-            cancelAllWaitingTasks();
+    /**
+     * Counts the metrics of a message read from a buffer, which ends each metric with a new line.
+     */
+    private static int countMetrics(final String message) {
+        int metrics = 0;
+        for (int i = 0; i < message.length(); i++) {
+            if (message.charAt(i) == '\n') {
+                metrics++;
+            }
         }
+        return metrics;
     }
 
-    private void cancelAllWaitingTasks() {
-        helperExecutorService.schedule(tasksKiller(), 0, TimeUnit.MILLISECONDS);
-    }
+    /**
+     * The executor running the sender workers, with the maximum number of workers and whether the client created it.
+     */
+    private static final class Workers {
 
-    private Runnable tasksKiller() {
-        return new Runnable() {
-            @Override
-            public void run() {
-                Collection<Future<?>> tasks = new LinkedList<Future<?>>();
-                futuresQueue.drainTo(tasks);
+        private final ExecutorService executorService;
+        private final int maxWorkers;
+        private final boolean owned;
 
-                for (Future<?> task : tasks) {
-                    task.cancel(false);
-                }
+        private Workers(final ExecutorService executorService, final int maxWorkers, final boolean owned) {
+            this.executorService = executorService;
+            this.maxWorkers = maxWorkers;
+            this.owned = owned;
+        }
 
-                executorService.purge();
+        static Workers create(final ClientConfiguration configuration) {
+            int poolSize = Math.max(1, configuration.getWorkersPoolSize());
+            if (configuration.getWorkerExecutor() != null) {
+                return new Workers(configuration.getWorkerExecutor(), poolSize, false);
             }
-        };
+
+            if (configuration.isVirtualThreadsEnabled()) {
+                ExecutorService virtualThreadExecutor = VirtualThreads.newVirtualThreadPerTaskExecutor();
+                if (virtualThreadExecutor != null) {
+                    return new Workers(virtualThreadExecutor, configuration.getVirtualThreadsMaxConcurrency(), true);
+                }
+                LOGGER.info("Virtual threads aren't supported by this Java runtime, sending metrics on the workers pool.");
+            }
+
+            // Idle workers time out, so that idle clients don't hold threads
+            ThreadPoolExecutor pool = new ThreadPoolExecutor(poolSize, poolSize, WORKER_KEEP_ALIVE_MS, TimeUnit.MILLISECONDS,
+                    new LinkedBlockingQueue<Runnable>(), new NamedThreadFactory("statful-worker"));
+            pool.allowCoreThreadTimeOut(true);
+            return new Workers(pool, poolSize, true);
+        }
     }
 }
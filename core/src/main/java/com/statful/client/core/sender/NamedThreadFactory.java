@@ -0,0 +1,33 @@
+package com.statful.client.core.sender;
+
+import java.util.concurrent.ThreadFactory;
+import java.util.concurrent.atomic.AtomicInteger;
+
+/**
+ * Creates daemon threads named after their role, such as {@code statful-worker-3}, so that the threads of the client
+ * are recognizable in thread dumps and never keep the JVM from exiting.
+ * <p>
+ * Thread numbers are unique across every factory, so the threads of several clients don't share names.
+ */
+public final class NamedThreadFactory implements ThreadFactory {
+
+    private static final AtomicInteger THREAD_IDS = new AtomicInteger();
+
+    private final String name;
+
+    /**
+     * Default constructor.
+     *
+     * @param name The name of the threads, followed by their number
+     */
+    public NamedThreadFactory(final String name) {
+        this.name = name;
+    }
+
+    @Override
+    public Thread newThread(final Runnable runnable) {
+        Thread thread = new Thread(runnable, name + "-" + THREAD_IDS.incrementAndGet());
+        thread.setDaemon(true);
+        return thread;
+    }
+}
@@ -0,0 +1,299 @@
+package com.statful.client.core.sender;
+
+import com.statful.client.core.diagnostics.Diagnostics;
+import com.statful.client.core.stats.StatsCounter;
+import com.statful.client.core.stats.StatsGauge;
+import com.statful.client.core.stats.StatsRegistry;
+import com.statful.client.core.stats.StatsSource;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.logging.Logger;
+
+/**
+ * Sends batches of metrics from a bounded queue on up to a fixed number of workers.
+ * <p>
+ * Flushes hand their sends over with {@link #submit(Runnable, int)}, which enqueues them and only starts a worker if
+ * fewer than the maximum are running, so no task is scheduled nor any future kept per flush while the workers keep
+ * up. Each worker takes the oldest batch and sends it, unless it's been waiting longer than the maximum wait, in
+ * which case it's expired without being sent: its metrics would be stale, and the queue only grows that old when the
+ * destination can't keep up. Workers stop once the queue is empty, so idle pipelines don't hold the threads of an
+ * executor shared with other clients.
+ * <p>
+ * When the queue is full, batches are rejected one by one, leaving the ones already queued and being sent alone.
+ * Flushes should {@link #reserve(int) reserve} room for their batches first, and only drain as many buffers as they
+ * got room for, so that metrics wait in the buffers, subject to the overflow policy, instead of being rejected.
+ * <p>
+ * On shutdown, the pipeline first {@link #drain(long) drains}: batches are no longer expired and submits wait for room
+ * until a deadline, so that the last metrics of the client are sent. Then it {@link #shutdown(long) stops}, waiting
+ * until the deadline for the batches queued and being sent, and discarding the ones still queued.
+ * <p>
+ * Instances of this class are thread-safe.
+ */
+final class SenderPipeline implements StatsSource {
+
+    private static final Logger LOGGER = Logger.getLogger(SenderPipeline.class.getName());
+    private static final Diagnostics DIAGNOSTICS = new Diagnostics(LOGGER);
+
+    private final ExecutorService executorService;
+    private final int maxWorkers;
+    private final BlockingQueue<Batch> queue;
+    private final long maxWaitNanos;
+    private final AtomicInteger runningWorkers = new AtomicInteger();
+    private final AtomicInteger activeWorkers = new AtomicInteger();
+    private final AtomicLong pendingMetrics = new AtomicLong();
+    private final AtomicInteger reservedBatches = new AtomicInteger();
+    private final Object progress = new Object();
+    private final StatsCounter rejected = new StatsCounter();
+    private final StatsCounter expired = new StatsCounter();
+
+    private volatile boolean draining;
+    private volatile long drainDeadlineNanos;
+    private volatile boolean stopped;
+
+    /**
+     * Default constructor.
+     *
+     * @param executorService The {@link ExecutorService} to run the workers on
+     * @param workers The maximum number of workers
+     * @param capacity The maximum number of batches waiting for a worker
+     * @param maxWaitMillis How long a batch may wait for a worker before being expired, in milliseconds
+     */
+    SenderPipeline(final ExecutorService executorService, final int workers, final int capacity, final long maxWaitMillis) {
+        this.executorService = executorService;
+        this.maxWorkers = Math.max(1, workers);
+        this.queue = new ArrayBlockingQueue<Batch>(Math.max(1, capacity));
+        this.maxWaitNanos = maxWaitMillis > 0 ? TimeUnit.MILLISECONDS.toNanos(maxWaitMillis) : Long.MAX_VALUE;
+    }
+
+    /**
+     * Returns if there's room for another batch.
+     *
+     * @return True if a batch submitted now would be queued
+     */
+    boolean hasCapacity() {
+        return queue.remainingCapacity() - reservedBatches.get() > 0;
+    }
+
+    /**
+     * Reserves room for up to a number of batches, which no other reservation takes until it's {@link #release(int)
+     * released}. Batches submitted by the holder of a reservation are queued, as long as every submit is reserved.
+     *
+     * @param batches The number of batches to reserve room for
+     * @return The number of batches reserved, between 0 and {@code batches}
+     */
+    int reserve(final int batches) {
+        while (true) {
+            int reserved = reservedBatches.get();
+            int available = Math.min(batches, queue.remainingCapacity() - reserved);
+            if (available <= 0) {
+                return 0;
+            }
+            if (reservedBatches.compareAndSet(reserved, reserved + available)) {
+                return available;
+            }
+        }
+    }
+
+    /**
+     * Releases a reservation once its batches are submitted, or aren't going to be.
+     *
+     * @param batches The number of batches reserved
+     */
+    void release(final int batches) {
+        reservedBatches.addAndGet(-batches);
+    }
+
+    /**
+     * Queues a batch to be sent by a worker, or rejects it if the queue is full. While draining, waits for room until
+     * the drain deadline instead.
+     *
+     * @param send The send of the batch
+     * @param metrics The number of metrics in the batch
+     * @return True if the batch was queued
+     */
+    boolean submit(final Runnable send, final int metrics) {
+        if (!stopped && offer(new Batch(send, metrics, System.nanoTime()))) {
+            startWorker();
+            return true;
+        }
+
+        rejected.increment();
+        DIAGNOSTICS.warning("Unable to send metric! The tasks queue is full. Please lower your timeouts or increase the worker thread pool.");
+        return false;
+    }
+
+    /**
+     * Returns the number of batches waiting for a worker.
+     *
+     * @return The number of queued batches
+     */
+    int getQueuedBatches() {
+        return queue.size();
+    }
+
+    /**
+     * Returns the number of workers sending a batch.
+     *
+     * @return The number of active workers
+     */
+    int getActiveWorkers() {
+        return activeWorkers.get();
+    }
+
+    /**
+     * Starts draining: batches are no longer expired, and submits wait for room until the deadline.
+     *
+     * @param deadlineNanos The {@link System#nanoTime()} until which submits may wait
+     */
+    void drain(final long deadlineNanos) {
+        drainDeadlineNanos = deadlineNanos;
+        draining = true;
+    }
+
+    /**
+     * Stops accepting batches and waits until the queued batches and the ones being sent are done, or until the
+     * deadline. Batches still queued then are discarded.
+     *
+     * @param deadlineNanos The {@link System#nanoTime()} until which to wait for the batches
+     * @return The number of metrics in the batches not sent, either discarded or still being sent
+     */
+    long shutdown(final long deadlineNanos) {
+        stopped = true;
+        try {
+            synchronized (progress) {
+                long remainingNanos = deadlineNanos - System.nanoTime();
+                while (pendingMetrics.get() > 0 && remainingNanos > 0) {
+                    TimeUnit.NANOSECONDS.timedWait(progress, remainingNanos);
+                    remainingNanos = deadlineNanos - System.nanoTime();
+                }
+            }
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        }
+
+        List<Batch> discarded = new ArrayList<Batch>();
+        queue.drainTo(discarded);
+        long discardedMetrics = 0;
+        for (Batch batch : discarded) {
+            discardedMetrics += batch.metrics;
+        }
+        // In-flight batches are still pending, the discarded ones aren't anymore
+        return pendingMetrics.addAndGet(-discardedMetrics) + discardedMetrics;
+    }
+
+    @Override
+    public void registerStats(final StatsRegistry registry) {
+        registry.register("tasks.queued", new StatsGauge() {
+            @Override
+            public long getValue() {
+                return queue.size();
+            }
+        });
+        registry.register("tasks.rejected", rejected);
+        registry.register("tasks.expired", expired);
+    }
+
+    private boolean offer(final Batch batch) {
+        boolean queued;
+        if (draining) {
+            try {
+                queued = queue.offer(batch, Math.max(0, drainDeadlineNanos - System.nanoTime()), TimeUnit.NANOSECONDS);
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+                queued = false;
+            }
+        } else {
+            queued = queue.offer(batch);
+        }
+
+        if (queued) {
+            pendingMetrics.addAndGet(batch.metrics);
+        }
+        return queued;
+    }
+
+    private void startWorker() {
+        int running = runningWorkers.get();
+        while (running < maxWorkers) {
+            if (runningWorkers.compareAndSet(running, running + 1)) {
+                try {
+                    executorService.execute(worker());
+                } catch (RejectedExecutionException e) {
+                    runningWorkers.decrementAndGet();
+                    DIAGNOSTICS.warning("Unable to start a sender worker, the executor was shut down.");
+                }
+                return;
+            }
+            running = runningWorkers.get();
+        }
+    }
+
+    private Runnable worker() {
+        return new Runnable() {
+            @Override
+            public void run() {
+                try {
+                    Batch batch = queue.poll();
+                    while (batch != null) {
+                        if (!draining && System.nanoTime() - batch.enqueuedNanos > maxWaitNanos) {
+                            expired.increment();
+                        } else {
+                            send(batch);
+                        }
+                        done(batch);
+                        batch = queue.poll();
+                    }
+                } finally {
+                    runningWorkers.decrementAndGet();
+                }
+
+                // A batch queued after the last poll may have found every worker still running
+                if (!queue.isEmpty()) {
+                    startWorker();
+                }
+            }
+        };
+    }
+
+    private void send(final Batch batch) {
+        activeWorkers.incrementAndGet();
+        try {
+            batch.send.run();
+        } catch (RuntimeException e) {
+            DIAGNOSTICS.warning("Unable to send metrics, the transport failed.", e);
+        } finally {
+            activeWorkers.decrementAndGet();
+        }
+    }
+
+    private void done(final Batch batch) {
+        pendingMetrics.addAndGet(-batch.metrics);
+        synchronized (progress) {
+            progress.notifyAll();
+        }
+    }
+
+    /**
+     * A send waiting for a worker, with the number of metrics it sends and the time it was queued.
+     */
+    private static final class Batch {
+
+        private final Runnable send;
+        private final int metrics;
+        private final long enqueuedNanos;
+
+        private Batch(final Runnable send, final int metrics, final long enqueuedNanos) {
+            this.send = send;
+            this.metrics = metrics;
+            this.enqueuedNanos = enqueuedNanos;
+        }
+    }
+}
@@ -0,0 +1,117 @@
+package com.statful.client.core.sender;
+
+import java.util.Map;
+
+/**
+ * Management interface of a Statful client, registered in the platform MBean server when JMX is enabled.
+ * <p>
+ * Exposes the occupancy of the buffers, the rates at which metrics are buffered, dropped and sent, and the send tasks
+ * in flight, and allows tuning the flush size, flush interval and sample rate at runtime.
+ */
+public interface StatfulClientMXBean {
+
+    /**
+     * Returns the number of metrics waiting in the standard buffer.
+     *
+     * @return The number of metrics
+     */
+    long getStandardBufferSize();
+
+    /**
+     * Returns the number of metrics waiting in the aggregated buffers.
+     *
+     * @return The number of metrics
+     */
+    long getAggregatedBufferSize();
+
+    /**
+     * Returns the number of metrics dropped because the buffers were full.
+     *
+     * @return The number of dropped metrics
+     */
+    long getDroppedMetrics();
+
+    /**
+     * Returns the rate at which metrics were buffered during the last rate interval.
+     *
+     * @return The number of metrics buffered per second
+     */
+    double getEnqueueRate();
+
+    /**
+     * Returns the rate at which metrics were dropped during the last rate interval.
+     *
+     * @return The number of metrics dropped per second
+     */
+    double getDropRate();
+
+    /**
+     * Returns the rate at which the transport sent batches of metrics during the last rate interval.
+     *
+     * @return The number of sends per second
+     */
+    double getSendRate();
+
+    /**
+     * Returns the number of send tasks waiting for a worker.
+     *
+     * @return The number of queued tasks
+     */
+    int getQueuedTasks();
+
+    /**
+     * Returns the number of send tasks being run by the workers.
+     *
+     * @return The number of active tasks
+     */
+    int getActiveTasks();
+
+    /**
+     * Returns every internal statistic of the client.
+     *
+     * @return A {@link Map} with the statistics values by name
+     */
+    Map<String, Long> getStats();
+
+    /**
+     * Returns the number of metrics that triggers a flush.
+     *
+     * @return The flush size
+     */
+    int getFlushSize();
+
+    /**
+     * Changes the number of metrics that triggers a flush.
+     *
+     * @param flushSize The flush size, which should be positive
+     */
+    void setFlushSize(int flushSize);
+
+    /**
+     * Returns the interval between periodic flushes.
+     *
+     * @return The flush interval in milliseconds
+     */
+    long getFlushIntervalMillis();
+
+    /**
+     * Changes the interval between periodic flushes. Intervals bellow 50 milliseconds disable periodic flushes.
+     *
+     * @param flushIntervalMillis The flush interval in milliseconds
+     */
+    void setFlushIntervalMillis(long flushIntervalMillis);
+
+    /**
+     * Returns the sample rate overriding the sample rate of every metric, or 0 if there's none.
+     *
+     * @return The sample rate override
+     */
+    int getSampleRateOverride();
+
+    /**
+     * Overrides the sample rate of every metric, or restores the sample rate of each metric if 0.
+     *
+     * @param sampleRate The sample rate, between 1 and 100, or 0
+     */
+    void setSampleRateOverride(int sampleRate);
+}
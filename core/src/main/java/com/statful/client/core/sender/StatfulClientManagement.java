@@ -0,0 +1,142 @@
+package com.statful.client.core.sender;
+
+import com.statful.client.domain.api.ClientStats;
+
+import java.util.Map;
+
+/**
+ * {@link StatfulClientMXBean} implementation backed by a {@link BufferedMetricsSender}.
+ * <p>
+ * Rates are computed over fixed intervals by {@link #updateRates()}, which is expected to be called once per
+ * {@link #RATE_INTERVAL_MILLIS}.
+ */
+final class StatfulClientManagement implements StatfulClientMXBean {
+
+    /**
+     * Interval over which rates are computed.
+     */
+    static final long RATE_INTERVAL_MILLIS = 5000;
+
+    private static final double MILLIS_PER_SECOND = 1000D;
+
+    private final BufferedMetricsSender sender;
+    private final SenderPipeline senderPipeline;
+
+    private long lastUpdateMillis;
+    private long lastEnqueued;
+    private long lastDropped;
+    private long lastSends;
+
+    private volatile double enqueueRate;
+    private volatile double dropRate;
+    private volatile double sendRate;
+
+    /**
+     * Default constructor.
+     *
+     * @param sender The {@link BufferedMetricsSender} to manage
+     * @param senderPipeline The {@link SenderPipeline} sending the batches of the sender
+     */
+    StatfulClientManagement(final BufferedMetricsSender sender, final SenderPipeline senderPipeline) {
+        this.sender = sender;
+        this.senderPipeline = senderPipeline;
+        this.lastUpdateMillis = System.currentTimeMillis();
+    }
+
+    /**
+     * Updates the rates with the counters of the sender since the last update.
+     */
+    synchronized void updateRates() {
+        ClientStats stats = sender.getStats();
+        long now = System.currentTimeMillis();
+        double elapsedSeconds = Math.max(1, now - lastUpdateMillis) / MILLIS_PER_SECOND;
+
+        long enqueued = stats.getValue(BufferedMetricsSender.STAT_ENQUEUED);
+        long dropped = stats.getValue(BufferedMetricsSender.STAT_DROPPED);
+        long sends = stats.getValue(BufferedMetricsSender.STAT_SENDS);
+
+        enqueueRate = (enqueued - lastEnqueued) / elapsedSeconds;
+        dropRate = (dropped - lastDropped) / elapsedSeconds;
+        sendRate = (sends - lastSends) / elapsedSeconds;
+
+        lastEnqueued = enqueued;
+        lastDropped = dropped;
+        lastSends = sends;
+        lastUpdateMillis = now;
+    }
+
+    @Override
+    public long getStandardBufferSize() {
+        return sender.getStats().getValue(BufferedMetricsSender.STAT_STANDARD_BUFFER_SIZE);
+    }
+
+    @Override
+    public long getAggregatedBufferSize() {
+        return sender.getStats().getValue(BufferedMetricsSender.STAT_AGGREGATED_BUFFER_SIZE);
+    }
+
+    @Override
+    public long getDroppedMetrics() {
+        return sender.getStats().getValue(BufferedMetricsSender.STAT_DROPPED);
+    }
+
+    @Override
+    public double getEnqueueRate() {
+        return enqueueRate;
+    }
+
+    @Override
+    public double getDropRate() {
+        return dropRate;
+    }
+
+    @Override
+    public double getSendRate() {
+        return sendRate;
+    }
+
+    @Override
+    public int getQueuedTasks() {
+        return senderPipeline.getQueuedBatches();
+    }
+
+    @Override
+    public int getActiveTasks() {
+        return senderPipeline.getActiveWorkers();
+    }
+
+    @Override
+    public Map<String, Long> getStats() {
+        return sender.getStats().getValues();
+    }
+
+    @Override
+    public int getFlushSize() {
+        return sender.getFlushSize();
+    }
+
+    @Override
+    public void setFlushSize(final int flushSize) {
+        sender.setFlushSize(flushSize);
+    }
+
+    @Override
+    public long getFlushIntervalMillis() {
+        return sender.getFlushIntervalMillis();
+    }
+
+    @Override
+    public void setFlushIntervalMillis(final long flushIntervalMillis) {
+        sender.setFlushIntervalMillis(flushIntervalMillis);
+    }
+
+    @Override
+    public int getSampleRateOverride() {
+        return sender.getSampleRateOverride();
+    }
+
+    @Override
+    public void setSampleRateOverride(final int sampleRate) {
+        sender.setSampleRateOverride(sampleRate);
+    }
+}
@@ -0,0 +1,507 @@
+package com.statful.client.core.spool;
+
+import com.statful.client.core.stats.StatsCounter;
+import com.statful.client.core.stats.StatsGauge;
+import com.statful.client.core.stats.StatsRegistry;
+import com.statful.client.core.stats.StatsSource;
+import com.statful.client.domain.api.SpoolSyncPolicy;
+
+import java.io.File;
+import java.io.FilenameFilter;
+import java.io.IOException;
+import java.io.RandomAccessFile;
+import java.nio.ByteBuffer;
+import java.nio.MappedByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.channels.FileLock;
+import java.nio.channels.OverlappingFileLockException;
+import java.nio.charset.Charset;
+import java.util.ArrayDeque;
+import java.util.Arrays;
+import java.util.Deque;
+import java.util.logging.Logger;
+
+/**
+ * A first-in first-out queue of messages kept in memory-mapped segment files, so that metrics outlive both transport
+ * outages and restarts of the process without growing the heap.
+ * <p>
+ * Messages are appended to the newest segment, and a new segment is created once it's full. The total size of the
+ * segments is bounded: when creating a segment would exceed it, the oldest segment is dropped with every message not
+ * read yet. Segments are deleted once every message in them is read. Each segment keeps the position of the next
+ * message to read in its header, so a spool opened on the directory of a previous one reads the messages left, in
+ * order, before the new ones.
+ * <p>
+ * A message is only visible once its length is written, which happens after the rest of it, so a crash while
+ * appending never exposes a partial message. Instances of this class are thread-safe.
+ * <p>
+ * A spool holds a lock on its directory until it's closed, so that two spools, in the same process or not, never
+ * read and write the same segments.
+ */
+public final class DiskSpool implements StatsSource {
+
+    private static final Logger LOGGER = Logger.getLogger(DiskSpool.class.getName());
+    private static final Charset UTF_8 = Charset.forName("UTF-8");
+
+    private static final String SEGMENT_PREFIX = "statful-spool-";
+    private static final String SEGMENT_SUFFIX = ".seg";
+    private static final String SEGMENT_NAME_FORMAT = SEGMENT_PREFIX + "%019d" + SEGMENT_SUFFIX;
+    private static final String LOCK_FILE_NAME = "statful-spool.lock";
+
+    private static final int MAGIC = 0x53504f4c;
+    private static final int READ_OFFSET_POSITION = 4;
+    private static final int SEGMENT_HEADER_SIZE = 8;
+    private static final int URI_LENGTH_POSITION = 4;
+    private static final int RECORD_HEADER_SIZE = 8;
+    private static final int NO_URI = -1;
+
+    private static final int SEGMENTS_PER_SPOOL = 8;
+    private static final int MIN_SEGMENT_SIZE = 64 * 1024;
+    private static final int MAX_SEGMENT_SIZE = 64 * 1024 * 1024;
+
+    private final File directory;
+    private final int segmentSize;
+    private final int maxSegments;
+    private final SpoolSyncPolicy syncPolicy;
+    private final FileLock lock;
+    private final Deque<Segment> segments = new ArrayDeque<Segment>();
+    private final StatsCounter spooled = new StatsCounter();
+    private final StatsCounter replayed = new StatsCounter();
+    private final StatsCounter dropped = new StatsCounter();
+
+    private long nextSequence;
+    private volatile long diskBytes;
+    private boolean closed;
+
+    /**
+     * Opens a spool in a directory, keeping the messages left by a previous spool in it. The total size is split in
+     * eight segments, of at least 64 KB and at most 64 MB each.
+     *
+     * @param directory The directory of the segment files, created if it doesn't exist
+     * @param maxBytes The maximum total size of the segment files, in bytes
+     * @param syncPolicy The {@link SpoolSyncPolicy} to flush the segment files to the disk
+     * @throws IOException If the directory can't be created or read, or is locked by another spool
+     */
+    public DiskSpool(final File directory, final long maxBytes, final SpoolSyncPolicy syncPolicy) throws IOException {
+        this(directory, maxBytes, (int) Math.max(MIN_SEGMENT_SIZE, Math.min(MAX_SEGMENT_SIZE, maxBytes / SEGMENTS_PER_SPOOL)), syncPolicy);
+    }
+
+    DiskSpool(final File directory, final long maxBytes, final int segmentSize, final SpoolSyncPolicy syncPolicy) throws IOException {
+        if (!directory.isDirectory() && !directory.mkdirs()) {
+            throw new IOException("Unable to create the spool directory " + directory);
+        }
+
+        this.directory = directory;
+        this.segmentSize = segmentSize;
+        this.maxSegments = (int) Math.max(1, Math.min(Integer.MAX_VALUE, maxBytes / segmentSize));
+        this.syncPolicy = syncPolicy;
+        this.lock = lock(directory);
+
+        try {
+            recover();
+        } catch (IOException e) {
+            release(lock);
+            throw e;
+        }
+    }
+
+    /**
+     * Appends a message, dropping the oldest segment if the spool is full. Messages bigger than a segment are
+     * dropped.
+     *
+     * @param message The message to append
+     * @param uri The uri to send the message to, or null for the default one
+     * @return True if the message was appended
+     */
+    public synchronized boolean append(final String message, final String uri) {
+        byte[] messageBytes = message.getBytes(UTF_8);
+        byte[] uriBytes = uri == null ? null : uri.getBytes(UTF_8);
+        int recordSize = RECORD_HEADER_SIZE + messageBytes.length + (uriBytes == null ? 0 : uriBytes.length);
+
+        if (closed || recordSize > segmentSize - SEGMENT_HEADER_SIZE) {
+            dropped.increment();
+            return false;
+        }
+
+        Segment writer = segments.peekLast();
+        if (writer == null || !writer.writable || writer.remaining() < recordSize) {
+            if (writer != null && writer.writable) {
+                writer.writable = false;
+                if (syncPolicy != SpoolSyncPolicy.NEVER) {
+                    writer.force();
+                }
+            }
+
+            writer = createSegment();
+            if (writer == null) {
+                dropped.increment();
+                return false;
+            }
+        }
+
+        writer.append(messageBytes, uriBytes, recordSize);
+        if (syncPolicy == SpoolSyncPolicy.ALWAYS) {
+            writer.force();
+        }
+        spooled.increment();
+        return true;
+    }
+
+    /**
+     * Reads and removes the oldest message.
+     *
+     * @return The oldest {@link SpooledMessage}, or null if the spool is empty
+     */
+    public synchronized SpooledMessage poll() {
+        SpooledMessage message = peek();
+        if (message != null) {
+            commit(message);
+        }
+        return message;
+    }
+
+    /**
+     * Reads the oldest message, without removing it, so that it's read again, even by the next spool opened on the
+     * same directory, until it's committed.
+     *
+     * @return The oldest {@link SpooledMessage}, or null if the spool is empty
+     */
+    public synchronized SpooledMessage peek() {
+        while (!segments.isEmpty()) {
+            Segment oldest = segments.peekFirst();
+            SpooledMessage message = oldest.peek();
+            if (message != null) {
+                return message;
+            }
+
+            // The segment still being written to is kept, even if it's been read, to avoid creating another one
+            if (oldest.writable) {
+                return null;
+            }
+            removeOldest();
+        }
+        return null;
+    }
+
+    /**
+     * Removes a message read by {@link #peek()}, once it's been handled. Nothing is removed if the message isn't the
+     * oldest one anymore, because its segment was dropped to make room for new messages.
+     *
+     * @param message The {@link SpooledMessage} to remove
+     */
+    public synchronized void commit(final SpooledMessage message) {
+        Segment oldest = segments.peekFirst();
+        if (oldest != null && oldest.commit(message)) {
+            replayed.increment();
+        }
+    }
+
+    /**
+     * Returns if there's no message left to read.
+     *
+     * @return True if the spool is empty
+     */
+    public synchronized boolean isEmpty() {
+        for (Segment segment : segments) {
+            if (segment.hasUnread()) {
+                return false;
+            }
+        }
+        return true;
+    }
+
+    /**
+     * Flushes the segment files to the disk, unless the sync policy is {@link SpoolSyncPolicy#NEVER}, and stops
+     * appending messages. The messages left are read by the next spool opened on the same directory.
+     */
+    public synchronized void close() {
+        if (closed) {
+            return;
+        }
+        closed = true;
+
+        if (syncPolicy != SpoolSyncPolicy.NEVER) {
+            for (Segment segment : segments) {
+                segment.force();
+            }
+        }
+        segments.clear();
+        diskBytes = 0;
+        release(lock);
+    }
+
+    @Override
+    public void registerStats(final StatsRegistry registry) {
+        registry.register("spool.spooled", spooled);
+        registry.register("spool.replayed", replayed);
+        registry.register("spool.dropped", dropped);
+        registry.register("spool.bytes", new StatsGauge() {
+            @Override
+            public long getValue() {
+                return diskBytes;
+            }
+        });
+    }
+
+    private static FileLock lock(final File directory) throws IOException {
+        FileChannel channel = new RandomAccessFile(new File(directory, LOCK_FILE_NAME), "rw").getChannel();
+        FileLock lock = null;
+        try {
+            lock = channel.tryLock();
+        } catch (OverlappingFileLockException e) {
+            // Held by another spool of this process
+            lock = null;
+        } finally {
+            if (lock == null) {
+                channel.close();
+            }
+        }
+
+        if (lock == null) {
+            throw new IOException("The spool directory " + directory + " is locked by another Statful client");
+        }
+        return lock;
+    }
+
+    private static void release(final FileLock lock) {
+        try {
+            lock.release();
+            lock.channel().close();
+        } catch (IOException e) {
+            LOGGER.warning("Unable to release the Statful spool lock: " + e.getMessage());
+        }
+    }
+
+    private void recover() throws IOException {
+        File[] files = directory.listFiles(new FilenameFilter() {
+            @Override
+            public boolean accept(final File dir, final String name) {
+                return name.startsWith(SEGMENT_PREFIX) && name.endsWith(SEGMENT_SUFFIX);
+            }
+        });
+        if (files == null) {
+            throw new IOException("Unable to list the spool directory " + directory);
+        }
+
+        // The zero-padded sequence numbers sort the segments from the oldest to the newest
+        Arrays.sort(files);
+        for (File file : files) {
+            String name = file.getName();
+            try {
+                long sequence = Long.parseLong(name.substring(SEGMENT_PREFIX.length(), name.length() - SEGMENT_SUFFIX.length()));
+                nextSequence = Math.max(nextSequence, sequence + 1);
+            } catch (NumberFormatException e) {
+                continue;
+            }
+
+            Segment segment = Segment.open(file);
+            if (segment == null || !segment.hasUnread()) {
+                deleteFile(file);
+            } else {
+                segments.addLast(segment);
+                diskBytes += segment.capacity();
+            }
+        }
+
+        if (!segments.isEmpty()) {
+            LOGGER.info("Recovered " + segments.size() + " Statful spool segments from " + directory + ".");
+        }
+    }
+
+    private Segment createSegment() {
+        while (segments.size() >= maxSegments) {
+            Segment oldest = segments.peekFirst();
+            dropped.add(oldest.countUnread());
+            removeOldest();
+        }
+
+        File file = new File(directory, String.format(SEGMENT_NAME_FORMAT, nextSequence++));
+        try {
+            Segment segment = Segment.create(file, segmentSize);
+            segments.addLast(segment);
+            diskBytes += segment.capacity();
+            return segment;
+        } catch (IOException e) {
+            LOGGER.warning("Unable to create the Statful spool segment " + file + ": " + e.getMessage());
+            deleteFile(file);
+            return null;
+        }
+    }
+
+    private void removeOldest() {
+        Segment oldest = segments.pollFirst();
+        diskBytes -= oldest.capacity();
+        deleteFile(oldest.file);
+    }
+
+    private static void deleteFile(final File file) {
+        if (file.exists() && !file.delete()) {
+            LOGGER.warning("Unable to delete the Statful spool segment " + file + ".");
+        }
+    }
+
+    /**
+     * A segment file mapped in memory: a header with a magic number and the position of the next message to read,
+     * followed by records made of their total length, the length of their uri, or -1 if they have none, the uri and
+     * the message. The first record with a length of zero marks the end of the segment.
+     */
+    private static final class Segment {
+
+        private final File file;
+        private final MappedByteBuffer buffer;
+        private int readOffset;
+        private int writeOffset;
+        private boolean writable;
+        private SpooledMessage peeked;
+        private int peekedSize;
+
+        private Segment(final File file, final MappedByteBuffer buffer, final int readOffset, final int writeOffset, final boolean writable) {
+            this.file = file;
+            this.buffer = buffer;
+            this.readOffset = readOffset;
+            this.writeOffset = writeOffset;
+            this.writable = writable;
+        }
+
+        static Segment create(final File file, final int size) throws IOException {
+            MappedByteBuffer buffer = map(file, size);
+            buffer.putInt(0, MAGIC);
+            buffer.putInt(READ_OFFSET_POSITION, SEGMENT_HEADER_SIZE);
+            return new Segment(file, buffer, SEGMENT_HEADER_SIZE, SEGMENT_HEADER_SIZE, true);
+        }
+
+        static Segment open(final File file) {
+            long length = file.length();
+            if (length < SEGMENT_HEADER_SIZE + RECORD_HEADER_SIZE || length > Integer.MAX_VALUE) {
+                return null;
+            }
+
+            try {
+                MappedByteBuffer buffer = map(file, length);
+                int readOffset = buffer.getInt(READ_OFFSET_POSITION);
+                if (buffer.getInt(0) != MAGIC || readOffset < SEGMENT_HEADER_SIZE || readOffset > buffer.capacity()) {
+                    LOGGER.warning("Ignoring the corrupted Statful spool segment " + file + ".");
+                    return null;
+                }
+                return new Segment(file, buffer, readOffset, buffer.capacity(), false);
+            } catch (IOException e) {
+                LOGGER.warning("Unable to open the Statful spool segment " + file + ": " + e.getMessage());
+                return null;
+            }
+        }
+
+        private static MappedByteBuffer map(final File file, final long size) throws IOException {
+            RandomAccessFile randomAccessFile = new RandomAccessFile(file, "rw");
+            try {
+                randomAccessFile.setLength(size);
+                // The mapping stays valid once the file is closed
+                return randomAccessFile.getChannel().map(FileChannel.MapMode.READ_WRITE, 0, size);
+            } finally {
+                randomAccessFile.close();
+            }
+        }
+
+        int capacity() {
+            return buffer.capacity();
+        }
+
+        int remaining() {
+            return buffer.capacity() - writeOffset;
+        }
+
+        void append(final byte[] message, final byte[] uri, final int recordSize) {
+            ByteBuffer view = buffer.duplicate();
+            view.position(writeOffset + RECORD_HEADER_SIZE);
+            if (uri != null) {
+                view.put(uri);
+            }
+            view.put(message);
+            buffer.putInt(writeOffset + URI_LENGTH_POSITION, uri == null ? NO_URI : uri.length);
+
+            // Written last, so that the record is only visible once complete
+            buffer.putInt(writeOffset, recordSize);
+            writeOffset += recordSize;
+        }
+
+        SpooledMessage peek() {
+            if (peeked != null) {
+                return peeked;
+            }
+
+            int recordSize = recordSizeAt(readOffset);
+            if (recordSize == 0) {
+                return null;
+            }
+
+            int uriLength = buffer.getInt(readOffset + URI_LENGTH_POSITION);
+            ByteBuffer view = buffer.duplicate();
+            view.position(readOffset + RECORD_HEADER_SIZE);
+
+            String uri = null;
+            if (uriLength != NO_URI) {
+                byte[] uriBytes = new byte[uriLength];
+                view.get(uriBytes);
+                uri = new String(uriBytes, UTF_8);
+            }
+            byte[] messageBytes = new byte[recordSize - RECORD_HEADER_SIZE - Math.max(0, uriLength)];
+            view.get(messageBytes);
+
+            peeked = new SpooledMessage(new String(messageBytes, UTF_8), uri);
+            peekedSize = recordSize;
+            return peeked;
+        }
+
+        /**
+         * Moves the read position past the message last peeked, if it's the given one.
+         */
+        boolean commit(final SpooledMessage message) {
+            if (message == null || message != peeked) {
+                return false;
+            }
+
+            readOffset += peekedSize;
+            buffer.putInt(READ_OFFSET_POSITION, readOffset);
+            peeked = null;
+            return true;
+        }
+
+        boolean hasUnread() {
+            return recordSizeAt(readOffset) > 0;
+        }
+
+        long countUnread() {
+            long count = 0;
+            int offset = readOffset;
+            int recordSize = recordSizeAt(offset);
+            while (recordSize > 0) {
+                count++;
+                offset += recordSize;
+                recordSize = recordSizeAt(offset);
+            }
+            return count;
+        }
+
+        void force() {
+            buffer.force();
+        }
+
+        /**
+         * Returns the size of the record at an offset, or zero if there's no valid record there.
+         */
+        private int recordSizeAt(final int offset) {
+            if (offset > buffer.capacity() - RECORD_HEADER_SIZE) {
+                return 0;
+            }
+
+            int recordSize = buffer.getInt(offset);
+            if (recordSize < RECORD_HEADER_SIZE || recordSize > buffer.capacity() - offset) {
+                return 0;
+            }
+
+            int uriLength = buffer.getInt(offset + URI_LENGTH_POSITION);
+            if (uriLength < NO_URI || uriLength > recordSize - RECORD_HEADER_SIZE) {
+                return 0;
+            }
+            return recordSize;
+        }
+    }
+}
@@ -0,0 +1,142 @@
+package com.statful.client.core.spool;
+
+import com.statful.client.core.sender.NamedThreadFactory;
+import com.statful.client.core.stats.StatsRegistry;
+import com.statful.client.core.stats.StatsSource;
+import com.statful.client.core.transport.BoundedShutdownTransportSender;
+import com.statful.client.core.transport.CircuitBreakerTransportSender;
+import com.statful.client.core.transport.CircuitState;
+
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+import java.util.logging.Logger;
+
+/**
+ * A {@link com.statful.client.core.transport.TransportSender} which appends messages to a {@link DiskSpool}, meant
+ * to be the fallback of a {@link CircuitBreakerTransportSender} while its destination is failing.
+ * <p>
+ * Once replay is started, a background thread sends the spooled messages, oldest first, through the transport sender
+ * decorated by the circuit breaker whenever its circuit is closed. Messages are replayed as they were spooled, so their
+ * metrics keep their original timestamps. A message is only removed from the spool once its sending is confirmed, so
+ * a crash during the replay doesn't lose it. If sending it fails, it stays first in the spool and the replay stops
+ * until the next interval. Replay is paced to a limited number of messages per second, so that a recovering destination isn't flooded
+ * with the backlog of an outage.
+ */
+public final class SpoolTransportSender implements BoundedShutdownTransportSender, StatsSource {
+
+    private static final Logger LOGGER = Logger.getLogger(SpoolTransportSender.class.getName());
+
+    private static final long REPLAY_INTERVAL_MS = 1000;
+    private static final int REPLAY_MESSAGES_PER_INTERVAL = 100;
+    private static final long REPLAY_TIMEOUT_MS = 10000;
+    private static final long SHUTDOWN_TIMEOUT_MS = 1000;
+
+    private final DiskSpool spool;
+    private ScheduledExecutorService replayExecutor;
+
+    /**
+     * Default constructor.
+     *
+     * @param spool The {@link DiskSpool} to append messages to
+     */
+    public SpoolTransportSender(final DiskSpool spool) {
+        this.spool = spool;
+    }
+
+    @Override
+    public void send(final String message) {
+        spool.append(message, null);
+    }
+
+    @Override
+    public void send(final String message, final String uri) {
+        spool.append(message, uri);
+    }
+
+    /**
+     * Starts replaying the spooled messages, including the ones left by a previous spool on the same directory.
+     *
+     * @param decorator The {@link CircuitBreakerTransportSender} whose fallback is this transport sender, whose
+     *                  circuit should be closed to replay messages through the transport sender it decorates
+     */
+    public synchronized void startReplay(final CircuitBreakerTransportSender decorator) {
+        if (replayExecutor != null) {
+            return;
+        }
+
+        replayExecutor = Executors.newSingleThreadScheduledExecutor(new NamedThreadFactory("statful-spool-replay"));
+        replayExecutor.scheduleWithFixedDelay(new Runnable() {
+            @Override
+            public void run() {
+                replay(decorator, REPLAY_MESSAGES_PER_INTERVAL);
+            }
+        }, REPLAY_INTERVAL_MS, REPLAY_INTERVAL_MS, TimeUnit.MILLISECONDS);
+    }
+
+    /**
+     * Replays spooled messages while the circuit is closed.
+     *
+     * @return The number of messages replayed
+     */
+    int replay(final CircuitBreakerTransportSender decorator, final int maxMessages) {
+        int replayed = 0;
+        while (replayed < maxMessages && decorator.getCircuitBreaker().getState() == CircuitState.CLOSED) {
+            SpooledMessage spooled = spool.peek();
+            if (spooled == null) {
+                break;
+            }
+
+            if (!decorator.replay(spooled.getMessage(), spooled.getUri(), REPLAY_TIMEOUT_MS, TimeUnit.MILLISECONDS)) {
+                // Kept in the spool, to be replayed first once the destination recovers
+                break;
+            }
+            spool.commit(spooled);
+            replayed++;
+        }
+        return replayed;
+    }
+
+    /**
+     * Stops replaying messages and closes the spool, leaving the messages not replayed on disk for the next client
+     * using the same directory.
+     */
+    @Override
+    public void shutdown() {
+        shutdown(SHUTDOWN_TIMEOUT_MS, TimeUnit.MILLISECONDS);
+    }
+
+    /**
+     * Stops replaying messages, waiting up to the timeout for the message being replayed, and closes the spool,
+     * leaving the messages not replayed on disk for the next client using the same directory.
+     *
+     * @param timeout The maximum time to wait for the replay to stop
+     * @param unit The {@link TimeUnit} of the timeout
+     * @return Always 0, since a message being replayed is only removed from the spool once it's sent
+     */
+    @Override
+    public long shutdown(final long timeout, final TimeUnit unit) {
+        synchronized (this) {
+            if (replayExecutor != null) {
+                replayExecutor.shutdown();
+                try {
+                    if (!replayExecutor.awaitTermination(Math.max(0, timeout), unit)) {
+                        LOGGER.warning("Timed out waiting for the Statful spool replay to stop.");
+                        // Stops waiting for the outcome of the message being replayed, which stays in the spool
+                        replayExecutor.shutdownNow();
+                    }
+                } catch (InterruptedException e) {
+                    replayExecutor.shutdownNow();
+                    Thread.currentThread().interrupt();
+                }
+            }
+        }
+        spool.close();
+        return 0;
+    }
+
+    @Override
+    public void registerStats(final StatsRegistry registry) {
+        spool.registerStats(registry);
+    }
+}
@@ -0,0 +1,39 @@
+package com.statful.client.core.spool;
+
+/**
+ * A message read from a {@link DiskSpool}, with the uri it was meant to be sent to.
+ */
+public final class SpooledMessage {
+
+    private final String message;
+    private final String uri;
+
+    /**
+     * Default constructor.
+     *
+     * @param message The message
+     * @param uri The uri to send the message to, or null for the default one
+     */
+    public SpooledMessage(final String message, final String uri) {
+        this.message = message;
+        this.uri = uri;
+    }
+
+    /**
+     * Returns the message.
+     *
+     * @return The message, with the original timestamps of its metrics
+     */
+    public String getMessage() {
+        return message;
+    }
+
+    /**
+     * Returns the uri to send the message to.
+     *
+     * @return The uri, or null for the default one
+     */
+    public String getUri() {
+        return uri;
+    }
+}
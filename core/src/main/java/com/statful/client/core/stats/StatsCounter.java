@@ -0,0 +1,34 @@
+package com.statful.client.core.stats;
+
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * A monotonic counter, cheap enough to be updated for every metric.
+ * <p>
+ * Instances of this class are thread-safe.
+ */
+public final class StatsCounter implements StatsGauge {
+
+    private final AtomicLong value = new AtomicLong();
+
+    /**
+     * Increments the counter by one.
+     */
+    public void increment() {
+        value.incrementAndGet();
+    }
+
+    /**
+     * Increments the counter.
+     *
+     * @param delta The amount to increment the counter by
+     */
+    public void add(final long delta) {
+        value.addAndGet(delta);
+    }
+
+    @Override
+    public long getValue() {
+        return value.get();
+    }
+}
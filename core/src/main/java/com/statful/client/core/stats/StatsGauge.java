@@ -0,0 +1,14 @@
+package com.statful.client.core.stats;
+
+/**
+ * A statistic whose value is read when a snapshot of the {@link StatsRegistry} is taken.
+ */
+public interface StatsGauge {
+
+    /**
+     * Returns the current value of the statistic.
+     *
+     * @return The current value
+     */
+    long getValue();
+}
@@ -0,0 +1,61 @@
+package com.statful.client.core.stats;
+
+import com.statful.client.domain.api.ClientStats;
+
+import java.util.HashMap;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
+
+/**
+ * Registry of the internal statistics of a client.
+ * <p>
+ * Statistics are either counters, updated as events happen, or gauges, read only when a snapshot is taken, so that
+ * keeping statistics adds close to nothing to the cost of putting a metric.
+ * <p>
+ * Instances of this class are thread-safe.
+ */
+public final class StatsRegistry {
+
+    private final ConcurrentMap<String, StatsGauge> stats = new ConcurrentHashMap<String, StatsGauge>();
+
+    /**
+     * Returns the counter with the given name, registering a new one if there's none.
+     *
+     * @param name The name of the counter
+     * @return The {@link StatsCounter}
+     */
+    public StatsCounter counter(final String name) {
+        StatsGauge existing = stats.get(name);
+        if (existing instanceof StatsCounter) {
+            return (StatsCounter) existing;
+        }
+
+        StatsCounter counter = new StatsCounter();
+        register(name, counter);
+        return counter;
+    }
+
+    /**
+     * Registers a statistic, replacing any other with the same name.
+     *
+     * @param name The name of the statistic
+     * @param gauge The {@link StatsGauge} to read the statistic from, which may be a {@link StatsCounter}
+     */
+    public void register(final String name, final StatsGauge gauge) {
+        stats.put(name, gauge);
+    }
+
+    /**
+     * Takes a snapshot of every statistic.
+     *
+     * @return A {@link ClientStats} with the current values
+     */
+    public ClientStats snapshot() {
+        Map<String, Long> values = new HashMap<String, Long>();
+        for (Map.Entry<String, StatsGauge> entry : stats.entrySet()) {
+            values.put(entry.getKey(), entry.getValue().getValue());
+        }
+        return new ClientStats(values);
+    }
+}
@@ -0,0 +1,15 @@
+package com.statful.client.core.stats;
+
+/**
+ * Optional interface for components with their own statistics, such as transports, so that they're registered in the
+ * {@link StatsRegistry} of the client using them.
+ */
+public interface StatsSource {
+
+    /**
+     * Registers the statistics of this component.
+     *
+     * @param registry The {@link StatsRegistry} to register the statistics in
+     */
+    void registerStats(StatsRegistry registry);
+}
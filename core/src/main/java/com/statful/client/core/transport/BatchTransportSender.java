@@ -0,0 +1,22 @@
+package com.statful.client.core.transport;
+
+import java.util.List;
+
+/**
+ * A {@link TransportSender} which can send several batches of metrics at once.
+ * <p>
+ * When the transport sender implements this interface, each flush sends every buffer from a single worker task,
+ * instead of scheduling a task per buffer. The plain metrics are drained in batches of up to the flush size, and every
+ * full batch buffered when the flush starts is sent in a single call of {@link #send(List)}, so that the transport can
+ * pack them together. Aggregated batches are still sent one at a time, with their URI.
+ */
+public interface BatchTransportSender extends TransportSender {
+
+    /**
+     * Sends several batches of newline-delimited metrics using the underlying transport protocol, on the calling
+     * thread.
+     *
+     * @param messages The batches of metrics to send
+     */
+    void send(List<String> messages);
+}
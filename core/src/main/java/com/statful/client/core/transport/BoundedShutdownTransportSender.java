@@ -0,0 +1,24 @@
+package com.statful.client.core.transport;
+
+import java.util.concurrent.TimeUnit;
+
+/**
+ * A {@link TransportSender} whose shutdown can be bounded by a timeout, and which reports the metrics it was still
+ * sending when it gave up.
+ * <p>
+ * When the transport sender implements this interface, a graceful shutdown of the client hands it the time left
+ * until its deadline, instead of letting it wait for its own timeouts or retry backoffs.
+ */
+public interface BoundedShutdownTransportSender extends TransportSender {
+
+    /**
+     * Shutdowns the transport sender, waiting up to the given timeout for the messages being sent. Retries and
+     * other waits which would outlast the timeout are given up.
+     *
+     * @param timeout The maximum time to wait for the messages being sent
+     * @param unit The {@link TimeUnit} of the timeout
+     * @return The number of metrics lost in messages sent asynchronously, which weren't done being sent before the
+     *         timeout. The metrics of sends still running on other threads are counted by their callers
+     */
+    long shutdown(long timeout, TimeUnit unit);
+}
@@ -0,0 +1,119 @@
+package com.statful.client.core.transport;
+
+import com.statful.client.core.stats.StatsCounter;
+import com.statful.client.core.stats.StatsGauge;
+import com.statful.client.core.stats.StatsRegistry;
+import com.statful.client.core.stats.StatsSource;
+
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.AtomicReference;
+import java.util.logging.Logger;
+
+/**
+ * A circuit breaker which stops sending messages to a failing destination.
+ * <p>
+ * The circuit opens after a number of consecutive failures. While open, every message is short-circuited. Once the
+ * open interval is over, a single probe message is let through: the circuit closes if it succeeds and opens again
+ * if it fails. If the outcome of the probe is never reported, another probe is let through after the open interval.
+ * <p>
+ * Instances of this class are thread-safe.
+ */
+public final class CircuitBreaker implements TransportListener, StatsSource {
+
+    private static final Logger LOGGER = Logger.getLogger(CircuitBreaker.class.getName());
+
+    private final int failureThreshold;
+    private final long openNanos;
+    private final AtomicReference<CircuitState> state = new AtomicReference<CircuitState>(CircuitState.CLOSED);
+    private final AtomicInteger consecutiveFailures = new AtomicInteger();
+    private final StatsCounter opened = new StatsCounter();
+    private final StatsCounter shortCircuited = new StatsCounter();
+    private final AtomicLong stateChangedNanos = new AtomicLong(System.nanoTime());
+
+    /**
+     * Default constructor.
+     *
+     * @param failureThreshold The number of consecutive failures which opens the circuit
+     * @param openMillis How long the circuit stays open before letting a probe through, in milliseconds
+     */
+    public CircuitBreaker(final int failureThreshold, final long openMillis) {
+        if (failureThreshold < 1) {
+            throw new IllegalArgumentException("The failure threshold should be positive");
+        }
+
+        this.failureThreshold = failureThreshold;
+        this.openNanos = TimeUnit.MILLISECONDS.toNanos(Math.max(0, openMillis));
+    }
+
+    /**
+     * Returns if a message should be sent, which is counted as short-circuited otherwise.
+     *
+     * @return True if the message should be sent
+     */
+    public boolean allowRequest() {
+        CircuitState current = state.get();
+        if (current == CircuitState.CLOSED) {
+            return true;
+        }
+
+        // Only the caller which moves the time of the last change forward sends the probe
+        long changed = stateChangedNanos.get();
+        long now = System.nanoTime();
+        if (now - changed >= openNanos && stateChangedNanos.compareAndSet(changed, now)) {
+            state.compareAndSet(current, CircuitState.HALF_OPEN);
+            return true;
+        }
+
+        shortCircuited.increment();
+        return false;
+    }
+
+    @Override
+    public void onSuccess() {
+        consecutiveFailures.set(0);
+
+        CircuitState current = state.get();
+        if (current != CircuitState.CLOSED && state.compareAndSet(current, CircuitState.CLOSED)) {
+            stateChangedNanos.set(System.nanoTime());
+            LOGGER.info("Statful circuit breaker closed, sending metrics again.");
+        }
+    }
+
+    @Override
+    public void onFailure() {
+        int failures = consecutiveFailures.incrementAndGet();
+
+        CircuitState current = state.get();
+        if (current == CircuitState.HALF_OPEN || (current == CircuitState.CLOSED && failures >= failureThreshold)) {
+            if (state.compareAndSet(current, CircuitState.OPEN)) {
+                stateChangedNanos.set(System.nanoTime());
+                opened.increment();
+                LOGGER.warning("Statful circuit breaker opened after " + failures + " consecutive failures, "
+                        + "short-circuiting metrics for " + TimeUnit.NANOSECONDS.toMillis(openNanos) + " ms.");
+            }
+        }
+    }
+
+    /**
+     * Returns the current state.
+     *
+     * @return The {@link CircuitState}
+     */
+    public CircuitState getState() {
+        return state.get();
+    }
+
+    @Override
+    public void registerStats(final StatsRegistry registry) {
+        registry.register("circuit.state", new StatsGauge() {
+            @Override
+            public long getValue() {
+                return state.get().ordinal();
+            }
+        });
+        registry.register("circuit.opened", opened);
+        registry.register("circuit.short_circuited", shortCircuited);
+    }
+}
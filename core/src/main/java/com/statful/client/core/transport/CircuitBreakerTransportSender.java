@@ -0,0 +1,378 @@
+package com.statful.client.core.transport;
+
+import com.statful.client.core.stats.StatsRegistry;
+import com.statful.client.core.stats.StatsSource;
+
+import java.util.Collections;
+import java.util.IdentityHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * A {@link TransportSender} decorator which stops sending messages through another transport sender while its
+ * destination is failing, according with a {@link CircuitBreaker}.
+ * <p>
+ * Short-circuited messages are sent to a fallback transport sender, such as a spool, if there's one, or dropped
+ * otherwise, so that worker threads aren't held by requests doomed to time out. The decorated transport sender
+ * reports the outcome of its messages if it's a {@link ListenableTransportSender}. Otherwise, only messages whose
+ * sending throws are counted as failures. Either way, failed messages also go to the fallback, including the ones
+ * which open the circuit and the probes sent while it's half-open.
+ * <p>
+ * Messages taken back from the fallback are sent by {@link #replay(String, String, long, TimeUnit)}, which bypasses
+ * the fallback, so that the caller keeps them until their sending is confirmed.
+ * <p>
+ * Decorators are created by {@link #wrap(TransportSender, CircuitBreaker, TransportSender)}, which keeps the batch
+ * or streaming capabilities of the decorated transport sender. A bounded shutdown shares its timeout between the
+ * decorated transport sender and then the fallback.
+ */
+public class CircuitBreakerTransportSender implements BoundedShutdownTransportSender, StatsSource {
+
+    private final TransportSender delegate;
+    private final CircuitBreaker circuitBreaker;
+    private final TransportSender fallback;
+    private final boolean reportsOutcome;
+    private final Map<String, Replay> replays = Collections.synchronizedMap(new IdentityHashMap<String, Replay>());
+
+    CircuitBreakerTransportSender(final TransportSender delegate, final CircuitBreaker circuitBreaker, final TransportSender fallback) {
+        this.delegate = delegate;
+        this.circuitBreaker = circuitBreaker;
+        this.fallback = fallback;
+        this.reportsOutcome = delegate instanceof ListenableTransportSender;
+
+        if (reportsOutcome) {
+            ((ListenableTransportSender) delegate).setTransportListener(new FallbackListener());
+        }
+    }
+
+    /**
+     * Decorates a transport sender with a circuit breaker.
+     *
+     * @param delegate The {@link TransportSender} to decorate
+     * @param circuitBreaker The {@link CircuitBreaker} deciding if messages are sent
+     * @param fallback The {@link TransportSender} to send short-circuited messages to, or null to drop them
+     * @return A decorator which is also a {@link BatchTransportSender} or a {@link StreamingTransportSender} if the
+     * decorated transport sender is
+     */
+    public static CircuitBreakerTransportSender wrap(final TransportSender delegate, final CircuitBreaker circuitBreaker,
+                                                     final TransportSender fallback) {
+        if (delegate instanceof BatchTransportSender) {
+            return new Batch((BatchTransportSender) delegate, circuitBreaker, fallback);
+        }
+        if (delegate instanceof StreamingTransportSender) {
+            return new Streaming((StreamingTransportSender) delegate, circuitBreaker, fallback);
+        }
+        return new CircuitBreakerTransportSender(delegate, circuitBreaker, fallback);
+    }
+
+    @Override
+    public final void send(final String message) {
+        if (!circuitBreaker.allowRequest()) {
+            if (fallback != null) {
+                fallback.send(message);
+            }
+            return;
+        }
+
+        try {
+            delegate.send(message);
+        } catch (RuntimeException e) {
+            circuitBreaker.onFailure();
+            if (fallback == null) {
+                throw e;
+            }
+            fallback.send(message);
+            return;
+        }
+        reportSuccess();
+    }
+
+    @Override
+    public final void send(final String message, final String uri) {
+        if (!circuitBreaker.allowRequest()) {
+            if (fallback != null) {
+                fallback.send(message, uri);
+            }
+            return;
+        }
+
+        try {
+            delegate.send(message, uri);
+        } catch (RuntimeException e) {
+            circuitBreaker.onFailure();
+            if (fallback == null) {
+                throw e;
+            }
+            fallback.send(message, uri);
+            return;
+        }
+        reportSuccess();
+    }
+
+    /**
+     * Sends a message taken back from the fallback through the decorated transport sender, regardless of the state
+     * of the circuit, and waits for its outcome. The outcome is reported to the circuit breaker, but a failed message
+     * isn't sent to the fallback, since the caller still has it.
+     *
+     * @param message The message to send
+     * @param uri The uri to send the message to, or null for the default one
+     * @param timeout The maximum time to wait for the outcome of a message sent asynchronously
+     * @param unit The {@link TimeUnit} of the timeout
+     * @return True if the message was sent, false if it failed or its outcome wasn't known before the timeout
+     */
+    public final boolean replay(final String message, final String uri, final long timeout, final TimeUnit unit) {
+        Replay replay = new Replay();
+        if (reportsOutcome) {
+            replays.put(message, replay);
+        }
+
+        try {
+            if (uri == null) {
+                delegate.send(message);
+            } else {
+                delegate.send(message, uri);
+            }
+        } catch (RuntimeException e) {
+            replays.remove(message);
+            circuitBreaker.onFailure();
+            return false;
+        }
+
+        if (!reportsOutcome) {
+            circuitBreaker.onSuccess();
+            return true;
+        }
+        // A replay whose outcome comes after the timeout stays registered, so that its failure isn't sent to the fallback
+        return replay.await(timeout, unit);
+    }
+
+    @Override
+    public final void shutdown() {
+        delegate.shutdown();
+        if (fallback != null) {
+            fallback.shutdown();
+        }
+    }
+
+    @Override
+    public final long shutdown(final long timeout, final TimeUnit unit) {
+        long deadlineNanos = System.nanoTime() + unit.toNanos(Math.max(0, timeout));
+        // The delegate goes first, so the messages it fails while closing still reach the fallback
+        long lost = shutdown(delegate, deadlineNanos);
+        if (fallback != null) {
+            lost += shutdown(fallback, deadlineNanos);
+        }
+        return lost;
+    }
+
+    private static long shutdown(final TransportSender transportSender, final long deadlineNanos) {
+        if (transportSender instanceof BoundedShutdownTransportSender) {
+            return ((BoundedShutdownTransportSender) transportSender).shutdown(Math.max(0, deadlineNanos - System.nanoTime()),
+                    TimeUnit.NANOSECONDS);
+        }
+        transportSender.shutdown();
+        return 0;
+    }
+
+    @Override
+    public final void registerStats(final StatsRegistry registry) {
+        circuitBreaker.registerStats(registry);
+        if (delegate instanceof StatsSource) {
+            ((StatsSource) delegate).registerStats(registry);
+        }
+        if (fallback instanceof StatsSource) {
+            ((StatsSource) fallback).registerStats(registry);
+        }
+    }
+
+    /**
+     * Returns the circuit breaker deciding if messages are sent.
+     *
+     * @return The {@link CircuitBreaker}
+     */
+    public final CircuitBreaker getCircuitBreaker() {
+        return circuitBreaker;
+    }
+
+    final TransportSender fallback() {
+        return fallback;
+    }
+
+    final void reportSuccess() {
+        if (!reportsOutcome) {
+            circuitBreaker.onSuccess();
+        }
+    }
+
+    /**
+     * Joins metrics in a newline-delimited message, to send them to a fallback which doesn't take them as they are.
+     */
+    static String join(final List<String> metrics) {
+        StringBuilder sb = new StringBuilder();
+        for (String metric : metrics) {
+            sb.append(metric).append('\n');
+        }
+        return sb.toString();
+    }
+
+    /**
+     * Listener of the decorated transport sender, which reports outcomes to the circuit breaker and sends the messages
+     * that failed to the fallback, if there's one, unless they're being replayed.
+     */
+    private final class FallbackListener implements FailedMessageListener {
+
+        @Override
+        public void onSuccess() {
+            circuitBreaker.onSuccess();
+        }
+
+        @Override
+        public void onSuccess(final String message, final String uri) {
+            circuitBreaker.onSuccess();
+            Replay replay = replays.remove(message);
+            if (replay != null) {
+                replay.complete(true);
+            }
+        }
+
+        @Override
+        public void onFailure() {
+            circuitBreaker.onFailure();
+        }
+
+        @Override
+        public void onFailure(final String message, final String uri) {
+            circuitBreaker.onFailure();
+            Replay replay = replays.remove(message);
+            if (replay != null) {
+                replay.complete(false);
+            } else if (fallback == null) {
+                return;
+            } else if (uri == null) {
+                fallback.send(message);
+            } else {
+                fallback.send(message, uri);
+            }
+        }
+    }
+
+    /**
+     * The outcome of a replayed message, which is reported by the listener of the decorated transport sender.
+     */
+    private static final class Replay {
+
+        private final CountDownLatch done = new CountDownLatch(1);
+        private volatile boolean sent;
+
+        private void complete(final boolean success) {
+            sent = success;
+            done.countDown();
+        }
+
+        private boolean await(final long timeout, final TimeUnit unit) {
+            try {
+                return done.await(timeout, unit) && sent;
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+                return false;
+            }
+        }
+    }
+
+    /**
+     * Decorator of a {@link BatchTransportSender}.
+     */
+    private static final class Batch extends CircuitBreakerTransportSender implements BatchTransportSender {
+
+        private final BatchTransportSender delegate;
+
+        private Batch(final BatchTransportSender delegate, final CircuitBreaker circuitBreaker, final TransportSender fallback) {
+            super(delegate, circuitBreaker, fallback);
+            this.delegate = delegate;
+        }
+
+        @Override
+        public void send(final List<String> messages) {
+            if (!getCircuitBreaker().allowRequest()) {
+                if (fallback() != null) {
+                    for (String message : messages) {
+                        fallback().send(message);
+                    }
+                }
+                return;
+            }
+
+            try {
+                delegate.send(messages);
+            } catch (RuntimeException e) {
+                getCircuitBreaker().onFailure();
+                if (fallback() == null) {
+                    throw e;
+                }
+                for (String message : messages) {
+                    fallback().send(message);
+                }
+                return;
+            }
+            reportSuccess();
+        }
+    }
+
+    /**
+     * Decorator of a {@link StreamingTransportSender}.
+     */
+    private static final class Streaming extends CircuitBreakerTransportSender implements StreamingTransportSender {
+
+        private final StreamingTransportSender delegate;
+
+        private Streaming(final StreamingTransportSender delegate, final CircuitBreaker circuitBreaker, final TransportSender fallback) {
+            super(delegate, circuitBreaker, fallback);
+            this.delegate = delegate;
+        }
+
+        @Override
+        public void sendLines(final List<String> metrics) {
+            if (!getCircuitBreaker().allowRequest()) {
+                if (fallback() != null) {
+                    fallback().send(join(metrics));
+                }
+                return;
+            }
+
+            try {
+                delegate.sendLines(metrics);
+            } catch (RuntimeException e) {
+                getCircuitBreaker().onFailure();
+                if (fallback() == null) {
+                    throw e;
+                }
+                fallback().send(join(metrics));
+                return;
+            }
+            reportSuccess();
+        }
+
+        @Override
+        public void sendLines(final List<String> metrics, final String uri) {
+            if (!getCircuitBreaker().allowRequest()) {
+                if (fallback() != null) {
+                    fallback().send(join(metrics), uri);
+                }
+                return;
+            }
+
+            try {
+                delegate.sendLines(metrics, uri);
+            } catch (RuntimeException e) {
+                getCircuitBreaker().onFailure();
+                if (fallback() == null) {
+                    throw e;
+                }
+                fallback().send(join(metrics), uri);
+                return;
+            }
+            reportSuccess();
+        }
+    }
+}
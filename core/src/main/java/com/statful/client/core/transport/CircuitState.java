@@ -0,0 +1,21 @@
+package com.statful.client.core.transport;
+
+/**
+ * The states of a {@link CircuitBreaker}.
+ */
+public enum CircuitState {
+    /**
+     * Messages are sent.
+     */
+    CLOSED,
+
+    /**
+     * Messages are short-circuited, since the destination is failing.
+     */
+    OPEN,
+
+    /**
+     * A single probe message is sent to find if the destination recovered, while the others are short-circuited.
+     */
+    HALF_OPEN
+}
@@ -0,0 +1,30 @@
+package com.statful.client.core.transport;
+
+/**
+ * A {@link TransportListener} which also takes the messages that couldn't be sent, so that they can be kept for
+ * later instead of being lost.
+ * <p>
+ * A {@link ListenableTransportSender} whose listener implements this interface reports each failed message through
+ * {@link #onFailure(String, String)} instead of {@link #onFailure()}, and each message sent whole through
+ * {@link #onSuccess(String, String)} instead of {@link #onSuccess()}, passing the same message instance it was given,
+ * so that the listener can tell which message the outcome is about.
+ */
+public interface FailedMessageListener extends TransportListener {
+
+    /**
+     * Called when a message reached its destination. Metrics which were never joined in a message, such as the ones
+     * streamed by a {@link StreamingTransportSender}, are reported through {@link #onSuccess()} instead.
+     *
+     * @param message The message, as it was given to the transport sender
+     * @param uri The uri the message was sent to, or null for the default one
+     */
+    void onSuccess(String message, String uri);
+
+    /**
+     * Called when a message couldn't be sent because the destination is unavailable, failing or overloaded.
+     *
+     * @param message The newline-delimited metrics of the message
+     * @param uri The uri the message was sent to, or null for the default one
+     */
+    void onFailure(String message, String uri);
+}
@@ -0,0 +1,16 @@
+package com.statful.client.core.transport;
+
+/**
+ * A {@link TransportSender} which reports the outcome of every message it sends to a {@link TransportListener}.
+ * <p>
+ * If the listener is a {@link FailedMessageListener}, failed messages are reported with their metrics and uri.
+ */
+public interface ListenableTransportSender extends TransportSender {
+
+    /**
+     * Sets the listener to report outcomes to, replacing any previous one.
+     *
+     * @param listener The {@link TransportListener}
+     */
+    void setTransportListener(TransportListener listener);
+}
@@ -0,0 +1,83 @@
+package com.statful.client.core.transport;
+
+import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.concurrent.atomic.AtomicInteger;
+
+/**
+ * A bounded pool of objects which are expensive to create, such as buffers and compressors, shared by the threads
+ * sending metrics.
+ * <p>
+ * Unlike a {@link ThreadLocal}, the pooled objects don't belong to any thread, so they're still reused when each
+ * send runs on a new thread, as the worker tasks do on virtual threads. At most the maximum number of idle objects
+ * are kept. More objects are created when more threads send at once, and those released while the pool is full are
+ * discarded. Instances of this class are thread-safe.
+ *
+ * @param <T> The type of the pooled objects
+ */
+public abstract class ObjectPool<T> {
+
+    private final ConcurrentLinkedQueue<T> idle = new ConcurrentLinkedQueue<T>();
+    private final AtomicInteger idleCount = new AtomicInteger();
+    private final int maxIdle;
+
+    /**
+     * Default constructor.
+     *
+     * @param maxIdle The maximum number of idle objects to keep
+     */
+    protected ObjectPool(final int maxIdle) {
+        this.maxIdle = maxIdle;
+    }
+
+    /**
+     * Takes an idle object from the pool, or creates a new one if there's none. The object should be released once
+     * it's no longer used, and mustn't be used after that.
+     *
+     * @return The object
+     */
+    public final T acquire() {
+        T object = idle.poll();
+        if (object == null) {
+            return create();
+        }
+        idleCount.decrementAndGet();
+        return object;
+    }
+
+    /**
+     * Returns an object to the pool, or discards it if the pool already has the maximum number of idle objects.
+     *
+     * @param object The object acquired from this pool
+     */
+    public final void release(final T object) {
+        if (idleCount.incrementAndGet() > maxIdle) {
+            idleCount.decrementAndGet();
+            discard(object);
+            return;
+        }
+        idle.offer(object);
+    }
+
+    /**
+     * Returns the number of idle objects in the pool.
+     *
+     * @return The number of idle objects
+     */
+    public final int getIdleCount() {
+        return idleCount.get();
+    }
+
+    /**
+     * Creates a new object when the pool has no idle one.
+     *
+     * @return The new object
+     */
+    protected abstract T create();
+
+    /**
+     * Releases the resources of an object which isn't kept by the pool. Does nothing by default.
+     *
+     * @param object The discarded object
+     */
+    protected void discard(final T object) { }
+}
@@ -0,0 +1,28 @@
+package com.statful.client.core.transport;
+
+import java.util.List;
+
+/**
+ * A {@link TransportSender} which takes the metrics drained from a buffer as they are, instead of joined in a
+ * single newline-delimited message.
+ * <p>
+ * When the transport sender implements this interface, flushes hand over the drained metrics without copying them
+ * into a message, so the transport can write them straight to the connection.
+ */
+public interface StreamingTransportSender extends TransportSender {
+
+    /**
+     * Sends metrics using the underlying transport protocol, on the calling thread.
+     *
+     * @param metrics The metrics to send, without newlines
+     */
+    void sendLines(List<String> metrics);
+
+    /**
+     * Sends metrics to a particular uri using the underlying transport protocol, on the calling thread.
+     *
+     * @param metrics The metrics to send, without newlines
+     * @param uri The uri to send metrics to
+     */
+    void sendLines(List<String> metrics, String uri);
+}
@@ -0,0 +1,22 @@
+package com.statful.client.core.transport;
+
+/**
+ * Listener of the outcome of the messages sent by a {@link ListenableTransportSender}.
+ * <p>
+ * Outcomes may be reported on any thread, including I/O threads of non-blocking transports, so implementations
+ * should be thread-safe and return quickly. Listeners which keep the failed messages implement
+ * {@link FailedMessageListener}.
+ */
+public interface TransportListener {
+
+    /**
+     * Called when a message reached its destination and was accepted.
+     */
+    void onSuccess();
+
+    /**
+     * Called when a message couldn't be sent, either because the destination is unavailable, failing or overloaded,
+     * or because it refused the message.
+     */
+    void onFailure();
+}
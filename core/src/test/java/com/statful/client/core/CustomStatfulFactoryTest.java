@@ -11,6 +11,7 @@ import org.mockito.MockitoAnnotations;
 
 import static com.statful.client.domain.api.Transport.OTHER;
 import static org.mockito.Mockito.anyString;
+import static org.mockito.Mockito.timeout;
 import static org.mockito.Mockito.times;
 import static org.mockito.Mockito.verify;
 
@@ -38,6 +39,20 @@ public class CustomStatfulFactoryTest {
         verify(transportSender, times(1)).send(anyString());
     }
 
+    @Test
+    public void shouldSendMetricsWithVirtualThreadsEnabled() throws Exception {
+        // Given
+        StatfulClientBuilder clientBuilder = new MyStatfulClientFactory().buildClient();
+        clientBuilder.with().virtualThreads(true).flushSize(1);
+
+        // When
+        StatfulClient client = clientBuilder.build();
+        client.put("a metric", 1).send();
+
+        // Then
+        verify(transportSender, timeout(1000)).send(anyString());
+    }
+
     private class MyStatfulClientFactory extends CustomStatfulFactory {
 
         protected MyStatfulClientFactory() {
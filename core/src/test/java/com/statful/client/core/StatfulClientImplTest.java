@@ -8,6 +8,7 @@ import org.mockito.ArgumentCaptor;
 import org.mockito.Mock;
 
 import java.util.Collection;
+import java.util.Collections;
 
 import static java.util.Arrays.asList;
 import static org.junit.Assert.*;
@@ -57,7 +58,7 @@ public class StatfulClientImplTest {
         ArgumentCaptor<Tags> tagsArg = ArgumentCaptor.forClass(Tags.class);
         ArgumentCaptor<Aggregations> aggrArg = ArgumentCaptor.forClass(Aggregations.class);
 
-        verify(metricsSender).put(eq("timer.response_time"), eq("1000"), tagsArg.capture(), aggrArg.capture(), eq(AggregationFrequency.FREQ_10), eq(10), eq("application"), anyLong());
+        verify(metricsSender).put(eq("timer.response_time"), eq(1000L), tagsArg.capture(), aggrArg.capture(), eq(AggregationFrequency.FREQ_10), eq(10), eq("application"), anyLong());
 
         // Then it should have tags
         shouldContainDefaultTimerTags(tagsArg.getValue());
@@ -74,7 +75,7 @@ public class StatfulClientImplTest {
         // Then
         ArgumentCaptor<Tags> tagsArg = ArgumentCaptor.forClass(Tags.class);
 
-        verify(metricsSender).aggregatedPut(eq("timer.response_time"), eq("1000"), tagsArg.capture(), eq(Aggregation.AVG), eq(AggregationFrequency.FREQ_300), eq(10), eq("application"), anyLong());
+        verify(metricsSender).aggregatedPut(eq("timer.response_time"), eq(1000L), tagsArg.capture(), eq(Aggregation.AVG), eq(AggregationFrequency.FREQ_300), eq(10), eq("application"), anyLong());
 
         // Then it should have tags
         shouldContainDefaultTimerTags(tagsArg.getValue());
@@ -88,7 +89,7 @@ public class StatfulClientImplTest {
         // Then
         ArgumentCaptor<Tags> tagsArg = ArgumentCaptor.forClass(Tags.class);
 
-        verify(metricsSender).put(eq("timer.response_time"), eq("1000"), tagsArg.capture(), any(Aggregations.class), eq(AggregationFrequency.FREQ_10), eq(10), eq("application"), anyLong());
+        verify(metricsSender).put(eq("timer.response_time"), eq(1000L), tagsArg.capture(), any(Aggregations.class), eq(AggregationFrequency.FREQ_10), eq(10), eq("application"), anyLong());
 
         // Then it should have tags
         Tags tags = tagsArg.getValue();
@@ -107,7 +108,7 @@ public class StatfulClientImplTest {
         // Then
         ArgumentCaptor<Aggregations> aggrArg = ArgumentCaptor.forClass(Aggregations.class);
 
-        verify(metricsSender).put(eq("timer.response_time"), eq("1000"), any(Tags.class), aggrArg.capture(), eq(AggregationFrequency.FREQ_10), eq(10), eq("application"), anyLong());
+        verify(metricsSender).put(eq("timer.response_time"), eq(1000L), any(Tags.class), aggrArg.capture(), eq(AggregationFrequency.FREQ_10), eq(10), eq("application"), anyLong());
 
         // Then it should have aggregations
         assertNotNull("Aggregations should not be null", aggrArg.getValue());
@@ -128,7 +129,7 @@ public class StatfulClientImplTest {
         // Then
         ArgumentCaptor<AggregationFrequency> aggrFreqArg = ArgumentCaptor.forClass(AggregationFrequency.class);
 
-        verify(metricsSender).put(eq("timer.response_time"), eq("1000"), any(Tags.class), any(Aggregations.class), aggrFreqArg.capture(), eq(10), eq("application"), anyLong());
+        verify(metricsSender).put(eq("timer.response_time"), eq(1000L), any(Tags.class), any(Aggregations.class), aggrFreqArg.capture(), eq(10), eq("application"), anyLong());
 
         assertNotNull("Aggregation frequency should not be null", aggrFreqArg.getValue());
         Assert.assertEquals("Aggregation frequency should be 5", AggregationFrequency.FREQ_120, aggrFreqArg.getValue());
@@ -142,7 +143,7 @@ public class StatfulClientImplTest {
         // Then
         ArgumentCaptor<String> namespaceArg = ArgumentCaptor.forClass(String.class);
 
-        verify(metricsSender).put(eq("timer.response_time"), eq("1000"), any(Tags.class), any(Aggregations.class), eq(AggregationFrequency.FREQ_10), eq(10), namespaceArg.capture(), anyLong());
+        verify(metricsSender).put(eq("timer.response_time"), eq(1000L), any(Tags.class), any(Aggregations.class), eq(AggregationFrequency.FREQ_10), eq(10), namespaceArg.capture(), anyLong());
 
         assertEquals("Namespace should be 'client'", "client", namespaceArg.getValue());
     }
@@ -155,7 +156,7 @@ public class StatfulClientImplTest {
         // Then
         ArgumentCaptor<Aggregations> aggrArg = ArgumentCaptor.forClass(Aggregations.class);
 
-        verify(metricsSender).put(eq("counter.transactions"), eq("1"), isNull(Tags.class), aggrArg.capture(), eq(AggregationFrequency.FREQ_10), eq(10), eq("application"), anyLong());
+        verify(metricsSender).put(eq("counter.transactions"), eq(1L), isNull(Tags.class), aggrArg.capture(), eq(AggregationFrequency.FREQ_10), eq(10), eq("application"), anyLong());
 
         // Then it should have aggregations
         shouldContainDefaultCounterAggregations(aggrArg.getValue());
@@ -169,7 +170,7 @@ public class StatfulClientImplTest {
         // Then
         ArgumentCaptor<Tags> tagsArg = ArgumentCaptor.forClass(Tags.class);
 
-        verify(metricsSender).put(eq("counter.transactions"), eq("1"), tagsArg.capture(), any(Aggregations.class), eq(AggregationFrequency.FREQ_10), eq(10), eq("application"), anyLong());
+        verify(metricsSender).put(eq("counter.transactions"), eq(1L), tagsArg.capture(), any(Aggregations.class), eq(AggregationFrequency.FREQ_10), eq(10), eq("application"), anyLong());
 
         // Then it should have tags
         Tags tags = tagsArg.getValue();
@@ -186,7 +187,7 @@ public class StatfulClientImplTest {
         // Then
         ArgumentCaptor<Aggregations> aggrArg = ArgumentCaptor.forClass(Aggregations.class);
 
-        verify(metricsSender).put(eq("counter.transactions"), eq("1"), any(Tags.class), aggrArg.capture(), eq(AggregationFrequency.FREQ_10), eq(10), eq("application"), anyLong());
+        verify(metricsSender).put(eq("counter.transactions"), eq(1L), any(Tags.class), aggrArg.capture(), eq(AggregationFrequency.FREQ_10), eq(10), eq("application"), anyLong());
 
         // Then it should have aggregations
         assertNotNull("Aggregations should not be null", aggrArg.getValue());
@@ -206,7 +207,7 @@ public class StatfulClientImplTest {
         // Then
         ArgumentCaptor<AggregationFrequency> aggrFreqArg = ArgumentCaptor.forClass(AggregationFrequency.class);
 
-        verify(metricsSender).put(eq("counter.transactions"), eq("1"), any(Tags.class), any(Aggregations.class), aggrFreqArg.capture(), eq(10), eq("application"), anyLong());
+        verify(metricsSender).put(eq("counter.transactions"), eq(1L), any(Tags.class), any(Aggregations.class), aggrFreqArg.capture(), eq(10), eq("application"), anyLong());
 
         assertNotNull("Aggregation frequency should not be null", aggrFreqArg.getValue());
         Assert.assertEquals("Aggregation frequency should be 5", AggregationFrequency.FREQ_120, aggrFreqArg.getValue());
@@ -220,7 +221,7 @@ public class StatfulClientImplTest {
         // Then
         ArgumentCaptor<String> namespaceArg = ArgumentCaptor.forClass(String.class);
 
-        verify(metricsSender).put(eq("counter.transactions"), eq("1"), isNull(Tags.class), any(Aggregations.class), eq(AggregationFrequency.FREQ_10), eq(10), namespaceArg.capture(), anyLong());
+        verify(metricsSender).put(eq("counter.transactions"), eq(1L), isNull(Tags.class), any(Aggregations.class), eq(AggregationFrequency.FREQ_10), eq(10), namespaceArg.capture(), anyLong());
 
         assertEquals("Namespace should be 'client'", "client", namespaceArg.getValue());
     }
@@ -231,7 +232,7 @@ public class StatfulClientImplTest {
         subject.counter("transactions", 2).send();
 
         // Then
-        verify(metricsSender).put(eq("counter.transactions"), eq("2"), any(Tags.class), any(Aggregations.class), eq(AggregationFrequency.FREQ_10), eq(10), eq("application"), anyLong());
+        verify(metricsSender).put(eq("counter.transactions"), eq(2L), any(Tags.class), any(Aggregations.class), eq(AggregationFrequency.FREQ_10), eq(10), eq("application"), anyLong());
     }
 
     @Test
@@ -240,7 +241,7 @@ public class StatfulClientImplTest {
         subject.aggregatedCounter("transactions", 2, Aggregation.SUM, AggregationFrequency.FREQ_120).send();
 
         // Then
-        verify(metricsSender).aggregatedPut(eq("counter.transactions"), eq("2"), any(Tags.class), eq(Aggregation.SUM), eq(AggregationFrequency.FREQ_120), eq(10), eq("application"), anyLong());
+        verify(metricsSender).aggregatedPut(eq("counter.transactions"), eq(2L), any(Tags.class), eq(Aggregation.SUM), eq(AggregationFrequency.FREQ_120), eq(10), eq("application"), anyLong());
     }
 
     @Test
@@ -251,7 +252,7 @@ public class StatfulClientImplTest {
         // Then
         ArgumentCaptor<Aggregations> aggrArg = ArgumentCaptor.forClass(Aggregations.class);
 
-        verify(metricsSender).put(eq("gauge.current_sessions"), eq("2"), isNull(Tags.class), aggrArg.capture(), eq(AggregationFrequency.FREQ_10), eq(10), eq("application"), anyLong());
+        verify(metricsSender).put(eq("gauge.current_sessions"), eq(2L), isNull(Tags.class), aggrArg.capture(), eq(AggregationFrequency.FREQ_10), eq(10), eq("application"), anyLong());
 
         // Then it should have aggregations
         shouldContainDefaultGaugeAggregations(aggrArg.getValue());
@@ -263,7 +264,7 @@ public class StatfulClientImplTest {
         subject.aggregatedGauge("current_sessions", 2, Aggregation.FIRST, AggregationFrequency.FREQ_10).send();
 
         // Then
-        verify(metricsSender).aggregatedPut(eq("gauge.current_sessions"), eq("2"), isNull(Tags.class), eq(Aggregation.FIRST), eq(AggregationFrequency.FREQ_10), eq(10), eq("application"), anyLong());
+        verify(metricsSender).aggregatedPut(eq("gauge.current_sessions"), eq(2L), isNull(Tags.class), eq(Aggregation.FIRST), eq(AggregationFrequency.FREQ_10), eq(10), eq("application"), anyLong());
     }
 
     @Test
@@ -274,7 +275,7 @@ public class StatfulClientImplTest {
         // Then
         ArgumentCaptor<Aggregations> aggrArg = ArgumentCaptor.forClass(Aggregations.class);
 
-        verify(metricsSender).put(eq("gauge.current_sessions"), eq("2"), isNull(Tags.class), aggrArg.capture(), eq(AggregationFrequency.FREQ_10), eq(10), eq("application"), anyLong());
+        verify(metricsSender).put(eq("gauge.current_sessions"), eq(2L), isNull(Tags.class), aggrArg.capture(), eq(AggregationFrequency.FREQ_10), eq(10), eq("application"), anyLong());
 
         // Then it should have aggregations
         shouldContainDefaultGaugeAggregations(aggrArg.getValue());
@@ -286,7 +287,7 @@ public class StatfulClientImplTest {
         subject.aggregatedGauge("current_sessions", 2L, Aggregation.FIRST, AggregationFrequency.FREQ_10).send();
 
         // Then
-        verify(metricsSender).aggregatedPut(eq("gauge.current_sessions"), eq("2"), isNull(Tags.class), eq(Aggregation.FIRST), eq(AggregationFrequency.FREQ_10), eq(10), eq("application"), anyLong());
+        verify(metricsSender).aggregatedPut(eq("gauge.current_sessions"), eq(2L), isNull(Tags.class), eq(Aggregation.FIRST), eq(AggregationFrequency.FREQ_10), eq(10), eq("application"), anyLong());
     }
 
     @Test
@@ -297,7 +298,7 @@ public class StatfulClientImplTest {
         // Then
         ArgumentCaptor<Aggregations> aggrArg = ArgumentCaptor.forClass(Aggregations.class);
 
-        verify(metricsSender).put(eq("gauge.current_sessions"), eq("2.2"), isNull(Tags.class), aggrArg.capture(), eq(AggregationFrequency.FREQ_10), eq(10), eq("application"), anyLong());
+        verify(metricsSender).put(eq("gauge.current_sessions"), eq(2.2D), isNull(Tags.class), aggrArg.capture(), eq(AggregationFrequency.FREQ_10), eq(10), eq("application"), anyLong());
 
         // Then it should have aggregations
         shouldContainDefaultGaugeAggregations(aggrArg.getValue());
@@ -309,7 +310,7 @@ public class StatfulClientImplTest {
         subject.aggregatedGauge("current_sessions", 2.2, Aggregation.FIRST, AggregationFrequency.FREQ_10).send();
 
         // Then
-        verify(metricsSender).aggregatedPut(eq("gauge.current_sessions"), eq("2.2"), isNull(Tags.class), eq(Aggregation.FIRST), eq(AggregationFrequency.FREQ_10), eq(10), eq("application"), anyLong());
+        verify(metricsSender).aggregatedPut(eq("gauge.current_sessions"), eq(2.2D), isNull(Tags.class), eq(Aggregation.FIRST), eq(AggregationFrequency.FREQ_10), eq(10), eq("application"), anyLong());
     }
 
     @Test
@@ -343,7 +344,7 @@ public class StatfulClientImplTest {
         // Then
         ArgumentCaptor<Tags> tagsArg = ArgumentCaptor.forClass(Tags.class);
 
-        verify(metricsSender).put(eq("gauge.current_sessions"), eq("2"), tagsArg.capture(), any(Aggregations.class), eq(AggregationFrequency.FREQ_10), eq(10), eq("application"), anyLong());
+        verify(metricsSender).put(eq("gauge.current_sessions"), eq(2L), tagsArg.capture(), any(Aggregations.class), eq(AggregationFrequency.FREQ_10), eq(10), eq("application"), anyLong());
 
         // Then it should have tags
         Tags tags = tagsArg.getValue();
@@ -360,7 +361,7 @@ public class StatfulClientImplTest {
         // Then
         ArgumentCaptor<Aggregations> aggrArg = ArgumentCaptor.forClass(Aggregations.class);
 
-        verify(metricsSender).put(eq("gauge.current_sessions"), eq("2"), any(Tags.class), aggrArg.capture(), eq(AggregationFrequency.FREQ_10), eq(10), eq("application"), anyLong());
+        verify(metricsSender).put(eq("gauge.current_sessions"), eq(2L), any(Tags.class), aggrArg.capture(), eq(AggregationFrequency.FREQ_10), eq(10), eq("application"), anyLong());
 
         // Then it should have aggregations
         assertNotNull("Aggregations should not be null", aggrArg.getValue());
@@ -380,7 +381,7 @@ public class StatfulClientImplTest {
         // Then
         ArgumentCaptor<AggregationFrequency> aggrFreqArg = ArgumentCaptor.forClass(AggregationFrequency.class);
 
-        verify(metricsSender).put(eq("gauge.current_sessions"), eq("2"), any(Tags.class), any(Aggregations.class), aggrFreqArg.capture(), eq(10), eq("application"), anyLong());
+        verify(metricsSender).put(eq("gauge.current_sessions"), eq(2L), any(Tags.class), any(Aggregations.class), aggrFreqArg.capture(), eq(10), eq("application"), anyLong());
 
         assertNotNull("Aggregation frequency should not be null", aggrFreqArg.getValue());
         Assert.assertEquals("Aggregation frequency should be 5", AggregationFrequency.FREQ_120, aggrFreqArg.getValue());
@@ -394,7 +395,7 @@ public class StatfulClientImplTest {
         // Then
         ArgumentCaptor<String> namespaceArg = ArgumentCaptor.forClass(String.class);
 
-        verify(metricsSender).put(eq("gauge.current_sessions"), eq("2"), isNull(Tags.class), any(Aggregations.class), eq(AggregationFrequency.FREQ_10), eq(10), namespaceArg.capture(), anyLong());
+        verify(metricsSender).put(eq("gauge.current_sessions"), eq(2L), isNull(Tags.class), any(Aggregations.class), eq(AggregationFrequency.FREQ_10), eq(10), namespaceArg.capture(), anyLong());
 
         assertEquals("Namespace should be 'client'", "client", namespaceArg.getValue());
     }
@@ -407,7 +408,7 @@ public class StatfulClientImplTest {
         // Then
         ArgumentCaptor<Tags> tagsArg = ArgumentCaptor.forClass(Tags.class);
 
-        verify(metricsSender).aggregatedPut(eq("response_time"), eq("1000"), tagsArg.capture(), eq(Aggregation.AVG), eq(AggregationFrequency.FREQ_10), eq(10), eq("application"), anyLong());
+        verify(metricsSender).aggregatedPut(eq("response_time"), eq(1000L), tagsArg.capture(), eq(Aggregation.AVG), eq(AggregationFrequency.FREQ_10), eq(10), eq("application"), anyLong());
     }
 
     @Test
@@ -418,7 +419,7 @@ public class StatfulClientImplTest {
         // Then
         ArgumentCaptor<Tags> tagsArg = ArgumentCaptor.forClass(Tags.class);
 
-        verify(metricsSender).aggregatedPut(eq("response_time"), eq("1000"), tagsArg.capture(), eq(Aggregation.AVG), eq(AggregationFrequency.FREQ_10), eq(10), eq("application"), anyLong());
+        verify(metricsSender).aggregatedPut(eq("response_time"), eq(1000L), tagsArg.capture(), eq(Aggregation.AVG), eq(AggregationFrequency.FREQ_10), eq(10), eq("application"), anyLong());
     }
 
     @Test
@@ -440,7 +441,7 @@ public class StatfulClientImplTest {
         // Then
         ArgumentCaptor<Tags> tagsArg = ArgumentCaptor.forClass(Tags.class);
 
-        verify(metricsSender).aggregatedPut(eq("response_time"), eq("1000.0"), tagsArg.capture(), eq(Aggregation.AVG), eq(AggregationFrequency.FREQ_10), eq(10), eq("application"), anyLong());
+        verify(metricsSender).aggregatedPut(eq("response_time"), eq(1000D), tagsArg.capture(), eq(Aggregation.AVG), eq(AggregationFrequency.FREQ_10), eq(10), eq("application"), anyLong());
     }
 
     @Test
@@ -452,7 +453,7 @@ public class StatfulClientImplTest {
         ArgumentCaptor<Tags> tagsArg = ArgumentCaptor.forClass(Tags.class);
         ArgumentCaptor<Aggregations> aggrArg = ArgumentCaptor.forClass(Aggregations.class);
 
-        verify(metricsSender).put(eq("response_time"), eq("1000"), tagsArg.capture(), aggrArg.capture(), eq(AggregationFrequency.FREQ_10), eq(10), eq("application"), anyLong());
+        verify(metricsSender).put(eq("response_time"), eq(1000L), tagsArg.capture(), aggrArg.capture(), eq(AggregationFrequency.FREQ_10), eq(10), eq("application"), anyLong());
     }
 
     @Test
@@ -464,7 +465,7 @@ public class StatfulClientImplTest {
         ArgumentCaptor<Tags> tagsArg = ArgumentCaptor.forClass(Tags.class);
         ArgumentCaptor<Aggregations> aggrArg = ArgumentCaptor.forClass(Aggregations.class);
 
-        verify(metricsSender).put(eq("response_time"), eq("1000"), tagsArg.capture(), aggrArg.capture(), eq(AggregationFrequency.FREQ_10), eq(10), eq("application"), anyLong());
+        verify(metricsSender).put(eq("response_time"), eq(1000L), tagsArg.capture(), aggrArg.capture(), eq(AggregationFrequency.FREQ_10), eq(10), eq("application"), anyLong());
     }
 
     @Test
@@ -488,7 +489,7 @@ public class StatfulClientImplTest {
         ArgumentCaptor<Tags> tagsArg = ArgumentCaptor.forClass(Tags.class);
         ArgumentCaptor<Aggregations> aggrArg = ArgumentCaptor.forClass(Aggregations.class);
 
-        verify(metricsSender).put(eq("response_time"), eq("1000.0"), tagsArg.capture(), aggrArg.capture(), eq(AggregationFrequency.FREQ_10), eq(10), eq("application"), anyLong());
+        verify(metricsSender).put(eq("response_time"), eq(1000D), tagsArg.capture(), aggrArg.capture(), eq(AggregationFrequency.FREQ_10), eq(10), eq("application"), anyLong());
     }
 
     @Test
@@ -499,7 +500,7 @@ public class StatfulClientImplTest {
         // Then
         ArgumentCaptor<Tags> tagsArg = ArgumentCaptor.forClass(Tags.class);
 
-        verify(metricsSender).put(eq("response_time"), eq("1000"), tagsArg.capture(), any(Aggregations.class), eq(AggregationFrequency.FREQ_10), eq(10), eq("application"), anyLong());
+        verify(metricsSender).put(eq("response_time"), eq(1000L), tagsArg.capture(), any(Aggregations.class), eq(AggregationFrequency.FREQ_10), eq(10), eq("application"), anyLong());
 
         // Then it should have tags
         Tags tags = tagsArg.getValue();
@@ -517,7 +518,7 @@ public class StatfulClientImplTest {
         // Then
         ArgumentCaptor<Aggregations> aggrArg = ArgumentCaptor.forClass(Aggregations.class);
 
-        verify(metricsSender).put(eq("response_time"), eq("1000"), any(Tags.class), aggrArg.capture(), eq(AggregationFrequency.FREQ_10), eq(10), eq("application"), anyLong());
+        verify(metricsSender).put(eq("response_time"), eq(1000L), any(Tags.class), aggrArg.capture(), eq(AggregationFrequency.FREQ_10), eq(10), eq("application"), anyLong());
 
         // Then it should have aggregations
         assertNotNull("Aggregations should not be null", aggrArg.getValue());
@@ -535,7 +536,7 @@ public class StatfulClientImplTest {
         // Then
         ArgumentCaptor<AggregationFrequency> aggrFreqArg = ArgumentCaptor.forClass(AggregationFrequency.class);
 
-        verify(metricsSender).put(eq("response_time"), eq("1000"), any(Tags.class), any(Aggregations.class), aggrFreqArg.capture(), eq(10), eq("application"), anyLong());
+        verify(metricsSender).put(eq("response_time"), eq(1000L), any(Tags.class), any(Aggregations.class), aggrFreqArg.capture(), eq(10), eq("application"), anyLong());
 
         assertNotNull("Aggregation frequency should not be null", aggrFreqArg.getValue());
         Assert.assertEquals("Aggregation frequency should be 5", AggregationFrequency.FREQ_120, aggrFreqArg.getValue());
@@ -549,7 +550,7 @@ public class StatfulClientImplTest {
         // Then
         ArgumentCaptor<String> namespaceArg = ArgumentCaptor.forClass(String.class);
 
-        verify(metricsSender).put(eq("response_time"), eq("1000"), any(Tags.class), any(Aggregations.class), eq(AggregationFrequency.FREQ_10), eq(10), namespaceArg.capture(), anyLong());
+        verify(metricsSender).put(eq("response_time"), eq(1000L), any(Tags.class), any(Aggregations.class), eq(AggregationFrequency.FREQ_10), eq(10), namespaceArg.capture(), anyLong());
 
         assertEquals("Namespace should be 'client'", "client", namespaceArg.getValue());
     }
@@ -558,7 +559,7 @@ public class StatfulClientImplTest {
     @Test
     public void shouldNeverThrowExceptionWhenRegisteringTimer() {
         // Given
-        doThrow(new NullPointerException()).when(metricsSender).put(anyString(), anyString(), any(Tags.class), any(Aggregations.class), any(AggregationFrequency.class), anyInt(), anyString(), anyLong());
+        doThrow(new NullPointerException()).when(metricsSender).put(anyString(), anyLong(), any(Tags.class), any(Aggregations.class), any(AggregationFrequency.class), anyInt(), anyString(), anyLong());
 
         // When
         subject.timer("response_time", 1000).with()
@@ -572,7 +573,7 @@ public class StatfulClientImplTest {
     @Test
     public void shouldNeverThrowExceptionWhenRegisteringGauge() {
         // Given
-        doThrow(new NullPointerException()).when(metricsSender).put(anyString(), anyString(), any(Tags.class), any(Aggregations.class), any(AggregationFrequency.class), anyInt(), anyString(), anyLong());
+        doThrow(new NullPointerException()).when(metricsSender).put(anyString(), anyLong(), any(Tags.class), any(Aggregations.class), any(AggregationFrequency.class), anyInt(), anyString(), anyLong());
 
         // When
         subject.gauge("current_sessions", 2).with()
@@ -586,7 +587,7 @@ public class StatfulClientImplTest {
     @Test
     public void shouldNeverThrowExceptionWhenRegisteringCounter() {
         // Given
-        doThrow(new NullPointerException()).when(metricsSender).put(anyString(), anyString(), any(Tags.class), any(Aggregations.class), any(AggregationFrequency.class), anyInt(), anyString(), anyLong());
+        doThrow(new NullPointerException()).when(metricsSender).put(anyString(), anyLong(), any(Tags.class), any(Aggregations.class), any(AggregationFrequency.class), anyInt(), anyString(), anyLong());
 
         // When
         subject.counter("transactions").send();
@@ -614,7 +615,7 @@ public class StatfulClientImplTest {
         // Then
         ArgumentCaptor<Tags> tagsArg = ArgumentCaptor.forClass(Tags.class);
 
-        verify(metricsSender).put(eq("timer.response_time"), eq("1000"), tagsArg.capture(), any(Aggregations.class), eq(AggregationFrequency.FREQ_10), eq(10), eq("application"), anyLong());
+        verify(metricsSender).put(eq("timer.response_time"), eq(1000L), tagsArg.capture(), any(Aggregations.class), eq(AggregationFrequency.FREQ_10), eq(10), eq("application"), anyLong());
 
         // Then it should have tags
         Tags tags = tagsArg.getValue();
@@ -678,6 +679,19 @@ public class StatfulClientImplTest {
         verify(metricsSender, times(1)).shutdown();
     }
 
+    @Test
+    public void shouldGetStatsFromMetricsSender() {
+        // Given
+        ClientStats stats = new ClientStats(Collections.singletonMap("buffer.dropped", 3L));
+        when(metricsSender.getStats()).thenReturn(stats);
+
+        // When
+        ClientStats result = subject.getStats();
+
+        // Then
+        assertEquals(3L, result.getValue("buffer.dropped"));
+    }
+
     @Test
     public void shouldDisableAndDisableStatfulClient() {
         // When
@@ -688,7 +702,7 @@ public class StatfulClientImplTest {
         subject.timer("response_time", 1000).send();
 
         // Then
-        verify(metricsSender, times(2)).put(anyString(), anyString(), any(Tags.class), any(Aggregations.class),
+        verify(metricsSender, times(2)).put(anyString(), anyLong(), any(Tags.class), any(Aggregations.class),
                 any(AggregationFrequency.class), anyInt(), anyString(), anyLong());
     }
 
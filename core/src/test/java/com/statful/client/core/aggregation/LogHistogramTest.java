@@ -0,0 +1,77 @@
+package com.statful.client.core.aggregation;
+
+import org.junit.Test;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertTrue;
+
+public class LogHistogramTest {
+
+    @Test
+    public void shouldReturnNaNWhenEmpty() {
+        assertTrue(Double.isNaN(new LogHistogram().quantile(0.9)));
+    }
+
+    @Test
+    public void shouldEstimateQuantilesWithBoundedRelativeError() {
+        LogHistogram subject = new LogHistogram();
+        for (int i = 1; i <= 100000; i++) {
+            subject.add(i / 100D);
+        }
+
+        assertEquals(0.01, subject.quantile(0), 0.01 * 0.02);
+        assertEquals(500, subject.quantile(0.5), 500 * 0.02);
+        assertEquals(990, subject.quantile(0.99), 990 * 0.02);
+    }
+
+    @Test
+    public void shouldCountOutOfRangeValuesInTheEdgeBuckets() {
+        LogHistogram subject = new LogHistogram();
+        subject.add(Double.NEGATIVE_INFINITY);
+        subject.add(0);
+        subject.add(1.0E-4);
+        subject.add(Double.POSITIVE_INFINITY);
+
+        assertTrue(subject.quantile(0) < -1.0E8);
+        assertEquals("Should estimate values too close to zero as zero", 0, subject.quantile(0.5), 0);
+        assertTrue(subject.quantile(1) > 1.0E8);
+    }
+
+    @Test
+    public void shouldEstimateQuantilesOfNegativeValues() {
+        LogHistogram subject = new LogHistogram();
+        for (int i = 1; i <= 1000; i++) {
+            subject.add(-i);
+        }
+
+        assertEquals(-1000, subject.quantile(0), 1000 * 0.02);
+        assertEquals(-101, subject.quantile(0.9), 101 * 0.02);
+        assertEquals(-11, subject.quantile(0.99), 11 * 0.02);
+    }
+
+    @Test
+    public void shouldEstimateQuantilesOfMixedValues() {
+        LogHistogram subject = new LogHistogram();
+        for (int i = -50; i <= 49; i++) {
+            subject.add(i);
+        }
+
+        assertEquals(-41, subject.quantile(0.1), 41 * 0.02);
+        assertEquals(0, subject.quantile(0.51), 0);
+        assertEquals(39, subject.quantile(0.9), 39 * 0.02);
+    }
+
+    @Test
+    public void shouldMergeHistograms() {
+        LogHistogram subject = new LogHistogram();
+        LogHistogram other = new LogHistogram();
+        for (int i = 1; i <= 50; i++) {
+            subject.add(i);
+            other.add(i + 50);
+        }
+
+        subject.merge(other);
+
+        assertEquals(90, subject.quantile(0.9), 90 * 0.02);
+    }
+}
@@ -0,0 +1,170 @@
+package com.statful.client.core.aggregation;
+
+import com.statful.client.domain.api.Aggregation;
+import com.statful.client.domain.api.AggregationFrequency;
+import com.statful.client.domain.api.Aggregations;
+import com.statful.client.domain.api.Tags;
+import org.junit.Test;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.TimeUnit;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertTrue;
+
+public class MetricAggregatorTest {
+
+    private static final long TIMESTAMP = 123456789;
+    private static final long WINDOW_START = 123456780;
+
+    private final MetricAggregator subject = new MetricAggregator();
+    private final CollectingHandler handler = new CollectingHandler();
+
+    @Test
+    public void shouldNotAggregateMetricsWithoutAggregations() {
+        assertFalse(subject.add("timer.x", 1, null, null, AggregationFrequency.FREQ_10, "application", TIMESTAMP));
+        assertFalse(subject.add("timer.x", 1, null, new Aggregations(), AggregationFrequency.FREQ_10, "application", TIMESTAMP));
+        assertFalse(subject.add("timer.x", 1, null, Aggregations.from(Aggregation.AVG), null, "application", TIMESTAMP));
+    }
+
+    @Test
+    public void shouldEmitOneMetricPerAggregationOnceTheWindowIsOver() {
+        Aggregations aggregations = Aggregations.from(Aggregation.AVG, Aggregation.COUNT, Aggregation.SUM, Aggregation.MIN,
+                Aggregation.MAX, Aggregation.FIRST, Aggregation.LAST);
+
+        assertTrue(subject.add("timer.x", 30, null, aggregations, AggregationFrequency.FREQ_10, "application", TIMESTAMP));
+        subject.add("timer.x", 10, null, aggregations, AggregationFrequency.FREQ_10, "application", TIMESTAMP);
+        subject.add("timer.x", 20, null, aggregations, AggregationFrequency.FREQ_10, "application", TIMESTAMP);
+
+        subject.collect(WINDOW_START + 9, handler);
+        assertTrue("Window shouldn't be emitted before it's over", handler.metrics.isEmpty());
+
+        subject.collect(WINDOW_START + 10, handler);
+
+        assertEquals(7, handler.metrics.size());
+        assertTrue(handler.metrics.contains("avg application.timer.x 20.0 123456780"));
+        assertTrue(handler.metrics.contains("count application.timer.x 3 123456780"));
+        assertTrue(handler.metrics.contains("sum application.timer.x 60.0 123456780"));
+        assertTrue(handler.metrics.contains("min application.timer.x 10.0 123456780"));
+        assertTrue(handler.metrics.contains("max application.timer.x 30.0 123456780"));
+        assertTrue(handler.metrics.contains("first application.timer.x 30.0 123456780"));
+        assertTrue(handler.metrics.contains("last application.timer.x 20.0 123456780"));
+    }
+
+    @Test
+    public void shouldKeepSeriesApartByTagsAndWindow() {
+        Aggregations aggregations = Aggregations.from(Aggregation.COUNT);
+
+        subject.add("counter.x", 1, Tags.from("status", "ok"), aggregations, AggregationFrequency.FREQ_10, null, TIMESTAMP);
+        subject.add("counter.x", 1, Tags.from("status", "ok"), aggregations, AggregationFrequency.FREQ_10, null, TIMESTAMP);
+        subject.add("counter.x", 1, Tags.from("status", "ko"), aggregations, AggregationFrequency.FREQ_10, null, TIMESTAMP);
+        subject.add("counter.x", 1, Tags.from("status", "ok"), aggregations, AggregationFrequency.FREQ_10, null, TIMESTAMP + 10);
+
+        subject.collect(WINDOW_START + 10, handler);
+
+        assertEquals(2, handler.metrics.size());
+        assertTrue(handler.metrics.contains("count counter.x,status=ok 2 123456780"));
+        assertTrue(handler.metrics.contains("count counter.x,status=ko 1 123456780"));
+
+        subject.collectAll(handler);
+
+        assertEquals(3, handler.metrics.size());
+        assertTrue(handler.metrics.contains("count counter.x,status=ok 1 123456790"));
+    }
+
+    @Test
+    public void shouldNotBeAffectedByChangesToTheMetricTags() {
+        Tags tags = Tags.from("status", "ok");
+
+        subject.add("counter.x", 1, tags, Aggregations.from(Aggregation.COUNT), AggregationFrequency.FREQ_10, null, TIMESTAMP);
+        tags.putTag("status", "ko");
+        subject.collectAll(handler);
+
+        assertEquals("count counter.x,status=ok 1 123456780", handler.metrics.get(0));
+    }
+
+    @Test
+    public void shouldEstimatePercentiles() {
+        Aggregations aggregations = Aggregations.from(Aggregation.P90, Aggregation.P95);
+
+        for (int i = 1; i <= 1000; i++) {
+            subject.add("timer.x", i, null, aggregations, AggregationFrequency.FREQ_10, null, TIMESTAMP);
+        }
+        subject.collectAll(handler);
+
+        assertEquals(900, valueOf("p90"), 900 * 0.02);
+        assertEquals(950, valueOf("p95"), 950 * 0.02);
+    }
+
+    @Test
+    public void shouldEstimatePercentilesOfNegativeValues() {
+        Aggregations aggregations = Aggregations.from(Aggregation.P90, Aggregation.P95);
+
+        for (int i = 1; i <= 1000; i++) {
+            subject.add("gauge.x", -i, null, aggregations, AggregationFrequency.FREQ_10, null, TIMESTAMP);
+        }
+        subject.collectAll(handler);
+
+        assertEquals(-101, valueOf("p90"), 101 * 0.02);
+        assertEquals(-51, valueOf("p95"), 51 * 0.02);
+    }
+
+    @Test
+    public void shouldNotLoseValuesAddedWhileCollecting() throws Exception {
+        final Aggregations aggregations = Aggregations.from(Aggregation.COUNT);
+        final int threads = 4;
+        final int valuesPerThread = 100000;
+        final CountDownLatch done = new CountDownLatch(threads);
+        ExecutorService executor = Executors.newFixedThreadPool(threads);
+
+        for (int t = 0; t < threads; t++) {
+            executor.execute(new Runnable() {
+                @Override
+                public void run() {
+                    for (int i = 0; i < valuesPerThread; i++) {
+                        subject.add("counter.x", 1, null, aggregations, AggregationFrequency.FREQ_10, null, TIMESTAMP);
+                    }
+                    done.countDown();
+                }
+            });
+        }
+
+        while (!done.await(1, TimeUnit.MILLISECONDS)) {
+            subject.collectAll(handler);
+        }
+        subject.collectAll(handler);
+        executor.shutdown();
+
+        long total = 0;
+        for (String metric : handler.metrics) {
+            total += Long.parseLong(metric.split(" ")[2]);
+        }
+        assertEquals(threads * valuesPerThread, total);
+    }
+
+    private double valueOf(final String aggregation) {
+        for (String metric : handler.metrics) {
+            if (metric.startsWith(aggregation + " ")) {
+                return Double.parseDouble(metric.split(" ")[2]);
+            }
+        }
+        throw new AssertionError("Missing " + aggregation);
+    }
+
+    private static final class CollectingHandler implements AggregatedMetricHandler {
+
+        private final List<String> metrics = new ArrayList<String>();
+
+        @Override
+        public void handle(final String metric, final Aggregation aggregation,
+                           final AggregationFrequency aggregationFrequency) {
+            assertEquals(AggregationFrequency.FREQ_10, aggregationFrequency);
+            metrics.add(aggregation.getName() + " " + metric);
+        }
+    }
+}
@@ -1,17 +1,25 @@
 package com.statful.client.core.api;
 
+import com.statful.client.domain.api.AddressSelection;
 import com.statful.client.domain.api.Aggregation;
+import com.statful.client.domain.api.BufferStrategy;
 import com.statful.client.domain.api.ClientConfiguration;
+import com.statful.client.domain.api.OverflowPolicy;
+import com.statful.client.domain.api.SpoolSyncPolicy;
 import com.statful.client.domain.api.Tags;
 import org.junit.Test;
 
 import java.util.Collection;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
 
 import static com.statful.client.core.api.ConfigurationBuilder.newBuilder;
 import static com.statful.client.core.api.MetricBuilder.*;
 import static com.statful.client.domain.api.Aggregation.*;
 import static com.statful.client.domain.api.AggregationFrequency.FREQ_10;
 import static com.statful.client.domain.api.AggregationFrequency.FREQ_120;
+import static com.statful.client.domain.api.Transport.HTTP;
 import static com.statful.client.domain.api.Transport.UDP;
 import static org.hamcrest.MatcherAssert.assertThat;
 import static org.hamcrest.Matchers.containsInAnyOrder;
@@ -38,6 +46,32 @@ public class ConfigurationBuilderTest {
         assertEquals("Should have default namespace", "application", config.getNamespace());
         assertEquals("Should have default flush size", 10, config.getFlushSize());
         assertEquals("Should have default flush interval", 5000, config.getFlushIntervalMillis());
+        assertFalse("Should not pre-aggregate as default", config.isPreAggregationEnabled());
+        assertFalse("Should not send self-metrics as default", config.isSelfMetricsEnabled());
+        assertFalse("Should not register a management bean as default", config.isJmxEnabled());
+        assertEquals("Should have default buffer strategy", BufferStrategy.BLOCKING_QUEUE, config.getBufferStrategy());
+        assertEquals("Should have default overflow policy", OverflowPolicy.DROP_NEWEST, config.getOverflowPolicy());
+        assertEquals("Should have default overflow block timeout", 100, config.getOverflowBlockTimeoutMillis());
+        assertEquals("Should have default overflow sample rate", 10, config.getOverflowSampleRate());
+        assertEquals("Should have default UDP max payload size", 1432, config.getUdpMaxPayloadSize());
+        assertEquals("Should have default DNS refresh interval", 30000, config.getDnsRefreshIntervalMillis());
+        assertEquals("Should have default address selection", AddressSelection.FIRST, config.getAddressSelection());
+        assertEquals("Should have default HTTP max bytes in flight", 4194304, config.getHttpMaxInFlightBytes());
+        assertFalse("Should not compress HTTP requests as default", config.isHttpCompressionEnabled());
+        assertEquals("Should have default HTTP compression min bytes", 1024, config.getHttpCompressionMinBytes());
+        assertEquals("Should have default HTTP max retries", 2, config.getHttpMaxRetries());
+        assertEquals("Should have default HTTP retry backoff", 100, config.getHttpRetryBackoffMillis());
+        assertEquals("Should have default HTTP retry budget", 10, config.getHttpRetryBudgetPerSecond());
+        assertEquals("Should disable the circuit breaker as default", 0, config.getCircuitBreakerThreshold());
+        assertEquals("Should have default circuit breaker open interval", 10000, config.getCircuitBreakerOpenMillis());
+        assertNull("Should disable the spool as default", config.getSpoolDirectory());
+        assertEquals("Should have default spool max bytes", 67108864, config.getSpoolMaxBytes());
+        assertEquals("Should have default spool sync policy", SpoolSyncPolicy.ON_ROTATE, config.getSpoolSyncPolicy());
+        assertFalse("Should not use virtual threads as default", config.isVirtualThreadsEnabled());
+        assertEquals("Should have default virtual threads max concurrency", 64, config.getVirtualThreadsMaxConcurrency());
+        assertNull("Should not have a shared scheduler as default", config.getScheduler());
+        assertNull("Should not have a shared worker executor as default", config.getWorkerExecutor());
+        assertFalse("Should not adapt flushes as default", config.isAdaptiveFlushEnabled());
     }
 
     @Test
@@ -164,6 +198,233 @@ public class ConfigurationBuilderTest {
         assertEquals("Should configure socket timeout", 200, config.getSocketTimeoutMillis());
     }
 
+    @Test
+    public void shouldConfigurePreAggregation() {
+        ClientConfiguration config = newBuilder()
+                .transport(UDP)
+                .preAggregation(true)
+                .buildConfiguration();
+
+        assertTrue("Should configure pre-aggregation", config.isPreAggregationEnabled());
+    }
+
+    @Test
+    public void shouldConfigureSelfMetrics() {
+        ClientConfiguration config = newBuilder()
+                .transport(UDP)
+                .selfMetrics(true)
+                .buildConfiguration();
+
+        assertTrue("Should configure self-metrics", config.isSelfMetricsEnabled());
+    }
+
+    @Test
+    public void shouldConfigureJmx() {
+        ClientConfiguration config = newBuilder()
+                .transport(UDP)
+                .jmx(true)
+                .buildConfiguration();
+
+        assertTrue("Should configure JMX", config.isJmxEnabled());
+    }
+
+    @Test
+    public void shouldConfigureUdpMaxPayloadSize() {
+        ClientConfiguration config = newBuilder()
+                .transport(UDP)
+                .udpMaxPayloadSize(8932)
+                .buildConfiguration();
+
+        assertEquals("Should configure UDP max payload size", 8932, config.getUdpMaxPayloadSize());
+    }
+
+    @Test
+    public void shouldIgnoreInvalidUdpMaxPayloadSize() {
+        ClientConfiguration config = newBuilder()
+                .transport(UDP)
+                .udpMaxPayloadSize(0)
+                .udpMaxPayloadSize(65508)
+                .buildConfiguration();
+
+        assertEquals("Should keep default UDP max payload size", 1432, config.getUdpMaxPayloadSize());
+    }
+
+    @Test
+    public void shouldConfigureAddressResolution() {
+        ClientConfiguration config = newBuilder()
+                .transport(UDP)
+                .dnsRefreshIntervalMs(0)
+                .addressSelection(AddressSelection.CONSISTENT_HASH)
+                .buildConfiguration();
+
+        assertEquals("Should configure DNS refresh interval", 0, config.getDnsRefreshIntervalMillis());
+        assertEquals("Should configure address selection", AddressSelection.CONSISTENT_HASH, config.getAddressSelection());
+    }
+
+    @Test
+    public void shouldIgnoreInvalidAddressResolutionSettings() {
+        ClientConfiguration config = newBuilder()
+                .transport(UDP)
+                .dnsRefreshIntervalMs(-1)
+                .addressSelection(null)
+                .buildConfiguration();
+
+        assertEquals("Should keep default DNS refresh interval", 30000, config.getDnsRefreshIntervalMillis());
+        assertEquals("Should keep default address selection", AddressSelection.FIRST, config.getAddressSelection());
+    }
+
+    @Test
+    public void shouldConfigureHttpMaxInFlightBytes() {
+        ClientConfiguration config = newBuilder()
+                .transport(UDP)
+                .httpMaxInFlightBytes(1024)
+                .httpMaxInFlightBytes(0)
+                .buildConfiguration();
+
+        assertEquals("Should configure HTTP max bytes in flight", 1024, config.getHttpMaxInFlightBytes());
+    }
+
+    @Test
+    public void shouldConfigureHttpCompression() {
+        ClientConfiguration config = newBuilder()
+                .transport(HTTP)
+                .httpCompression(true)
+                .httpCompressionMinBytes(256)
+                .httpCompressionMinBytes(-1)
+                .buildConfiguration();
+
+        assertTrue("Should configure HTTP compression", config.isHttpCompressionEnabled());
+        assertEquals("Should configure HTTP compression min bytes", 256, config.getHttpCompressionMinBytes());
+    }
+
+    @Test
+    public void shouldConfigureHttpRetries() {
+        ClientConfiguration config = newBuilder()
+                .transport(HTTP)
+                .httpMaxRetries(5)
+                .httpMaxRetries(-1)
+                .httpRetryBackoffMs(50)
+                .httpRetryBackoffMs(-1)
+                .httpRetryBudgetPerSecond(0)
+                .httpRetryBudgetPerSecond(-1)
+                .buildConfiguration();
+
+        assertEquals("Should configure HTTP max retries", 5, config.getHttpMaxRetries());
+        assertEquals("Should configure HTTP retry backoff", 50, config.getHttpRetryBackoffMillis());
+        assertEquals("Should configure HTTP retry budget", 0, config.getHttpRetryBudgetPerSecond());
+    }
+
+    @Test
+    public void shouldConfigureCircuitBreaker() {
+        ClientConfiguration config = newBuilder()
+                .transport(UDP)
+                .circuitBreakerThreshold(5)
+                .circuitBreakerThreshold(-1)
+                .circuitBreakerOpenMs(2000)
+                .circuitBreakerOpenMs(0)
+                .buildConfiguration();
+
+        assertEquals("Should configure circuit breaker threshold", 5, config.getCircuitBreakerThreshold());
+        assertEquals("Should configure circuit breaker open interval", 2000, config.getCircuitBreakerOpenMillis());
+    }
+
+    @Test
+    public void shouldConfigureSpool() {
+        ClientConfiguration config = newBuilder()
+                .transport(UDP)
+                .spoolDirectory("/var/spool/statful")
+                .spoolDirectory("")
+                .spoolMaxBytes(1048576)
+                .spoolMaxBytes(0)
+                .spoolSyncPolicy(SpoolSyncPolicy.ALWAYS)
+                .spoolSyncPolicy(null)
+                .buildConfiguration();
+
+        assertEquals("Should configure spool directory", "/var/spool/statful", config.getSpoolDirectory());
+        assertEquals("Should configure spool max bytes", 1048576, config.getSpoolMaxBytes());
+        assertEquals("Should configure spool sync policy", SpoolSyncPolicy.ALWAYS, config.getSpoolSyncPolicy());
+    }
+
+    @Test
+    public void shouldConfigureVirtualThreads() {
+        ClientConfiguration config = newBuilder()
+                .transport(HTTP)
+                .virtualThreads(true)
+                .virtualThreadsMaxConcurrency(256)
+                .virtualThreadsMaxConcurrency(0)
+                .buildConfiguration();
+
+        assertTrue("Should configure virtual threads", config.isVirtualThreadsEnabled());
+        assertEquals("Should configure virtual threads max concurrency", 256, config.getVirtualThreadsMaxConcurrency());
+    }
+
+    @Test
+    public void shouldConfigureSharedExecutors() {
+        ScheduledExecutorService scheduler = Executors.newSingleThreadScheduledExecutor();
+        ExecutorService workerExecutor = Executors.newSingleThreadExecutor();
+
+        ClientConfiguration config = newBuilder()
+                .transport(UDP)
+                .scheduler(scheduler)
+                .scheduler(null)
+                .workerExecutor(workerExecutor)
+                .workerExecutor(null)
+                .buildConfiguration();
+
+        assertSame("Should configure scheduler", scheduler, config.getScheduler());
+        assertSame("Should configure worker executor", workerExecutor, config.getWorkerExecutor());
+        scheduler.shutdown();
+        workerExecutor.shutdown();
+    }
+
+    @Test
+    public void shouldConfigureAdaptiveFlush() {
+        ClientConfiguration config = newBuilder()
+                .transport(UDP)
+                .adaptiveFlush(true)
+                .buildConfiguration();
+
+        assertTrue("Should configure adaptive flush", config.isAdaptiveFlushEnabled());
+    }
+
+    @Test
+    public void shouldConfigureBufferStrategy() {
+        ClientConfiguration config = newBuilder()
+                .transport(UDP)
+                .bufferStrategy(BufferStrategy.RING_BUFFER)
+                .buildConfiguration();
+
+        assertEquals("Should configure buffer strategy", BufferStrategy.RING_BUFFER, config.getBufferStrategy());
+    }
+
+    @Test
+    public void shouldConfigureOverflowPolicy() {
+        ClientConfiguration config = newBuilder()
+                .transport(UDP)
+                .overflowPolicy(OverflowPolicy.BLOCK)
+                .overflowBlockTimeoutMs(250)
+                .overflowSampleRate(4)
+                .buildConfiguration();
+
+        assertEquals("Should configure overflow policy", OverflowPolicy.BLOCK, config.getOverflowPolicy());
+        assertEquals("Should configure overflow block timeout", 250, config.getOverflowBlockTimeoutMillis());
+        assertEquals("Should configure overflow sample rate", 4, config.getOverflowSampleRate());
+    }
+
+    @Test
+    public void shouldIgnoreInvalidOverflowSettings() {
+        ClientConfiguration config = newBuilder()
+                .transport(UDP)
+                .overflowPolicy(null)
+                .overflowBlockTimeoutMs(-1)
+                .overflowSampleRate(0)
+                .buildConfiguration();
+
+        assertEquals("Should keep default overflow policy", OverflowPolicy.DROP_NEWEST, config.getOverflowPolicy());
+        assertEquals("Should keep default overflow block timeout", 100, config.getOverflowBlockTimeoutMillis());
+        assertEquals("Should keep default overflow sample rate", 10, config.getOverflowSampleRate());
+    }
+
     @Test
     public void shouldConfigureSecureTransport() {
         ClientConfiguration config = newBuilder()
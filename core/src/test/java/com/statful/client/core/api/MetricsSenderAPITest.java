@@ -163,4 +163,37 @@ public class MetricsSenderAPITest {
                 eq("namespace"),
                 anyLong());
     }
-}
\ No newline at end of file
+
+    @Test
+    public void shouldFormatPrimitiveValuesLazily() {
+        MetricsSenderAPI builder = new MetricsSenderAPI(metricsSender);
+
+        builder.value(1000L);
+        assertEquals("1000", builder.getValue());
+
+        builder.value(2.5D);
+        assertEquals("2.5", builder.getValue());
+    }
+
+    @Test
+    public void shouldSendLongValueWithoutFormattingIt() {
+        MetricsSenderAPI builder = new MetricsSenderAPI(metricsSender);
+        builder.name("test").value(1000L);
+
+        builder.send();
+
+        verify(metricsSender, times(1)).put(eq("test"), eq(1000L), any(Tags.class), any(Aggregations.class),
+                any(AggregationFrequency.class), anyInt(), anyString(), anyLong());
+    }
+
+    @Test
+    public void shouldSendAggregatedDoubleValueWithoutFormattingIt() {
+        MetricsSenderAPI builder = new MetricsSenderAPI(metricsSender, true);
+        builder.name("test").value(2.5D).aggregation(Aggregation.AVG).aggregationFrequency(AggregationFrequency.FREQ_10);
+
+        builder.send();
+
+        verify(metricsSender, times(1)).aggregatedPut(eq("test"), eq(2.5D), any(Tags.class), eq(Aggregation.AVG),
+                eq(AggregationFrequency.FREQ_10), anyInt(), anyString(), anyLong());
+    }
+}
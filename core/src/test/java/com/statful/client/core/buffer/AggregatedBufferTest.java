@@ -2,12 +2,16 @@ package com.statful.client.core.buffer;
 
 import com.statful.client.domain.api.Aggregation;
 import com.statful.client.domain.api.AggregationFrequency;
+import com.statful.client.domain.api.OverflowPolicy;
 import org.junit.Before;
 import org.junit.Test;
 
+import java.util.Arrays;
+import java.util.List;
 import java.util.Set;
 
 import static org.junit.Assert.*;
+import static org.mockito.Mockito.*;
 
 public class AggregatedBufferTest {
 
@@ -24,7 +28,7 @@ public class AggregatedBufferTest {
         assertTrue("Should add to buffer", subject.addToBuffer("foo", Aggregation.AVG, AggregationFrequency.FREQ_10));
 
         // Then
-        assertEquals("Buffer should have 1 metric", 1, subject.getBuffer().size());
+        assertEquals("Buffer should have 1 metric", 1, subject.getQueues().size());
     }
 
     @Test
@@ -36,7 +40,7 @@ public class AggregatedBufferTest {
         assertTrue("Should add to buffer", subject.addToBuffer("bar", Aggregation.AVG, AggregationFrequency.FREQ_10));
 
         // Then
-        assertEquals("Buffer should have 2 metric", 2, subject.getBuffer()
+        assertEquals("Buffer should have 2 metric", 2, subject.getQueues()
                 .get(Aggregation.AVG.toString()).get(AggregationFrequency.FREQ_10.toString()).size());
     }
 
@@ -52,6 +56,20 @@ public class AggregatedBufferTest {
         assertEquals("foo\n", bufferString);
     }
 
+    @Test
+    public void shouldDrainBufferWithoutJoiningMetrics() {
+        // Given
+        subject.addToBuffer("foo", Aggregation.AVG, AggregationFrequency.FREQ_10);
+        subject.addToBuffer("bar", Aggregation.AVG, AggregationFrequency.FREQ_10);
+
+        // When
+        List<String> metrics = subject.drainBuffer(Aggregation.AVG, AggregationFrequency.FREQ_10);
+
+        // Then
+        assertEquals(Arrays.asList("foo", "bar"), metrics);
+        assertTrue("Should be empty for missing buffers", subject.drainBuffer(Aggregation.P90, AggregationFrequency.FREQ_10).isEmpty());
+    }
+
     @Test
     public void shouldReturnEmptyStringWhenBufferIsEmptyOrMissing() {
         // When
@@ -143,4 +161,65 @@ public class AggregatedBufferTest {
         // Then
         assertTrue("Aggregations frequencies set should be empty", aggregationFrequencies.isEmpty());
     }
+
+    @Test
+    @SuppressWarnings("deprecation")
+    public void shouldStillExposeTheBlockingQueues() {
+        // Given
+        subject.addToBuffer("foo", Aggregation.AVG, AggregationFrequency.FREQ_10);
+
+        // When
+        subject.getBuffer().get(Aggregation.AVG.toString()).get(AggregationFrequency.FREQ_10.toString()).poll();
+
+        // Then
+        assertEquals("Should expose the queues of the buffer", 0, subject.size());
+    }
+
+    @Test
+    public void shouldNotBlockWhenTheCallerMayNotBlock() {
+        // Given
+        AggregatedBuffer subject = new AggregatedBuffer(1, 1, new OverflowHandler(OverflowPolicy.BLOCK, 10000, 1, 1, null));
+        subject.addToBuffer("foo", Aggregation.AVG, AggregationFrequency.FREQ_10, false);
+
+        // When
+        long start = System.currentTimeMillis();
+        boolean inserted = subject.addToBuffer("bar", Aggregation.AVG, AggregationFrequency.FREQ_10, false);
+
+        // Then
+        assertFalse("Should drop the newest metric", inserted);
+        assertTrue("Should not wait for room in the buffer", System.currentTimeMillis() - start < 10000);
+        assertEquals(1, subject.size());
+    }
+
+    @Test
+    public void shouldCountNonEmptyBuffers() {
+        // Given
+        subject.addToBuffer("foo", Aggregation.AVG, AggregationFrequency.FREQ_10);
+        subject.addToBuffer("bar", Aggregation.AVG, AggregationFrequency.FREQ_10);
+        subject.addToBuffer("foo", Aggregation.P90, AggregationFrequency.FREQ_60);
+        subject.addToBuffer("foo", Aggregation.COUNT, AggregationFrequency.FREQ_10);
+
+        // When
+        subject.readBuffer(Aggregation.COUNT, AggregationFrequency.FREQ_10);
+
+        // Then
+        assertEquals(2, subject.countNonEmptyBuffers());
+    }
+
+    @Test
+    public void shouldRunTheHighWaterListenerOfEveryAggregation() {
+        // Given
+        subject = new AggregatedBuffer(10, 10);
+        subject.addToBuffer("foo", Aggregation.AVG, AggregationFrequency.FREQ_10);
+        Runnable listener = mock(Runnable.class);
+
+        // When
+        subject.setHighWaterListener(2, listener);
+        subject.addToBuffer("bar", Aggregation.AVG, AggregationFrequency.FREQ_10);
+        subject.addToBuffer("foo", Aggregation.P90, AggregationFrequency.FREQ_10);
+        subject.addToBuffer("bar", Aggregation.P90, AggregationFrequency.FREQ_10);
+
+        // Then
+        verify(listener, times(2)).run();
+    }
 }
@@ -0,0 +1,149 @@
+package com.statful.client.core.buffer;
+
+import com.statful.client.domain.api.OverflowPolicy;
+import org.junit.Test;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import static java.util.Arrays.asList;
+import static org.junit.Assert.*;
+
+public class OverflowHandlerTest {
+
+    @Test
+    public void shouldDropNewestMetricsWhenFull() {
+        // Given
+        OverflowHandler subject = new OverflowHandler(OverflowPolicy.DROP_NEWEST, 0, 1, 2, null);
+        MetricsQueue queue = new BlockingMetricsQueue(2);
+
+        // When
+        subject.offer(queue, "a");
+        subject.offer(queue, "b");
+        boolean inserted = subject.offer(queue, "c");
+
+        // Then
+        assertFalse(inserted);
+        assertEquals(asList("a", "b"), queue.snapshot());
+        assertEquals(1, subject.getDroppedMetrics());
+    }
+
+    @Test
+    public void shouldDefaultToDropNewest() {
+        // Given
+        OverflowHandler subject = new OverflowHandler(null, 0, 0, 1, null);
+        MetricsQueue queue = new BlockingMetricsQueue(1);
+
+        // When
+        subject.offer(queue, "a");
+        subject.offer(queue, "b");
+
+        // Then
+        assertEquals(asList("a"), queue.snapshot());
+        assertEquals(1, subject.getDroppedMetrics());
+    }
+
+    @Test
+    public void shouldDropOldestMetricsWhenFull() {
+        // Given
+        OverflowHandler subject = new OverflowHandler(OverflowPolicy.DROP_OLDEST, 0, 1, 2, null);
+        MetricsQueue queue = new RingBufferMetricsQueue(2);
+
+        // When
+        subject.offer(queue, "a");
+        subject.offer(queue, "b");
+        boolean inserted = subject.offer(queue, "c");
+
+        // Then
+        assertTrue(inserted);
+        assertEquals(asList("b", "c"), queue.snapshot());
+        assertEquals(1, subject.getDroppedMetrics());
+    }
+
+    @Test
+    public void shouldWaitForRoomWhenBlocking() {
+        // Given
+        final MetricsQueue queue = new BlockingMetricsQueue(1);
+        final AtomicInteger drainRequests = new AtomicInteger();
+        OverflowHandler subject = new OverflowHandler(OverflowPolicy.BLOCK, 1000, 1, 1, new Runnable() {
+            @Override
+            public void run() {
+                drainRequests.incrementAndGet();
+                queue.drainTo(new ArrayList<String>(), 1);
+            }
+        });
+        subject.offer(queue, "a");
+
+        // When
+        boolean inserted = subject.offer(queue, "b");
+
+        // Then
+        assertTrue(inserted);
+        assertEquals(1, drainRequests.get());
+        assertEquals(asList("b"), queue.snapshot());
+        assertEquals(0, subject.getDroppedMetrics());
+    }
+
+    @Test
+    public void shouldDropNewestMetricsAfterBlockTimeout() {
+        // Given
+        OverflowHandler subject = new OverflowHandler(OverflowPolicy.BLOCK, 10, 1, 1, null);
+        MetricsQueue queue = new BlockingMetricsQueue(1);
+        subject.offer(queue, "a");
+
+        // When
+        long start = System.currentTimeMillis();
+        boolean inserted = subject.offer(queue, "b");
+
+        // Then
+        assertFalse(inserted);
+        assertTrue("Should wait for the timeout", System.currentTimeMillis() - start >= 10);
+        assertEquals(asList("a"), queue.snapshot());
+        assertEquals(1, subject.getDroppedMetrics());
+    }
+
+    @Test
+    public void shouldDropNewestMetricsWithoutBlockingWhenTheCallerMayNotBlock() {
+        // Given
+        final AtomicInteger drainRequests = new AtomicInteger();
+        OverflowHandler subject = new OverflowHandler(OverflowPolicy.BLOCK, 10000, 1, 1, new Runnable() {
+            @Override
+            public void run() {
+                drainRequests.incrementAndGet();
+            }
+        });
+        MetricsQueue queue = new BlockingMetricsQueue(1);
+        subject.offer(queue, "a", false);
+
+        // When
+        long start = System.currentTimeMillis();
+        boolean inserted = subject.offer(queue, "b", false);
+
+        // Then
+        assertFalse(inserted);
+        assertTrue("Should not wait for the timeout", System.currentTimeMillis() - start < 10000);
+        assertEquals(0, drainRequests.get());
+        assertEquals(asList("a"), queue.snapshot());
+        assertEquals(1, subject.getDroppedMetrics());
+    }
+
+    @Test
+    public void shouldSampleDownAboveHighWaterMark() {
+        // Given
+        OverflowHandler subject = new OverflowHandler(OverflowPolicy.SAMPLE, 0, 5, 10, null);
+        MetricsQueue queue = new BlockingMetricsQueue(10);
+
+        // When
+        for (int i = 0; i < 18; i++) {
+            subject.offer(queue, "metric" + i);
+        }
+
+        // Then
+        List<String> metrics = queue.snapshot();
+        assertEquals("Should keep every metric below the high-water mark and 1 in 5 above it", 10, metrics.size());
+        assertEquals("metric12", metrics.get(8));
+        assertEquals("metric17", metrics.get(9));
+        assertEquals(8, subject.getDroppedMetrics());
+    }
+}
@@ -0,0 +1,122 @@
+package com.statful.client.core.buffer;
+
+import org.junit.Test;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.TimeUnit;
+
+import static java.util.Arrays.asList;
+import static org.junit.Assert.*;
+import static org.mockito.Mockito.*;
+
+public class RingBufferMetricsQueueTest {
+
+    @Test
+    public void shouldRejectMetricsWhenFull() {
+        // Given
+        RingBufferMetricsQueue subject = new RingBufferMetricsQueue(3);
+
+        // When
+        assertTrue(subject.offer("a"));
+        assertTrue(subject.offer("b"));
+        assertTrue(subject.offer("c"));
+
+        // Then
+        assertFalse("Should respect the capacity even if it isn't a power of two", subject.offer("d"));
+        assertEquals(3, subject.size());
+    }
+
+    @Test
+    public void shouldDrainInOrderUpToTheGivenNumberOfMetrics() {
+        // Given
+        RingBufferMetricsQueue subject = new RingBufferMetricsQueue(4);
+        subject.offer("a");
+        subject.offer("b");
+        subject.offer("c");
+
+        // When
+        List<String> drained = new ArrayList<String>();
+        int count = subject.drainTo(drained, 2);
+
+        // Then
+        assertEquals(2, count);
+        assertEquals(asList("a", "b"), drained);
+        assertEquals(asList("c"), subject.snapshot());
+        assertEquals(1, subject.size());
+    }
+
+    @Test
+    public void shouldReuseSlotsAfterDraining() {
+        // Given
+        RingBufferMetricsQueue subject = new RingBufferMetricsQueue(2);
+        List<String> drained = new ArrayList<String>();
+
+        // When
+        for (int i = 0; i < 10; i++) {
+            assertTrue(subject.offer("metric" + i));
+            subject.drainTo(drained, 1);
+        }
+
+        // Then
+        assertEquals(10, drained.size());
+        assertEquals("metric9", drained.get(9));
+        assertEquals(0, subject.size());
+    }
+
+    @Test
+    public void shouldRunTheHighWaterListenerOnceTheMarkIsReached() {
+        // Given
+        RingBufferMetricsQueue subject = new RingBufferMetricsQueue(4);
+        Runnable listener = mock(Runnable.class);
+        subject.setHighWaterListener(3, listener);
+        subject.offer("a");
+        subject.offer("b");
+        verify(listener, never()).run();
+
+        // When
+        subject.offer("c");
+        subject.offer("d");
+
+        // Then
+        verify(listener, times(1)).run();
+    }
+
+    @Test
+    public void shouldNotLoseMetricsPutConcurrently() throws Exception {
+        // Given
+        final RingBufferMetricsQueue subject = new RingBufferMetricsQueue(1000);
+        final int threads = 4;
+        final int metricsPerThread = 50000;
+        final CountDownLatch done = new CountDownLatch(threads);
+        ExecutorService executor = Executors.newFixedThreadPool(threads);
+
+        // When
+        for (int t = 0; t < threads; t++) {
+            executor.execute(new Runnable() {
+                @Override
+                public void run() {
+                    for (int i = 0; i < metricsPerThread; i++) {
+                        while (!subject.offer("metric")) {
+                            Thread.yield();
+                        }
+                    }
+                    done.countDown();
+                }
+            });
+        }
+
+        List<String> drained = new ArrayList<String>();
+        while (!done.await(1, TimeUnit.MILLISECONDS)) {
+            subject.drainTo(drained, 100);
+        }
+        subject.drainTo(drained, Integer.MAX_VALUE);
+        executor.shutdown();
+
+        // Then
+        assertEquals(threads * metricsPerThread, drained.size());
+    }
+}
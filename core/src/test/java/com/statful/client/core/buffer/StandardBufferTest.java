@@ -1,8 +1,12 @@
 package com.statful.client.core.buffer;
 
+import com.statful.client.domain.api.BufferStrategy;
 import org.junit.Before;
 import org.junit.Test;
 
+import java.util.Arrays;
+import java.util.List;
+
 import static org.junit.Assert.*;
 
 public class StandardBufferTest {
@@ -27,7 +31,7 @@ public class StandardBufferTest {
         assertTrue("Should add to buffer", subject.addToBuffer("foo"));
 
         // Then
-        assertEquals("Buffer should have 1 metric", 1, subject.getBuffer().size());
+        assertEquals("Buffer should have 1 metric", 1, subject.getQueue().size());
     }
 
     @Test
@@ -39,7 +43,7 @@ public class StandardBufferTest {
         assertTrue("Should add to buffer", subject.addToBuffer("bar"));
 
         // Then
-        assertEquals("Buffer should have 2 metric", 2, subject.getBuffer().size());
+        assertEquals("Buffer should have 2 metric", 2, subject.getQueue().size());
     }
 
     @Test
@@ -54,6 +58,20 @@ public class StandardBufferTest {
         assertEquals("foo\n", bufferString);
     }
 
+    @Test
+    public void shouldDrainBufferWithoutJoiningMetrics() {
+        // Given
+        subject.addToBuffer("foo");
+        subject.addToBuffer("bar");
+
+        // When
+        List<String> metrics = subject.drainBuffer();
+
+        // Then
+        assertEquals(Arrays.asList("foo", "bar"), metrics);
+        assertTrue("Should drain the buffer", subject.drainBuffer().isEmpty());
+    }
+
     @Test
     public void shouldReturnEmptyStringWhenBufferIsEmptyOrMissing() {
         // When
@@ -97,4 +115,39 @@ public class StandardBufferTest {
         // Then
         assertFalse("Should not set as time to flush", isTimeToFlush);
     }
+
+    @Test
+    public void shouldReadBufferWithRingBufferStrategy() {
+        // Given
+        StandardBuffer subject = new StandardBuffer(5, 2, BufferStrategy.RING_BUFFER);
+        subject.addToBuffer("foo");
+        subject.addToBuffer("bar");
+        subject.addToBuffer("baz");
+
+        // When
+        String bufferString = subject.readBuffer();
+
+        // Then
+        assertEquals("foo\nbar\n", bufferString);
+        assertEquals("Buffer should have 1 metric", 1, subject.getQueue().size());
+    }
+
+    @Test
+    @SuppressWarnings("deprecation")
+    public void shouldStillExposeTheBlockingQueueOfTheDefaultStrategy() {
+        // Given
+        subject.addToBuffer("foo");
+
+        // When
+        subject.getBuffer().poll();
+
+        // Then
+        assertEquals("Should expose the queue of the buffer", 0, subject.getQueue().size());
+    }
+
+    @Test(expected = UnsupportedOperationException.class)
+    @SuppressWarnings("deprecation")
+    public void shouldNotExposeABlockingQueueForOtherStrategies() {
+        new StandardBuffer(5, 2, BufferStrategy.RING_BUFFER).getBuffer();
+    }
 }
@@ -0,0 +1,253 @@
+package com.statful.client.core.buffer;
+
+import com.statful.client.domain.api.BufferStrategy;
+import org.junit.Test;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import static java.util.Arrays.asList;
+import static org.junit.Assert.*;
+import static org.mockito.Mockito.*;
+
+public class StripedMetricsQueueTest {
+
+    @Test
+    public void shouldHandOffFullChunks() {
+        // Given
+        StripedMetricsQueue subject = new StripedMetricsQueue(100, 2, 60000);
+
+        // When
+        subject.offer("a");
+        subject.offer("b");
+        subject.offer("c");
+
+        // Then
+        assertEquals("Should count the metrics of open chunks", 3, subject.size());
+
+        List<String> drained = new ArrayList<String>();
+        assertEquals("Should only drain the full chunk", 2, subject.drainTo(drained, 10));
+        assertEquals(asList("a", "b"), drained);
+    }
+
+    @Test
+    public void shouldOnlyCountChunksHandedOffAsReady() {
+        // Given
+        StripedMetricsQueue subject = new StripedMetricsQueue(100, 2, 60000);
+
+        // When
+        subject.offer("a");
+        int beforeHandOff = subject.readySize();
+        subject.offer("b");
+        subject.offer("c");
+
+        // Then
+        assertEquals(0, beforeHandOff);
+        assertEquals("Should count the full chunk handed off", 2, subject.readySize());
+        assertEquals(3, subject.size());
+    }
+
+    @Test
+    public void shouldTriggerFlushesAsChunksAreHandedOff() {
+        // Given
+        StandardBuffer subject = new StandardBuffer(5000, 3, BufferStrategy.STRIPED);
+        subject.addToBuffer("a");
+        subject.addToBuffer("b");
+        assertFalse(subject.isTimeToFlush());
+
+        // When
+        subject.addToBuffer("c");
+        subject.addToBuffer("d");
+
+        // Then
+        assertTrue("Should hand off a chunk of the flush size", subject.isTimeToFlush());
+        assertEquals(asList("a", "b", "c"), subject.drainBuffer());
+    }
+
+    @Test
+    public void shouldRunTheHighWaterListenerWhenReservingAChunk() {
+        // Given
+        StripedMetricsQueue subject = new StripedMetricsQueue(100, 2, 60000);
+        Runnable listener = mock(Runnable.class);
+        subject.setHighWaterListener(3, listener);
+        subject.offer("a");
+        subject.offer("b");
+        verify(listener, never()).run();
+
+        // When
+        for (int i = 0; i < 4; i++) {
+            subject.offer("metric" + i);
+        }
+
+        // Then
+        verify(listener, times(1)).run();
+    }
+
+    @Test
+    public void shouldCollectPartiallyFilledChunks() {
+        // Given
+        StripedMetricsQueue subject = new StripedMetricsQueue(100, 10, 60000);
+        subject.offer("a");
+
+        // When
+        List<String> drained = new ArrayList<String>();
+        subject.drainTo(drained, 10);
+        assertTrue("Partially filled chunks shouldn't be drained before they expire", drained.isEmpty());
+
+        subject.collectPending();
+        subject.drainTo(drained, 10);
+
+        // Then
+        assertEquals(asList("a"), drained);
+
+        subject.offer("b");
+        assertEquals(asList("b"), subject.snapshot());
+    }
+
+    @Test
+    public void shouldDrainExpiredChunks() {
+        // Given
+        StripedMetricsQueue subject = new StripedMetricsQueue(100, 10, 0);
+        subject.offer("a");
+
+        // When
+        List<String> drained = new ArrayList<String>();
+        subject.drainTo(drained, 10);
+
+        // Then
+        assertEquals(asList("a"), drained);
+    }
+
+    @Test
+    public void shouldDrainChunksPartially() {
+        // Given
+        StripedMetricsQueue subject = new StripedMetricsQueue(100, 10, 60000);
+        subject.offer("a");
+        subject.offer("b");
+        subject.offer("c");
+        subject.collectPending();
+
+        // When
+        List<String> drained = new ArrayList<String>();
+        subject.drainTo(drained, 2);
+
+        // Then
+        assertEquals(asList("a", "b"), drained);
+        assertEquals(1, subject.size());
+        assertEquals(asList("c"), subject.snapshot());
+    }
+
+    @Test
+    public void shouldRespectTheCapacity() {
+        // Given
+        StripedMetricsQueue subject = new StripedMetricsQueue(5, 2, 60000);
+
+        // When
+        for (int i = 0; i < 5; i++) {
+            assertTrue(subject.offer("metric" + i));
+        }
+
+        // Then
+        assertFalse(subject.offer("overflow"));
+
+        subject.collectPending();
+        assertEquals(5, subject.drainTo(new ArrayList<String>(), 10));
+        assertTrue("Should release the capacity once drained", subject.offer("metric"));
+    }
+
+    @Test
+    public void shouldHandOffOpenChunksMakingUpABatch() {
+        // Given
+        StripedMetricsQueue subject = new StripedMetricsQueue(100, 10, 60000);
+        for (int i = 0; i < 3; i++) {
+            subject.offer("metric" + i);
+        }
+
+        // When
+        List<String> drained = new ArrayList<String>();
+        subject.drainTo(drained, 3);
+
+        // Then
+        assertEquals(asList("metric0", "metric1", "metric2"), drained);
+        assertEquals(0, subject.size());
+    }
+
+    @Test
+    public void shouldShareTheCapacityWithManyThreads() throws Exception {
+        // Given
+        final StandardBuffer subject = new StandardBuffer(5000, 10, BufferStrategy.STRIPED);
+        final int threads = 100;
+        final AtomicInteger inserted = new AtomicInteger();
+        final CountDownLatch start = new CountDownLatch(1);
+        final CountDownLatch done = new CountDownLatch(threads);
+        ExecutorService executor = Executors.newFixedThreadPool(threads);
+
+        // When
+        for (int t = 0; t < threads; t++) {
+            executor.execute(new Runnable() {
+                @Override
+                public void run() {
+                    try {
+                        start.await();
+                        if (subject.addToBuffer("metric")) {
+                            inserted.incrementAndGet();
+                        }
+                    } catch (InterruptedException e) {
+                        Thread.currentThread().interrupt();
+                    }
+                    done.countDown();
+                }
+            });
+        }
+        start.countDown();
+        assertTrue(done.await(5, TimeUnit.SECONDS));
+        executor.shutdown();
+
+        // Then
+        assertEquals("Should insert every metric", threads, inserted.get());
+        assertEquals("Should count every metric", threads, subject.getQueue().size());
+        assertFalse("Chunks still being filled shouldn't trigger a flush", subject.isTimeToFlush());
+        assertEquals("Should drain a batch", 10, subject.drainBuffer().size());
+    }
+
+    @Test
+    public void shouldNotLoseMetricsPutConcurrently() throws Exception {
+        // Given
+        final StripedMetricsQueue subject = new StripedMetricsQueue(1000, 16, 0);
+        final int threads = 4;
+        final int metricsPerThread = 50000;
+        final CountDownLatch done = new CountDownLatch(threads);
+        ExecutorService executor = Executors.newFixedThreadPool(threads);
+
+        // When
+        for (int t = 0; t < threads; t++) {
+            executor.execute(new Runnable() {
+                @Override
+                public void run() {
+                    for (int i = 0; i < metricsPerThread; i++) {
+                        while (!subject.offer("metric")) {
+                            Thread.yield();
+                        }
+                    }
+                    done.countDown();
+                }
+            });
+        }
+
+        List<String> drained = new ArrayList<String>();
+        while (!done.await(1, TimeUnit.MILLISECONDS)) {
+            subject.drainTo(drained, 100);
+        }
+        executor.shutdown();
+        subject.collectPending();
+        subject.drainTo(drained, Integer.MAX_VALUE);
+
+        // Then
+        assertEquals(threads * metricsPerThread, drained.size());
+    }
+}
@@ -0,0 +1,171 @@
+package com.statful.client.core.diagnostics;
+
+import org.junit.Before;
+import org.junit.Test;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.logging.Handler;
+import java.util.logging.Level;
+import java.util.logging.LogRecord;
+import java.util.logging.Logger;
+import java.util.regex.Matcher;
+import java.util.regex.Pattern;
+
+import static org.junit.Assert.*;
+
+public class DiagnosticsTest {
+
+    private static final Pattern SUMMARISED = Pattern.compile("\\(x(\\d+)");
+
+    private final List<LogRecord> records = new ArrayList<LogRecord>();
+    private Logger logger;
+
+    @Before
+    public void setUp() {
+        logger = Logger.getAnonymousLogger();
+        logger.setUseParentHandlers(false);
+        logger.addHandler(new Handler() {
+            @Override
+            public void publish(final LogRecord record) {
+                records.add(record);
+            }
+
+            @Override
+            public void flush() {
+            }
+
+            @Override
+            public void close() {
+            }
+        });
+    }
+
+    @Test
+    public void shouldLogFirstFailureImmediately() {
+        // Given
+        Diagnostics subject = new Diagnostics(logger, 60000);
+
+        // When
+        subject.warning("The buffer is full");
+
+        // Then
+        assertEquals(1, records.size());
+        assertEquals(Level.WARNING, records.get(0).getLevel());
+        assertTrue(records.get(0).getMessage().contains("The buffer is full (x1)"));
+    }
+
+    @Test
+    public void shouldSummariseFailuresWithinTheInterval() {
+        // Given
+        Diagnostics subject = new Diagnostics(logger, 60000);
+        subject.warning("The buffer is full");
+
+        // When
+        for (int i = 0; i < 1000; i++) {
+            subject.warning("The buffer is full");
+            subject.severe("Unable to send metric", new IllegalStateException("failure " + i));
+        }
+
+        // Then
+        assertEquals("Should only log the first failure until the interval is over", 1, records.size());
+        assertEquals(1001, subject.getCount("The buffer is full"));
+        assertEquals(1000, subject.getCount("Unable to send metric"));
+
+        subject.report();
+        assertEquals(2, records.size());
+        String summary = records.get(1).getMessage();
+        assertEquals("Should log with the most severe level", Level.SEVERE, records.get(1).getLevel());
+        assertTrue(summary.contains("The buffer is full (x1000)"));
+        assertTrue(summary.contains("Unable to send metric (x1000, last: java.lang.IllegalStateException: failure 999)"));
+    }
+
+    @Test
+    public void shouldSummariseFailuresOnceTheIntervalIsOver() throws InterruptedException {
+        // Given
+        Diagnostics subject = new Diagnostics(logger, 10);
+        subject.warning("The buffer is full");
+        subject.warning("The buffer is full");
+
+        // When
+        Thread.sleep(20);
+        subject.warning("The buffer is full");
+
+        // Then
+        assertTrue(records.size() >= 2);
+        assertEquals("Should summarise every failure after the first", 2, countSummarised(records.subList(1, records.size())));
+    }
+
+    @Test
+    public void shouldReportDueFailuresWithoutWaitingForANewOne() throws InterruptedException {
+        // Given
+        Diagnostics subject = new Diagnostics(logger, 10);
+        subject.warning("The buffer is full");
+        subject.warning("The buffer is full");
+
+        // When
+        Thread.sleep(20);
+        Diagnostics.reportDue();
+
+        // Then
+        assertEquals(2, records.size());
+        assertTrue(records.get(1).getMessage().contains("The buffer is full (x1)"));
+    }
+
+    @Test
+    public void shouldNotReportFailuresBeforeTheIntervalIsOver() {
+        // Given
+        Diagnostics subject = new Diagnostics(logger, 60000);
+        subject.warning("The buffer is full");
+        subject.warning("The buffer is full");
+
+        // When
+        Diagnostics.reportDue();
+
+        // Then
+        assertEquals(1, records.size());
+    }
+
+    @Test
+    public void shouldReportEveryInstance() {
+        // Given
+        Diagnostics first = new Diagnostics(logger, 60000);
+        Diagnostics second = new Diagnostics(logger, 60000);
+        first.warning("The buffer is full");
+        first.warning("The buffer is full");
+        second.severe("Unable to send metric", null);
+        second.severe("Unable to send metric", null);
+
+        // When
+        Diagnostics.reportAll();
+
+        // Then
+        assertEquals(4, records.size());
+        assertEquals("Should summarise the failures of both instances", 2, countSummarised(records.subList(2, 4)));
+    }
+
+    @Test
+    public void shouldNotLogWithoutNewFailures() {
+        // Given
+        Diagnostics subject = new Diagnostics(logger, 60000);
+        subject.warning("The buffer is full");
+
+        // When
+        subject.report();
+
+        // Then
+        assertEquals(1, records.size());
+        assertEquals(0, subject.getCount("Unknown failure"));
+    }
+
+    private static long countSummarised(final List<LogRecord> summaries) {
+        long count = 0;
+        for (LogRecord summary : summaries) {
+            Matcher matcher = SUMMARISED.matcher(summary.getMessage());
+            while (matcher.find()) {
+                count += Long.parseLong(matcher.group(1));
+            }
+        }
+        return count;
+    }
+}
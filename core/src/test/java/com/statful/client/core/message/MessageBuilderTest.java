@@ -208,4 +208,71 @@ public class MessageBuilderTest {
 
         assertEquals("a\\ namespace\\,\\ with\\ comma.a\\ name\\,\\ with\\ =equal,tag\\,\\ key\\==tag\\,\\ value\\= a value, with comma and =equal 121232323 100", message);
     }
-}
\ No newline at end of file
+
+    @Test
+    public void shouldEscapeAllWhitespaceCharacters() {
+        String message = MessageBuilder.newBuilder()
+                .withName("a\tname\nwith\u000Bwhitespace\f\r")
+                .withValue("3")
+                .withTags(Tags.from("tag\tkey", "tag\rvalue"))
+                .withTimestamp(TIMESTAMP)
+                .build();
+
+        assertEquals("a\\\tname\\\nwith\\\u000Bwhitespace\\\f\\\r,tag\\\tkey=tag\\\rvalue 3 121232323", message);
+    }
+
+    @Test
+    public void shouldMergeTagsAndAggregationsWithoutChangingTheOriginals() {
+        Tags tags = Tags.from("unit", "s");
+        Aggregations aggregations = Aggregations.from(Aggregation.AVG);
+
+        String message = MessageBuilder.newBuilder()
+                .withName(NAME)
+                .withValue("3")
+                .withTags(tags)
+                .withTags(Tags.from("unit", "ms"))
+                .withAggregations(aggregations)
+                .withAggregations(Aggregations.from(Aggregation.COUNT))
+                .withTimestamp(TIMESTAMP)
+                .build();
+
+        assertEquals("response_time,unit=ms 3 121232323 avg,count,10", message);
+        assertEquals("Should not change the original tags", "s", tags.getTagValue("unit"));
+        assertEquals("Should not change the original aggregations", 1, aggregations.getAggregations().size());
+    }
+
+    @Test
+    public void shouldBuildMessageWithLongValue() {
+        String message = MessageBuilder.newBuilder()
+                .withName(NAME)
+                .withValue(-1234567890123L)
+                .withTimestamp(TIMESTAMP)
+                .build();
+
+        assertEquals("response_time -1234567890123 121232323", message);
+    }
+
+    @Test
+    public void shouldBuildMessageWithDoubleValueFormattedAsDoubleToString() {
+        double[] values = {0D, -0D, 1000D, -2.5D, 0.1D, 9999999D, 1.0E7D, 1.0E-4D, Double.NaN, Double.POSITIVE_INFINITY};
+
+        for (double value : values) {
+            String message = MessageBuilder.newBuilder()
+                    .withName(NAME)
+                    .withValue(value)
+                    .withTimestamp(TIMESTAMP)
+                    .build();
+
+            assertEquals("response_time " + Double.toString(value) + " 121232323", message);
+        }
+    }
+
+    @Test(expected = IllegalStateException.class)
+    public void shouldNotBuildMessageWithNullValue() {
+        MessageBuilder.newBuilder()
+                .withName(NAME)
+                .withValue((String) null)
+                .withTimestamp(TIMESTAMP)
+                .build();
+    }
+}
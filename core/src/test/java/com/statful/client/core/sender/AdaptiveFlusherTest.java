@@ -0,0 +1,78 @@
+package com.statful.client.core.sender;
+
+import org.junit.Test;
+
+import java.util.concurrent.TimeUnit;
+
+import static org.junit.Assert.assertEquals;
+
+public class AdaptiveFlusherTest {
+
+    private static final long ONE_SECOND = TimeUnit.SECONDS.toNanos(1);
+
+    @Test
+    public void shouldStartAtTheMinimumInterval() {
+        AdaptiveFlusher subject = new AdaptiveFlusher(100, 5000, 50, 5000);
+
+        assertEquals("Should flush soon until the rate is known", 50, subject.getIntervalMillis());
+        assertEquals(100, subject.getBatchSize());
+    }
+
+    @Test
+    public void shouldWaitTheMaximumIntervalUnderLightLoad() {
+        AdaptiveFlusher subject = new AdaptiveFlusher(100, 5000, 50, 5000);
+
+        subject.update(5, ONE_SECOND);
+
+        assertEquals("Should bound the latency", 5000, subject.getIntervalMillis());
+        assertEquals(100, subject.getBatchSize());
+    }
+
+    @Test
+    public void shouldFlushWhenTheTargetBatchIsExpectedToBeFull() {
+        AdaptiveFlusher subject = new AdaptiveFlusher(100, 5000, 50, 5000);
+
+        subject.update(1000, ONE_SECOND);
+
+        assertEquals("Should flush every 100 metrics at 1000 metrics per second", 100, subject.getIntervalMillis());
+        assertEquals(100, subject.getBatchSize());
+    }
+
+    @Test
+    public void shouldGrowBatchesUnderHeavyLoad() {
+        AdaptiveFlusher subject = new AdaptiveFlusher(100, 5000, 50, 5000);
+
+        subject.update(40000, ONE_SECOND);
+
+        assertEquals("Should flush at the minimum interval", 50, subject.getIntervalMillis());
+        assertEquals("Should send the metrics arrived in the interval", 2000, subject.getBatchSize());
+
+        subject.update(1000000, ONE_SECOND);
+        subject.update(1000000, ONE_SECOND);
+
+        assertEquals("Should bound the batch size", 5000, subject.getBatchSize());
+    }
+
+    @Test
+    public void shouldSmoothTheArrivalRate() {
+        AdaptiveFlusher subject = new AdaptiveFlusher(100, 5000, 50, 5000);
+
+        subject.update(1000, ONE_SECOND);
+        subject.update(0, ONE_SECOND);
+
+        assertEquals("Should not back off to the maximum interval after a single quiet interval", 142, subject.getIntervalMillis());
+    }
+
+    @Test
+    public void shouldApplyANewTargetBatchSizeOnTheNextUpdate() {
+        AdaptiveFlusher subject = new AdaptiveFlusher(100, 5000, 50, 5000);
+        subject.update(1000, ONE_SECOND);
+
+        subject.setTargetBatchSize(500);
+        subject.update(1000, ONE_SECOND);
+
+        assertEquals(500, subject.getTargetBatchSize());
+        assertEquals(500, subject.getIntervalMillis());
+        assertEquals(500, subject.getBatchSize());
+    }
+}
@@ -1,5 +1,8 @@
 package com.statful.client.core.sender;
 
+import com.statful.client.core.transport.BatchTransportSender;
+import com.statful.client.core.transport.BoundedShutdownTransportSender;
+import com.statful.client.core.transport.StreamingTransportSender;
 import com.statful.client.core.transport.TransportSender;
 import com.statful.client.domain.api.*;
 import org.junit.After;
@@ -12,17 +15,21 @@ import org.mockito.stubbing.Answer;
 
 import java.util.List;
 import java.util.Map;
+import java.util.concurrent.CountDownLatch;
 import java.util.concurrent.ExecutorService;
 import java.util.concurrent.Executors;
 import java.util.concurrent.ScheduledThreadPoolExecutor;
 import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicBoolean;
 import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicReference;
 import java.util.logging.Logger;
 
 import static java.util.Arrays.asList;
 import static org.hamcrest.CoreMatchers.anyOf;
 import static org.hamcrest.CoreMatchers.is;
 import static org.junit.Assert.*;
+import static org.mockito.AdditionalMatchers.leq;
 import static org.mockito.Mockito.*;
 import static org.mockito.MockitoAnnotations.initMocks;
 
@@ -78,6 +85,98 @@ public class BufferedMetricsSenderAPITest {
         assertEquals("MetricsBuffer should have 5000 metrics", 5000, buffer.size());
     }
 
+    @Test
+    public void shouldDiscardOldestIfStandardBufferIsFullWithDropOldestPolicy() {
+        // Given
+        when(configuration.getFlushSize()).thenReturn(10000);
+        when(configuration.getOverflowPolicy()).thenReturn(OverflowPolicy.DROP_OLDEST);
+
+        BufferedMetricsSender subject = new BufferedMetricsSender(transportSender, configuration, executorService);
+
+        for (int i=0; i<5000; i++) {
+            subject.put("test_metric", "500", null, null, AggregationFrequency.FREQ_10, 100, "application", 123456789);
+        }
+
+        // When
+        subject.put("test_metric_overflow", "500", null, null, AggregationFrequency.FREQ_10, 100, "application", 123456789);
+
+        // Then
+        List<String> buffer = subject.getStandardBuffer();
+        assertEquals("MetricsBuffer should have 5000 metrics", 5000, buffer.size());
+        assertEquals("Should keep the newest metric", "application.test_metric_overflow 500 123456789 100", buffer.get(4999));
+        assertEquals("Should count the dropped metric", 1, subject.getDroppedMetrics());
+    }
+
+    @Test
+    public void shouldReportBufferStats() {
+        // Given
+        when(configuration.getFlushSize()).thenReturn(10000);
+
+        BufferedMetricsSender subject = new BufferedMetricsSender(transportSender, configuration, executorService);
+
+        // When
+        for (int i=0; i<5002; i++) {
+            subject.put("test_metric", "500", null, null, AggregationFrequency.FREQ_10, 100, "application", 123456789);
+        }
+        subject.aggregatedPut("test_metric", "500", null, Aggregation.AVG, AggregationFrequency.FREQ_10, 100, "application", 123456789);
+
+        // Then
+        ClientStats stats = subject.getStats();
+        assertEquals("Should report the standard buffer depth", 5000, stats.getValue("buffer.standard.size"));
+        assertEquals("Should report the aggregated buffer depth", 1, stats.getValue("buffer.aggregated.size"));
+        assertEquals("Should report the dropped metrics", 2, stats.getValue("buffer.dropped"));
+    }
+
+    @Test
+    public void shouldCountEnqueuedMetricsDrainedOrBuffered() {
+        // When
+        for (int i = 0; i < 4; i++) {
+            subject.put("test_metric", "500", null, null, AggregationFrequency.FREQ_10, 100, "application", 123456789);
+        }
+
+        // Then
+        ClientStats stats = subject.getStats();
+        assertEquals("Should count the metrics drained into batches", 3, stats.getValue("buffer.drained"));
+        assertEquals("Should count the drained and buffered metrics", 4, stats.getValue(BufferedMetricsSender.STAT_ENQUEUED));
+
+        subject.forceSyncFlush();
+        assertEquals(4, subject.getStats().getValue(BufferedMetricsSender.STAT_ENQUEUED));
+    }
+
+    @Test
+    public void shouldNotBufferSampledOutMetrics() {
+        // Given
+        when(configuration.getFlushSize()).thenReturn(10000);
+
+        BufferedMetricsSender subject = new BufferedMetricsSender(transportSender, configuration, executorService);
+
+        // When
+        for (int i = 0; i < 1000; i++) {
+            subject.put("test_metric", "500", null, null, AggregationFrequency.FREQ_10, 1, "application", 123456789);
+        }
+
+        // Then
+        int buffered = subject.getStandardBuffer().size();
+        assertTrue("Should keep about 1% of the metrics, kept " + buffered, buffered < 100);
+        assertEquals("Sampled out metrics aren't dropped", 0, subject.getDroppedMetrics());
+    }
+
+    @Test
+    public void shouldBufferEveryMetricAtTheMaximumSampleRate() {
+        // Given
+        when(configuration.getFlushSize()).thenReturn(10000);
+
+        BufferedMetricsSender subject = new BufferedMetricsSender(transportSender, configuration, executorService);
+
+        // When
+        for (int i = 0; i < 1000; i++) {
+            subject.put("test_metric", "500", null, null, AggregationFrequency.FREQ_10, 100, "application", 123456789);
+        }
+
+        // Then
+        assertEquals(1000, subject.getStandardBuffer().size());
+    }
+
     @Test
     public void shouldDiscardIfAggregatedBufferIsFull() {
         // Given
@@ -344,6 +443,41 @@ public class BufferedMetricsSenderAPITest {
         assertTrue("MetricsBuffer should have at least 1 metric and at most 2 metrics", size > 0 && size <= 2);
     }
 
+    @Test
+    public void shouldOverrideSampleRateOfEveryMetric() {
+        // Given
+        subject.setSampleRateOverride(1);
+
+        // When
+        for (int i = 0; i < 100; i++) {
+            subject.put("test_metric0", "100", null, null, AggregationFrequency.FREQ_10, 100, "application", 123456789);
+        }
+
+        // Then
+        List<String> buffer = subject.getStandardBuffer();
+        assertTrue("MetricsBuffer should have sampled most metrics out", buffer.size() < 20);
+        for (String metric : buffer) {
+            assertTrue("Should send the overridden sample rate", metric.endsWith(" 1"));
+        }
+    }
+
+    @Test(expected = IllegalArgumentException.class)
+    public void shouldRejectInvalidSampleRateOverride() {
+        subject.setSampleRateOverride(101);
+    }
+
+    @Test
+    public void shouldChangeFlushSizeAtRuntime() {
+        // Given
+        subject.setFlushSize(1);
+
+        // When
+        subject.put("test_metric0", "100", null, null, AggregationFrequency.FREQ_10, 100, "application", 123456789);
+
+        // Then
+        verify(transportSender, timeout(1000).times(1)).send(anyString());
+    }
+
     @Test
     public void shouldSendMetricWhenSampleRateIsAbove100() {
         // When
@@ -407,6 +541,219 @@ public class BufferedMetricsSenderAPITest {
         assertEquals("MetricsBuffer should not have metrics", 0, buffer.size());
     }
 
+    @Test
+    public void shouldSendBufferedMetricsOnGracefulShutdown() {
+        // Given
+        when(configuration.getFlushSize()).thenReturn(2);
+        when(configuration.getHost()).thenReturn("localhost");
+        when(configuration.getPort()).thenReturn(443);
+
+        final BufferedMetricsSender subject = new BufferedMetricsSender(transportSender, configuration, executorService);
+
+        for (int i = 0; i < 5; i++) {
+            subject.put("test_metric" + i, "100", null, null, AggregationFrequency.FREQ_10, 100, "application", 123456789);
+        }
+        subject.aggregatedPut("test_metric", "100", null, Aggregation.AVG, AggregationFrequency.FREQ_10, 100, "application", 123456789);
+
+        // When
+        long lost = subject.shutdown(5, TimeUnit.SECONDS);
+
+        // Then
+        assertEquals("Should not lose metrics", 0, lost);
+        verify(transportSender, times(3)).send(anyString());
+        verify(transportSender).send(anyString(), anyString());
+        verify(transportSender).shutdown();
+        assertEquals(0, subject.getStats().getValue(BufferedMetricsSender.STAT_SHUTDOWN_LOST));
+    }
+
+    @Test
+    public void shouldReportMetricsLostWhenGracefulShutdownTimesOut() throws InterruptedException {
+        // Given
+        when(configuration.getFlushSize()).thenReturn(2);
+
+        final CountDownLatch release = new CountDownLatch(1);
+        doAnswer(new Answer<Void>() {
+            @Override
+            public Void answer(InvocationOnMock invocation) throws Throwable {
+                release.await();
+                return null;
+            }
+        }).when(transportSender).send(anyString());
+
+        final BufferedMetricsSender subject = new BufferedMetricsSender(transportSender, configuration, executorService);
+
+        for (int i = 0; i < 5; i++) {
+            subject.put("test_metric" + i, "100", null, null, AggregationFrequency.FREQ_10, 100, "application", 123456789);
+        }
+
+        // When
+        long lost = subject.shutdown(100, TimeUnit.MILLISECONDS);
+        subject.put("test_metric", "100", null, null, AggregationFrequency.FREQ_10, 100, "application", 123456789);
+        release.countDown();
+
+        // Then
+        assertEquals("Should report the metrics not sent before the timeout", 5, lost);
+        assertEquals("Should count the metrics put after the shutdown as lost", 6,
+                subject.getStats().getValue(BufferedMetricsSender.STAT_SHUTDOWN_LOST));
+        assertEquals("Should not keep metrics put after the shutdown", 0, subject.getStandardBuffer().size());
+        verify(transportSender).shutdown();
+    }
+
+    @Test
+    public void shouldLetSendsFinishOnShutdownWithoutTimeout() throws InterruptedException {
+        // Given
+        when(configuration.getFlushSize()).thenReturn(2);
+
+        final CountDownLatch sending = new CountDownLatch(1);
+        final CountDownLatch release = new CountDownLatch(1);
+        final AtomicBoolean interrupted = new AtomicBoolean();
+        doAnswer(new Answer<Void>() {
+            @Override
+            public Void answer(InvocationOnMock invocation) throws Throwable {
+                sending.countDown();
+                try {
+                    release.await();
+                } catch (InterruptedException e) {
+                    interrupted.set(true);
+                }
+                return null;
+            }
+        }).when(transportSender).send(anyString());
+
+        final BufferedMetricsSender subject = new BufferedMetricsSender(transportSender, configuration, executorService);
+        for (int i = 0; i < 3; i++) {
+            subject.put("test_metric" + i, "100", null, null, AggregationFrequency.FREQ_10, 100, "application", 123456789);
+        }
+        assertTrue(sending.await(1, TimeUnit.SECONDS));
+
+        // When
+        subject.shutdown();
+        release.countDown();
+
+        // Then
+        verify(transportSender).shutdown();
+        verify(transportSender, timeout(1000).times(2)).send(anyString());
+        assertFalse("Should not interrupt the sends in progress", interrupted.get());
+        assertEquals("Should not count the metrics it wasn't asked to wait for", 0,
+                subject.getStats().getValue(BufferedMetricsSender.STAT_SHUTDOWN_LOST));
+    }
+
+    @Test
+    public void shouldShutDownTransportSenderWithinTheTimeLeft() {
+        // Given
+        when(configuration.getFlushSize()).thenReturn(2);
+        BoundedShutdownTransportSender boundedTransportSender = mock(BoundedShutdownTransportSender.class);
+        when(boundedTransportSender.shutdown(anyLong(), any(TimeUnit.class))).thenReturn(3L);
+
+        final BufferedMetricsSender subject = new BufferedMetricsSender(boundedTransportSender, configuration, executorService);
+        subject.put("test_metric", "100", null, null, AggregationFrequency.FREQ_10, 100, "application", 123456789);
+
+        // When
+        long lost = subject.shutdown(5, TimeUnit.SECONDS);
+
+        // Then
+        verify(boundedTransportSender).send(anyString());
+        verify(boundedTransportSender).shutdown(leq(TimeUnit.SECONDS.toNanos(5)), eq(TimeUnit.NANOSECONDS));
+        verify(boundedTransportSender, never()).shutdown();
+        assertEquals("Should count the metrics lost by the transport sender", 3, lost);
+        assertEquals(3, subject.getStats().getValue(BufferedMetricsSender.STAT_SHUTDOWN_LOST));
+    }
+
+    @Test
+    public void shouldScheduleFlushesByArrivalRateWithAdaptiveFlushes() {
+        // Given
+        when(configuration.getFlushSize()).thenReturn(3);
+        when(configuration.getFlushIntervalMillis()).thenReturn(5000L);
+        when(configuration.isAdaptiveFlushEnabled()).thenReturn(true);
+
+        final BufferedMetricsSender subject = new BufferedMetricsSender(transportSender, configuration, executorService);
+
+        // When
+        subject.put("test_metric0", "100", null, null, AggregationFrequency.FREQ_10, 100, "application", 123456789);
+        subject.put("test_metric1", "100", null, null, AggregationFrequency.FREQ_10, 100, "application", 123456789);
+
+        // Then
+        verify(transportSender, timeout(1000)).send(anyString());
+        long flushInterval = subject.getFlushIntervalMillis();
+        assertTrue("Should flush sooner than the maximum interval while metrics arrive", flushInterval < 5000);
+        assertTrue("Should not flush more often than the minimum interval", flushInterval >= 50);
+        subject.shutdown();
+    }
+
+    @Test
+    public void shouldNotDropMetricsOfASustainedBurstWithAdaptiveFlushes() throws InterruptedException {
+        // Given
+        when(configuration.getFlushSize()).thenReturn(100);
+        when(configuration.getFlushIntervalMillis()).thenReturn(5000L);
+        when(configuration.isAdaptiveFlushEnabled()).thenReturn(true);
+        final AtomicInteger sent = new AtomicInteger();
+        doAnswer(new Answer<Void>() {
+            @Override
+            public Void answer(InvocationOnMock invocation) throws Throwable {
+                String message = (String) invocation.getArguments()[0];
+                sent.addAndGet(message.split("\n").length);
+                return null;
+            }
+        }).when(transportSender).send(anyString());
+
+        final BufferedMetricsSender subject = new BufferedMetricsSender(transportSender, configuration, executorService);
+
+        // When
+        for (int burst = 0; burst < 80; burst++) {
+            for (int i = 0; i < 250; i++) {
+                subject.put("test_metric" + i, "100", null, null, AggregationFrequency.FREQ_10, 100, "application", 123456789);
+            }
+            Thread.sleep(2);
+        }
+        long lost = subject.shutdown(5, TimeUnit.SECONDS);
+
+        // Then
+        assertEquals("Should not drop metrics arriving faster than the flush interval allows", 0, subject.getDroppedMetrics());
+        assertEquals(0, lost);
+        assertEquals("Should send every metric", 20000, sent.get());
+    }
+
+    @Test
+    public void shouldFlushRightAwayPastTheHighWaterMarkWithAdaptiveFlushes() {
+        // Given
+        when(configuration.getFlushSize()).thenReturn(5000);
+        when(configuration.getFlushIntervalMillis()).thenReturn(60000L);
+        when(configuration.isAdaptiveFlushEnabled()).thenReturn(true);
+
+        final BufferedMetricsSender subject = new BufferedMetricsSender(transportSender, configuration, executorService);
+        // Lets the first adaptive flush, scheduled at the minimum interval, measure a slow rate
+        verify(transportSender, after(200).never()).send(anyString());
+
+        // When
+        for (int i = 0; i < 4000; i++) {
+            subject.put("test_metric" + i, "100", null, null, AggregationFrequency.FREQ_10, 100, "application", 123456789);
+        }
+
+        // Then
+        verify(transportSender, timeout(1000)).send(anyString());
+        assertEquals("Should not wait for the next adaptive flush", 60000, subject.getFlushIntervalMillis());
+        subject.shutdown();
+    }
+
+    @Test
+    public void shouldSwitchBackToFlushesBySizeWhenAdaptiveFlushIntervalIsDisabled() {
+        // Given
+        when(configuration.getFlushSize()).thenReturn(1);
+        when(configuration.getFlushIntervalMillis()).thenReturn(5000L);
+        when(configuration.isAdaptiveFlushEnabled()).thenReturn(true);
+
+        final BufferedMetricsSender subject = new BufferedMetricsSender(transportSender, configuration, executorService);
+
+        // When
+        subject.setFlushIntervalMillis(0);
+        subject.put("test_metric0", "100", null, null, AggregationFrequency.FREQ_10, 100, "application", 123456789);
+
+        // Then
+        verify(transportSender, timeout(1000)).send(anyString());
+        assertEquals(0, subject.getFlushIntervalMillis());
+        subject.shutdown();
+    }
+
     @Test
     public void shouldNotSendWhenRunIsDry() {
         // Given
@@ -568,20 +915,284 @@ public class BufferedMetricsSenderAPITest {
     }
 
     @Test
-    public void shouldDropMetricsWhenWorkerTasksQueueIsFull() {
+    public void shouldDeferFlushesWhenWorkerTasksQueueIsFull() throws InterruptedException {
         // Given
         when(configuration.getFlushIntervalMillis()).thenReturn(5000L);
         when(configuration.getFlushSize()).thenReturn(1);
         when(configuration.getMaxWorkerTasksQueueSize()).thenReturn(1);
 
+        final CountDownLatch sending = new CountDownLatch(1);
+        final CountDownLatch release = new CountDownLatch(1);
+        doAnswer(new Answer<Void>() {
+            @Override
+            public Void answer(InvocationOnMock invocation) throws Throwable {
+                sending.countDown();
+                release.await();
+                return null;
+            }
+        }).when(transportSender).send(anyString());
+
+        final BufferedMetricsSender subject = new BufferedMetricsSender(transportSender, configuration, executorService);
+
+        // When
+        subject.put("test_metric0", "100", null, null, AggregationFrequency.FREQ_10, 100, "application", 123456789);
+        assertTrue("Worker should be busy sending the first metric", sending.await(1, TimeUnit.SECONDS));
+        subject.put("test_metric1", "100", null, null, AggregationFrequency.FREQ_10, 100, "application", 123456789);
+        subject.put("test_metric2", "100", null, null, AggregationFrequency.FREQ_10, 100, "application", 123456789);
+
+        Thread.sleep(100);
+        release.countDown();
+        executorService.shutdown();
+        executorService.awaitTermination(1, TimeUnit.SECONDS);
+
+        // Then
+        verify(transportSender, times(2)).send(anyString());
+        assertEquals("Should not reject queued tasks", 0, subject.getStats().getValue("tasks.rejected"));
+        assertEquals("Should count the deferred flush", 1, subject.getStats().getValue("flush.deferred"));
+        assertEquals("Should keep the metric of the deferred flush buffered", 1, subject.getStandardBuffer().size());
+    }
+
+    @Test
+    public void shouldOnlyDrainBuffersWithRoomInWorkerTasksQueue() throws InterruptedException {
+        // Given
+        when(configuration.getFlushIntervalMillis()).thenReturn(5000L);
+        when(configuration.getMaxWorkerTasksQueueSize()).thenReturn(2);
+
+        final CountDownLatch sending = new CountDownLatch(1);
+        final CountDownLatch release = new CountDownLatch(1);
+        doAnswer(new Answer<Void>() {
+            @Override
+            public Void answer(InvocationOnMock invocation) throws Throwable {
+                sending.countDown();
+                release.await();
+                return null;
+            }
+        }).when(transportSender).send(anyString());
+
         final BufferedMetricsSender subject = new BufferedMetricsSender(transportSender, configuration, executorService);
+        for (int i = 0; i < 3; i++) {
+            subject.put("test_metric" + i, "100", null, null, AggregationFrequency.FREQ_10, 100, "application", 123456789);
+        }
+        assertTrue("Worker should be busy sending the first batch", sending.await(1, TimeUnit.SECONDS));
+        for (int i = 0; i < 3; i++) {
+            subject.put("test_metric" + i, "100", null, null, AggregationFrequency.FREQ_10, 100, "application", 123456789);
+        }
+        subject.aggregatedPut("test_metric", "100", null, Aggregation.AVG, AggregationFrequency.FREQ_10, 100, "application", 123456789);
+        subject.aggregatedPut("test_metric", "100", null, Aggregation.P90, AggregationFrequency.FREQ_10, 100, "application", 123456789);
+
+        // When, with three buffers to flush and room for a single batch
+        for (int i = 0; i < 3; i++) {
+            subject.put("test_metric" + i, "100", null, null, AggregationFrequency.FREQ_10, 100, "application", 123456789);
+        }
+
+        release.countDown();
+        executorService.shutdown();
+        executorService.awaitTermination(1, TimeUnit.SECONDS);
+
+        // Then
+        verify(transportSender, times(3)).send(anyString());
+        assertEquals("Should not reject drained batches", 0, subject.getStats().getValue("tasks.rejected"));
+        assertEquals("Should keep the aggregated metrics buffered", 2, subject.getStats().getValue("buffer.aggregated.size"));
+    }
+
+    @Test
+    public void shouldSendOnOwnDaemonWorkersAndStopThemOnShutdown() throws InterruptedException {
+        // Given
+        when(configuration.getFlushSize()).thenReturn(1);
+        when(configuration.getWorkersPoolSize()).thenReturn(2);
+
+        final AtomicReference<Thread> worker = new AtomicReference<Thread>();
+        doAnswer(new Answer<Void>() {
+            @Override
+            public Void answer(InvocationOnMock invocation) throws Throwable {
+                worker.set(Thread.currentThread());
+                return null;
+            }
+        }).when(transportSender).send(anyString());
+
+        BufferedMetricsSender subject = new BufferedMetricsSender(transportSender, configuration);
+
+        // When
+        subject.put("test_metric", "100", null, null, AggregationFrequency.FREQ_10, 100, "application", 123456789);
+        verify(transportSender, timeout(1000)).send(anyString());
+        subject.shutdown();
+
+        // Then
+        assertTrue("Should name the worker threads", worker.get().getName().startsWith("statful-worker-"));
+        assertTrue("Should use daemon threads", worker.get().isDaemon());
+        worker.get().join(1000);
+        assertFalse("Should stop the workers on shutdown", worker.get().isAlive());
+    }
+
+    @Test
+    public void shouldUseInjectedExecutorsWithoutStoppingThemOnShutdown() {
+        // Given
+        ScheduledThreadPoolExecutor scheduler = new ScheduledThreadPoolExecutor(1);
+        scheduler.setRemoveOnCancelPolicy(true);
+        ExecutorService workerExecutor = Executors.newSingleThreadExecutor();
+        when(configuration.getScheduler()).thenReturn(scheduler);
+        when(configuration.getWorkerExecutor()).thenReturn(workerExecutor);
+        when(configuration.getFlushIntervalMillis()).thenReturn(5000L);
+        when(configuration.getFlushSize()).thenReturn(1);
+
+        try {
+            BufferedMetricsSender subject = new BufferedMetricsSender(transportSender, configuration);
+            assertEquals("Should schedule the periodic flush and diagnostics reports on the injected scheduler", 2, scheduler.getQueue().size());
+
+            // When
+            subject.put("test_metric", "100", null, null, AggregationFrequency.FREQ_10, 100, "application", 123456789);
+            verify(transportSender, timeout(1000)).send(anyString());
+            subject.shutdown();
+
+            // Then
+            assertEquals("Should cancel the periodic tasks on shutdown", 0, scheduler.getQueue().size());
+            assertFalse("Should not stop the injected scheduler", scheduler.isShutdown());
+            assertFalse("Should not stop the injected worker executor", workerExecutor.isShutdown());
+        } finally {
+            scheduler.shutdownNow();
+            workerExecutor.shutdownNow();
+        }
+    }
+
+    @Test
+    public void shouldPreAggregateMetricsWhenEnabled() {
+        // Given
+        when(configuration.getFlushSize()).thenReturn(10);
+        when(configuration.getTransport()).thenReturn(Transport.HTTP);
+        when(configuration.isPreAggregationEnabled()).thenReturn(true);
+        when(configuration.getHost()).thenReturn("localhost");
+        when(configuration.getPort()).thenReturn(443);
+        when(configuration.isSecure()).thenReturn(true);
+
+        final BufferedMetricsSender subject = new BufferedMetricsSender(transportSender, configuration, executorService);
+        Aggregations aggregations = Aggregations.from(Aggregation.AVG, Aggregation.COUNT);
+
+        // When
+        subject.put("timer.test_metric", 100L, null, aggregations, AggregationFrequency.FREQ_10, 100, "application", 123456789);
+        subject.put("timer.test_metric", 300L, null, aggregations, AggregationFrequency.FREQ_10, 100, "application", 123456789);
+        subject.put("timer.test_metric", 200D, null, aggregations, AggregationFrequency.FREQ_10, 100, "application", 123456789);
+
+        // Then
+        assertTrue("Pre-aggregated metrics shouldn't be buffered one by one", subject.getStandardBuffer().isEmpty());
+
+        subject.forceSyncFlush();
+
+        verify(transportSender).send("application.timer.test_metric 200.0 123456780\n",
+                "https://localhost:443/tel/v2.0/metrics/aggregation/avg/frequency/10");
+        verify(transportSender).send("application.timer.test_metric 3 123456780\n",
+                "https://localhost:443/tel/v2.0/metrics/aggregation/count/frequency/10");
+        verify(transportSender, never()).send(anyString());
+    }
+
+    @Test
+    public void shouldNotPreAggregateMetricsWithUDPTransport() {
+        // Given
+        when(configuration.getFlushSize()).thenReturn(10);
+        when(configuration.getTransport()).thenReturn(Transport.UDP);
+        when(configuration.isPreAggregationEnabled()).thenReturn(true);
+
+        final BufferedMetricsSender subject = new BufferedMetricsSender(transportSender, configuration, executorService);
+
+        // When
+        subject.put("timer.test_metric", 100L, null, Aggregations.from(Aggregation.AVG), AggregationFrequency.FREQ_10, 100,
+                "application", 123456789);
+
+        // Then
+        assertEquals(asList("application.timer.test_metric 100 123456789 avg,10 100"), subject.getStandardBuffer());
+    }
+
+    @Test
+    public void shouldFlushPartiallyFilledStripedBuffersSynchronously() {
+        // Given
+        when(configuration.getBufferStrategy()).thenReturn(BufferStrategy.STRIPED);
+
+        final BufferedMetricsSender subject = new BufferedMetricsSender(transportSender, configuration, executorService);
+
+        // When
+        subject.put("test_metric", "100", null, null, AggregationFrequency.FREQ_10, 100, "application", 123456789);
+        subject.forceSyncFlush();
+
+        // Then
+        verify(transportSender).send("application.test_metric 100 123456789 100\n");
+    }
+
+    @Test
+    public void shouldFlushEveryBufferFromASingleTaskWithBatchTransportSender() throws Exception {
+        // Given
+        when(configuration.getTransport()).thenReturn(Transport.HTTP);
+        when(configuration.getHost()).thenReturn("localhost");
+        when(configuration.getPort()).thenReturn(443);
+        when(configuration.isSecure()).thenReturn(true);
+
+        BatchTransportSender batchTransportSender = mock(BatchTransportSender.class);
+        BufferedMetricsSender subject = new BufferedMetricsSender(batchTransportSender, configuration, executorService);
+
+        // When
+        subject.aggregatedPut("test_metric", "100", null, Aggregation.AVG, AggregationFrequency.FREQ_10, 100, "application", 123456789);
+        subject.put("test_metric0", "100", null, null, AggregationFrequency.FREQ_10, 100, "application", 123456789);
+        subject.put("test_metric1", "100", null, null, AggregationFrequency.FREQ_10, 100, "application", 123456789);
+        subject.put("test_metric2", "100", null, null, AggregationFrequency.FREQ_10, 100, "application", 123456789);
+
+        // Then
+        verify(batchTransportSender, timeout(1000)).send(asList("application.test_metric0 100 123456789 100\n"
+                + "application.test_metric1 100 123456789 100\n"
+                + "application.test_metric2 100 123456789 100\n"));
+        verify(batchTransportSender, timeout(1000)).send("application.test_metric 100 123456789 100\n",
+                "https://localhost:443/tel/v2.0/metrics/aggregation/avg/frequency/10");
+        verify(batchTransportSender, never()).send(anyString());
+        assertEquals("Should send every buffer from a single task", 1, subject.getStats().getValue("send.count"));
+    }
+
+    @Test
+    public void shouldSendEveryFullBatchInASingleCallWithBatchTransportSender() throws Exception {
+        // Given
+        when(configuration.getFlushSize()).thenReturn(10000);
+
+        BatchTransportSender batchTransportSender = mock(BatchTransportSender.class);
+        BufferedMetricsSender subject = new BufferedMetricsSender(batchTransportSender, configuration, executorService);
+        for (int i = 0; i < 7; i++) {
+            subject.put("test_metric" + i, "100", null, null, AggregationFrequency.FREQ_10, 100, "application", 123456789);
+        }
+        subject.setFlushSize(3);
+
+        // When
+        subject.put("test_metric7", "100", null, null, AggregationFrequency.FREQ_10, 100, "application", 123456789);
+
+        // Then
+        verify(batchTransportSender, timeout(1000)).send(asList("application.test_metric0 100 123456789 100\n"
+                        + "application.test_metric1 100 123456789 100\n"
+                        + "application.test_metric2 100 123456789 100\n",
+                "application.test_metric3 100 123456789 100\n"
+                        + "application.test_metric4 100 123456789 100\n"
+                        + "application.test_metric5 100 123456789 100\n"));
+        assertEquals("Should leave the partial batch buffered", 2, subject.getStandardBuffer().size());
+        verify(batchTransportSender).send(anyListOf(String.class));
+    }
+
+    @Test
+    public void shouldFlushDrainedMetricsWithStreamingTransportSender() throws Exception {
+        // Given
+        when(configuration.getTransport()).thenReturn(Transport.HTTP);
+        when(configuration.getHost()).thenReturn("localhost");
+        when(configuration.getPort()).thenReturn(443);
+        when(configuration.isSecure()).thenReturn(true);
+
+        StreamingTransportSender streamingTransportSender = mock(StreamingTransportSender.class);
+        BufferedMetricsSender subject = new BufferedMetricsSender(streamingTransportSender, configuration, executorService);
 
         // When
+        subject.aggregatedPut("test_metric", "100", null, Aggregation.AVG, AggregationFrequency.FREQ_10, 100, "application", 123456789);
         subject.put("test_metric0", "100", null, null, AggregationFrequency.FREQ_10, 100, "application", 123456789);
         subject.put("test_metric1", "100", null, null, AggregationFrequency.FREQ_10, 100, "application", 123456789);
+        subject.put("test_metric2", "100", null, null, AggregationFrequency.FREQ_10, 100, "application", 123456789);
 
         // Then
-        verify(transportSender, times(1)).send(anyString());
+        verify(streamingTransportSender, timeout(1000)).sendLines(asList("application.test_metric0 100 123456789 100",
+                "application.test_metric1 100 123456789 100",
+                "application.test_metric2 100 123456789 100"));
+        verify(streamingTransportSender, timeout(1000)).sendLines(asList("application.test_metric 100 123456789 100"),
+                "https://localhost:443/tel/v2.0/metrics/aggregation/avg/frequency/10");
+        verify(streamingTransportSender, never()).send(anyString());
     }
 
     private Answer<String> mockedTransportResponse = new Answer<String>() {
@@ -0,0 +1,28 @@
+package com.statful.client.core.sender;
+
+import org.junit.Test;
+
+import static org.junit.Assert.*;
+
+public class NamedThreadFactoryTest {
+
+    @Test
+    public void shouldCreateNamedDaemonThreads() {
+        // Given
+        NamedThreadFactory subject = new NamedThreadFactory("statful-test");
+        Runnable task = new Runnable() {
+            @Override
+            public void run() {
+            }
+        };
+
+        // When
+        Thread first = subject.newThread(task);
+        Thread second = new NamedThreadFactory("statful-test").newThread(task);
+
+        // Then
+        assertTrue(first.getName().startsWith("statful-test-"));
+        assertTrue(first.isDaemon());
+        assertNotEquals("Should number threads across factories", first.getName(), second.getName());
+    }
+}
@@ -0,0 +1,261 @@
+package com.statful.client.core.sender;
+
+import com.statful.client.core.stats.StatsRegistry;
+import com.statful.client.domain.api.ClientStats;
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Test;
+
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import static org.junit.Assert.*;
+
+public class SenderPipelineTest {
+
+    private ExecutorService executorService;
+
+    @Before
+    public void setUp() {
+        executorService = Executors.newFixedThreadPool(2);
+    }
+
+    @After
+    public void tearDown() {
+        executorService.shutdownNow();
+    }
+
+    @Test
+    public void shouldSendSubmittedBatches() throws InterruptedException {
+        // Given
+        SenderPipeline subject = new SenderPipeline(executorService, 2, 10, 30000);
+        final CountDownLatch sent = new CountDownLatch(5);
+
+        // When
+        for (int i = 0; i < 5; i++) {
+            assertTrue(subject.submit(countDown(sent), 1));
+        }
+
+        // Then
+        assertTrue("Should send every batch", sent.await(1, TimeUnit.SECONDS));
+    }
+
+    @Test
+    public void shouldReserveRoomForBatches() {
+        // Given
+        SenderPipeline subject = new SenderPipeline(executorService, 1, 3, 30000);
+
+        // When
+        int first = subject.reserve(2);
+        int second = subject.reserve(2);
+        boolean hadCapacity = subject.hasCapacity();
+        subject.release(first);
+        int third = subject.reserve(5);
+
+        // Then
+        assertEquals(2, first);
+        assertEquals("Should only reserve the room left", 1, second);
+        assertFalse(hadCapacity);
+        assertEquals("Should reserve the released room", 2, third);
+    }
+
+    @Test
+    public void shouldRejectOnlyNewBatchesWhenFull() throws InterruptedException {
+        // Given
+        SenderPipeline subject = new SenderPipeline(executorService, 1, 1, 30000);
+        CountDownLatch sending = new CountDownLatch(1);
+        CountDownLatch release = new CountDownLatch(1);
+        final AtomicInteger sent = new AtomicInteger();
+        StatsRegistry registry = new StatsRegistry();
+        subject.registerStats(registry);
+
+        // When
+        subject.submit(block(sending, release), 1);
+        assertTrue("Worker should be busy with the first batch", sending.await(1, TimeUnit.SECONDS));
+        boolean queued = subject.submit(increment(sent), 1);
+        boolean hadCapacity = subject.hasCapacity();
+        boolean rejected = !subject.submit(increment(sent), 1);
+        release.countDown();
+        executorService.shutdown();
+        executorService.awaitTermination(1, TimeUnit.SECONDS);
+
+        // Then
+        assertTrue(queued);
+        assertFalse(hadCapacity);
+        assertTrue(rejected);
+        assertEquals("Should send the queued batch", 1, sent.get());
+        ClientStats stats = registry.snapshot();
+        assertEquals("Should count the rejected batch", 1, stats.getValue("tasks.rejected"));
+        assertEquals("Should have an empty queue", 0, stats.getValue("tasks.queued"));
+    }
+
+    @Test
+    public void shouldExpireStaleBatches() throws InterruptedException {
+        // Given
+        SenderPipeline subject = new SenderPipeline(executorService, 1, 10, 10);
+        CountDownLatch sending = new CountDownLatch(1);
+        CountDownLatch release = new CountDownLatch(1);
+        final AtomicInteger sent = new AtomicInteger();
+        StatsRegistry registry = new StatsRegistry();
+        subject.registerStats(registry);
+
+        // When
+        subject.submit(block(sending, release), 1);
+        assertTrue("Worker should be busy with the first batch", sending.await(1, TimeUnit.SECONDS));
+        subject.submit(increment(sent), 1);
+        Thread.sleep(50);
+        release.countDown();
+        executorService.shutdown();
+        executorService.awaitTermination(1, TimeUnit.SECONDS);
+
+        // Then
+        assertEquals("Should not send the stale batch", 0, sent.get());
+        assertEquals("Should count the expired batch", 1, registry.snapshot().getValue("tasks.expired"));
+    }
+
+    @Test
+    public void shouldKeepWorkingWhenSendThrows() throws InterruptedException {
+        // Given
+        SenderPipeline subject = new SenderPipeline(executorService, 1, 10, 30000);
+        CountDownLatch sent = new CountDownLatch(1);
+
+        // When
+        subject.submit(new Runnable() {
+            @Override
+            public void run() {
+                throw new IllegalStateException("transport failure");
+            }
+        }, 1);
+        subject.submit(countDown(sent), 1);
+
+        // Then
+        assertTrue("Should send the batch after the failed one", sent.await(1, TimeUnit.SECONDS));
+    }
+
+    @Test
+    public void shouldStopWorkersOnShutdown() throws InterruptedException {
+        // Given
+        SenderPipeline subject = new SenderPipeline(executorService, 2, 10, 30000);
+
+        // When
+        subject.shutdown(System.nanoTime());
+        boolean queued = subject.submit(increment(new AtomicInteger()), 1);
+        executorService.shutdown();
+
+        // Then
+        assertFalse("Should reject batches once shut down", queued);
+        assertTrue("Workers should stop", executorService.awaitTermination(1, TimeUnit.SECONDS));
+    }
+
+    @Test
+    public void shouldWaitForQueuedBatchesOnShutdown() {
+        // Given
+        SenderPipeline subject = new SenderPipeline(executorService, 1, 10, 30000);
+        AtomicInteger sent = new AtomicInteger();
+        for (int i = 0; i < 5; i++) {
+            subject.submit(sleep(20, sent), 10);
+        }
+
+        // When
+        long lost = subject.shutdown(System.nanoTime() + TimeUnit.SECONDS.toNanos(5));
+
+        // Then
+        assertEquals("Should not lose metrics", 0, lost);
+        assertEquals("Should send every queued batch", 5, sent.get());
+    }
+
+    @Test
+    public void shouldReportMetricsNotSentBeforeTheShutdownDeadline() throws InterruptedException {
+        // Given
+        SenderPipeline subject = new SenderPipeline(executorService, 1, 10, 30000);
+        CountDownLatch sending = new CountDownLatch(1);
+        CountDownLatch release = new CountDownLatch(1);
+        AtomicInteger sent = new AtomicInteger();
+        subject.submit(block(sending, release), 3);
+        assertTrue(sending.await(1, TimeUnit.SECONDS));
+        subject.submit(increment(sent), 4);
+
+        // When
+        long lost = subject.shutdown(System.nanoTime() + TimeUnit.MILLISECONDS.toNanos(100));
+        release.countDown();
+
+        // Then
+        assertEquals("Should report the metrics being sent and the discarded ones", 7, lost);
+        assertEquals("Should discard the queued batch", 0, subject.getQueuedBatches());
+        assertEquals(0, sent.get());
+    }
+
+    @Test
+    public void shouldNotExpireBatchesWhileDraining() throws InterruptedException {
+        // Given
+        SenderPipeline subject = new SenderPipeline(executorService, 1, 10, 1);
+        CountDownLatch sending = new CountDownLatch(1);
+        CountDownLatch release = new CountDownLatch(1);
+        AtomicInteger sent = new AtomicInteger();
+        StatsRegistry registry = new StatsRegistry();
+        subject.registerStats(registry);
+
+        // When
+        subject.drain(System.nanoTime() + TimeUnit.SECONDS.toNanos(5));
+        subject.submit(block(sending, release), 1);
+        assertTrue(sending.await(1, TimeUnit.SECONDS));
+        subject.submit(increment(sent), 1);
+        Thread.sleep(50);
+        release.countDown();
+        long lost = subject.shutdown(System.nanoTime() + TimeUnit.SECONDS.toNanos(5));
+
+        // Then
+        assertEquals(0, lost);
+        assertEquals("Should send the batch which waited longer than the maximum wait", 1, sent.get());
+        assertEquals(0, registry.snapshot().getValue("tasks.expired"));
+    }
+
+    private static Runnable sleep(final long millis, final AtomicInteger counter) {
+        return new Runnable() {
+            @Override
+            public void run() {
+                try {
+                    Thread.sleep(millis);
+                } catch (InterruptedException e) {
+                    Thread.currentThread().interrupt();
+                }
+                counter.incrementAndGet();
+            }
+        };
+    }
+
+    private static Runnable countDown(final CountDownLatch latch) {
+        return new Runnable() {
+            @Override
+            public void run() {
+                latch.countDown();
+            }
+        };
+    }
+
+    private static Runnable increment(final AtomicInteger counter) {
+        return new Runnable() {
+            @Override
+            public void run() {
+                counter.incrementAndGet();
+            }
+        };
+    }
+
+    private static Runnable block(final CountDownLatch sending, final CountDownLatch release) {
+        return new Runnable() {
+            @Override
+            public void run() {
+                sending.countDown();
+                try {
+                    release.await();
+                } catch (InterruptedException e) {
+                    Thread.currentThread().interrupt();
+                }
+            }
+        };
+    }
+}
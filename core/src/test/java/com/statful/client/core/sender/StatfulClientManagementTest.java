@@ -0,0 +1,131 @@
+package com.statful.client.core.sender;
+
+import com.statful.client.core.transport.TransportSender;
+import com.statful.client.domain.api.AggregationFrequency;
+import com.statful.client.domain.api.ClientConfiguration;
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Test;
+import org.mockito.Mock;
+
+import javax.management.Attribute;
+import javax.management.MBeanServer;
+import javax.management.ObjectName;
+import java.lang.management.ManagementFactory;
+import java.util.Set;
+import java.util.concurrent.ScheduledThreadPoolExecutor;
+
+import static org.junit.Assert.*;
+import static org.mockito.Mockito.when;
+import static org.mockito.MockitoAnnotations.initMocks;
+
+public class StatfulClientManagementTest {
+
+    @Mock
+    private TransportSender transportSender;
+
+    @Mock
+    private ClientConfiguration configuration;
+
+    private ScheduledThreadPoolExecutor executorService;
+
+    private final MBeanServer mBeanServer = ManagementFactory.getPlatformMBeanServer();
+
+    @Before
+    public void setUp() {
+        initMocks(this);
+
+        when(configuration.getMaxWorkerTasksQueueSize()).thenReturn(100);
+        when(configuration.getWorkerTaskKillerInterval()).thenReturn(30000L);
+        when(configuration.getFlushSize()).thenReturn(10);
+        when(configuration.getFlushIntervalMillis()).thenReturn(0L);
+
+        executorService = new ScheduledThreadPoolExecutor(1);
+    }
+
+    @After
+    public void tearDown() {
+        executorService.shutdownNow();
+    }
+
+    @Test
+    public void shouldNotRegisterMBeanByDefault() throws Exception {
+        // Given
+        int before = statfulMBeans().size();
+
+        // When
+        new BufferedMetricsSender(transportSender, configuration, executorService);
+
+        // Then
+        assertEquals(before, statfulMBeans().size());
+    }
+
+    @Test
+    public void shouldRegisterAndUnregisterMBean() throws Exception {
+        // Given
+        when(configuration.isJmxEnabled()).thenReturn(true);
+        Set<ObjectName> before = statfulMBeans();
+
+        // When
+        BufferedMetricsSender subject = new BufferedMetricsSender(transportSender, configuration, executorService);
+        Set<ObjectName> registered = statfulMBeans();
+        registered.removeAll(before);
+
+        // Then
+        assertEquals("Should register a bean per client", 1, registered.size());
+        ObjectName name = registered.iterator().next();
+
+        subject.put("test_metric", "500", null, null, AggregationFrequency.FREQ_10, 100, "application", 123456789);
+        assertEquals(1L, mBeanServer.getAttribute(name, "StandardBufferSize"));
+        assertEquals(10, mBeanServer.getAttribute(name, "FlushSize"));
+
+        subject.shutdown();
+        assertFalse("Should unregister the bean on shutdown", mBeanServer.isRegistered(name));
+    }
+
+    @Test
+    public void shouldTuneSenderThroughMBean() throws Exception {
+        // Given
+        when(configuration.isJmxEnabled()).thenReturn(true);
+        Set<ObjectName> before = statfulMBeans();
+        BufferedMetricsSender subject = new BufferedMetricsSender(transportSender, configuration, executorService);
+        Set<ObjectName> registered = statfulMBeans();
+        registered.removeAll(before);
+        ObjectName name = registered.iterator().next();
+
+        // When
+        mBeanServer.setAttribute(name, new Attribute("FlushSize", 2));
+        mBeanServer.setAttribute(name, new Attribute("FlushIntervalMillis", 1000L));
+        mBeanServer.setAttribute(name, new Attribute("SampleRateOverride", 50));
+
+        // Then
+        assertEquals(2, subject.getFlushSize());
+        assertEquals(1000L, subject.getFlushIntervalMillis());
+        assertEquals(50, subject.getSampleRateOverride());
+
+        subject.shutdown();
+    }
+
+    @Test
+    public void shouldComputeRatesSinceLastUpdate() throws Exception {
+        // Given
+        BufferedMetricsSender sender = new BufferedMetricsSender(transportSender, configuration, executorService);
+        StatfulClientManagement subject = new StatfulClientManagement(sender, new SenderPipeline(executorService, 1, 100, 30000));
+
+        // When
+        for (int i = 0; i < 5; i++) {
+            sender.put("test_metric", "500", null, null, AggregationFrequency.FREQ_10, 100, "application", 123456789);
+        }
+        Thread.sleep(10);
+        subject.updateRates();
+
+        // Then
+        assertTrue("Should have a positive enqueue rate", subject.getEnqueueRate() > 0);
+        assertEquals(0, subject.getDropRate(), 0);
+        assertEquals(5L, subject.getStats().get("buffer.enqueued").longValue());
+    }
+
+    private Set<ObjectName> statfulMBeans() throws Exception {
+        return mBeanServer.queryNames(new ObjectName("com.statful.client:type=StatfulClient,*"), null);
+    }
+}
@@ -0,0 +1,36 @@
+package com.statful.client.core.sender;
+
+import org.junit.Test;
+
+import java.util.concurrent.Callable;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.TimeUnit;
+
+import static org.junit.Assert.*;
+
+public class VirtualThreadsTest {
+
+    @Test
+    public void shouldCreateExecutorOnlyWhenVirtualThreadsAreAvailable() throws Exception {
+        // When
+        ExecutorService executor = VirtualThreads.newVirtualThreadPerTaskExecutor();
+
+        // Then
+        assertEquals(VirtualThreads.isAvailable(), executor != null);
+        if (executor == null) {
+            return;
+        }
+
+        try {
+            Boolean virtual = executor.submit(new Callable<Boolean>() {
+                @Override
+                public Boolean call() throws Exception {
+                    return (Boolean) Thread.class.getMethod("isVirtual").invoke(Thread.currentThread());
+                }
+            }).get(1, TimeUnit.SECONDS);
+            assertTrue("Should run tasks on virtual threads", virtual);
+        } finally {
+            executor.shutdown();
+        }
+    }
+}
@@ -0,0 +1,211 @@
+package com.statful.client.core.spool;
+
+import com.statful.client.core.stats.StatsRegistry;
+import com.statful.client.domain.api.ClientStats;
+import com.statful.client.domain.api.SpoolSyncPolicy;
+import org.junit.Rule;
+import org.junit.Test;
+import org.junit.rules.TemporaryFolder;
+
+import java.io.File;
+import java.io.FilenameFilter;
+import java.io.IOException;
+
+import static org.junit.Assert.*;
+
+public class DiskSpoolTest {
+
+    private static final int SEGMENT_SIZE = 64;
+
+    @Rule
+    public TemporaryFolder folder = new TemporaryFolder();
+
+    @Test
+    public void shouldReadMessagesInOrder() throws IOException {
+        // Given
+        DiskSpool subject = new DiskSpool(folder.getRoot(), 1024 * 1024, SpoolSyncPolicy.ALWAYS);
+
+        // When
+        subject.append("metric1 1 100\nmetric2 2 200\n", null);
+        subject.append("metric3 3 300\n", "/tel/v2.0/aggregation/avg/frequency/60");
+
+        // Then
+        SpooledMessage first = subject.poll();
+        assertEquals("metric1 1 100\nmetric2 2 200\n", first.getMessage());
+        assertNull(first.getUri());
+        SpooledMessage second = subject.poll();
+        assertEquals("metric3 3 300\n", second.getMessage());
+        assertEquals("/tel/v2.0/aggregation/avg/frequency/60", second.getUri());
+        assertNull(subject.poll());
+        assertTrue(subject.isEmpty());
+    }
+
+    @Test
+    public void shouldRotateSegmentsAndDeleteReadOnes() throws IOException {
+        // Given
+        DiskSpool subject = new DiskSpool(folder.getRoot(), 10 * SEGMENT_SIZE, SEGMENT_SIZE, SpoolSyncPolicy.ON_ROTATE);
+
+        // When
+        for (int i = 0; i < 10; i++) {
+            subject.append("metric" + i + " 1 100\n", null);
+        }
+
+        // Then
+        assertTrue("Should have rotated segments", segmentFiles() > 1);
+        for (int i = 0; i < 10; i++) {
+            assertEquals("metric" + i + " 1 100\n", subject.poll().getMessage());
+        }
+        assertNull(subject.poll());
+        assertEquals("Should only keep the segment being written", 1, segmentFiles());
+    }
+
+    @Test
+    public void shouldDropOldestSegmentWhenFull() throws IOException {
+        // Given
+        DiskSpool subject = new DiskSpool(folder.getRoot(), 2 * SEGMENT_SIZE, SEGMENT_SIZE, SpoolSyncPolicy.NEVER);
+        StatsRegistry registry = new StatsRegistry();
+        subject.registerStats(registry);
+
+        // When, with two 22 bytes records per segment
+        for (int i = 0; i < 6; i++) {
+            subject.append("metric" + i + " 1 100\n", null);
+        }
+
+        // Then
+        assertEquals(2, segmentFiles());
+        assertEquals("metric2 1 100\n", subject.poll().getMessage());
+        ClientStats stats = registry.snapshot();
+        assertEquals("Should count spooled messages", 6, stats.getValue("spool.spooled"));
+        assertEquals("Should count messages of the dropped segment", 2, stats.getValue("spool.dropped"));
+        assertEquals("Should publish the size of the segments", 2 * SEGMENT_SIZE, stats.getValue("spool.bytes"));
+    }
+
+    @Test
+    public void shouldDropMessagesBiggerThanSegment() throws IOException {
+        // Given
+        DiskSpool subject = new DiskSpool(folder.getRoot(), 2 * SEGMENT_SIZE, SEGMENT_SIZE, SpoolSyncPolicy.NEVER);
+
+        // When
+        boolean appended = subject.append(new String(new char[SEGMENT_SIZE]), null);
+
+        // Then
+        assertFalse(appended);
+        assertTrue(subject.isEmpty());
+    }
+
+    @Test
+    public void shouldRecoverMessagesLeftByPreviousSpool() throws IOException {
+        // Given
+        DiskSpool previous = new DiskSpool(folder.getRoot(), 10 * SEGMENT_SIZE, SEGMENT_SIZE, SpoolSyncPolicy.ON_ROTATE);
+        for (int i = 0; i < 5; i++) {
+            previous.append("metric" + i + " 1 100\n", "uri" + i);
+        }
+        previous.poll();
+        previous.close();
+
+        // When
+        DiskSpool subject = new DiskSpool(folder.getRoot(), 10 * SEGMENT_SIZE, SEGMENT_SIZE, SpoolSyncPolicy.ON_ROTATE);
+        subject.append("metric5 1 100\n", null);
+
+        // Then
+        for (int i = 1; i < 5; i++) {
+            SpooledMessage message = subject.poll();
+            assertEquals("metric" + i + " 1 100\n", message.getMessage());
+            assertEquals("uri" + i, message.getUri());
+        }
+        assertEquals("metric5 1 100\n", subject.poll().getMessage());
+        assertNull(subject.poll());
+    }
+
+    @Test
+    public void shouldKeepPeekedMessagesUntilCommitted() throws IOException {
+        // Given
+        DiskSpool previous = new DiskSpool(folder.getRoot(), 10 * SEGMENT_SIZE, SEGMENT_SIZE, SpoolSyncPolicy.ON_ROTATE);
+        previous.append("metric1 1 100\n", null);
+        previous.append("metric2 1 100\n", null);
+        SpooledMessage committed = previous.peek();
+        previous.commit(committed);
+        SpooledMessage peeked = previous.peek();
+        assertEquals("Should peek the same message until committed", peeked, previous.peek());
+        previous.close();
+
+        // When
+        DiskSpool subject = new DiskSpool(folder.getRoot(), 10 * SEGMENT_SIZE, SEGMENT_SIZE, SpoolSyncPolicy.ON_ROTATE);
+
+        // Then
+        assertEquals("metric1 1 100\n", committed.getMessage());
+        assertEquals("metric2 1 100\n", peeked.getMessage());
+        assertEquals("Should read again the message not committed", "metric2 1 100\n", subject.poll().getMessage());
+        assertNull(subject.poll());
+    }
+
+    @Test
+    public void shouldNotCommitMessagesOfDroppedSegments() throws IOException {
+        // Given
+        DiskSpool subject = new DiskSpool(folder.getRoot(), 2 * SEGMENT_SIZE, SEGMENT_SIZE, SpoolSyncPolicy.NEVER);
+        subject.append("metric0 1 100\n", null);
+        SpooledMessage peeked = subject.peek();
+
+        // When, with two 22 bytes records per segment
+        for (int i = 1; i < 6; i++) {
+            subject.append("metric" + i + " 1 100\n", null);
+        }
+        subject.commit(peeked);
+
+        // Then
+        assertEquals("metric2 1 100\n", subject.poll().getMessage());
+    }
+
+    @Test
+    public void shouldNotAppendAfterClose() throws IOException {
+        // Given
+        DiskSpool subject = new DiskSpool(folder.getRoot(), 2 * SEGMENT_SIZE, SEGMENT_SIZE, SpoolSyncPolicy.NEVER);
+        subject.close();
+
+        // When
+        boolean appended = subject.append("metric 1 100\n", null);
+
+        // Then
+        assertFalse(appended);
+    }
+
+    @Test
+    public void shouldNotOpenADirectoryLockedByAnotherSpool() throws IOException {
+        // Given
+        DiskSpool other = new DiskSpool(folder.getRoot(), 2 * SEGMENT_SIZE, SEGMENT_SIZE, SpoolSyncPolicy.NEVER);
+
+        // When
+        try {
+            new DiskSpool(folder.getRoot(), 2 * SEGMENT_SIZE, SEGMENT_SIZE, SpoolSyncPolicy.NEVER);
+            fail("Should not share the directory with another spool");
+        } catch (IOException e) {
+            // Then
+            assertTrue(e.getMessage().contains("locked"));
+        }
+        assertTrue("Should keep the other spool working", other.append("metric 1 100\n", null));
+    }
+
+    @Test
+    public void shouldReleaseTheDirectoryLockOnClose() throws IOException {
+        // Given
+        DiskSpool previous = new DiskSpool(folder.getRoot(), 2 * SEGMENT_SIZE, SEGMENT_SIZE, SpoolSyncPolicy.NEVER);
+        previous.append("metric 1 100\n", null);
+        previous.close();
+
+        // When
+        DiskSpool subject = new DiskSpool(folder.getRoot(), 2 * SEGMENT_SIZE, SEGMENT_SIZE, SpoolSyncPolicy.NEVER);
+
+        // Then
+        assertEquals("metric 1 100\n", subject.poll().getMessage());
+    }
+
+    private int segmentFiles() {
+        File[] files = folder.getRoot().listFiles(new FilenameFilter() {
+            @Override
+            public boolean accept(final File dir, final String name) {
+                return name.endsWith(".seg");
+            }
+        });
+        return files == null ? 0 : files.length;
+    }
+}
@@ -0,0 +1,212 @@
+package com.statful.client.core.spool;
+
+import com.statful.client.core.transport.CircuitBreaker;
+import com.statful.client.core.transport.CircuitBreakerTransportSender;
+import com.statful.client.core.transport.CircuitState;
+import com.statful.client.core.transport.FailedMessageListener;
+import com.statful.client.core.transport.ListenableTransportSender;
+import com.statful.client.core.transport.TransportListener;
+import com.statful.client.core.transport.TransportSender;
+import com.statful.client.domain.api.SpoolSyncPolicy;
+import org.junit.Rule;
+import org.junit.Test;
+import org.junit.rules.TemporaryFolder;
+import org.mockito.InOrder;
+
+import java.io.IOException;
+
+import static org.junit.Assert.*;
+import static org.mockito.Mockito.*;
+
+public class SpoolTransportSenderTest {
+
+    @Rule
+    public TemporaryFolder folder = new TemporaryFolder();
+
+    @Test
+    public void shouldSpoolShortCircuitedMessagesAndReplayThemOnceClosed() throws IOException {
+        // Given
+        TransportSender delegate = mock(TransportSender.class);
+        CircuitBreaker circuitBreaker = new CircuitBreaker(1, 10000);
+        DiskSpool spool = new DiskSpool(folder.getRoot(), 1024 * 1024, SpoolSyncPolicy.NEVER);
+        SpoolTransportSender subject = new SpoolTransportSender(spool);
+        CircuitBreakerTransportSender decorated = CircuitBreakerTransportSender.wrap(delegate, circuitBreaker, subject);
+
+        // When
+        circuitBreaker.onFailure();
+        decorated.send("metric1 1 100\n");
+        decorated.send("metric2 2 200\n", "uri");
+        int replayedWhileOpen = subject.replay(decorated, 10);
+        circuitBreaker.onSuccess();
+        int replayedOnceClosed = subject.replay(decorated, 10);
+
+        // Then
+        assertEquals(0, replayedWhileOpen);
+        assertEquals(2, replayedOnceClosed);
+        InOrder inOrder = inOrder(delegate);
+        inOrder.verify(delegate).send("metric1 1 100\n");
+        inOrder.verify(delegate).send("metric2 2 200\n", "uri");
+        assertTrue(spool.isEmpty());
+    }
+
+    @Test
+    public void shouldLimitMessagesReplayedAtOnce() throws IOException {
+        // Given
+        TransportSender delegate = mock(TransportSender.class);
+        DiskSpool spool = new DiskSpool(folder.getRoot(), 1024 * 1024, SpoolSyncPolicy.NEVER);
+        SpoolTransportSender subject = new SpoolTransportSender(spool);
+        CircuitBreakerTransportSender decorated = CircuitBreakerTransportSender.wrap(delegate, new CircuitBreaker(1, 10000), subject);
+        for (int i = 0; i < 3; i++) {
+            subject.send("metric" + i + " 1 100\n");
+        }
+
+        // When
+        int replayed = subject.replay(decorated, 2);
+
+        // Then
+        assertEquals(2, replayed);
+        verify(delegate, times(2)).send(anyString());
+        assertFalse(spool.isEmpty());
+    }
+
+    @Test
+    public void shouldKeepMessagesWhoseReplayThrows() throws IOException {
+        // Given
+        TransportSender delegate = mock(TransportSender.class);
+        doThrow(new IllegalStateException()).when(delegate).send(anyString());
+        CircuitBreaker circuitBreaker = new CircuitBreaker(1, 10000);
+        DiskSpool spool = new DiskSpool(folder.getRoot(), 1024 * 1024, SpoolSyncPolicy.NEVER);
+        SpoolTransportSender subject = new SpoolTransportSender(spool);
+        CircuitBreakerTransportSender decorated = CircuitBreakerTransportSender.wrap(delegate, circuitBreaker, subject);
+        subject.send("metric 1 100\n");
+        subject.send("metric 2 200\n");
+
+        // When
+        int replayed = subject.replay(decorated, 10);
+
+        // Then
+        assertEquals(0, replayed);
+        assertEquals("Should count the failure", CircuitState.OPEN, circuitBreaker.getState());
+        assertEquals("Should replay it first next time", "metric 1 100\n", spool.poll().getMessage());
+        assertEquals("metric 2 200\n", spool.poll().getMessage());
+        assertNull(spool.poll());
+    }
+
+    @Test
+    public void shouldSpoolMessagesWhichFailOrProbeAHalfOpenCircuit() throws Exception {
+        // Given
+        ReportingTransportSender delegate = new ReportingTransportSender(false);
+        CircuitBreaker circuitBreaker = new CircuitBreaker(1, 1);
+        DiskSpool spool = new DiskSpool(folder.getRoot(), 1024 * 1024, SpoolSyncPolicy.NEVER);
+        SpoolTransportSender subject = new SpoolTransportSender(spool);
+        CircuitBreakerTransportSender decorated = CircuitBreakerTransportSender.wrap(delegate, circuitBreaker, subject);
+
+        // When, the first failure opening the circuit and the second one failing the half-open probe
+        decorated.send("metric1 1 100\n");
+        Thread.sleep(5);
+        decorated.send("metric2 2 200\n", "uri");
+
+        // Then
+        assertEquals(CircuitState.OPEN, circuitBreaker.getState());
+        SpooledMessage first = spool.poll();
+        assertEquals("metric1 1 100\n", first.getMessage());
+        assertNull(first.getUri());
+        SpooledMessage second = spool.poll();
+        assertEquals("metric2 2 200\n", second.getMessage());
+        assertEquals("uri", second.getUri());
+    }
+
+    @Test
+    public void shouldKeepMessagesWhoseReplayFailsInPlace() throws Exception {
+        // Given
+        ReportingTransportSender delegate = new ReportingTransportSender(false);
+        CircuitBreaker circuitBreaker = new CircuitBreaker(2, 10000);
+        DiskSpool spool = new DiskSpool(folder.getRoot(), 1024 * 1024, SpoolSyncPolicy.NEVER);
+        SpoolTransportSender subject = new SpoolTransportSender(spool);
+        CircuitBreakerTransportSender decorated = CircuitBreakerTransportSender.wrap(delegate, circuitBreaker, subject);
+        subject.send("metric1 1 100\n");
+        subject.send("metric2 2 200\n", "uri");
+
+        // When
+        int replayed = subject.replay(decorated, 10);
+
+        // Then
+        assertEquals(0, replayed);
+        assertEquals("Should stop at the first failure", 1, delegate.sent);
+        assertEquals("Should keep it first and once", "metric1 1 100\n", spool.poll().getMessage());
+        assertEquals("metric2 2 200\n", spool.poll().getMessage());
+        assertNull(spool.poll());
+    }
+
+    @Test
+    public void shouldCommitMessagesOnceTheirSendingIsConfirmed() throws Exception {
+        // Given
+        ReportingTransportSender delegate = new ReportingTransportSender(true);
+        DiskSpool spool = new DiskSpool(folder.getRoot(), 1024 * 1024, SpoolSyncPolicy.NEVER);
+        SpoolTransportSender subject = new SpoolTransportSender(spool);
+        CircuitBreakerTransportSender decorated = CircuitBreakerTransportSender.wrap(delegate, new CircuitBreaker(1, 10000), subject);
+        subject.send("metric1 1 100\n");
+        subject.send("metric2 2 200\n", "uri");
+
+        // When
+        int replayed = subject.replay(decorated, 10);
+
+        // Then
+        assertEquals(2, replayed);
+        assertEquals(2, delegate.sent);
+        assertTrue(spool.isEmpty());
+    }
+
+    @Test
+    public void shouldCloseSpoolOnShutdown() throws IOException {
+        // Given
+        DiskSpool spool = new DiskSpool(folder.getRoot(), 1024 * 1024, SpoolSyncPolicy.NEVER);
+        SpoolTransportSender subject = new SpoolTransportSender(spool);
+        subject.startReplay(CircuitBreakerTransportSender.wrap(mock(TransportSender.class), new CircuitBreaker(1, 10000), subject));
+
+        // When
+        subject.shutdown();
+        subject.send("metric 1 100\n");
+
+        // Then
+        assertTrue(spool.isEmpty());
+    }
+
+    /**
+     * A transport sender whose every message either succeeds or fails, reporting it to its listener instead of throwing.
+     */
+    private static final class ReportingTransportSender implements ListenableTransportSender {
+
+        private final boolean succeeds;
+        private TransportListener listener;
+        private int sent;
+
+        private ReportingTransportSender(final boolean succeeds) {
+            this.succeeds = succeeds;
+        }
+
+        @Override
+        public void setTransportListener(final TransportListener listener) {
+            this.listener = listener;
+        }
+
+        @Override
+        public void send(final String message) {
+            send(message, null);
+        }
+
+        @Override
+        public void send(final String message, final String uri) {
+            sent++;
+            if (succeeds) {
+                ((FailedMessageListener) listener).onSuccess(message, uri);
+            } else {
+                ((FailedMessageListener) listener).onFailure(message, uri);
+            }
+        }
+
+        @Override
+        public void shutdown() {
+        }
+    }
+}
@@ -0,0 +1,64 @@
+package com.statful.client.core.stats;
+
+import com.statful.client.domain.api.ClientStats;
+import org.junit.Test;
+
+import java.util.concurrent.atomic.AtomicLong;
+
+import static org.junit.Assert.*;
+
+public class StatsRegistryTest {
+
+    @Test
+    public void shouldSnapshotCountersAndGauges() {
+        // Given
+        StatsRegistry subject = new StatsRegistry();
+        final AtomicLong depth = new AtomicLong(7);
+
+        StatsCounter counter = subject.counter("tasks.rejected");
+        subject.register("buffer.standard.size", new StatsGauge() {
+            @Override
+            public long getValue() {
+                return depth.get();
+            }
+        });
+
+        // When
+        counter.increment();
+        counter.add(2);
+        ClientStats stats = subject.snapshot();
+
+        // Then
+        assertEquals(3, stats.getValue("tasks.rejected"));
+        assertEquals(7, stats.getValue("buffer.standard.size"));
+        assertEquals("Unknown statistics should be 0", 0, stats.getValue("unknown"));
+    }
+
+    @Test
+    public void shouldReadGaugesWhenTheSnapshotIsTaken() {
+        // Given
+        StatsRegistry subject = new StatsRegistry();
+        StatsCounter counter = subject.counter("flush.count");
+        ClientStats before = subject.snapshot();
+
+        // When
+        counter.increment();
+
+        // Then
+        assertEquals("Snapshots shouldn't change", 0, before.getValue("flush.count"));
+        assertEquals(1, subject.snapshot().getValue("flush.count"));
+    }
+
+    @Test
+    public void shouldReuseCountersWithTheSameName() {
+        // Given
+        StatsRegistry subject = new StatsRegistry();
+
+        // When
+        StatsCounter first = subject.counter("send.count");
+        StatsCounter second = subject.counter("send.count");
+
+        // Then
+        assertSame(first, second);
+    }
+}
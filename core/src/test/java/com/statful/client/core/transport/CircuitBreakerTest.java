@@ -0,0 +1,118 @@
+package com.statful.client.core.transport;
+
+import com.statful.client.core.stats.StatsRegistry;
+import com.statful.client.domain.api.ClientStats;
+import org.junit.Test;
+
+import static org.junit.Assert.*;
+
+public class CircuitBreakerTest {
+
+    @Test
+    public void shouldOpenAfterConsecutiveFailures() {
+        // Given
+        CircuitBreaker subject = new CircuitBreaker(3, 10000);
+
+        // When
+        subject.onFailure();
+        subject.onFailure();
+
+        // Then
+        assertEquals(CircuitState.CLOSED, subject.getState());
+        assertTrue("Should allow requests while closed", subject.allowRequest());
+
+        // When
+        subject.onFailure();
+
+        // Then
+        assertEquals(CircuitState.OPEN, subject.getState());
+        assertFalse("Should short-circuit requests while open", subject.allowRequest());
+    }
+
+    @Test
+    public void shouldResetFailuresOnSuccess() {
+        // Given
+        CircuitBreaker subject = new CircuitBreaker(2, 10000);
+
+        // When
+        subject.onFailure();
+        subject.onSuccess();
+        subject.onFailure();
+
+        // Then
+        assertEquals("Should only count consecutive failures", CircuitState.CLOSED, subject.getState());
+    }
+
+    @Test
+    public void shouldLetASingleProbeThroughOnceOpenIntervalIsOver() throws Exception {
+        // Given
+        CircuitBreaker subject = new CircuitBreaker(1, 20);
+        subject.onFailure();
+
+        // When
+        Thread.sleep(40);
+
+        // Then
+        assertTrue("Should let the probe through", subject.allowRequest());
+        assertEquals(CircuitState.HALF_OPEN, subject.getState());
+        assertFalse("Should short-circuit other requests while probing", subject.allowRequest());
+    }
+
+    @Test
+    public void shouldCloseWhenProbeSucceeds() throws Exception {
+        // Given
+        CircuitBreaker subject = new CircuitBreaker(1, 20);
+        subject.onFailure();
+        Thread.sleep(40);
+        subject.allowRequest();
+
+        // When
+        subject.onSuccess();
+
+        // Then
+        assertEquals(CircuitState.CLOSED, subject.getState());
+        assertTrue(subject.allowRequest());
+    }
+
+    @Test
+    public void shouldOpenAgainWhenProbeFails() throws Exception {
+        // Given
+        CircuitBreaker subject = new CircuitBreaker(3, 20);
+        subject.onFailure();
+        subject.onFailure();
+        subject.onFailure();
+        Thread.sleep(40);
+        subject.allowRequest();
+
+        // When
+        subject.onFailure();
+
+        // Then
+        assertEquals(CircuitState.OPEN, subject.getState());
+        assertFalse(subject.allowRequest());
+    }
+
+    @Test
+    public void shouldPublishState() {
+        // Given
+        CircuitBreaker subject = new CircuitBreaker(1, 10000);
+        StatsRegistry registry = new StatsRegistry();
+        subject.registerStats(registry);
+
+        // When
+        subject.onFailure();
+        subject.allowRequest();
+        subject.allowRequest();
+
+        // Then
+        ClientStats stats = registry.snapshot();
+        assertEquals("Should publish the open state", CircuitState.OPEN.ordinal(), stats.getValue("circuit.state"));
+        assertEquals("Should count openings", 1, stats.getValue("circuit.opened"));
+        assertEquals("Should count short-circuited requests", 2, stats.getValue("circuit.short_circuited"));
+    }
+
+    @Test(expected = IllegalArgumentException.class)
+    public void shouldRejectNonPositiveThreshold() {
+        new CircuitBreaker(0, 10000);
+    }
+}
@@ -0,0 +1,263 @@
+package com.statful.client.core.transport;
+
+import org.junit.Test;
+import org.mockito.ArgumentCaptor;
+import org.mockito.invocation.InvocationOnMock;
+import org.mockito.stubbing.Answer;
+
+import java.util.Arrays;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
+import static org.junit.Assert.*;
+import static org.mockito.AdditionalMatchers.leq;
+import static org.mockito.Mockito.*;
+
+public class CircuitBreakerTransportSenderTest {
+
+    @Test
+    public void shouldSendThroughDelegateWhileClosed() {
+        // Given
+        TransportSender delegate = mock(TransportSender.class);
+        CircuitBreakerTransportSender subject = CircuitBreakerTransportSender.wrap(delegate, new CircuitBreaker(1, 10000), null);
+
+        // When
+        subject.send("message");
+        subject.send("message", "uri");
+
+        // Then
+        verify(delegate).send("message");
+        verify(delegate).send("message", "uri");
+        assertEquals(CircuitState.CLOSED, subject.getCircuitBreaker().getState());
+    }
+
+    @Test
+    public void shouldOpenWhenDelegateThrows() {
+        // Given
+        TransportSender delegate = mock(TransportSender.class);
+        doThrow(new IllegalStateException()).when(delegate).send(anyString());
+        CircuitBreakerTransportSender subject = CircuitBreakerTransportSender.wrap(delegate, new CircuitBreaker(1, 10000), null);
+
+        // When
+        try {
+            subject.send("message");
+            fail("Should rethrow the failure");
+        } catch (IllegalStateException e) {
+            // Expected
+        }
+        subject.send("message");
+
+        // Then
+        verify(delegate, times(1)).send("message");
+        assertEquals(CircuitState.OPEN, subject.getCircuitBreaker().getState());
+    }
+
+    @Test
+    public void shouldOpenWithFailuresReportedByListenableDelegate() {
+        // Given
+        ListenableTransportSender delegate = mock(ListenableTransportSender.class);
+        CircuitBreaker circuitBreaker = new CircuitBreaker(2, 10000);
+        CircuitBreakerTransportSender subject = CircuitBreakerTransportSender.wrap(delegate, circuitBreaker, null);
+        verify(delegate).setTransportListener(any(FailedMessageListener.class));
+
+        // When
+        subject.send("message");
+        circuitBreaker.onFailure();
+        subject.send("message");
+        circuitBreaker.onFailure();
+        subject.send("message");
+
+        // Then
+        verify(delegate, times(2)).send("message");
+        assertEquals("Should not count sends without reported outcome as successes", CircuitState.OPEN, circuitBreaker.getState());
+    }
+
+    @Test
+    public void shouldRouteShortCircuitedMessagesToFallback() {
+        // Given
+        TransportSender delegate = mock(TransportSender.class);
+        TransportSender fallback = mock(TransportSender.class);
+        CircuitBreaker circuitBreaker = new CircuitBreaker(1, 10000);
+        CircuitBreakerTransportSender subject = CircuitBreakerTransportSender.wrap(delegate, circuitBreaker, fallback);
+        circuitBreaker.onFailure();
+
+        // When
+        subject.send("message");
+        subject.send("message", "uri");
+
+        // Then
+        verify(delegate, never()).send(anyString());
+        verify(fallback).send("message");
+        verify(fallback).send("message", "uri");
+    }
+
+    @Test
+    public void shouldRouteMessagesWhoseSendingThrowsToFallback() {
+        // Given
+        TransportSender delegate = mock(TransportSender.class);
+        doThrow(new IllegalStateException()).when(delegate).send(anyString(), anyString());
+        TransportSender fallback = mock(TransportSender.class);
+        CircuitBreaker circuitBreaker = new CircuitBreaker(1, 10000);
+        CircuitBreakerTransportSender subject = CircuitBreakerTransportSender.wrap(delegate, circuitBreaker, fallback);
+
+        // When
+        subject.send("message", "uri");
+
+        // Then
+        verify(fallback).send("message", "uri");
+        assertEquals(CircuitState.OPEN, circuitBreaker.getState());
+    }
+
+    @Test
+    public void shouldRouteFailuresReportedByListenableDelegateToFallback() {
+        // Given
+        ListenableTransportSender delegate = mock(ListenableTransportSender.class);
+        TransportSender fallback = mock(TransportSender.class);
+        CircuitBreaker circuitBreaker = new CircuitBreaker(2, 10000);
+        CircuitBreakerTransportSender.wrap(delegate, circuitBreaker, fallback);
+        ArgumentCaptor<TransportListener> listener = ArgumentCaptor.forClass(TransportListener.class);
+        verify(delegate).setTransportListener(listener.capture());
+
+        // When
+        ((FailedMessageListener) listener.getValue()).onFailure("message", null);
+        ((FailedMessageListener) listener.getValue()).onFailure("aggregated", "uri");
+
+        // Then
+        verify(fallback).send("message");
+        verify(fallback).send("aggregated", "uri");
+        assertEquals("Should count the failures", CircuitState.OPEN, circuitBreaker.getState());
+    }
+
+    @Test
+    public void shouldReplayThroughDelegateWithoutFallback() {
+        // Given
+        TransportSender delegate = mock(TransportSender.class);
+        doThrow(new IllegalStateException()).when(delegate).send("failing");
+        TransportSender fallback = mock(TransportSender.class);
+        CircuitBreaker circuitBreaker = new CircuitBreaker(1, 10000);
+        CircuitBreakerTransportSender subject = CircuitBreakerTransportSender.wrap(delegate, circuitBreaker, fallback);
+
+        // When
+        boolean sent = subject.replay("message", "uri", 1, TimeUnit.SECONDS);
+        boolean failed = subject.replay("failing", null, 1, TimeUnit.SECONDS);
+
+        // Then
+        assertTrue(sent);
+        assertFalse(failed);
+        verify(delegate).send("message", "uri");
+        verifyZeroInteractions(fallback);
+        assertEquals("Should count the failure", CircuitState.OPEN, circuitBreaker.getState());
+    }
+
+    @Test
+    public void shouldWaitForOutcomeReportedByListenableDelegateOnReplay() {
+        // Given
+        ListenableTransportSender delegate = mock(ListenableTransportSender.class);
+        TransportSender fallback = mock(TransportSender.class);
+        CircuitBreaker circuitBreaker = new CircuitBreaker(1, 10000);
+        CircuitBreakerTransportSender subject = CircuitBreakerTransportSender.wrap(delegate, circuitBreaker, fallback);
+        ArgumentCaptor<TransportListener> captor = ArgumentCaptor.forClass(TransportListener.class);
+        verify(delegate).setTransportListener(captor.capture());
+        final FailedMessageListener listener = (FailedMessageListener) captor.getValue();
+        doAnswer(new Answer<Void>() {
+            @Override
+            public Void answer(final InvocationOnMock invocation) {
+                listener.onSuccess((String) invocation.getArguments()[0], null);
+                return null;
+            }
+        }).when(delegate).send("message");
+        doAnswer(new Answer<Void>() {
+            @Override
+            public Void answer(final InvocationOnMock invocation) {
+                listener.onFailure((String) invocation.getArguments()[0], null);
+                return null;
+            }
+        }).when(delegate).send("failing");
+
+        // When
+        boolean sent = subject.replay("message", null, 1, TimeUnit.SECONDS);
+        boolean failed = subject.replay("failing", null, 1, TimeUnit.SECONDS);
+        boolean unknown = subject.replay("unreported", null, 1, TimeUnit.MILLISECONDS);
+
+        // Then
+        assertTrue(sent);
+        assertFalse(failed);
+        assertFalse("Should not take a send without outcome as done", unknown);
+        verifyZeroInteractions(fallback);
+        assertEquals("Should count the failure", CircuitState.OPEN, circuitBreaker.getState());
+    }
+
+    @Test
+    public void shouldKeepBatchCapability() {
+        // Given
+        BatchTransportSender delegate = mock(BatchTransportSender.class);
+        TransportSender fallback = mock(TransportSender.class);
+        CircuitBreaker circuitBreaker = new CircuitBreaker(1, 10000);
+        TransportSender subject = CircuitBreakerTransportSender.wrap(delegate, circuitBreaker, fallback);
+        List<String> messages = Arrays.asList("a\n", "b\n");
+
+        // When
+        assertTrue("Should be a batch transport sender", subject instanceof BatchTransportSender);
+        ((BatchTransportSender) subject).send(messages);
+        circuitBreaker.onFailure();
+        ((BatchTransportSender) subject).send(messages);
+
+        // Then
+        verify(delegate, times(1)).send(messages);
+        verify(fallback).send("a\n");
+        verify(fallback).send("b\n");
+    }
+
+    @Test
+    public void shouldKeepStreamingCapability() {
+        // Given
+        StreamingTransportSender delegate = mock(StreamingTransportSender.class);
+        TransportSender fallback = mock(TransportSender.class);
+        CircuitBreaker circuitBreaker = new CircuitBreaker(1, 10000);
+        TransportSender subject = CircuitBreakerTransportSender.wrap(delegate, circuitBreaker, fallback);
+        List<String> metrics = Arrays.asList("a", "b");
+
+        // When
+        assertTrue("Should be a streaming transport sender", subject instanceof StreamingTransportSender);
+        ((StreamingTransportSender) subject).sendLines(metrics, "uri");
+        circuitBreaker.onFailure();
+        ((StreamingTransportSender) subject).sendLines(metrics, "uri");
+
+        // Then
+        verify(delegate, times(1)).sendLines(metrics, "uri");
+        verify(fallback).send("a\nb\n", "uri");
+    }
+
+    @Test
+    public void shouldShutDownDelegateAndFallback() {
+        // Given
+        TransportSender delegate = mock(TransportSender.class);
+        TransportSender fallback = mock(TransportSender.class);
+        CircuitBreakerTransportSender subject = CircuitBreakerTransportSender.wrap(delegate, new CircuitBreaker(1, 10000), fallback);
+
+        // When
+        subject.shutdown();
+
+        // Then
+        verify(delegate).shutdown();
+        verify(fallback).shutdown();
+    }
+
+    @Test
+    public void shouldShareShutdownTimeoutBetweenDelegateAndFallback() {
+        // Given
+        BoundedShutdownTransportSender delegate = mock(BoundedShutdownTransportSender.class);
+        when(delegate.shutdown(anyLong(), any(TimeUnit.class))).thenReturn(2L);
+        TransportSender fallback = mock(TransportSender.class);
+        CircuitBreakerTransportSender subject = CircuitBreakerTransportSender.wrap(delegate, new CircuitBreaker(1, 10000), fallback);
+
+        // When
+        long lost = subject.shutdown(1, TimeUnit.SECONDS);
+
+        // Then
+        assertEquals("Should report the metrics lost by the delegate", 2, lost);
+        verify(delegate).shutdown(leq(TimeUnit.SECONDS.toNanos(1)), eq(TimeUnit.NANOSECONDS));
+        verify(delegate, never()).shutdown();
+        verify(fallback).shutdown();
+    }
+}
@@ -0,0 +1,82 @@
+package com.statful.client.core.transport;
+
+import org.junit.Test;
+
+import java.util.ArrayList;
+import java.util.List;
+
+import static org.junit.Assert.*;
+
+public class ObjectPoolTest {
+
+    @Test
+    public void shouldReuseReleasedObjects() {
+        // Given
+        CountingPool subject = new CountingPool(2);
+        StringBuilder first = subject.acquire();
+
+        // When
+        subject.release(first);
+        StringBuilder second = subject.acquire();
+
+        // Then
+        assertSame("Should reuse the idle object", first, second);
+        assertEquals(1, subject.created);
+        assertEquals(0, subject.getIdleCount());
+    }
+
+    @Test
+    public void shouldCreateObjectsWhenNoneIsIdle() {
+        // Given
+        CountingPool subject = new CountingPool(2);
+
+        // When
+        StringBuilder first = subject.acquire();
+        StringBuilder second = subject.acquire();
+
+        // Then
+        assertNotSame(first, second);
+        assertEquals(2, subject.created);
+    }
+
+    @Test
+    public void shouldDiscardObjectsReleasedWhenFull() {
+        // Given
+        CountingPool subject = new CountingPool(2);
+        List<StringBuilder> acquired = new ArrayList<StringBuilder>();
+        for (int i = 0; i < 3; i++) {
+            acquired.add(subject.acquire());
+        }
+
+        // When
+        for (StringBuilder object : acquired) {
+            subject.release(object);
+        }
+
+        // Then
+        assertEquals("Should keep at most the maximum idle objects", 2, subject.getIdleCount());
+        assertEquals(1, subject.discarded.size());
+        assertSame(acquired.get(2), subject.discarded.get(0));
+    }
+
+    private static final class CountingPool extends ObjectPool<StringBuilder> {
+
+        private final List<StringBuilder> discarded = new ArrayList<StringBuilder>();
+        private int created;
+
+        private CountingPool(final int maxIdle) {
+            super(maxIdle);
+        }
+
+        @Override
+        protected StringBuilder create() {
+            created++;
+            return new StringBuilder();
+        }
+
+        @Override
+        protected void discard(final StringBuilder object) {
+            discarded.add(object);
+        }
+    }
+}
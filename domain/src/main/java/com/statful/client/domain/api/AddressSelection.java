@@ -0,0 +1,23 @@
+package com.statful.client.domain.api;
+
+/**
+ * Supported ways of choosing where to send metrics when the host resolves to several addresses.
+ */
+public enum AddressSelection {
+
+    /**
+     * Sends every metric to the first address the host resolves to.
+     */
+    FIRST,
+
+    /**
+     * Sends each datagram to the next address, spreading the load evenly over every address.
+     */
+    ROUND_ROBIN,
+
+    /**
+     * Sends each metric to an address chosen by hashing its name and tags, so that every metric of a series goes to
+     * the same address while the addresses don't change.
+     */
+    CONSISTENT_HASH
+}
@@ -0,0 +1,23 @@
+package com.statful.client.domain.api;
+
+/**
+ * Supported strategies to buffer metrics before they're flushed.
+ */
+public enum BufferStrategy {
+
+    /**
+     * A bounded blocking queue, guarded by a single lock.
+     */
+    BLOCKING_QUEUE,
+
+    /**
+     * A bounded lock-free ring buffer, which doesn't make threads putting metrics contend on a lock.
+     */
+    RING_BUFFER,
+
+    /**
+     * Per-thread chunks of metrics, handed off to be flushed once full or after a second, which keeps threads putting
+     * metrics from writing to any shared memory most of the time. Metrics are only ordered per thread.
+     */
+    STRIPED
+}
@@ -1,5 +1,8 @@
 package com.statful.client.domain.api;
 
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.ScheduledExecutorService;
+
 /**
  * The Statful client configuration interface.
  */
@@ -204,16 +207,240 @@ public interface ClientConfiguration {
     int getSocketTimeoutMillis();
 
     /**
-     * Returns the maximum size of the queue with the worker tasks.
+     * Returns the maximum number of batches waiting for a worker. Flushes are deferred while the queue is full.
      *
      * @return Size as int
      */
     int getMaxWorkerTasksQueueSize();
 
     /**
-     * Returns the interval for killing hanging worker tasks.
+     * Returns how long a batch may wait for a worker before it's dropped as stale.
      *
      * @return Interval in milliseconds
      */
     long getWorkerTaskKillerInterval();
+
+    /**
+     * Returns if metrics should be pre-aggregated by the client before being sent, instead of being sent one by one.
+     * Only valid for transports that support aggregated metrics.
+     * Default is false.
+     *
+     * @return Pre-aggregation flag as boolean
+     */
+    boolean isPreAggregationEnabled();
+
+    /**
+     * Returns the strategy to buffer metrics before they're flushed.
+     * Default is {@link BufferStrategy#BLOCKING_QUEUE}.
+     *
+     * @return {@link BufferStrategy} to use to buffer the metrics
+     */
+    BufferStrategy getBufferStrategy();
+
+    /**
+     * Returns the policy to handle metrics put while the buffer is full.
+     * Default is {@link OverflowPolicy#DROP_NEWEST}.
+     *
+     * @return {@link OverflowPolicy} to apply when the buffer is full
+     */
+    OverflowPolicy getOverflowPolicy();
+
+    /**
+     * Returns how long to wait for room in a full buffer when using {@link OverflowPolicy#BLOCK}.
+     * Default is 100.
+     *
+     * @return Timeout in milliseconds
+     */
+    long getOverflowBlockTimeoutMillis();
+
+    /**
+     * Returns the N in the one in every N metrics kept when using {@link OverflowPolicy#SAMPLE}.
+     * Default is 10.
+     *
+     * @return The overflow sample rate
+     */
+    int getOverflowSampleRate();
+
+    /**
+     * Returns if the client should send its own statistics as metrics, under the statful_client namespace.
+     * Default is false.
+     *
+     * @return Self-metrics flag as boolean
+     */
+    boolean isSelfMetricsEnabled();
+
+    /**
+     * Returns if the client should register a management bean in the platform MBean server, exposing its statistics
+     * and allowing to tune it at runtime.
+     * Default is false.
+     *
+     * @return JMX flag as boolean
+     */
+    boolean isJmxEnabled();
+
+    /**
+     * Returns the maximum payload size of each UDP datagram, in bytes. Batches of metrics are packed into datagrams
+     * up to this size without splitting any metric.
+     * Default is 1432, which fits a standard 1500 bytes Ethernet MTU.
+     *
+     * @return UDP maximum payload size as int
+     */
+    int getUdpMaxPayloadSize();
+
+    /**
+     * Returns the interval between resolutions of the host by the UDP transports, so that metrics follow the host
+     * when it moves to another address. Zero resolves the host only once.
+     * Default is 30000.
+     *
+     * @return DNS refresh interval in milliseconds as long
+     */
+    long getDnsRefreshIntervalMillis();
+
+    /**
+     * Returns how the UDP transports choose where to send metrics when the host resolves to several addresses.
+     * Default is {@link AddressSelection#FIRST}.
+     *
+     * @return The {@link AddressSelection}
+     */
+    AddressSelection getAddressSelection();
+
+    /**
+     * Returns the maximum size of the request bodies in flight of the non-blocking HTTP transport, in bytes. Sending
+     * waits for room up to the socket timeout once it's reached.
+     * Default is 4194304.
+     *
+     * @return HTTP maximum bytes in flight as int
+     */
+    int getHttpMaxInFlightBytes();
+
+    /**
+     * Returns if the HTTP transports should gzip the request bodies of at least the compression minimum size.
+     * Default is false.
+     *
+     * @return HTTP compression flag as boolean
+     */
+    boolean isHttpCompressionEnabled();
+
+    /**
+     * Returns the minimum size of the request bodies the HTTP transports compress, in bytes. Smaller bodies are sent
+     * uncompressed, since compressing them saves too little to pay off.
+     * Default is 1024.
+     *
+     * @return HTTP compression minimum size in bytes as int
+     */
+    int getHttpCompressionMinBytes();
+
+    /**
+     * Returns the maximum number of times the HTTP transport retries a request which failed with a timeout, a
+     * connection error, too many requests or a server error.
+     * Default is 2.
+     *
+     * @return HTTP maximum retries as int
+     */
+    int getHttpMaxRetries();
+
+    /**
+     * Returns the backoff before the first retry of a request, in milliseconds. It's doubled for each further retry,
+     * and the actual delay is a random one up to the backoff.
+     * Default is 100.
+     *
+     * @return HTTP retry backoff in milliseconds as long
+     */
+    long getHttpRetryBackoffMillis();
+
+    /**
+     * Returns the maximum number of retries per second of the HTTP transport, across every request, so that an API
+     * outage doesn't multiply the requests sent to it.
+     * Default is 10.
+     *
+     * @return HTTP retry budget per second as int
+     */
+    int getHttpRetryBudgetPerSecond();
+
+    /**
+     * Returns the number of consecutive failed sends which opens the circuit breaker around the transport, so that
+     * metrics are dropped instead of waiting for a failing destination. Zero disables the circuit breaker.
+     * Default is 0.
+     *
+     * @return Circuit breaker failure threshold as int
+     */
+    int getCircuitBreakerThreshold();
+
+    /**
+     * Returns how long the circuit breaker stays open before letting a probe through, in milliseconds.
+     * Default is 10000.
+     *
+     * @return Circuit breaker open interval in milliseconds as long
+     */
+    long getCircuitBreakerOpenMillis();
+
+    /**
+     * Returns the directory of the spool which keeps metrics on disk while the transport is failing, to send them once
+     * it recovers. The spool requires the circuit breaker, which is enabled with a threshold of 5 if it isn't.
+     * Default is null, which disables the spool.
+     *
+     * @return Spool directory as String
+     */
+    String getSpoolDirectory();
+
+    /**
+     * Returns the maximum total size of the spool files, in bytes. Once full, the oldest metrics are dropped.
+     * Default is 67108864.
+     *
+     * @return Spool maximum size in bytes as long
+     */
+    long getSpoolMaxBytes();
+
+    /**
+     * Returns when the spool files are flushed to the disk.
+     * Default is ON_ROTATE.
+     *
+     * @return Spool sync policy as {@link SpoolSyncPolicy}
+     */
+    SpoolSyncPolicy getSpoolSyncPolicy();
+
+    /**
+     * Returns if metrics should be sent on virtual threads, one per batch, instead of on the workers pool. Only
+     * effective on Java 21 and later, falling back to the workers pool otherwise.
+     * Default is false.
+     *
+     * @return Virtual threads flag as boolean
+     */
+    boolean isVirtualThreadsEnabled();
+
+    /**
+     * Returns the maximum number of batches sent concurrently on virtual threads.
+     * Default is 64.
+     *
+     * @return Virtual threads maximum concurrency as int
+     */
+    int getVirtualThreadsMaxConcurrency();
+
+    /**
+     * Returns the scheduler running the periodic tasks of the client, such as flushes, which may be shared by several
+     * clients. It isn't shut down with the client.
+     * Default is null, which makes each client create its own single daemon thread.
+     *
+     * @return Scheduler as {@link ScheduledExecutorService}
+     */
+    ScheduledExecutorService getScheduler();
+
+    /**
+     * Returns the executor running the sender workers, up to {@code workersPoolSize} at once, which may be shared by
+     * several clients. It isn't shut down with the client.
+     * Default is null, which makes each client create its own pool of daemon threads.
+     *
+     * @return Worker executor as {@link ExecutorService}
+     */
+    ExecutorService getWorkerExecutor();
+
+    /**
+     * Returns if flushes should be scheduled according to the arrival rate of metrics, aiming for batches of
+     * {@code flushSize} metrics, larger under heavy load, and waiting at most {@code flushIntervalMillis} for them.
+     * Buffers aren't checked for a full batch on every put.
+     * Default is false.
+     *
+     * @return Adaptive flush flag as boolean
+     */
+    boolean isAdaptiveFlushEnabled();
 }
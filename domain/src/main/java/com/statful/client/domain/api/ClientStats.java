@@ -0,0 +1,48 @@
+package com.statful.client.domain.api;
+
+import java.util.Collections;
+import java.util.Map;
+import java.util.TreeMap;
+
+/**
+ * A point in time snapshot of the internal statistics of the client, such as buffer depths, dropped metrics or sent
+ * bytes, identified by name.
+ */
+public final class ClientStats {
+
+    private final Map<String, Long> values;
+
+    /**
+     * Default constructor.
+     *
+     * @param values The statistics values by name
+     */
+    public ClientStats(final Map<String, Long> values) {
+        this.values = Collections.unmodifiableMap(new TreeMap<String, Long>(values));
+    }
+
+    /**
+     * Returns every statistic, sorted by name.
+     *
+     * @return An unmodifiable {@link Map} with the statistics values by name
+     */
+    public Map<String, Long> getValues() {
+        return values;
+    }
+
+    /**
+     * Returns the value of a statistic.
+     *
+     * @param name The name of the statistic
+     * @return The value of the statistic, or 0 if there's no statistic with that name
+     */
+    public long getValue(final String name) {
+        Long value = values.get(name);
+        return value != null ? value : 0;
+    }
+
+    @Override
+    public String toString() {
+        return values.toString();
+    }
+}
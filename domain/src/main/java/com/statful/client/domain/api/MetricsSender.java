@@ -1,5 +1,7 @@
 package com.statful.client.domain.api;
 
+import java.util.concurrent.TimeUnit;
+
 /**
  * Interface that represents the metrics sender to Statful.
  */
@@ -35,6 +37,74 @@ public interface MetricsSender {
     void aggregatedPut(String name, String value, Tags tags, Aggregation aggregation, AggregationFrequency aggregationFrequency,
                        Integer sampleRate, String namespace, long timestamp);
 
+    /**
+     * Puts a metric to be ready to sent to Statful. This can be done immediately, or by an asynchronous flush mechanism.
+     *
+     * @param name The name of the metric
+     * @param value The value of the metric, formatted only when the metric is serialized
+     * @param tags A {@link Tags} the tags to be associated with the metric
+     * @param aggregations {@link Aggregations} with aggregations of the metric
+     * @param aggregationFrequency {@link AggregationFrequency} of the metric
+     * @param sampleRate The metrics sample rate
+     * @param namespace The namespace of the metric
+     * @param timestamp The timestamp associated with the metric
+     */
+    void put(String name, long value, Tags tags, Aggregations aggregations, AggregationFrequency aggregationFrequency,
+             Integer sampleRate, String namespace, long timestamp);
+
+    /**
+     * Puts a metric to be ready to sent to Statful. This can be done immediately, or by an asynchronous flush mechanism.
+     *
+     * @param name The name of the metric
+     * @param value The value of the metric, formatted only when the metric is serialized
+     * @param tags A {@link Tags} the tags to be associated with the metric
+     * @param aggregations {@link Aggregations} with aggregations of the metric
+     * @param aggregationFrequency {@link AggregationFrequency} of the metric
+     * @param sampleRate The metrics sample rate
+     * @param namespace The namespace of the metric
+     * @param timestamp The timestamp associated with the metric
+     */
+    void put(String name, double value, Tags tags, Aggregations aggregations, AggregationFrequency aggregationFrequency,
+             Integer sampleRate, String namespace, long timestamp);
+
+    /**
+     * Puts a metric to be ready to sent to Statful. This can be done immediately, or by an asynchronous flush mechanism.
+     *
+     * @param name The name of the metric
+     * @param value The value of the metric, formatted only when the metric is serialized
+     * @param tags A {@link Tags} the tags to be associated with the metric
+     * @param aggregation A {@link Aggregation} aggregation of the metric
+     * @param aggregationFrequency A {@link AggregationFrequency} aggregation frequency of the metric
+     * @param sampleRate The metrics sample rate
+     * @param namespace The namespace of the metric
+     * @param timestamp The timestamp associated with the metric
+     */
+    void aggregatedPut(String name, long value, Tags tags, Aggregation aggregation, AggregationFrequency aggregationFrequency,
+                       Integer sampleRate, String namespace, long timestamp);
+
+    /**
+     * Puts a metric to be ready to sent to Statful. This can be done immediately, or by an asynchronous flush mechanism.
+     *
+     * @param name The name of the metric
+     * @param value The value of the metric, formatted only when the metric is serialized
+     * @param tags A {@link Tags} the tags to be associated with the metric
+     * @param aggregation A {@link Aggregation} aggregation of the metric
+     * @param aggregationFrequency A {@link AggregationFrequency} aggregation frequency of the metric
+     * @param sampleRate The metrics sample rate
+     * @param namespace The namespace of the metric
+     * @param timestamp The timestamp associated with the metric
+     */
+    void aggregatedPut(String name, double value, Tags tags, Aggregation aggregation, AggregationFrequency aggregationFrequency,
+                       Integer sampleRate, String namespace, long timestamp);
+
+    /**
+     * Returns a snapshot of the internal statistics of the sender, such as buffer depths, dropped metrics or
+     * rejected send tasks.
+     *
+     * @return A {@link ClientStats} snapshot
+     */
+    ClientStats getStats();
+
     /**
      * Forces synchronous flush of metrics. This method blocks the caller.
      */
@@ -42,6 +112,17 @@ public interface MetricsSender {
 
     /**
      * Shutdowns the metrics sender. This typically means releasing resources or stopping flush mechanism.
+     * Metrics still buffered or being sent may be lost, use {@link #shutdown(long, TimeUnit)} to wait for them.
      */
     void shutdown();
+
+    /**
+     * Shutdowns the metrics sender gracefully. Stops accepting metrics, sends the buffered ones and waits for them to
+     * be sent, up to the given timeout, before releasing resources.
+     *
+     * @param timeout The maximum time to wait for the buffered metrics to be sent
+     * @param unit The {@link TimeUnit} of the timeout
+     * @return The number of metrics lost, either not sent before the timeout or put during the shutdown
+     */
+    long shutdown(long timeout, TimeUnit unit);
 }
@@ -0,0 +1,28 @@
+package com.statful.client.domain.api;
+
+/**
+ * Supported policies to handle metrics put while the buffer is full.
+ */
+public enum OverflowPolicy {
+
+    /**
+     * Drops the metric being put.
+     */
+    DROP_NEWEST,
+
+    /**
+     * Drops the oldest metric in the buffer to make room for the metric being put.
+     */
+    DROP_OLDEST,
+
+    /**
+     * Waits for room in the buffer up to a timeout, dropping the metric being put if there's still none.
+     */
+    BLOCK,
+
+    /**
+     * Keeps only one in every N metrics once the buffer goes above its high-water mark, dropping the metric being put
+     * if the buffer is still full.
+     */
+    SAMPLE
+}
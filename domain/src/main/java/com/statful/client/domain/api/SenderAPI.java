@@ -28,6 +28,22 @@ public interface SenderAPI {
      */
     SenderAPI value(final String value);
 
+    /**
+     * Sets the metric value. The value is only formatted when the metric is serialized.
+     *
+     * @param value The value as long
+     * @return A reference to this builder
+     */
+    SenderAPI value(final long value);
+
+    /**
+     * Sets the metric value. The value is only formatted when the metric is serialized.
+     *
+     * @param value The value as double
+     * @return A reference to this builder
+     */
+    SenderAPI value(final double value);
+
     /**
      * Sets the Statful {@link ClientConfiguration} to use.
      *
@@ -0,0 +1,23 @@
+package com.statful.client.domain.api;
+
+/**
+ * Supported ways of flushing the spool of metrics kept during transport outages to the disk.
+ */
+public enum SpoolSyncPolicy {
+
+    /**
+     * Leaves flushing to the operating system, which survives a crash of the process but not of the host.
+     */
+    NEVER,
+
+    /**
+     * Flushes each segment file when it's full, so that at most the metrics of the current segment are lost if the
+     * host crashes.
+     */
+    ON_ROTATE,
+
+    /**
+     * Flushes every batch as soon as it's spooled, which is the most durable but the slowest.
+     */
+    ALWAYS
+}
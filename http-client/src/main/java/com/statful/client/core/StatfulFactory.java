@@ -3,7 +3,9 @@ package com.statful.client.core;
 import com.statful.client.core.api.StatfulClientBuilder;
 import com.statful.client.core.transport.TransportSender;
 import com.statful.client.domain.api.ClientConfiguration;
+import com.statful.client.transport.AsyncHTTPSender;
 import com.statful.client.transport.HTTPSender;
+import com.statful.client.transport.RetryPolicy;
 import com.statful.client.transport.SSLClientFactory;
 
 import static com.statful.client.domain.api.Transport.HTTP;
@@ -14,6 +16,7 @@ import static com.statful.client.domain.api.Transport.HTTP;
 public final class StatfulFactory {
 
     private static HTTPClientFactory httpClientFactory = new HTTPClientFactory();
+    private static AsyncHTTPClientFactory asyncHttpClientFactory = new AsyncHTTPClientFactory();
 
     private StatfulFactory() { }
 
@@ -26,6 +29,16 @@ public final class StatfulFactory {
         return httpClientFactory.buildClient();
     }
 
+    /**
+     * Instantiates a new {@link com.statful.client.core.api.StatfulClientBuilder} to use HTTP protocol through a
+     * non-blocking client, which keeps many requests in flight without a worker thread waiting for each.
+     *
+     * @return A Statful client builder, ready for configure or bootstrap
+     */
+    public static StatfulClientBuilder buildAsyncHTTPClient() {
+        return asyncHttpClientFactory.buildClient();
+    }
+
     /**
      * Private HTTP client factory.
      */
@@ -38,7 +51,9 @@ public final class StatfulFactory {
         @Override
         protected TransportSender buildTransportSender(final ClientConfiguration configuration) {
             SSLClientFactory clientFactory = buildHTTPClientFactory(configuration);
-            return new HTTPSender(configuration.isSecure(), configuration.getHost(), configuration.getPort(), clientFactory);
+            RetryPolicy retryPolicy = new RetryPolicy(configuration.getHttpMaxRetries(), configuration.getHttpRetryBackoffMillis(),
+                    configuration.getHttpRetryBudgetPerSecond());
+            return new HTTPSender(configuration.isSecure(), configuration.getHost(), configuration.getPort(), clientFactory, retryPolicy);
         }
 
         private static SSLClientFactory buildHTTPClientFactory(final ClientConfiguration configuration) {
@@ -46,8 +61,27 @@ public final class StatfulFactory {
                     configuration.getConnectionPoolSize(),
                     configuration.getConnectTimeoutMillis(),
                     configuration.getSocketTimeoutMillis(),
-                    configuration.getToken()
+                    configuration.getToken(),
+                    configuration.isHttpCompressionEnabled(),
+                    configuration.getHttpCompressionMinBytes()
             );
         }
     }
+
+    /**
+     * Private non-blocking HTTP client factory.
+     */
+    private static class AsyncHTTPClientFactory extends CustomStatfulFactory {
+
+        protected AsyncHTTPClientFactory() {
+            super(HTTP);
+        }
+
+        @Override
+        protected TransportSender buildTransportSender(final ClientConfiguration configuration) {
+            SSLClientFactory clientFactory = HTTPClientFactory.buildHTTPClientFactory(configuration);
+            return new AsyncHTTPSender(configuration.isSecure(), configuration.getHost(), configuration.getPort(), clientFactory,
+                    configuration.getHttpMaxInFlightBytes(), configuration.getSocketTimeoutMillis());
+        }
+    }
 }
@@ -0,0 +1,328 @@
+package com.statful.client.transport;
+
+import com.statful.client.core.diagnostics.Diagnostics;
+import com.statful.client.core.stats.StatsCounter;
+import com.statful.client.core.stats.StatsGauge;
+import com.statful.client.core.stats.StatsRegistry;
+import com.statful.client.core.stats.StatsSource;
+import com.statful.client.core.transport.ApiUriFactory;
+import com.statful.client.core.transport.BoundedShutdownTransportSender;
+import com.statful.client.core.transport.FailedMessageListener;
+import com.statful.client.core.transport.ListenableTransportSender;
+import com.statful.client.core.transport.TransportListener;
+import org.apache.http.HttpResponse;
+import org.apache.http.StatusLine;
+import org.apache.http.client.methods.HttpPut;
+import org.apache.http.concurrent.FutureCallback;
+import org.apache.http.impl.nio.client.CloseableHttpAsyncClient;
+
+import java.io.UnsupportedEncodingException;
+import java.util.concurrent.Semaphore;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.logging.Logger;
+
+/**
+ * This class is an implementation of {@link com.statful.client.core.transport.TransportSender} to send metrics
+ * using HTTP or HTTPS through a non-blocking client.
+ * <p>
+ * Sending a message only hands the request to the client's I/O reactor, so the worker threads don't wait for the
+ * responses and many requests are kept in flight over the pooled keep-alive connections. Responses are handled by
+ * callbacks on the I/O threads.
+ * <p>
+ * The bytes in flight are bounded: once the request bodies not yet answered reach the limit, sending waits for room
+ * up to the timeout and then drops the message, which pushes back on the worker tasks queue instead of buffering
+ * requests without bound.
+ * <p>
+ * Responses other than 2xx, such as a rejected token, are counted as errors and reported as failures to the
+ * {@link TransportListener}, as are requests which fail with an I/O error.
+ * <p>
+ * Shutting down waits for the requests in flight up to the timeout, or up to the time left by a graceful shutdown of
+ * the client, and reports the metrics of the ones still unanswered as lost.
+ */
+public class AsyncHTTPSender implements ListenableTransportSender, BoundedShutdownTransportSender, StatsSource {
+
+    private static final Logger LOGGER = Logger.getLogger(AsyncHTTPSender.class.getName());
+    private static final Diagnostics DIAGNOSTICS = new Diagnostics(LOGGER);
+    private static final int HTTP_CREATED = 201;
+    private static final int HTTP_SUCCESS_CLASS = 2;
+    private static final int HTTP_STATUS_CLASS_DIVIDER = 100;
+    private static final int HTTP_STATUS_CLASSES = 6;
+
+    private final String uri;
+    private final HTTPAsyncClientFactory clientFactory;
+    private final int maxInFlightBytes;
+    private final long timeoutMillis;
+    private final Semaphore inFlightBytes;
+    private final AtomicInteger inFlightRequests = new AtomicInteger();
+    private final AtomicLong inFlightMetrics = new AtomicLong();
+
+    private final StatsCounter requests = new StatsCounter();
+    private final StatsCounter errors = new StatsCounter();
+    private final StatsCounter rejected = new StatsCounter();
+    private final StatsCounter latencyMillis = new StatsCounter();
+    private final StatsCounter[] responsesByStatusClass = new StatsCounter[HTTP_STATUS_CLASSES];
+
+    private CloseableHttpAsyncClient httpClient;
+    private volatile TransportListener listener;
+
+    /**
+     * Default constructor.
+     *
+     * @param secure Flag to send the message securely, weather using HTTP or HTTPS.
+     * @param host The Statful API host
+     * @param port The Staful API port
+     * @param clientFactory The non-blocking HTTP client factory to use in this sender
+     * @param maxInFlightBytes The maximum size of the request bodies in flight, in bytes
+     * @param timeoutMillis How long to wait for room when too many bytes are in flight, and for the requests in
+     *                      flight when shutting down without a timeout, in milliseconds
+     */
+    public AsyncHTTPSender(final boolean secure, final String host, final Integer port, final HTTPAsyncClientFactory clientFactory,
+                           final int maxInFlightBytes, final long timeoutMillis) {
+        if (maxInFlightBytes < 1) {
+            throw new IllegalArgumentException("The maximum bytes in flight should be positive");
+        }
+
+        this.uri = ApiUriFactory.buildUri(secure, host, port);
+        this.clientFactory = clientFactory;
+        this.maxInFlightBytes = maxInFlightBytes;
+        this.timeoutMillis = timeoutMillis;
+        this.inFlightBytes = new Semaphore(maxInFlightBytes);
+        for (int i = 1; i < HTTP_STATUS_CLASSES; i++) {
+            responsesByStatusClass[i] = new StatsCounter();
+        }
+
+        try {
+            this.httpClient = clientFactory.createHttpAsyncClient();
+            if (httpClient != null) {
+                httpClient.start();
+            }
+        } catch (Exception e) {
+            LOGGER.severe("Unable to instantiate HTTP client: " + e.toString());
+        }
+    }
+
+    @Override
+    public final void send(final String message) {
+        doHttpRequest(uri, message);
+    }
+
+    @Override
+    public final void send(final String message, final String uri) {
+        doHttpRequest(uri, message);
+    }
+
+    private void doHttpRequest(final String uri, final String message) {
+        if (httpClient == null) {
+            errors.increment();
+            DIAGNOSTICS.warning("Unable to send metric. No http client was instantiated.");
+            reportFailure(message, uri);
+            return;
+        }
+
+        HttpPut httpPut;
+        try {
+            httpPut = clientFactory.createHttpPut(uri, message);
+        } catch (UnsupportedEncodingException e) {
+            errors.increment();
+            DIAGNOSTICS.severe("Unable to send metric", e);
+            return;
+        }
+
+        final int permits = permitsFor(httpPut);
+        final int metrics = countMetrics(message);
+        if (!acquire(permits)) {
+            rejected.increment();
+            DIAGNOSTICS.warning("Unable to send metric, too many bytes in flight. Please increase the maximum bytes in flight.");
+            reportFailure(message, uri);
+            return;
+        }
+
+        inFlightRequests.incrementAndGet();
+        inFlightMetrics.addAndGet(metrics);
+        final long start = System.currentTimeMillis();
+        try {
+            httpClient.execute(httpPut, new FutureCallback<HttpResponse>() {
+                @Override
+                public void completed(final HttpResponse response) {
+                    try {
+                        StatusLine statusLine = response.getStatusLine();
+                        recordResponse(statusLine, start);
+
+                        if (statusLine.getStatusCode() != HTTP_CREATED) {
+                            DIAGNOSTICS.warning("Unable to send metric, unexpected response", statusLine);
+                        }
+                        if (isSuccessful(statusLine.getStatusCode())) {
+                            reportSuccess(message, uri);
+                        } else {
+                            errors.increment();
+                            reportFailure(message, uri);
+                        }
+                    } finally {
+                        release(permits, metrics);
+                    }
+                }
+
+                @Override
+                public void failed(final Exception e) {
+                    errors.increment();
+                    DIAGNOSTICS.severe("Unable to send metric", e);
+                    release(permits, metrics);
+                    reportFailure(message, uri);
+                }
+
+                @Override
+                public void cancelled() {
+                    errors.increment();
+                    DIAGNOSTICS.warning("Unable to send metric, request cancelled");
+                    release(permits, metrics);
+                    reportFailure(message, uri);
+                }
+            });
+        } catch (RuntimeException e) {
+            // The client refuses requests once it's shut down
+            errors.increment();
+            DIAGNOSTICS.severe("Unable to send metric", e);
+            release(permits, metrics);
+            reportFailure(message, uri);
+        }
+    }
+
+    private static boolean isSuccessful(final int statusCode) {
+        return statusCode / HTTP_STATUS_CLASS_DIVIDER == HTTP_SUCCESS_CLASS;
+    }
+
+    private void reportSuccess(final String message, final String uri) {
+        TransportListener current = listener;
+        if (current instanceof FailedMessageListener) {
+            ((FailedMessageListener) current).onSuccess(message, this.uri.equals(uri) ? null : uri);
+        } else if (current != null) {
+            current.onSuccess();
+        }
+    }
+
+    private void reportFailure(final String message, final String uri) {
+        TransportListener current = listener;
+        if (current instanceof FailedMessageListener) {
+            ((FailedMessageListener) current).onFailure(message, this.uri.equals(uri) ? null : uri);
+        } else if (current != null) {
+            current.onFailure();
+        }
+    }
+
+    private int permitsFor(final HttpPut httpPut) {
+        long contentLength = httpPut.getEntity() == null ? 0 : httpPut.getEntity().getContentLength();
+        return (int) Math.max(1, Math.min(contentLength, maxInFlightBytes));
+    }
+
+    private boolean acquire(final int permits) {
+        try {
+            return inFlightBytes.tryAcquire(permits, timeoutMillis, TimeUnit.MILLISECONDS);
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            return false;
+        }
+    }
+
+    private void release(final int permits, final int metrics) {
+        inFlightMetrics.addAndGet(-metrics);
+        inFlightRequests.decrementAndGet();
+        inFlightBytes.release(permits);
+    }
+
+    private static int countMetrics(final String message) {
+        int metrics = 0;
+        for (int i = 0; i < message.length(); i++) {
+            if (message.charAt(i) == '\n') {
+                metrics++;
+            }
+        }
+        // The last metric of a message may not end with a new line
+        return message.isEmpty() || message.charAt(message.length() - 1) == '\n' ? metrics : metrics + 1;
+    }
+
+    /**
+     * Waits for every request in flight to complete.
+     *
+     * @param timeoutMillis How long to wait, in milliseconds
+     * @return True if no request is in flight anymore
+     */
+    final boolean awaitCompletion(final long timeoutMillis) {
+        if (!acquireAll(timeoutMillis)) {
+            return false;
+        }
+        inFlightBytes.release(maxInFlightBytes);
+        return true;
+    }
+
+    private boolean acquireAll(final long timeoutMillis) {
+        try {
+            return inFlightBytes.tryAcquire(maxInFlightBytes, timeoutMillis, TimeUnit.MILLISECONDS);
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            return false;
+        }
+    }
+
+    @Override
+    public final void setTransportListener(final TransportListener listener) {
+        this.listener = listener;
+    }
+
+    @Override
+    public final void shutdown() {
+        shutdown(timeoutMillis, TimeUnit.MILLISECONDS);
+    }
+
+    @Override
+    public final long shutdown(final long timeout, final TimeUnit unit) {
+        long lost = 0;
+        if (!awaitCompletion(unit.toMillis(Math.max(0, timeout)))) {
+            lost = inFlightMetrics.get();
+            LOGGER.warning("Closing HTTP client with " + inFlightRequests.get() + " requests in flight.");
+        }
+
+        try {
+            if (httpClient != null) {
+                httpClient.close();
+            }
+        } catch (Exception e) {
+            LOGGER.warning("Unable to close HTTP client: " + e.toString());
+        }
+        return lost;
+    }
+
+    @Override
+    public final void registerStats(final StatsRegistry registry) {
+        registry.register("http.requests", requests);
+        registry.register("http.errors", errors);
+        registry.register("http.rejected", rejected);
+        registry.register("http.latency_millis", latencyMillis);
+        for (int i = 1; i < HTTP_STATUS_CLASSES; i++) {
+            registry.register("http.responses." + i + "xx", responsesByStatusClass[i]);
+        }
+        registry.register("http.in_flight_requests", new StatsGauge() {
+            @Override
+            public long getValue() {
+                return inFlightRequests.get();
+            }
+        });
+        registry.register("http.in_flight_bytes", new StatsGauge() {
+            @Override
+            public long getValue() {
+                return maxInFlightBytes - inFlightBytes.availablePermits();
+            }
+        });
+    }
+
+    private void recordResponse(final StatusLine statusLine, final long start) {
+        requests.increment();
+        latencyMillis.add(System.currentTimeMillis() - start);
+
+        int statusClass = statusLine.getStatusCode() / HTTP_STATUS_CLASS_DIVIDER;
+        if (statusClass > 0 && statusClass < HTTP_STATUS_CLASSES) {
+            responsesByStatusClass[statusClass].increment();
+        }
+    }
+}
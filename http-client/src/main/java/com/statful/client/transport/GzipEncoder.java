@@ -0,0 +1,193 @@
+package com.statful.client.transport;
+
+import com.statful.client.core.transport.ObjectPool;
+
+import java.io.FilterOutputStream;
+import java.io.IOException;
+import java.io.OutputStream;
+import java.util.Arrays;
+import java.util.zip.CRC32;
+import java.util.zip.Deflater;
+
+/**
+ * Compresses request bodies in the gzip format, either at once or streamed to an output stream.
+ * <p>
+ * {@link Deflater}s are reused from an {@link ObjectPool}, so the compression state isn't allocated, nor its native
+ * memory released, once per request. A pool is used instead of a {@link ThreadLocal} since the worker tasks may each
+ * run on a new virtual thread, which would create a new deflater for every request and leave its native memory to the
+ * garbage collector. Deflaters discarded by the full pool are ended right away.
+ * <p>
+ * The gzip header and trailer are written around the raw deflate output, which avoids the buffers and streams of
+ * {@link java.util.zip.GZIPOutputStream}.
+ * <p>
+ * Metric lines repeat the same names, tags and namespaces, so the fastest compression level already shrinks them
+ * by most of their size. Instances of this class are thread-safe.
+ */
+final class GzipEncoder {
+
+    private static final int GZIP_MAGIC_1 = 0x1f;
+    private static final int GZIP_MAGIC_2 = 0x8b;
+    private static final int OS_UNKNOWN = 0xff;
+    private static final byte[] HEADER = {
+            (byte) GZIP_MAGIC_1, (byte) GZIP_MAGIC_2, Deflater.DEFLATED, 0, 0, 0, 0, 0, 0, (byte) OS_UNKNOWN
+    };
+    private static final int TRAILER_SIZE = 8;
+    private static final int BYTE_BITS = 8;
+    private static final int BYTE_MASK = 0xff;
+    private static final int ESTIMATED_RATIO = 4;
+    private static final int MIN_OUTPUT_SIZE = 64;
+    private static final int STREAM_BUFFER_SIZE = 4096;
+
+    private static final int MAX_IDLE_DEFLATERS = 16;
+
+    private static final ObjectPool<Deflater> DEFLATERS = new ObjectPool<Deflater>(MAX_IDLE_DEFLATERS) {
+        @Override
+        protected Deflater create() {
+            return new Deflater(Deflater.BEST_SPEED, true);
+        }
+
+        @Override
+        protected void discard(final Deflater deflater) {
+            deflater.end();
+        }
+    };
+
+    private GzipEncoder() { }
+
+    /**
+     * Compresses a body.
+     *
+     * @param input The body to compress
+     * @return The gzip compressed body
+     */
+    static byte[] encode(final byte[] input) {
+        Deflater deflater = DEFLATERS.acquire();
+        try {
+            return encode(deflater, input);
+        } finally {
+            DEFLATERS.release(deflater);
+        }
+    }
+
+    private static byte[] encode(final Deflater deflater, final byte[] input) {
+        deflater.reset();
+        deflater.setInput(input);
+        deflater.finish();
+
+        byte[] output = new byte[Math.max(MIN_OUTPUT_SIZE, HEADER.length + input.length / ESTIMATED_RATIO + TRAILER_SIZE)];
+        System.arraycopy(HEADER, 0, output, 0, HEADER.length);
+        int length = HEADER.length;
+
+        while (!deflater.finished()) {
+            if (length == output.length - TRAILER_SIZE) {
+                output = Arrays.copyOf(output, output.length * 2);
+            }
+            length += deflater.deflate(output, length, output.length - TRAILER_SIZE - length);
+        }
+
+        CRC32 crc = new CRC32();
+        crc.update(input);
+        length = writeInt(output, length, (int) crc.getValue());
+        length = writeInt(output, length, input.length);
+
+        return length == output.length ? output : Arrays.copyOf(output, length);
+    }
+
+    /**
+     * Returns a stream which compresses everything written to it before writing it to the given stream. The stream
+     * holds a pooled {@link Deflater} until it's finished or released, so it should always be released once it's no
+     * longer used, even when writing to it fails.
+     *
+     * @param out The stream to write the compressed body to, which isn't closed when finishing
+     * @return The compressing stream
+     * @throws IOException If writing the gzip header fails
+     */
+    static GzipStream newStream(final OutputStream out) throws IOException {
+        return new GzipStream(out);
+    }
+
+    private static int writeInt(final byte[] output, final int offset, final int value) {
+        int position = offset;
+        for (int shift = 0; shift < Integer.SIZE; shift += BYTE_BITS) {
+            output[position++] = (byte) ((value >>> shift) & BYTE_MASK);
+        }
+        return position;
+    }
+
+    /**
+     * A stream which writes the gzip header, the deflated body and the trailer to another stream.
+     */
+    static final class GzipStream extends FilterOutputStream {
+
+        private Deflater deflater = DEFLATERS.acquire();
+        private final CRC32 crc = new CRC32();
+        private final byte[] buffer = new byte[STREAM_BUFFER_SIZE];
+        private int length;
+
+        private GzipStream(final OutputStream out) throws IOException {
+            super(out);
+            deflater.reset();
+            out.write(HEADER);
+        }
+
+        @Override
+        public void write(final int b) throws IOException {
+            write(new byte[] {(byte) b}, 0, 1);
+        }
+
+        @Override
+        public void write(final byte[] bytes, final int offset, final int count) throws IOException {
+            crc.update(bytes, offset, count);
+            length += count;
+            deflater.setInput(bytes, offset, count);
+            while (!deflater.needsInput()) {
+                deflate();
+            }
+        }
+
+        /**
+         * Compresses what's left and writes the trailer, without closing the underlying stream.
+         *
+         * @throws IOException If writing to the underlying stream fails
+         */
+        void finish() throws IOException {
+            deflater.finish();
+            while (!deflater.finished()) {
+                deflate();
+            }
+
+            int end = writeInt(buffer, 0, (int) crc.getValue());
+            end = writeInt(buffer, end, length);
+            out.write(buffer, 0, end);
+            release();
+        }
+
+        /**
+         * Returns the {@link Deflater} to the pool, after which nothing else can be written. Does nothing if it was
+         * already released.
+         */
+        void release() {
+            if (deflater != null) {
+                DEFLATERS.release(deflater);
+                deflater = null;
+            }
+        }
+
+        @Override
+        public void close() throws IOException {
+            try {
+                finish();
+            } finally {
+                release();
+                super.close();
+            }
+        }
+
+        private void deflate() throws IOException {
+            int count = deflater.deflate(buffer, 0, buffer.length);
+            if (count > 0) {
+                out.write(buffer, 0, count);
+            }
+        }
+    }
+}
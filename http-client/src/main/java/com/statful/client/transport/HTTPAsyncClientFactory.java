@@ -0,0 +1,31 @@
+package com.statful.client.transport;
+
+import org.apache.http.client.methods.HttpPut;
+import org.apache.http.impl.nio.client.CloseableHttpAsyncClient;
+
+import java.io.UnsupportedEncodingException;
+import java.security.GeneralSecurityException;
+
+/**
+ * Interface for factories to implement non-blocking HTTP clients and components.
+ */
+public interface HTTPAsyncClientFactory {
+
+    /**
+     * Creates a new non-blocking HTTP client to communicate with Statful, which isn't started yet.
+     *
+     * @return A closeable non-blocking HTTP client
+     * @throws GeneralSecurityException Thrown when SSL specific configurations fail
+     */
+    CloseableHttpAsyncClient createHttpAsyncClient() throws GeneralSecurityException;
+
+    /**
+     * Creates a new {@link HttpPut} object to be used to send PUT requests to the specified URI.
+     *
+     * @param uri The URI as a string
+     * @param body The message body as a string to send to Staful
+     * @return A newly created {@link HttpPut} object
+     * @throws UnsupportedEncodingException Thrown when the encoding isn't supported
+     */
+    HttpPut createHttpPut(final String uri, final String body) throws UnsupportedEncodingException;
+}
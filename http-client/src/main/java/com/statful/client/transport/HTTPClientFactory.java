@@ -5,6 +5,7 @@ import org.apache.http.impl.client.CloseableHttpClient;
 
 import java.io.UnsupportedEncodingException;
 import java.security.GeneralSecurityException;
+import java.util.List;
 
 /**
  * Interface for factories to implement HTTP clients and components.
@@ -28,4 +29,14 @@ public interface HTTPClientFactory {
      * @throws UnsupportedEncodingException Thrown when the encoding isn't supported
      */
     HttpPut createHttpPut(final String uri, final String body) throws UnsupportedEncodingException;
+
+    /**
+     * Creates a new {@link HttpPut} object to send metrics to the specified URI, with a body written straight from
+     * the metrics when the request is sent.
+     *
+     * @param uri The URI as a string
+     * @param metrics The metrics to send to Statful, without newlines
+     * @return A newly created {@link HttpPut} object
+     */
+    HttpPut createHttpPut(final String uri, final List<String> metrics);
 }
@@ -1,30 +1,71 @@
 package com.statful.client.transport;
 
+import com.statful.client.core.diagnostics.Diagnostics;
+import com.statful.client.core.stats.StatsCounter;
+import com.statful.client.core.stats.StatsRegistry;
+import com.statful.client.core.stats.StatsSource;
 import com.statful.client.core.transport.ApiUriFactory;
-import com.statful.client.core.transport.TransportSender;
+import com.statful.client.core.transport.BoundedShutdownTransportSender;
+import com.statful.client.core.transport.FailedMessageListener;
+import com.statful.client.core.transport.ListenableTransportSender;
+import com.statful.client.core.transport.StreamingTransportSender;
+import com.statful.client.core.transport.TransportListener;
 import org.apache.http.StatusLine;
 import org.apache.http.client.methods.CloseableHttpResponse;
+import org.apache.http.client.methods.HttpPut;
 import org.apache.http.impl.client.CloseableHttpClient;
 
 import java.io.IOException;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.locks.Condition;
+import java.util.concurrent.locks.ReentrantLock;
 import java.util.logging.Logger;
 
 /**
  * This class is an implementation of {@link com.statful.client.core.transport.TransportSender} to send metrics
  * using HTTP or HTTPS.
+ * <p>
+ * Flushed metrics are written straight to the connection as the request body, without being joined in a message.
+ * <p>
+ * Failed requests are retried on the calling thread according with a {@link RetryPolicy}, which bounds the retries
+ * of each request and of every request together. Requests which fail with a response other than 2xx, or with an I/O
+ * error, are counted as errors and reported as failures to the {@link TransportListener}, whether they're retried or
+ * would fail again, such as with a rejected token or a failed TLS handshake.
+ * <p>
+ * Shutting down gives up the retries waiting for their backoff, and waits for the requests being sent up to the
+ * timeout, or up to the time left by a graceful shutdown of the client, before closing the client.
  */
-public class HTTPSender implements TransportSender {
+public class HTTPSender implements StreamingTransportSender, ListenableTransportSender, BoundedShutdownTransportSender, StatsSource {
 
     private static final Logger LOGGER = Logger.getLogger(HTTPSender.class.getName());
+    private static final Diagnostics DIAGNOSTICS = new Diagnostics(LOGGER);
     private static final Integer HTTP_CREATED = 201;
+    private static final int HTTP_STATUS_CLASS_DIVIDER = 100;
+    private static final int HTTP_SUCCESS_CLASS = 2;
+    private static final int HTTP_STATUS_CLASSES = 6;
 
     private final String uri;
     private final HTTPClientFactory clientFactory;
+    private final RetryPolicy retryPolicy;
+    private final StatsCounter requests = new StatsCounter();
+    private final StatsCounter errors = new StatsCounter();
+    private final StatsCounter retries = new StatsCounter();
+    private final StatsCounter retriesDenied = new StatsCounter();
+    private final StatsCounter latencyMillis = new StatsCounter();
+    private final StatsCounter[] responsesByStatusClass = new StatsCounter[HTTP_STATUS_CLASSES];
+    private final AtomicInteger activeRequests = new AtomicInteger();
+    // A lock rather than a monitor, so that the sends waiting on virtual threads don't pin their carrier threads
+    private final ReentrantLock progressLock = new ReentrantLock();
+    private final Condition progress = progressLock.newCondition();
 
     private CloseableHttpClient httpClient;
+    private volatile boolean shutdown;
+    private volatile TransportListener listener;
 
     /**
-     * Default constructor.
+     * Default constructor, which doesn't retry failed requests.
      *
      * @param secure Flag to send the message securely, weather using HTTP or HTTPS.
      * @param host The Statful API host
@@ -32,8 +73,26 @@ public class HTTPSender implements TransportSender {
      * @param clientFactory The HTTP client factory to use in this sender
      */
     public HTTPSender(final boolean secure, final String host, final Integer port, final HTTPClientFactory clientFactory) {
+        this(secure, host, port, clientFactory, RetryPolicy.NONE);
+    }
+
+    /**
+     * Constructor.
+     *
+     * @param secure Flag to send the message securely, weather using HTTP or HTTPS.
+     * @param host The Statful API host
+     * @param port The Staful API port
+     * @param clientFactory The HTTP client factory to use in this sender
+     * @param retryPolicy The {@link RetryPolicy} to retry failed requests with
+     */
+    public HTTPSender(final boolean secure, final String host, final Integer port, final HTTPClientFactory clientFactory,
+                      final RetryPolicy retryPolicy) {
         this.uri = ApiUriFactory.buildUri(secure, host, port);
         this.clientFactory = clientFactory;
+        this.retryPolicy = retryPolicy;
+        for (int i = 1; i < HTTP_STATUS_CLASSES; i++) {
+            responsesByStatusClass[i] = new StatsCounter();
+        }
 
         try {
             this.httpClient = clientFactory.createHttpClient();
@@ -52,37 +111,212 @@ public class HTTPSender implements TransportSender {
         doHttpRequest(uri, message);
     }
 
+    @Override
+    public final void sendLines(final List<String> metrics) {
+        doHttpRequest(uri, metrics);
+    }
+
+    @Override
+    public final void sendLines(final List<String> metrics, final String uri) {
+        doHttpRequest(uri, metrics);
+    }
+
     private void doHttpRequest(final String uri, final String message) {
+        HttpPut httpPut;
+        try {
+            httpPut = clientFactory.createHttpPut(uri, message);
+        } catch (IOException e) {
+            errors.increment();
+            DIAGNOSTICS.severe("Unable to send metric", e);
+            return;
+        }
+
+        if (execute(httpPut)) {
+            reportSuccess(message, uri);
+        } else {
+            reportFailure(message, uri);
+        }
+    }
+
+    private void doHttpRequest(final String uri, final List<String> metrics) {
+        if (execute(clientFactory.createHttpPut(uri, metrics))) {
+            reportSuccess();
+        } else {
+            reportFailure(join(metrics), uri);
+        }
+    }
+
+    /**
+     * Sends a request, retrying it according to the retry policy.
+     *
+     * @return True if the request succeeded, false if it failed either permanently or after every retry
+     */
+    private boolean execute(final HttpPut httpPut) {
+        if (httpClient == null) {
+            errors.increment();
+            DIAGNOSTICS.warning("Unable to send metric. No http client was instantiated.");
+            return false;
+        }
+
+        activeRequests.incrementAndGet();
+        try {
+            int retry = 0;
+            Outcome outcome = attempt(httpPut);
+            while (outcome == Outcome.RETRYABLE_FAILURE && shouldRetry(retry)) {
+                retry++;
+                outcome = attempt(httpPut);
+            }
+            return outcome == Outcome.SUCCESS;
+        } finally {
+            if (activeRequests.decrementAndGet() == 0 && shutdown) {
+                progressLock.lock();
+                try {
+                    progress.signalAll();
+                } finally {
+                    progressLock.unlock();
+                }
+            }
+        }
+    }
+
+    private void reportSuccess() {
+        TransportListener current = listener;
+        if (current != null) {
+            current.onSuccess();
+        }
+    }
+
+    private void reportSuccess(final String message, final String uri) {
+        TransportListener current = listener;
+        if (current instanceof FailedMessageListener) {
+            ((FailedMessageListener) current).onSuccess(message, this.uri.equals(uri) ? null : uri);
+        } else if (current != null) {
+            current.onSuccess();
+        }
+    }
+
+    private void reportFailure(final String message, final String uri) {
+        TransportListener current = listener;
+        if (current instanceof FailedMessageListener) {
+            ((FailedMessageListener) current).onFailure(message, this.uri.equals(uri) ? null : uri);
+        } else if (current != null) {
+            current.onFailure();
+        }
+    }
+
+    private static String join(final List<String> metrics) {
+        StringBuilder sb = new StringBuilder();
+        for (String metric : metrics) {
+            sb.append(metric).append('\n');
+        }
+        return sb.toString();
+    }
+
+    /**
+     * Sends a request once.
+     *
+     * @return The {@link Outcome} of the request
+     */
+    private Outcome attempt(final HttpPut httpPut) {
         CloseableHttpResponse response = null;
 
         try {
-            if (httpClient != null) {
-                response = httpClient.execute(clientFactory.createHttpPut(uri, message));
-                StatusLine statusLine = response.getStatusLine();
+            long start = System.currentTimeMillis();
+            response = httpClient.execute(httpPut);
+            StatusLine statusLine = response.getStatusLine();
+            recordResponse(statusLine, start);
 
-                if (metricNotCreated(statusLine)) {
-                    LOGGER.warning("Unable to send metric. Reason: "
-                            + statusLine.getReasonPhrase() + ", status: "
-                            + statusLine.getStatusCode());
-                }
-            } else {
-                LOGGER.warning("Unable to send metric. No http client was instantiated.");
+            if (metricNotCreated(statusLine)) {
+                DIAGNOSTICS.warning("Unable to send metric, unexpected response", statusLine);
+            }
+            if (isSuccessful(statusLine.getStatusCode())) {
+                return Outcome.SUCCESS;
             }
+
+            errors.increment();
+            return retryPolicy.isRetryable(statusLine.getStatusCode()) ? Outcome.RETRYABLE_FAILURE : Outcome.PERMANENT_FAILURE;
         } catch (IOException e) {
-            LOGGER.severe("Unable to send metric: " + e.toString());
+            errors.increment();
+            DIAGNOSTICS.severe("Unable to send metric", e);
+            return retryPolicy.isRetryable(e) ? Outcome.RETRYABLE_FAILURE : Outcome.PERMANENT_FAILURE;
         } finally {
             try {
                 if (response != null) {
                     response.close();
                 }
             } catch (Exception e) {
-                LOGGER.warning("Unable to close response resource: " + e.toString());
+                DIAGNOSTICS.warning("Unable to close response resource", e);
             }
         }
     }
 
+    private boolean shouldRetry(final int retry) {
+        if (retry >= retryPolicy.getMaxRetries() || shutdown) {
+            return false;
+        }
+
+        if (!retryPolicy.tryAcquireRetry()) {
+            retriesDenied.increment();
+            DIAGNOSTICS.warning("Unable to retry metric, the retry budget is exhausted");
+            return false;
+        }
+
+        if (!awaitBackoff(retryPolicy.backoffMillis(retry))) {
+            return false;
+        }
+
+        retries.increment();
+        return true;
+    }
+
+    /**
+     * Waits for the backoff of a retry, unless the sender is shut down meanwhile.
+     *
+     * @return True if the request should still be retried
+     */
+    private boolean awaitBackoff(final long backoffMillis) {
+        long remainingNanos = TimeUnit.MILLISECONDS.toNanos(backoffMillis);
+        progressLock.lock();
+        try {
+            while (!shutdown && remainingNanos > 0) {
+                remainingNanos = progress.awaitNanos(remainingNanos);
+            }
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            return false;
+        } finally {
+            progressLock.unlock();
+        }
+        return !shutdown;
+    }
+
+    @Override
+    public final void setTransportListener(final TransportListener listener) {
+        this.listener = listener;
+    }
+
     @Override
     public final void shutdown() {
+        shutdown(0, TimeUnit.MILLISECONDS);
+    }
+
+    @Override
+    public final long shutdown(final long timeout, final TimeUnit unit) {
+        shutdown = true;
+        long remainingNanos = unit.toNanos(Math.max(0, timeout));
+        progressLock.lock();
+        try {
+            // Wakes up the retries waiting for their backoff
+            progress.signalAll();
+            while (activeRequests.get() > 0 && remainingNanos > 0) {
+                remainingNanos = progress.awaitNanos(remainingNanos);
+            }
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        } finally {
+            progressLock.unlock();
+        }
+
         try {
             if (httpClient != null) {
                 httpClient.close();
@@ -90,9 +324,55 @@ public class HTTPSender implements TransportSender {
         } catch (Exception e) {
             LOGGER.warning("Unable to close HTTP client: " + e.toString());
         }
+        // Requests are sent on the calling threads, which count the metrics of the ones still being sent
+        return 0;
+    }
+
+    @Override
+    public final void registerStats(final StatsRegistry registry) {
+        registry.register("http.requests", requests);
+        registry.register("http.errors", errors);
+        registry.register("http.retries", retries);
+        registry.register("http.retries_denied", retriesDenied);
+        registry.register("http.latency_millis", latencyMillis);
+        for (int i = 1; i < HTTP_STATUS_CLASSES; i++) {
+            registry.register("http.responses." + i + "xx", responsesByStatusClass[i]);
+        }
+    }
+
+    private void recordResponse(final StatusLine statusLine, final long start) {
+        requests.increment();
+        latencyMillis.add(System.currentTimeMillis() - start);
+
+        int statusClass = statusLine.getStatusCode() / HTTP_STATUS_CLASS_DIVIDER;
+        if (statusClass > 0 && statusClass < HTTP_STATUS_CLASSES) {
+            responsesByStatusClass[statusClass].increment();
+        }
     }
 
     private boolean metricNotCreated(final StatusLine statusLine) {
         return HTTP_CREATED != statusLine.getStatusCode();
     }
+
+    private static boolean isSuccessful(final int statusCode) {
+        return statusCode / HTTP_STATUS_CLASS_DIVIDER == HTTP_SUCCESS_CLASS;
+    }
+
+    /**
+     * The outcome of a single request.
+     */
+    private enum Outcome {
+        /**
+         * The destination accepted the metrics.
+         */
+        SUCCESS,
+        /**
+         * The request failed, and may succeed when retried.
+         */
+        RETRYABLE_FAILURE,
+        /**
+         * The request failed, and would fail again if retried, such as a rejected token or a failed TLS handshake.
+         */
+        PERMANENT_FAILURE
+    }
 }
@@ -0,0 +1,127 @@
+package com.statful.client.transport;
+
+import org.apache.http.entity.AbstractHttpEntity;
+import org.apache.http.entity.ContentType;
+
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.util.List;
+
+/**
+ * A request body which writes newline-delimited metrics straight from the list drained from a buffer.
+ * <p>
+ * The metrics are encoded a few kilobytes at a time while being written to the connection, optionally through the
+ * gzip stage, so the body is never joined in a string nor encoded as a whole. The encoding is the same as the one of
+ * {@link org.apache.http.entity.StringEntity} by default, ISO-8859-1.
+ * <p>
+ * Uncompressed bodies have a known length. Compressed ones are sent with chunked transfer encoding, since their
+ * length is only known once written.
+ */
+final class MetricLinesEntity extends AbstractHttpEntity {
+
+    private static final int BUFFER_SIZE = 4096;
+    private static final char MAX_ISO_8859_1_CHAR = 0xff;
+    private static final byte UNMAPPABLE = '?';
+    private static final byte NEWLINE = '\n';
+
+    private final List<String> metrics;
+    private final boolean compressed;
+    private final long contentLength;
+
+    /**
+     * Default constructor.
+     *
+     * @param metrics The metrics to write, without newlines
+     * @param compressionEnabled Flag to gzip the body if it's at least the compression minimum size
+     * @param compressionMinBytes The minimum size of the bodies to compress, in bytes
+     */
+    MetricLinesEntity(final List<String> metrics, final boolean compressionEnabled, final int compressionMinBytes) {
+        this.metrics = metrics;
+
+        long length = 0;
+        for (String metric : metrics) {
+            length += metric.length() + 1;
+        }
+
+        this.compressed = compressionEnabled && length >= compressionMinBytes;
+        this.contentLength = compressed ? -1 : length;
+        setContentType(ContentType.DEFAULT_TEXT.toString());
+        if (compressed) {
+            setContentEncoding("gzip");
+            setChunked(true);
+        }
+    }
+
+    @Override
+    public boolean isRepeatable() {
+        return true;
+    }
+
+    @Override
+    public long getContentLength() {
+        return contentLength;
+    }
+
+    /**
+     * Returns the body as a stream. Only meant for consumers which read the body instead of writing it, since it
+     * encodes the whole body in memory.
+     *
+     * @return The body
+     * @throws IOException Never, since the body is written in memory
+     */
+    @Override
+    public InputStream getContent() throws IOException {
+        ByteArrayOutputStream out = new ByteArrayOutputStream(contentLength > 0 ? (int) contentLength : BUFFER_SIZE);
+        writeTo(out);
+        return new ByteArrayInputStream(out.toByteArray());
+    }
+
+    @Override
+    public void writeTo(final OutputStream outStream) throws IOException {
+        if (!compressed) {
+            writeLines(outStream);
+            return;
+        }
+
+        GzipEncoder.GzipStream gzipStream = GzipEncoder.newStream(outStream);
+        try {
+            writeLines(gzipStream);
+            gzipStream.finish();
+        } finally {
+            gzipStream.release();
+        }
+    }
+
+    @Override
+    public boolean isStreaming() {
+        return false;
+    }
+
+    private void writeLines(final OutputStream out) throws IOException {
+        byte[] buffer = new byte[BUFFER_SIZE];
+        int position = 0;
+
+        for (String metric : metrics) {
+            for (int i = 0; i < metric.length(); i++) {
+                if (position == buffer.length) {
+                    out.write(buffer, 0, position);
+                    position = 0;
+                }
+
+                char c = metric.charAt(i);
+                buffer[position++] = c <= MAX_ISO_8859_1_CHAR ? (byte) c : UNMAPPABLE;
+            }
+
+            if (position == buffer.length) {
+                out.write(buffer, 0, position);
+                position = 0;
+            }
+            buffer[position++] = NEWLINE;
+        }
+
+        out.write(buffer, 0, position);
+    }
+}
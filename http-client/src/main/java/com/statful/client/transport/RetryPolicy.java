@@ -0,0 +1,128 @@
+package com.statful.client.transport;
+
+import org.apache.http.client.ClientProtocolException;
+
+import javax.net.ssl.SSLException;
+import java.io.IOException;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Decides whether and when a failed HTTP request is retried.
+ * <p>
+ * Each request is retried up to a maximum number of times, waiting an exponential backoff with full jitter before
+ * each retry, so that clients which failed together don't retry together. Retries are also limited globally by a
+ * token bucket refilled at a fixed rate, so that an API outage doesn't multiply the load every client puts on it:
+ * once the bucket is empty, failed requests are dropped without being retried.
+ * <p>
+ * Only failures which may succeed later are retried: I/O errors, such as timeouts and refused connections, request
+ * timeouts, too many requests and server errors other than not implemented.
+ * <p>
+ * Instances of this class are thread-safe.
+ */
+public final class RetryPolicy {
+
+    /**
+     * A policy which never retries.
+     */
+    public static final RetryPolicy NONE = new RetryPolicy(0, 0, 0);
+
+    private static final long MAX_BACKOFF_MILLIS = 10000;
+    private static final int HTTP_REQUEST_TIMEOUT = 408;
+    private static final int HTTP_TOO_MANY_REQUESTS = 429;
+    private static final int HTTP_SERVER_ERROR = 500;
+    private static final int HTTP_NOT_IMPLEMENTED = 501;
+    private static final int HTTP_STATUS_MAX = 599;
+
+    private final int maxRetries;
+    private final long initialBackoffMillis;
+    private final double retriesPerNano;
+    private final double budgetCapacity;
+
+    private double budget;
+    private long lastRefillNanos;
+
+    /**
+     * Default constructor.
+     *
+     * @param maxRetries The maximum number of retries of each request
+     * @param initialBackoffMillis The backoff before the first retry, in milliseconds, doubled for each further retry
+     *                             up to 10 seconds
+     * @param retryBudgetPerSecond The maximum number of retries per second, across every request, which is also the
+     *                             number of retries allowed in a burst
+     */
+    public RetryPolicy(final int maxRetries, final long initialBackoffMillis, final int retryBudgetPerSecond) {
+        this.maxRetries = Math.max(0, maxRetries);
+        this.initialBackoffMillis = Math.max(0, initialBackoffMillis);
+        this.budgetCapacity = Math.max(0, retryBudgetPerSecond);
+        this.retriesPerNano = budgetCapacity / TimeUnit.SECONDS.toNanos(1);
+        this.budget = budgetCapacity;
+        this.lastRefillNanos = System.nanoTime();
+    }
+
+    /**
+     * Returns the maximum number of retries of each request.
+     *
+     * @return The maximum number of retries
+     */
+    public int getMaxRetries() {
+        return maxRetries;
+    }
+
+    /**
+     * Returns if a response status may be successful when the request is retried.
+     *
+     * @param statusCode The response status code
+     * @return True if the request should be retried
+     */
+    public boolean isRetryable(final int statusCode) {
+        return statusCode == HTTP_REQUEST_TIMEOUT || statusCode == HTTP_TOO_MANY_REQUESTS
+                || (statusCode >= HTTP_SERVER_ERROR && statusCode <= HTTP_STATUS_MAX && statusCode != HTTP_NOT_IMPLEMENTED);
+    }
+
+    /**
+     * Returns if a request which failed with an I/O error may succeed when retried. Protocol and TLS errors aren't
+     * retried, since they'd fail again.
+     *
+     * @param exception The I/O error
+     * @return True if the request should be retried
+     */
+    public boolean isRetryable(final IOException exception) {
+        return !(exception instanceof ClientProtocolException) && !(exception instanceof SSLException);
+    }
+
+    /**
+     * Takes a retry from the global budget, if there's any left.
+     *
+     * @return True if the retry is allowed
+     */
+    public synchronized boolean tryAcquireRetry() {
+        long now = System.nanoTime();
+        budget = Math.min(budgetCapacity, budget + (now - lastRefillNanos) * retriesPerNano);
+        lastRefillNanos = now;
+
+        if (budget < 1) {
+            return false;
+        }
+        budget--;
+        return true;
+    }
+
+    /**
+     * Returns how long to wait before a retry: a random delay up to the exponential backoff of the retry.
+     *
+     * @param retry The number of the retry, starting at zero
+     * @return The delay, in milliseconds
+     */
+    public long backoffMillis(final int retry) {
+        long backoff = Math.min(MAX_BACKOFF_MILLIS, initialBackoffMillis);
+        for (int i = 0; i < retry && backoff < MAX_BACKOFF_MILLIS; i++) {
+            backoff = Math.min(MAX_BACKOFF_MILLIS, backoff * 2);
+        }
+
+        if (backoff <= 0) {
+            return 0;
+        }
+        return ThreadLocalRandom.current().nextLong(backoff + 1);
+    }
+}
@@ -1,30 +1,49 @@
 package com.statful.client.transport;
 
 import com.statful.client.domain.api.ClientConfiguration;
+import org.apache.http.Consts;
+import org.apache.http.HttpEntity;
 import org.apache.http.client.config.RequestConfig;
 import org.apache.http.client.methods.HttpPut;
 import org.apache.http.conn.ssl.SSLConnectionSocketFactory;
+import org.apache.http.entity.ByteArrayEntity;
+import org.apache.http.entity.ContentType;
 import org.apache.http.entity.StringEntity;
 import org.apache.http.impl.client.CloseableHttpClient;
 import org.apache.http.impl.client.HttpClients;
 import org.apache.http.impl.conn.PoolingHttpClientConnectionManager;
+import org.apache.http.impl.nio.client.CloseableHttpAsyncClient;
+import org.apache.http.impl.nio.client.HttpAsyncClients;
+import org.apache.http.nio.conn.ssl.SSLIOSessionStrategy;
 import org.apache.http.ssl.SSLContexts;
 
 import java.io.UnsupportedEncodingException;
 import java.security.GeneralSecurityException;
+import java.util.List;
 
 /**
  * A factory for HTTP clients to communicate with Statful using SSL (it also supports non-secure communications).
+ * <p>
+ * It creates both blocking and non-blocking clients, with the same connection pool size and supported protocols.
+ * <p>
+ * When compression is enabled, request bodies of at least the compression minimum size are sent gzip compressed.
  */
-public class SSLClientFactory implements HTTPClientFactory {
+public class SSLClientFactory implements HTTPClientFactory, HTTPAsyncClientFactory {
+
+    /**
+     * The protocols enabled by default in the JDK, which leaves out the deprecated ones and picks up new versions.
+     */
+    private static final String[] SUPPORTED_PROTOCOLS = null;
 
     private final String token;
     private final int connectionPoolSize;
     private final int connectTimeoutMs;
     private final int socketTimeoutMs;
+    private final boolean compressionEnabled;
+    private final int compressionMinBytes;
 
     /**
-     * Default constructor.
+     * Default constructor, which doesn't compress request bodies.
      *
      * @param connectionPoolSize The connection pool size
      * @param connectTimeoutMs The connect timeout in milliseconds
@@ -32,10 +51,27 @@ public class SSLClientFactory implements HTTPClientFactory {
      * @param token The Statful authentication token
      */
     public SSLClientFactory(final int connectionPoolSize, final int connectTimeoutMs, final int socketTimeoutMs, final String token) {
+        this(connectionPoolSize, connectTimeoutMs, socketTimeoutMs, token, false, 0);
+    }
+
+    /**
+     * Constructor.
+     *
+     * @param connectionPoolSize The connection pool size
+     * @param connectTimeoutMs The connect timeout in milliseconds
+     * @param socketTimeoutMs The socket timeout in milliseconds
+     * @param token The Statful authentication token
+     * @param compressionEnabled Flag to gzip the request bodies of at least the compression minimum size
+     * @param compressionMinBytes The minimum size of the request bodies to compress, in bytes
+     */
+    public SSLClientFactory(final int connectionPoolSize, final int connectTimeoutMs, final int socketTimeoutMs, final String token,
+                            final boolean compressionEnabled, final int compressionMinBytes) {
         this.connectionPoolSize = connectionPoolSize;
         this.connectTimeoutMs = connectTimeoutMs;
         this.socketTimeoutMs = socketTimeoutMs;
         this.token = token;
+        this.compressionEnabled = compressionEnabled;
+        this.compressionMinBytes = compressionMinBytes;
     }
 
     @Override
@@ -46,6 +82,15 @@ public class SSLClientFactory implements HTTPClientFactory {
                 .build();
     }
 
+    @Override
+    public final CloseableHttpAsyncClient createHttpAsyncClient() throws GeneralSecurityException {
+        return HttpAsyncClients.custom()
+                .setMaxConnTotal(connectionPoolSize)
+                .setMaxConnPerRoute(connectionPoolSize)
+                .setSSLStrategy(createSslIOSessionStrategy())
+                .build();
+    }
+
     private static PoolingHttpClientConnectionManager createConnectionManager(final int connectionPoolSize) {
         PoolingHttpClientConnectionManager connectionManager = new PoolingHttpClientConnectionManager();
         connectionManager.setMaxTotal(connectionPoolSize);
@@ -58,18 +103,33 @@ public class SSLClientFactory implements HTTPClientFactory {
     private static SSLConnectionSocketFactory createSslSocketFactory() throws GeneralSecurityException {
         return new SSLConnectionSocketFactory(
                 SSLContexts.createSystemDefault(),
-                new String[] {
-                        "TLSv1", "TLSv2"
-                },
+                SUPPORTED_PROTOCOLS,
                 null,
                 SSLConnectionSocketFactory.getDefaultHostnameVerifier());
     }
 
+    private static SSLIOSessionStrategy createSslIOSessionStrategy() throws GeneralSecurityException {
+        return new SSLIOSessionStrategy(
+                SSLContexts.createSystemDefault(),
+                SUPPORTED_PROTOCOLS,
+                null,
+                SSLIOSessionStrategy.getDefaultHostnameVerifier());
+    }
+
     @Override
     public final HttpPut createHttpPut(final String uri, final String body) throws UnsupportedEncodingException {
+        return createHttpPut(uri, createEntity(body));
+    }
+
+    @Override
+    public final HttpPut createHttpPut(final String uri, final List<String> metrics) {
+        return createHttpPut(uri, new MetricLinesEntity(metrics, compressionEnabled, compressionMinBytes));
+    }
+
+    private HttpPut createHttpPut(final String uri, final HttpEntity entity) {
         HttpPut httpPut = new HttpPut(uri);
         httpPut.addHeader(ClientConfiguration.TOKEN_HEADER, token);
-        httpPut.setEntity(new StringEntity(body));
+        httpPut.setEntity(entity);
         httpPut.setConfig(RequestConfig.copy(RequestConfig.DEFAULT)
                 .setConnectTimeout(connectTimeoutMs)
                 .setConnectionRequestTimeout(connectTimeoutMs)
@@ -78,4 +138,19 @@ public class SSLClientFactory implements HTTPClientFactory {
 
         return httpPut;
     }
+
+    private HttpEntity createEntity(final String body) {
+        if (!compressionEnabled) {
+            return new StringEntity(body, ContentType.DEFAULT_TEXT);
+        }
+
+        byte[] bytes = body.getBytes(Consts.ISO_8859_1);
+        if (bytes.length < compressionMinBytes) {
+            return new ByteArrayEntity(bytes, ContentType.DEFAULT_TEXT);
+        }
+
+        ByteArrayEntity entity = new ByteArrayEntity(GzipEncoder.encode(bytes), ContentType.DEFAULT_TEXT);
+        entity.setContentEncoding("gzip");
+        return entity;
+    }
 }
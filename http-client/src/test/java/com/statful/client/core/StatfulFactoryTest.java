@@ -55,4 +55,11 @@ public class StatfulFactoryTest extends HttpTest {
         assertNotNull(client);
     }
 
-}
\ No newline at end of file
+    @Test
+    public void shouldCreateAsyncHTTPClientWithoutOptionalConfigurations() throws Exception {
+        StatfulClient client = StatfulFactory.buildAsyncHTTPClient().build();
+
+        assertNotNull(client);
+    }
+
+}
@@ -0,0 +1,264 @@
+package com.statful.client.transport;
+
+import com.statful.client.core.stats.StatsRegistry;
+import com.statful.client.core.transport.FailedMessageListener;
+import com.statful.client.domain.api.ClientStats;
+import com.statful.client.test.HttpTest;
+import org.apache.http.HttpResponse;
+import org.apache.http.client.methods.HttpPut;
+import org.apache.http.client.methods.HttpUriRequest;
+import org.apache.http.concurrent.FutureCallback;
+import org.apache.http.impl.nio.client.CloseableHttpAsyncClient;
+import org.junit.Test;
+import org.mockito.invocation.InvocationOnMock;
+import org.mockito.stubbing.Answer;
+import org.mockserver.socket.KeyStoreFactory;
+
+import javax.net.ssl.SSLContext;
+import java.io.IOException;
+import java.security.GeneralSecurityException;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.Future;
+import java.util.concurrent.TimeUnit;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertTrue;
+import static org.mockito.Matchers.any;
+import static org.mockito.Mockito.*;
+import static org.mockserver.model.HttpRequest.request;
+import static org.mockserver.model.HttpResponse.response;
+import static org.mockserver.verify.VerificationTimes.exactly;
+
+public class AsyncHTTPSenderAPITest extends HttpTest {
+
+    private static final String METRIC = "application.timer.execution,unit=ms 26 1465394947 avg,p90,count,10";
+
+    @Test
+    public void shouldSendThroughHttp() {
+        // Given
+        mockMetricsPut(201, 1);
+        AsyncHTTPSender subject = new AsyncHTTPSender(false, "127.0.0.1", mockServerPort,
+                new SSLClientFactory(10, 1000, 5000, "any-token"), 1024 * 1024, 5000);
+        StatsRegistry registry = new StatsRegistry();
+        subject.registerStats(registry);
+
+        // When
+        subject.send(METRIC);
+
+        // Then
+        assertTrue("Should complete the request", subject.awaitCompletion(5000));
+        mockClientAndServer.verify(request().withBody(METRIC), exactly(1));
+
+        ClientStats stats = registry.snapshot();
+        assertEquals("Should count the request", 1, stats.getValue("http.requests"));
+        assertEquals("Should count the response", 1, stats.getValue("http.responses.2xx"));
+        assertEquals("Should have nothing in flight", 0, stats.getValue("http.in_flight_bytes"));
+        subject.shutdown();
+    }
+
+    @Test
+    public void shouldSendThroughHttps() throws Exception {
+        // Given
+        mockMetricsPut(201, 1);
+        SSLContext defaultContext = SSLContext.getDefault();
+        // Trusts the certificate of the mock server, which negotiates TLS on the same port
+        SSLContext.setDefault(KeyStoreFactory.keyStoreFactory().sslContext());
+        try {
+            AsyncHTTPSender subject = new AsyncHTTPSender(true, "localhost", mockServerPort,
+                    new SSLClientFactory(10, 1000, 5000, "any-token"), 1024 * 1024, 5000);
+            StatsRegistry registry = new StatsRegistry();
+            subject.registerStats(registry);
+
+            // When
+            subject.send(METRIC);
+
+            // Then
+            assertTrue("Should complete the request", subject.awaitCompletion(5000));
+            mockClientAndServer.verify(request().withBody(METRIC), exactly(1));
+            assertEquals("Should count the response", 1, registry.snapshot().getValue("http.responses.2xx"));
+            subject.shutdown();
+        } finally {
+            SSLContext.setDefault(defaultContext);
+        }
+    }
+
+    @Test
+    public void shouldReportFailedMessagesToListener() {
+        // Given
+        mockMetricsPut(503, 1);
+        AsyncHTTPSender subject = new AsyncHTTPSender(false, "127.0.0.1", mockServerPort,
+                new SSLClientFactory(10, 1000, 5000, "any-token"), 1024 * 1024, 5000);
+        FailedMessageListener listener = mock(FailedMessageListener.class);
+        subject.setTransportListener(listener);
+
+        // When
+        subject.send(METRIC);
+
+        // Then
+        assertTrue("Should complete the request", subject.awaitCompletion(5000));
+        verify(listener, timeout(1000)).onFailure(METRIC, null);
+        verify(listener, never()).onFailure();
+        subject.shutdown();
+    }
+
+    @Test
+    public void shouldReportClientErrorsAsFailures() {
+        // Given
+        mockMetricsPut(401, 1);
+        AsyncHTTPSender subject = new AsyncHTTPSender(false, "127.0.0.1", mockServerPort,
+                new SSLClientFactory(10, 1000, 5000, "any-token"), 1024 * 1024, 5000);
+        StatsRegistry registry = new StatsRegistry();
+        subject.registerStats(registry);
+        FailedMessageListener listener = mock(FailedMessageListener.class);
+        subject.setTransportListener(listener);
+
+        // When
+        subject.send(METRIC);
+
+        // Then
+        assertTrue("Should complete the request", subject.awaitCompletion(5000));
+        verify(listener, timeout(1000)).onFailure(METRIC, null);
+        verify(listener, never()).onSuccess();
+        verify(listener, never()).onSuccess(anyString(), anyString());
+        assertEquals("Should count the rejected request", 1, registry.snapshot().getValue("http.errors"));
+        subject.shutdown();
+    }
+
+    @Test
+    public void shouldKeepSeveralRequestsInFlight() {
+        // Given
+        mockMetricsPut(201, 20);
+        AsyncHTTPSender subject = new AsyncHTTPSender(false, "127.0.0.1", mockServerPort,
+                new SSLClientFactory(10, 1000, 5000, "any-token"), 1024 * 1024, 5000);
+
+        // When
+        for (int i = 0; i < 20; i++) {
+            subject.send(METRIC);
+        }
+
+        // Then
+        assertTrue("Should complete every request", subject.awaitCompletion(5000));
+        mockClientAndServer.verify(request().withBody(METRIC), exactly(20));
+        subject.shutdown();
+    }
+
+    @Test
+    public void shouldRejectRequestsWhenTooManyBytesAreInFlight() throws Exception {
+        // Given
+        final List<FutureCallback<HttpResponse>> callbacks = new ArrayList<FutureCallback<HttpResponse>>();
+        CloseableHttpAsyncClient httpClient = mock(CloseableHttpAsyncClient.class);
+        when(httpClient.execute(any(HttpUriRequest.class), any(FutureCallback.class))).thenAnswer(new Answer<Future<HttpResponse>>() {
+            @Override
+            @SuppressWarnings("unchecked")
+            public Future<HttpResponse> answer(final InvocationOnMock invocation) {
+                callbacks.add((FutureCallback<HttpResponse>) invocation.getArguments()[1]);
+                return null;
+            }
+        });
+
+        AsyncHTTPSender subject = new AsyncHTTPSender(false, "127.0.0.1", mockServerPort,
+                factoryOf(httpClient), METRIC.length() + 10, 10);
+        StatsRegistry registry = new StatsRegistry();
+        subject.registerStats(registry);
+
+        // When
+        subject.send(METRIC);
+        subject.send(METRIC);
+
+        // Then
+        ClientStats stats = registry.snapshot();
+        assertEquals("Should send the first request", 1, callbacks.size());
+        assertEquals("Should reject the second request", 1, stats.getValue("http.rejected"));
+        assertEquals("Should have one request in flight", 1, stats.getValue("http.in_flight_requests"));
+
+        // When
+        callbacks.get(0).failed(new IOException());
+        subject.send(METRIC);
+
+        // Then
+        assertEquals("Should send once there's room", 2, callbacks.size());
+        assertEquals("Should count the failure", 1, registry.snapshot().getValue("http.errors"));
+    }
+
+    @Test
+    public void shouldCountMetricsInFlightAsLostOnBoundedShutdown() throws Exception {
+        // Given
+        CloseableHttpAsyncClient httpClient = mock(CloseableHttpAsyncClient.class);
+        AsyncHTTPSender subject = new AsyncHTTPSender(false, "127.0.0.1", mockServerPort, factoryOf(httpClient), 1024 * 1024, 5000);
+        subject.send("metric.one 1 1465394947\nmetric.two 2 1465394947\n");
+
+        // When
+        long start = System.currentTimeMillis();
+        long lost = subject.shutdown(50, TimeUnit.MILLISECONDS);
+
+        // Then
+        assertTrue("Should wait no longer than the given timeout", System.currentTimeMillis() - start < 5000);
+        assertEquals("Should count the metrics of the unanswered request", 2, lost);
+        verify(httpClient).close();
+    }
+
+    @Test
+    public void shouldNotThrowWhenHttpClientIsNull() throws Exception {
+        // Given
+        HTTPAsyncClientFactory httpClientFactory = mock(HTTPAsyncClientFactory.class);
+        when(httpClientFactory.createHttpAsyncClient()).thenThrow(new GeneralSecurityException());
+
+        AsyncHTTPSender subject = new AsyncHTTPSender(false, "127.0.0.1", mockServerPort, httpClientFactory, 1024, 10);
+
+        // When
+        subject.send(METRIC);
+        subject.shutdown();
+    }
+
+    @Test
+    public void shouldNotThrowWhenHttpClientThrowsException() throws Exception {
+        // Given
+        CloseableHttpAsyncClient httpClient = mock(CloseableHttpAsyncClient.class);
+        when(httpClient.execute(any(HttpUriRequest.class), any(FutureCallback.class))).thenThrow(new IllegalStateException());
+
+        AsyncHTTPSender subject = new AsyncHTTPSender(false, "127.0.0.1", mockServerPort, factoryOf(httpClient), 1024, 10);
+
+        // When
+        subject.send(METRIC);
+
+        // Then
+        assertTrue("Should release the bytes of the failed request", subject.awaitCompletion(10));
+    }
+
+    @Test
+    public void shouldStartAndShutDownClient() throws Exception {
+        // Given
+        CloseableHttpAsyncClient httpClient = mock(CloseableHttpAsyncClient.class);
+        AsyncHTTPSender subject = new AsyncHTTPSender(false, "127.0.0.1", mockServerPort, factoryOf(httpClient), 1024, 10);
+
+        // When
+        subject.shutdown();
+
+        // Then
+        verify(httpClient).start();
+        verify(httpClient).close();
+    }
+
+    private static HTTPAsyncClientFactory factoryOf(final CloseableHttpAsyncClient httpClient) throws Exception {
+        HTTPAsyncClientFactory httpClientFactory = mock(HTTPAsyncClientFactory.class);
+        when(httpClientFactory.createHttpAsyncClient()).thenReturn(httpClient);
+        when(httpClientFactory.createHttpPut(anyString(), anyString())).thenAnswer(new Answer<HttpPut>() {
+            @Override
+            public HttpPut answer(final InvocationOnMock invocation) throws Throwable {
+                Object[] arguments = invocation.getArguments();
+                return new SSLClientFactory(1, 10, 10, "any-token").createHttpPut((String) arguments[0], (String) arguments[1]);
+            }
+        });
+        return httpClientFactory;
+    }
+
+    private void mockMetricsPut(final int statusCode, final int times) {
+        mockClientAndServer.when(
+                request()
+                        .withMethod("PUT")
+                        .withPath("/tel/v2.0/metrics"),
+                org.mockserver.matchers.Times.exactly(times))
+                .respond(response().withStatusCode(statusCode));
+    }
+}
@@ -0,0 +1,94 @@
+package com.statful.client.transport;
+
+import org.junit.Test;
+
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.util.Random;
+import java.util.zip.GZIPInputStream;
+
+import static org.junit.Assert.assertArrayEquals;
+import static org.junit.Assert.assertTrue;
+
+public class GzipEncoderTest {
+
+    private static final String METRIC = "application.timer.execution,unit=ms,environment=production 26 1465394947 avg,p90,count,10\n";
+
+    @Test
+    public void shouldCompressInGzipFormat() throws Exception {
+        // Given
+        StringBuilder body = new StringBuilder();
+        for (int i = 0; i < 100; i++) {
+            body.append(METRIC);
+        }
+        byte[] input = body.toString().getBytes("ISO-8859-1");
+
+        // When
+        byte[] compressed = GzipEncoder.encode(input);
+
+        // Then
+        assertTrue("Should shrink repetitive metrics", compressed.length < input.length / 10);
+        assertArrayEquals("Should decompress to the original body", input, decompress(compressed));
+    }
+
+    @Test
+    public void shouldCompressEmptyBody() throws Exception {
+        assertArrayEquals("Should decompress to an empty body", new byte[0], decompress(GzipEncoder.encode(new byte[0])));
+    }
+
+    @Test
+    public void shouldCompressIncompressibleBody() throws Exception {
+        // Given
+        byte[] input = new byte[10000];
+        new Random(42).nextBytes(input);
+
+        // When
+        byte[] compressed = GzipEncoder.encode(input);
+
+        // Then
+        assertArrayEquals("Should decompress to the original body", input, decompress(compressed));
+    }
+
+    @Test
+    public void shouldReuseDeflaterBetweenBodies() throws Exception {
+        byte[] first = METRIC.getBytes("ISO-8859-1");
+        byte[] second = "other.metric 1 1465394947\n".getBytes("ISO-8859-1");
+
+        assertArrayEquals("Should compress the first body", first, decompress(GzipEncoder.encode(first)));
+        assertArrayEquals("Should compress the second body", second, decompress(GzipEncoder.encode(second)));
+    }
+
+    @Test
+    public void shouldCompressConcurrentStreamsWithSeparateDeflaters() throws Exception {
+        // Given
+        byte[] first = METRIC.getBytes("ISO-8859-1");
+        byte[] second = "other.metric 1 1465394947\n".getBytes("ISO-8859-1");
+        ByteArrayOutputStream firstOut = new ByteArrayOutputStream();
+        ByteArrayOutputStream secondOut = new ByteArrayOutputStream();
+
+        // When
+        GzipEncoder.GzipStream firstStream = GzipEncoder.newStream(firstOut);
+        GzipEncoder.GzipStream secondStream = GzipEncoder.newStream(secondOut);
+        firstStream.write(first, 0, first.length);
+        secondStream.write(second, 0, second.length);
+        firstStream.finish();
+        secondStream.finish();
+
+        // Then
+        assertArrayEquals("Should compress the first stream", first, decompress(firstOut.toByteArray()));
+        assertArrayEquals("Should compress the second stream", second, decompress(secondOut.toByteArray()));
+        assertArrayEquals("Should reuse the released deflaters", first, decompress(GzipEncoder.encode(first)));
+    }
+
+    private static byte[] decompress(final byte[] compressed) throws IOException {
+        GZIPInputStream in = new GZIPInputStream(new ByteArrayInputStream(compressed));
+        ByteArrayOutputStream out = new ByteArrayOutputStream();
+        byte[] buffer = new byte[1024];
+        int read;
+        while ((read = in.read(buffer)) > 0) {
+            out.write(buffer, 0, read);
+        }
+        return out.toByteArray();
+    }
+}
@@ -1,6 +1,9 @@
 package com.statful.client.transport;
 
+import com.statful.client.core.stats.StatsRegistry;
 import com.statful.client.core.transport.ApiUriFactory;
+import com.statful.client.core.transport.FailedMessageListener;
+import com.statful.client.core.transport.TransportListener;
 import com.statful.client.domain.api.Aggregation;
 import com.statful.client.domain.api.AggregationFrequency;
 import com.statful.client.test.HttpTest;
@@ -9,10 +12,16 @@ import org.apache.http.client.methods.CloseableHttpResponse;
 import org.apache.http.client.methods.HttpPut;
 import org.apache.http.impl.client.CloseableHttpClient;
 import org.junit.Test;
+import org.mockserver.verify.VerificationTimes;
 
+import javax.net.ssl.SSLException;
 import java.io.IOException;
 import java.security.GeneralSecurityException;
+import java.util.Arrays;
+import java.util.concurrent.TimeUnit;
 
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
 import static org.mockito.Matchers.any;
 import static org.mockito.Mockito.*;
 import static org.mockserver.matchers.Times.exactly;
@@ -62,6 +71,55 @@ public class HTTPSenderAPITest extends HttpTest {
                 once());
     }
 
+    @Test
+    public void shouldStreamMetricsThroughHttp() {
+        // Given
+        mockMetricsPutWithStatusCode(201);
+        subject = new HTTPSender(false, "127.0.0.1", mockServerPort, new SSLClientFactory(10, 1000, 5000, "any-token"));
+
+        // When
+        subject.sendLines(Arrays.asList(METRIC, METRIC));
+
+        // Then
+        mockClientAndServer.verify(
+                request()
+                        .withBody(METRIC + "\n" + METRIC + "\n"),
+                once());
+    }
+
+    @Test
+    public void shouldSendCompressedThroughHttp() {
+        // Given
+        mockMetricsPutWithStatusCode(201);
+        subject = new HTTPSender(false, "127.0.0.1", mockServerPort, new SSLClientFactory(10, 1000, 5000, "any-token", true, 0));
+
+        // When
+        subject.send(METRIC);
+
+        // Then
+        mockClientAndServer.verify(
+                request()
+                        .withHeader("Content-Encoding", "gzip"),
+                once());
+    }
+
+    @Test
+    public void shouldNotCompressBodiesSmallerThanTheMinimum() {
+        // Given
+        mockMetricsPutWithStatusCode(201);
+        subject = new HTTPSender(false, "127.0.0.1", mockServerPort,
+                new SSLClientFactory(10, 1000, 5000, "any-token", true, METRIC.length() + 1));
+
+        // When
+        subject.send(METRIC);
+
+        // Then
+        mockClientAndServer.verify(
+                request()
+                        .withBody(METRIC),
+                once());
+    }
+
     @Test
     public void shouldNotThrowWhenMetricIsNotCreated() {
         // Given
@@ -75,6 +133,200 @@ public class HTTPSenderAPITest extends HttpTest {
         mockClientAndServer.verify(request().withBody(METRIC), once());
     }
 
+    @Test
+    public void shouldRetryServerErrors() {
+        // Given
+        mockMetricsPutWithStatusCode(503);
+        mockMetricsPutWithStatusCode(201);
+        subject = new HTTPSender(false, "127.0.0.1", mockServerPort, new SSLClientFactory(10, 1000, 5000, "any-token"),
+                new RetryPolicy(2, 1, 10));
+        StatsRegistry registry = new StatsRegistry();
+        subject.registerStats(registry);
+
+        // When
+        subject.send(METRIC);
+
+        // Then
+        mockClientAndServer.verify(request().withBody(METRIC), VerificationTimes.exactly(2));
+        assertEquals("Should count the retry", 1, registry.snapshot().getValue("http.retries"));
+    }
+
+    @Test
+    public void shouldReportOutcomeToListener() {
+        // Given
+        mockMetricsPutWithStatusCode(503);
+        mockMetricsPutWithStatusCode(201);
+        subject = new HTTPSender(false, "127.0.0.1", mockServerPort, new SSLClientFactory(10, 1000, 5000, "any-token"));
+        TransportListener listener = mock(TransportListener.class);
+        subject.setTransportListener(listener);
+
+        // When
+        subject.send(METRIC);
+        subject.send(METRIC);
+
+        // Then
+        verify(listener).onFailure();
+        verify(listener).onSuccess();
+    }
+
+    @Test
+    public void shouldReportFailedMessagesToListener() {
+        // Given
+        mockMetricsPutWithStatusCode(503);
+        subject = new HTTPSender(false, "127.0.0.1", mockServerPort, new SSLClientFactory(10, 1000, 5000, "any-token"));
+        FailedMessageListener listener = mock(FailedMessageListener.class);
+        subject.setTransportListener(listener);
+
+        // When
+        subject.sendLines(Arrays.asList("metric1 1 100", "metric2 2 200"));
+
+        // Then
+        verify(listener).onFailure("metric1 1 100\nmetric2 2 200\n", null);
+        verify(listener, never()).onFailure();
+    }
+
+    @Test
+    public void shouldReportSentMessagesToListener() {
+        // Given
+        mockMetricsPutWithStatusCode(201);
+        subject = new HTTPSender(false, "127.0.0.1", mockServerPort, new SSLClientFactory(10, 1000, 5000, "any-token"));
+        FailedMessageListener listener = mock(FailedMessageListener.class);
+        subject.setTransportListener(listener);
+
+        // When
+        subject.send(METRIC);
+
+        // Then
+        verify(listener).onSuccess(METRIC, null);
+        verify(listener, never()).onSuccess();
+    }
+
+    @Test
+    public void shouldNotRetryClientErrors() {
+        // Given
+        mockMetricsPutWithStatusCode(400);
+        subject = new HTTPSender(false, "127.0.0.1", mockServerPort, new SSLClientFactory(10, 1000, 5000, "any-token"),
+                new RetryPolicy(2, 1, 10));
+
+        // When
+        subject.send(METRIC);
+
+        // Then
+        mockClientAndServer.verify(request().withBody(METRIC), once());
+    }
+
+    @Test
+    public void shouldReportClientErrorsAsFailures() {
+        // Given
+        mockMetricsPutWithStatusCode(401);
+        subject = new HTTPSender(false, "127.0.0.1", mockServerPort, new SSLClientFactory(10, 1000, 5000, "any-token"),
+                new RetryPolicy(2, 1, 10));
+        StatsRegistry registry = new StatsRegistry();
+        subject.registerStats(registry);
+        FailedMessageListener listener = mock(FailedMessageListener.class);
+        subject.setTransportListener(listener);
+
+        // When
+        subject.send(METRIC);
+
+        // Then
+        verify(listener).onFailure(METRIC, null);
+        verify(listener, never()).onSuccess();
+        verify(listener, never()).onSuccess(anyString(), anyString());
+        assertEquals("Should count the rejected request", 1, registry.snapshot().getValue("http.errors"));
+    }
+
+    @Test
+    public void shouldReportPermanentIOErrorsAsFailuresWithoutRetrying() throws Exception {
+        // Given
+        CloseableHttpClient httpClient = mock(CloseableHttpClient.class);
+        when(httpClient.execute(any(HttpPut.class))).thenThrow(new SSLException("handshake failed"));
+
+        HTTPClientFactory httpClientFactory = mock(HTTPClientFactory.class);
+        when(httpClientFactory.createHttpClient()).thenReturn(httpClient);
+
+        subject = new HTTPSender(false, "127.0.0.1", mockServerPort, httpClientFactory, new RetryPolicy(3, 1, 10));
+        TransportListener listener = mock(TransportListener.class);
+        subject.setTransportListener(listener);
+
+        // When
+        subject.send(METRIC);
+
+        // Then
+        verify(httpClient, times(1)).execute(any(HttpPut.class));
+        verify(listener).onFailure();
+        verify(listener, never()).onSuccess();
+    }
+
+    @Test
+    public void shouldRetryIOErrorsUpToTheMaximumRetries() throws Exception {
+        // Given
+        CloseableHttpClient httpClient = mock(CloseableHttpClient.class);
+        when(httpClient.execute(any(HttpPut.class))).thenThrow(new IOException());
+
+        HTTPClientFactory httpClientFactory = mock(HTTPClientFactory.class);
+        when(httpClientFactory.createHttpClient()).thenReturn(httpClient);
+
+        subject = new HTTPSender(false, "127.0.0.1", mockServerPort, httpClientFactory, new RetryPolicy(3, 1, 10));
+
+        // When
+        subject.send(METRIC);
+
+        // Then
+        verify(httpClient, times(4)).execute(any(HttpPut.class));
+    }
+
+    @Test
+    public void shouldStopRetryingOnceTheBudgetIsExhausted() throws Exception {
+        // Given
+        CloseableHttpClient httpClient = mock(CloseableHttpClient.class);
+        when(httpClient.execute(any(HttpPut.class))).thenThrow(new IOException());
+
+        HTTPClientFactory httpClientFactory = mock(HTTPClientFactory.class);
+        when(httpClientFactory.createHttpClient()).thenReturn(httpClient);
+
+        subject = new HTTPSender(false, "127.0.0.1", mockServerPort, httpClientFactory, new RetryPolicy(3, 1, 1));
+        StatsRegistry registry = new StatsRegistry();
+        subject.registerStats(registry);
+
+        // When
+        subject.send(METRIC);
+
+        // Then
+        verify(httpClient, times(2)).execute(any(HttpPut.class));
+        assertEquals("Should count the denied retry", 1, registry.snapshot().getValue("http.retries_denied"));
+    }
+
+    @Test
+    public void shouldGiveUpRetryBackoffOnShutdown() throws Exception {
+        // Given
+        CloseableHttpClient httpClient = mock(CloseableHttpClient.class);
+        when(httpClient.execute(any(HttpPut.class))).thenThrow(new IOException());
+
+        HTTPClientFactory httpClientFactory = mock(HTTPClientFactory.class);
+        when(httpClientFactory.createHttpClient()).thenReturn(httpClient);
+
+        final HTTPSender sender = new HTTPSender(false, "127.0.0.1", mockServerPort, httpClientFactory, new RetryPolicy(3, 60000, 10));
+        Thread sending = new Thread(new Runnable() {
+            @Override
+            public void run() {
+                sender.send(METRIC);
+            }
+        });
+        sending.start();
+        verify(httpClient, timeout(1000)).execute(any(HttpPut.class));
+
+        // When
+        long lost = sender.shutdown(5, TimeUnit.SECONDS);
+        sending.join(1000);
+
+        // Then
+        assertEquals(0, lost);
+        assertFalse("Should not wait for the backoff of the retry", sending.isAlive());
+        verify(httpClient, times(1)).execute(any(HttpPut.class));
+        verify(httpClient).close();
+    }
+
     @Test
     public void shouldNotThrowWhenHttpClientIsNull() throws Exception {
         // Given
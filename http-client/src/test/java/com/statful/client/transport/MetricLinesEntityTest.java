@@ -0,0 +1,132 @@
+package com.statful.client.transport;
+
+import org.junit.Test;
+
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.zip.GZIPInputStream;
+
+import static org.junit.Assert.*;
+
+public class MetricLinesEntityTest {
+
+    private static final String METRIC = "application.timer.execution,unit=ms,environment=production 26 1465394947 avg,p90,count,10";
+
+    @Test
+    public void shouldWriteNewlineDelimitedMetrics() throws Exception {
+        // Given
+        MetricLinesEntity subject = new MetricLinesEntity(Arrays.asList("foo 1 100", "bar 2 100"), false, 0);
+
+        // When
+        ByteArrayOutputStream out = new ByteArrayOutputStream();
+        subject.writeTo(out);
+
+        // Then
+        assertEquals("foo 1 100\nbar 2 100\n", out.toString("ISO-8859-1"));
+        assertEquals("Should know the content length", 20, subject.getContentLength());
+        assertNull("Should not be compressed", subject.getContentEncoding());
+        assertTrue("Should be repeatable", subject.isRepeatable());
+    }
+
+    @Test
+    public void shouldWriteMetricsLargerThanTheBuffer() throws Exception {
+        // Given
+        List<String> metrics = manyMetrics(1000);
+        MetricLinesEntity subject = new MetricLinesEntity(metrics, false, 0);
+
+        // When
+        ByteArrayOutputStream out = new ByteArrayOutputStream();
+        subject.writeTo(out);
+
+        // Then
+        assertEquals(join(metrics), out.toString("ISO-8859-1"));
+        assertEquals("Should write the content length", subject.getContentLength(), out.size());
+    }
+
+    @Test
+    public void shouldReplaceUnmappableCharacters() throws Exception {
+        // Given
+        MetricLinesEntity subject = new MetricLinesEntity(Arrays.asList("caf\u00e9,city=\u6771\u4eac 1 100"), false, 0);
+
+        // When
+        ByteArrayOutputStream out = new ByteArrayOutputStream();
+        subject.writeTo(out);
+
+        // Then
+        assertEquals("caf\u00e9,city=?? 1 100\n", out.toString("ISO-8859-1"));
+    }
+
+    @Test
+    public void shouldCompressBodiesOfAtLeastTheMinimumSize() throws Exception {
+        // Given
+        List<String> metrics = manyMetrics(1000);
+        MetricLinesEntity subject = new MetricLinesEntity(metrics, true, 1024);
+
+        // When
+        ByteArrayOutputStream out = new ByteArrayOutputStream();
+        subject.writeTo(out);
+
+        // Then
+        assertEquals("gzip", subject.getContentEncoding().getValue());
+        assertTrue("Should be chunked", subject.isChunked());
+        assertEquals("Should not know the content length", -1, subject.getContentLength());
+        assertEquals(join(metrics), decompress(new ByteArrayInputStream(out.toByteArray())));
+    }
+
+    @Test
+    public void shouldNotCompressBodiesSmallerThanTheMinimum() throws Exception {
+        // Given
+        MetricLinesEntity subject = new MetricLinesEntity(Arrays.asList(METRIC), true, 1024);
+
+        // When
+        ByteArrayOutputStream out = new ByteArrayOutputStream();
+        subject.writeTo(out);
+
+        // Then
+        assertNull("Should not be compressed", subject.getContentEncoding());
+        assertEquals(METRIC + "\n", out.toString("ISO-8859-1"));
+    }
+
+    @Test
+    public void shouldReadContentRepeatedly() throws Exception {
+        // Given
+        List<String> metrics = manyMetrics(100);
+        MetricLinesEntity subject = new MetricLinesEntity(metrics, true, 0);
+
+        // Then
+        assertEquals(join(metrics), decompress(subject.getContent()));
+        assertEquals(join(metrics), decompress(subject.getContent()));
+    }
+
+    private static List<String> manyMetrics(final int count) {
+        List<String> metrics = new ArrayList<String>();
+        for (int i = 0; i < count; i++) {
+            metrics.add(METRIC + i);
+        }
+        return metrics;
+    }
+
+    private static String join(final List<String> metrics) {
+        StringBuilder sb = new StringBuilder();
+        for (String metric : metrics) {
+            sb.append(metric).append('\n');
+        }
+        return sb.toString();
+    }
+
+    private static String decompress(final InputStream compressed) throws IOException {
+        GZIPInputStream in = new GZIPInputStream(compressed);
+        ByteArrayOutputStream out = new ByteArrayOutputStream();
+        byte[] buffer = new byte[1024];
+        int read;
+        while ((read = in.read(buffer)) > 0) {
+            out.write(buffer, 0, read);
+        }
+        return out.toString("ISO-8859-1");
+    }
+}
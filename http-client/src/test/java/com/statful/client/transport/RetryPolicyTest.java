@@ -0,0 +1,81 @@
+package com.statful.client.transport;
+
+import org.apache.http.client.ClientProtocolException;
+import org.junit.Test;
+
+import javax.net.ssl.SSLHandshakeException;
+import java.io.IOException;
+import java.net.SocketTimeoutException;
+
+import static org.junit.Assert.*;
+
+public class RetryPolicyTest {
+
+    @Test
+    public void shouldRetryTransientStatuses() {
+        RetryPolicy subject = new RetryPolicy(2, 100, 10);
+
+        assertTrue("Should retry request timeouts", subject.isRetryable(408));
+        assertTrue("Should retry too many requests", subject.isRetryable(429));
+        assertTrue("Should retry server errors", subject.isRetryable(500));
+        assertTrue("Should retry unavailable services", subject.isRetryable(503));
+        assertFalse("Should not retry not implemented", subject.isRetryable(501));
+        assertFalse("Should not retry client errors", subject.isRetryable(400));
+        assertFalse("Should not retry unauthorized", subject.isRetryable(401));
+    }
+
+    @Test
+    public void shouldRetryTransientIOErrors() {
+        RetryPolicy subject = new RetryPolicy(2, 100, 10);
+
+        assertTrue("Should retry timeouts", subject.isRetryable(new SocketTimeoutException()));
+        assertTrue("Should retry I/O errors", subject.isRetryable(new IOException()));
+        assertFalse("Should not retry protocol errors", subject.isRetryable(new ClientProtocolException()));
+        assertFalse("Should not retry TLS errors", subject.isRetryable(new SSLHandshakeException("")));
+    }
+
+    @Test
+    public void shouldBackOffExponentiallyWithJitter() {
+        RetryPolicy subject = new RetryPolicy(10, 100, 10);
+
+        for (int i = 0; i < 100; i++) {
+            assertTrue("Should wait up to the first backoff", subject.backoffMillis(0) <= 100);
+            assertTrue("Should wait up to twice the first backoff", subject.backoffMillis(1) <= 200);
+            assertTrue("Should cap the backoff", subject.backoffMillis(30) <= 10000);
+            assertTrue("Should never wait a negative delay", subject.backoffMillis(62) >= 0);
+        }
+    }
+
+    @Test
+    public void shouldNotWaitWithoutBackoff() {
+        assertEquals(0, new RetryPolicy(1, 0, 10).backoffMillis(3));
+    }
+
+    @Test
+    public void shouldLimitRetriesWithBudget() {
+        RetryPolicy subject = new RetryPolicy(2, 100, 3);
+
+        assertTrue("Should allow the first retry", subject.tryAcquireRetry());
+        assertTrue("Should allow the second retry", subject.tryAcquireRetry());
+        assertTrue("Should allow the third retry", subject.tryAcquireRetry());
+        assertFalse("Should deny retries once the budget is exhausted", subject.tryAcquireRetry());
+    }
+
+    @Test
+    public void shouldRefillBudget() throws Exception {
+        RetryPolicy subject = new RetryPolicy(2, 100, 100);
+        while (subject.tryAcquireRetry()) {
+            // Exhaust the budget
+        }
+
+        Thread.sleep(50);
+
+        assertTrue("Should allow retries again", subject.tryAcquireRetry());
+    }
+
+    @Test
+    public void shouldNeverRetryWithNonePolicy() {
+        assertEquals(0, RetryPolicy.NONE.getMaxRetries());
+        assertFalse(RetryPolicy.NONE.tryAcquireRetry());
+    }
+}
@@ -4,6 +4,7 @@ import com.statful.client.core.api.StatfulClientBuilder;
 import com.statful.client.core.transport.TransportSender;
 import com.statful.client.domain.api.ClientConfiguration;
 import com.statful.client.domain.api.Transport;
+import com.statful.client.transport.UDPChannelSender;
 import com.statful.client.transport.UDPSender;
 
 /**
@@ -12,6 +13,7 @@ import com.statful.client.transport.UDPSender;
 public final class StatfulFactory {
 
     private static final UDPClientFactory UDP_CLIENT_FACTORY = new UDPClientFactory();
+    private static final UDPChannelClientFactory UDP_CHANNEL_CLIENT_FACTORY = new UDPChannelClientFactory();
 
     private StatfulFactory() { }
 
@@ -24,6 +26,16 @@ public final class StatfulFactory {
         return UDP_CLIENT_FACTORY.buildClient();
     }
 
+    /**
+     * Instantiates a new {@link com.statful.client.core.api.StatfulClientBuilder} to use UDP protocol through a
+     * non-blocking NIO channel, which also sends aggregated metrics.
+     *
+     * @return A Statful client builder, ready for configure or bootstrap
+     */
+    public static StatfulClientBuilder buildNonBlockingUDPClient() {
+        return UDP_CHANNEL_CLIENT_FACTORY.buildClient();
+    }
+
     /**
      * Private UDP client factory.
      */
@@ -34,7 +46,24 @@ public final class StatfulFactory {
 
         @Override
         protected TransportSender buildTransportSender(final ClientConfiguration configuration) {
-            return new UDPSender(configuration.getHost(), configuration.getPort());
+            return new UDPSender(configuration.getHost(), configuration.getPort(), configuration.getUdpMaxPayloadSize(),
+                    configuration.getDnsRefreshIntervalMillis(), configuration.getAddressSelection());
+        }
+    }
+
+    /**
+     * Private non-blocking UDP client factory.
+     */
+    private static class UDPChannelClientFactory extends CustomStatfulFactory {
+        UDPChannelClientFactory() {
+            super(Transport.UDP);
+        }
+
+        @Override
+        protected TransportSender buildTransportSender(final ClientConfiguration configuration) {
+            return new UDPChannelSender(configuration.getHost(), configuration.getPort(),
+                    configuration.getUdpMaxPayloadSize(), configuration.getDnsRefreshIntervalMillis(),
+                    configuration.getAddressSelection());
         }
     }
 }
@@ -0,0 +1,336 @@
+package com.statful.client.transport;
+
+import com.statful.client.core.diagnostics.Diagnostics;
+import com.statful.client.core.stats.StatsCounter;
+import com.statful.client.core.stats.StatsRegistry;
+import com.statful.client.domain.api.AddressSelection;
+
+import java.net.InetAddress;
+import java.net.InetSocketAddress;
+import java.net.UnknownHostException;
+import java.util.Arrays;
+import java.util.HashSet;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.ScheduledFuture;
+import java.util.concurrent.ScheduledThreadPoolExecutor;
+import java.util.concurrent.ThreadFactory;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.logging.Logger;
+
+/**
+ * Resolves the host of the UDP transports to its addresses, and chooses which of them each metric is sent to.
+ * <p>
+ * The host is resolved once when started, and then again in the background at a fixed interval, so that metrics
+ * follow the host when it moves to another address. The addresses are swapped atomically, and only when they
+ * actually change, so a failed resolution keeps the previous addresses. The JVM caches resolutions for
+ * <code>networkaddress.cache.ttl</code> seconds, so the refresh interval shouldn't be shorter than that.
+ * <p>
+ * Consistent hashing uses rendezvous hashing over the name and tags of each metric, which only moves the series of
+ * an address that was added or removed.
+ * <p>
+ * Instances of this class are thread-safe.
+ */
+final class AddressResolver {
+
+    private static final Logger LOGGER = Logger.getLogger(AddressResolver.class.getName());
+    private static final Diagnostics DIAGNOSTICS = new Diagnostics(LOGGER);
+
+    /**
+     * The default interval between resolutions of the host, in milliseconds.
+     */
+    static final long DEFAULT_REFRESH_INTERVAL_MILLIS = 30000;
+
+    private static final int HASH_MULTIPLIER = 31;
+    private static final int MIX_SHIFT_1 = 16;
+    private static final int MIX_SHIFT_2 = 13;
+    private static final int MIX_MULTIPLIER_1 = 0x85ebca6b;
+    private static final int MIX_MULTIPLIER_2 = 0xc2b2ae35;
+
+    /**
+     * Resolves hosts with the system resolver.
+     */
+    static final HostResolver SYSTEM_RESOLVER = new HostResolver() {
+        @Override
+        public InetAddress[] resolve(final String host) throws UnknownHostException {
+            return InetAddress.getAllByName(host);
+        }
+    };
+
+    private final String host;
+    private final int port;
+    private final long refreshIntervalMillis;
+    private final AddressSelection selection;
+    private final HostResolver hostResolver;
+
+    private final AtomicInteger nextIndex = new AtomicInteger();
+    private final StatsCounter changes = new StatsCounter();
+    private final StatsCounter errors = new StatsCounter();
+
+    private volatile Targets targets;
+    private ScheduledFuture<?> refreshTask;
+
+    /**
+     * Default constructor.
+     *
+     * @param host The hostname of the UDP server
+     * @param port The port of the UDP server
+     * @param refreshIntervalMillis The interval between resolutions of the host, in milliseconds. Zero resolves the
+     *                              host only once
+     * @param selection The {@link AddressSelection} to choose between several addresses, defaults to the first
+     * @param hostResolver The {@link HostResolver} to resolve the host with
+     */
+    AddressResolver(final String host, final int port, final long refreshIntervalMillis, final AddressSelection selection,
+                    final HostResolver hostResolver) {
+        this.host = host;
+        this.port = port;
+        this.refreshIntervalMillis = refreshIntervalMillis;
+        this.selection = selection == null ? AddressSelection.FIRST : selection;
+        this.hostResolver = hostResolver;
+    }
+
+    /**
+     * Resolves the host, if it wasn't resolved yet, and schedules the periodic resolutions. Calling it again once
+     * started has no effect.
+     *
+     * @throws UnknownHostException If the host can't be resolved the first time
+     */
+    synchronized void start() throws UnknownHostException {
+        if (targets == null) {
+            targets = new Targets(resolve());
+        }
+
+        if (refreshTask == null && refreshIntervalMillis > 0) {
+            refreshTask = Scheduler.EXECUTOR.scheduleWithFixedDelay(new Runnable() {
+                @Override
+                public void run() {
+                    refresh();
+                }
+            }, refreshIntervalMillis, refreshIntervalMillis, TimeUnit.MILLISECONDS);
+        }
+    }
+
+    /**
+     * Stops the periodic resolutions, keeping the last resolved addresses.
+     */
+    synchronized void stop() {
+        if (refreshTask != null) {
+            refreshTask.cancel(false);
+            refreshTask = null;
+        }
+    }
+
+    /**
+     * Resolves the host again, swapping the addresses if they changed.
+     */
+    void refresh() {
+        try {
+            InetSocketAddress[] resolved = resolve();
+            Targets current = targets;
+
+            if (current == null || !new HashSet<InetSocketAddress>(Arrays.asList(resolved)).equals(current.set)) {
+                targets = new Targets(resolved);
+                changes.increment();
+                LOGGER.info("Statful UDP host " + host + " now resolves to " + Arrays.toString(resolved));
+            }
+        } catch (UnknownHostException e) {
+            errors.increment();
+            DIAGNOSTICS.warning("Unable to resolve UDP host, keeping the previous addresses", e);
+        } catch (RuntimeException e) {
+            errors.increment();
+            DIAGNOSTICS.warning("Unable to resolve UDP host, keeping the previous addresses", e);
+        }
+    }
+
+    /**
+     * Returns the address to send the next datagram to. Should only be called once started.
+     *
+     * @return The next address
+     */
+    InetSocketAddress next() {
+        InetSocketAddress[] addresses = targets.addresses;
+        if (selection != AddressSelection.ROUND_ROBIN || addresses.length == 1) {
+            return addresses[0];
+        }
+        return addresses[(nextIndex.getAndIncrement() & Integer.MAX_VALUE) % addresses.length];
+    }
+
+    /**
+     * Returns if each metric should be sent to an address chosen by {@link #partition(List)}.
+     *
+     * @return True if the addresses are chosen by consistent hashing
+     */
+    boolean isConsistentHash() {
+        return selection == AddressSelection.CONSISTENT_HASH;
+    }
+
+    /**
+     * Returns if every datagram is sent to the same address until the host is resolved to other addresses.
+     *
+     * @return True if only the first address is used
+     */
+    boolean isSingleAddress() {
+        return selection == AddressSelection.FIRST;
+    }
+
+    /**
+     * Splits batches of metrics by the address each metric hashes to. Should only be called once started.
+     *
+     * @param messages The batches of newline-delimited metrics
+     * @return The metrics to send to each address
+     */
+    Map<InetSocketAddress, String> partition(final List<String> messages) {
+        Targets current = targets;
+        Map<InetSocketAddress, StringBuilder> partitions = new LinkedHashMap<InetSocketAddress, StringBuilder>();
+
+        for (String message : messages) {
+            int start = 0;
+            while (start < message.length()) {
+                int end = message.indexOf('\n', start);
+                if (end < 0) {
+                    end = message.length();
+                }
+
+                if (end > start) {
+                    InetSocketAddress target = current.forLine(message, start, end);
+                    StringBuilder partition = partitions.get(target);
+                    if (partition == null) {
+                        partition = new StringBuilder(message.length());
+                        partitions.put(target, partition);
+                    }
+                    partition.append(message, start, end).append('\n');
+                }
+                start = end + 1;
+            }
+        }
+
+        Map<InetSocketAddress, String> result = new LinkedHashMap<InetSocketAddress, String>();
+        for (Map.Entry<InetSocketAddress, StringBuilder> partition : partitions.entrySet()) {
+            result.put(partition.getKey(), partition.getValue().toString());
+        }
+        return result;
+    }
+
+    /**
+     * Registers the resolution statistics.
+     *
+     * @param registry The {@link StatsRegistry} to register the statistics in
+     */
+    void registerStats(final StatsRegistry registry) {
+        registry.register("udp.dns_changes", changes);
+        registry.register("udp.dns_errors", errors);
+    }
+
+    private InetSocketAddress[] resolve() throws UnknownHostException {
+        InetAddress[] resolved = hostResolver.resolve(host);
+        if (resolved == null || resolved.length == 0) {
+            throw new UnknownHostException(host);
+        }
+
+        InetSocketAddress[] addresses = new InetSocketAddress[resolved.length];
+        for (int i = 0; i < resolved.length; i++) {
+            addresses[i] = new InetSocketAddress(resolved[i], port);
+        }
+        return addresses;
+    }
+
+    private static int mix(final int value) {
+        int h = value;
+        h ^= h >>> MIX_SHIFT_1;
+        h *= MIX_MULTIPLIER_1;
+        h ^= h >>> MIX_SHIFT_2;
+        h *= MIX_MULTIPLIER_2;
+        h ^= h >>> MIX_SHIFT_1;
+        return h;
+    }
+
+    /**
+     * Resolves hostnames to addresses.
+     */
+    interface HostResolver {
+
+        /**
+         * Resolves a hostname.
+         *
+         * @param host The hostname
+         * @return Every address of the host
+         * @throws UnknownHostException If the host can't be resolved
+         */
+        InetAddress[] resolve(String host) throws UnknownHostException;
+    }
+
+    /**
+     * An immutable set of resolved addresses, swapped as a whole.
+     */
+    private static final class Targets {
+
+        private final InetSocketAddress[] addresses;
+        private final HashSet<InetSocketAddress> set;
+        private final int[] hashes;
+
+        private Targets(final InetSocketAddress[] addresses) {
+            this.addresses = addresses;
+            this.set = new HashSet<InetSocketAddress>(Arrays.asList(addresses));
+            this.hashes = new int[addresses.length];
+            for (int i = 0; i < addresses.length; i++) {
+                hashes[i] = Arrays.hashCode(addresses[i].getAddress().getAddress());
+            }
+        }
+
+        /**
+         * Chooses the address with the highest score for the series of a metric line, identified by the name and
+         * tags before the first space.
+         */
+        private InetSocketAddress forLine(final String message, final int start, final int end) {
+            if (addresses.length == 1) {
+                return addresses[0];
+            }
+
+            int keyHash = 0;
+            for (int i = start; i < end; i++) {
+                char c = message.charAt(i);
+                if (c == ' ') {
+                    break;
+                }
+                keyHash = HASH_MULTIPLIER * keyHash + c;
+            }
+
+            int best = 0;
+            int bestScore = Integer.MIN_VALUE;
+            for (int i = 0; i < addresses.length; i++) {
+                int score = mix(keyHash ^ mix(hashes[i]));
+                if (score > bestScore || i == 0) {
+                    best = i;
+                    bestScore = score;
+                }
+            }
+            return addresses[best];
+        }
+    }
+
+    /**
+     * Lazily creates the daemon thread shared by every resolver.
+     */
+    private static final class Scheduler {
+
+        private static final ScheduledExecutorService EXECUTOR = createExecutor();
+
+        private Scheduler() { }
+
+        private static ScheduledExecutorService createExecutor() {
+            ScheduledThreadPoolExecutor executor = new ScheduledThreadPoolExecutor(1, new ThreadFactory() {
+                @Override
+                public Thread newThread(final Runnable runnable) {
+                    Thread thread = new Thread(runnable, "statful-dns-resolver");
+                    thread.setDaemon(true);
+                    return thread;
+                }
+            });
+            executor.setRemoveOnCancelPolicy(true);
+            return executor;
+        }
+    }
+}
@@ -0,0 +1,94 @@
+package com.statful.client.transport;
+
+import java.nio.ByteBuffer;
+
+/**
+ * Splits an encoded batch of newline-delimited metrics into datagrams no larger than a maximum payload size.
+ * <p>
+ * Datagrams are only split at line boundaries, so a metric is never split between two datagrams, and each datagram
+ * packs as many lines as fit. A single line larger than the maximum payload size is sent alone in an oversized
+ * datagram, which may be fragmented, instead of being dropped.
+ * <p>
+ * Splitting works on the UTF-8 bytes, which never contain a newline as part of a multi-byte character. Instances of
+ * this class are immutable and thread-safe.
+ */
+final class DatagramPacker {
+
+    /**
+     * The default maximum payload size, which fits a datagram in a standard 1500 bytes Ethernet MTU with room for
+     * the IP and UDP headers and some tunnelling overhead.
+     */
+    static final int DEFAULT_MAX_PAYLOAD_SIZE = 1432;
+
+    /**
+     * The largest payload a UDP datagram can carry over IPv4.
+     */
+    static final int MAX_UDP_PAYLOAD_SIZE = 65507;
+
+    private static final byte NEWLINE = '\n';
+
+    private final int maxPayloadSize;
+
+    /**
+     * Default constructor.
+     *
+     * @param maxPayloadSize The maximum payload size of each datagram, in bytes. Values out of range are replaced by
+     *                       the default or the largest UDP payload
+     */
+    DatagramPacker(final int maxPayloadSize) {
+        if (maxPayloadSize < 1) {
+            this.maxPayloadSize = DEFAULT_MAX_PAYLOAD_SIZE;
+        } else {
+            this.maxPayloadSize = Math.min(maxPayloadSize, MAX_UDP_PAYLOAD_SIZE);
+        }
+    }
+
+    /**
+     * Returns the end of the datagram starting at the given offset. The next datagram starts right after the
+     * returned offset, which is either the end of the payload or a newline that doesn't belong to any datagram.
+     *
+     * @param payload The encoded metrics, read with absolute gets so its position and limit aren't changed
+     * @param start The offset where the datagram starts
+     * @param end The offset where the payload ends
+     * @return The offset where the datagram ends, exclusive
+     */
+    int datagramEnd(final ByteBuffer payload, final int start, final int end) {
+        if (end - start <= maxPayloadSize) {
+            return end;
+        }
+
+        // Pack as many whole lines as fit, looking for the last newline within the limit
+        for (int i = start + maxPayloadSize; i > start; i--) {
+            if (payload.get(i) == NEWLINE) {
+                return i;
+            }
+        }
+
+        // The first line alone doesn't fit, so it's sent in an oversized datagram
+        for (int i = start + maxPayloadSize + 1; i < end; i++) {
+            if (payload.get(i) == NEWLINE) {
+                return i;
+            }
+        }
+        return end;
+    }
+
+    /**
+     * Returns if a datagram is larger than the maximum payload size, which only happens with lines that don't fit.
+     *
+     * @param length The datagram length, in bytes
+     * @return True if the datagram is oversized
+     */
+    boolean isOversized(final int length) {
+        return length > maxPayloadSize;
+    }
+
+    /**
+     * Returns the maximum payload size of each datagram.
+     *
+     * @return The maximum payload size, in bytes
+     */
+    int getMaxPayloadSize() {
+        return maxPayloadSize;
+    }
+}
@@ -0,0 +1,97 @@
+package com.statful.client.transport;
+
+import java.nio.ByteBuffer;
+import java.nio.CharBuffer;
+import java.nio.charset.Charset;
+import java.nio.charset.CharsetEncoder;
+import java.nio.charset.CodingErrorAction;
+import java.util.List;
+
+/**
+ * Encodes batches of metrics as UTF-8 into a reusable buffer, which only grows when a payload doesn't fit.
+ * <p>
+ * Instances of this class aren't thread-safe, and are meant to be used by a single send at a time.
+ */
+final class PayloadEncoder {
+
+    private static final Charset UTF_8 = Charset.forName("UTF-8");
+    private static final int INITIAL_PAYLOAD_CAPACITY = 1024;
+    private static final byte NEWLINE = '\n';
+
+    private final CharsetEncoder encoder = UTF_8.newEncoder()
+            .onMalformedInput(CodingErrorAction.REPLACE)
+            .onUnmappableCharacter(CodingErrorAction.REPLACE);
+    private final boolean direct;
+
+    private ByteBuffer payload;
+
+    /**
+     * Default constructor.
+     *
+     * @param direct Whether the payload should be encoded into a direct buffer, to be written to channels, or into a
+     *               heap buffer, whose array can back a {@link java.net.DatagramPacket}
+     */
+    PayloadEncoder(final boolean direct) {
+        this.direct = direct;
+        this.payload = allocate(INITIAL_PAYLOAD_CAPACITY);
+    }
+
+    /**
+     * Encodes a batch of metrics.
+     *
+     * @param message The batch of metrics
+     * @return The payload buffer, ready to be read, which is reused by the next call
+     */
+    ByteBuffer encode(final String message) {
+        ensureCapacity(maxLength(message));
+
+        payload.clear();
+        append(message);
+        payload.flip();
+        return payload;
+    }
+
+    /**
+     * Encodes several batches of metrics into a single payload, separating them with a newline when needed.
+     *
+     * @param messages The batches of metrics
+     * @return The payload buffer, ready to be read, which is reused by the next call
+     */
+    ByteBuffer encode(final List<String> messages) {
+        int maxLength = 0;
+        for (String message : messages) {
+            maxLength += maxLength(message) + 1;
+        }
+        ensureCapacity(maxLength);
+
+        payload.clear();
+        for (String message : messages) {
+            if (payload.position() > 0 && payload.get(payload.position() - 1) != NEWLINE) {
+                payload.put(NEWLINE);
+            }
+            append(message);
+        }
+        payload.flip();
+        return payload;
+    }
+
+    private void append(final String message) {
+        encoder.reset();
+        encoder.encode(CharBuffer.wrap(message), payload, true);
+        encoder.flush(payload);
+    }
+
+    private int maxLength(final String message) {
+        return (int) Math.ceil(message.length() * encoder.maxBytesPerChar());
+    }
+
+    private void ensureCapacity(final int maxLength) {
+        if (payload.capacity() < maxLength) {
+            payload = allocate(maxLength);
+        }
+    }
+
+    private ByteBuffer allocate(final int capacity) {
+        return direct ? ByteBuffer.allocateDirect(capacity) : ByteBuffer.allocate(capacity);
+    }
+}
@@ -0,0 +1,269 @@
+package com.statful.client.transport;
+
+import com.statful.client.core.diagnostics.Diagnostics;
+import com.statful.client.core.stats.StatsCounter;
+import com.statful.client.core.stats.StatsRegistry;
+import com.statful.client.core.stats.StatsSource;
+import com.statful.client.core.transport.BatchTransportSender;
+import com.statful.client.core.transport.ObjectPool;
+import com.statful.client.domain.api.AddressSelection;
+
+import java.io.IOException;
+import java.net.InetSocketAddress;
+import java.nio.ByteBuffer;
+import java.nio.channels.DatagramChannel;
+import java.util.Collections;
+import java.util.List;
+import java.util.Map;
+import java.util.logging.Logger;
+
+/**
+ * This class is an implementation of {@link com.statful.client.core.transport.TransportSender} to send metrics
+ * using UDP through a non-blocking {@link DatagramChannel}.
+ * <p>
+ * Messages are encoded into reusable direct buffers shared through an {@link ObjectPool}, packed into datagrams up to the maximum payload
+ * size without splitting any metric, and written without blocking. If the socket send buffer is full the datagram
+ * is dropped and counted, instead of stalling the worker threads. Any I/O error closes the channel, which is opened
+ * again on the next send. Batches sent together through {@link #send(List)} are encoded once and packed together,
+ * and their datagrams are written in a single loop on the same channel.
+ * <p>
+ * The host is resolved again in the background by an {@link AddressResolver}. When only the first address is used
+ * the channel is connected to it, and connected again once the host resolves to another address. Otherwise the
+ * channel isn't connected, and each datagram is sent to the address chosen for it.
+ * <p>
+ * UDP has no aggregated metrics endpoint, so aggregated metrics are sent as plain metrics instead of being dropped.
+ */
+public class UDPChannelSender implements BatchTransportSender, StatsSource {
+
+    private static final Logger LOGGER = Logger.getLogger(UDPChannelSender.class.getName());
+    private static final Diagnostics DIAGNOSTICS = new Diagnostics(LOGGER);
+
+    private static final int MAX_IDLE_ENCODERS = 16;
+
+    /**
+     * Pooled encoding state, so sending a message doesn't allocate any buffer, even on a new virtual thread.
+     */
+    private static final ObjectPool<PayloadEncoder> PAYLOAD_ENCODERS = new ObjectPool<PayloadEncoder>(MAX_IDLE_ENCODERS) {
+        @Override
+        protected PayloadEncoder create() {
+            return new PayloadEncoder(true);
+        }
+    };
+
+    private final DatagramPacker packer;
+    private final AddressResolver resolver;
+
+    private final StatsCounter batches = new StatsCounter();
+    private final StatsCounter packetsSent = new StatsCounter();
+    private final StatsCounter packetsOversized = new StatsCounter();
+    private final StatsCounter bytesSent = new StatsCounter();
+    private final StatsCounter packetsDropped = new StatsCounter();
+    private final StatsCounter errors = new StatsCounter();
+
+    private volatile DatagramChannel channel;
+    private volatile InetSocketAddress connectedTarget;
+
+    /**
+     * Default constructor, which packs datagrams up to the default maximum payload size of 1432 bytes.
+     *
+     * @param host The hostname of the UDP server
+     * @param port The port of the UDP server
+     */
+    public UDPChannelSender(final String host, final int port) {
+        this(host, port, DatagramPacker.DEFAULT_MAX_PAYLOAD_SIZE);
+    }
+
+    /**
+     * Constructor.
+     *
+     * @param host The hostname of the UDP server
+     * @param port The port of the UDP server
+     * @param maxPayloadSize The maximum payload size of each datagram, in bytes
+     */
+    public UDPChannelSender(final String host, final int port, final int maxPayloadSize) {
+        this(host, port, maxPayloadSize, AddressResolver.DEFAULT_REFRESH_INTERVAL_MILLIS, AddressSelection.FIRST);
+    }
+
+    /**
+     * Constructor.
+     *
+     * @param host The hostname of the UDP server
+     * @param port The port of the UDP server
+     * @param maxPayloadSize The maximum payload size of each datagram, in bytes
+     * @param dnsRefreshIntervalMillis The interval between resolutions of the host, in milliseconds. Zero resolves
+     *                                 the host only once
+     * @param addressSelection The {@link AddressSelection} to choose between the addresses of the host
+     */
+    public UDPChannelSender(final String host, final int port, final int maxPayloadSize,
+                            final long dnsRefreshIntervalMillis, final AddressSelection addressSelection) {
+        this(maxPayloadSize, new AddressResolver(host, port, dnsRefreshIntervalMillis, addressSelection,
+                AddressResolver.SYSTEM_RESOLVER));
+    }
+
+    /**
+     * Constructor.
+     *
+     * @param maxPayloadSize The maximum payload size of each datagram, in bytes
+     * @param resolver The {@link AddressResolver} of the UDP server
+     */
+    UDPChannelSender(final int maxPayloadSize, final AddressResolver resolver) {
+        this.packer = new DatagramPacker(maxPayloadSize);
+        this.resolver = resolver;
+
+        try {
+            openChannelIfClosed();
+        } catch (Exception e) {
+            LOGGER.warning("Unable to open UDP channel: " + e.toString());
+        }
+    }
+
+    @Override
+    public final void send(final String message) {
+        send(Collections.singletonList(message));
+    }
+
+    @Override
+    public final void send(final List<String> messages) {
+        DatagramChannel currentChannel = null;
+        PayloadEncoder payloadEncoder = PAYLOAD_ENCODERS.acquire();
+        try {
+            currentChannel = openChannelIfClosed();
+
+            if (resolver.isConsistentHash()) {
+                for (Map.Entry<InetSocketAddress, String> partition : resolver.partition(messages).entrySet()) {
+                    writePayload(currentChannel, payloadEncoder.encode(partition.getValue()), partition.getKey());
+                }
+            } else {
+                writePayload(currentChannel, payloadEncoder.encode(messages), null);
+            }
+            batches.add(messages.size());
+        } catch (IOException e) {
+            handleException(currentChannel, e);
+        } catch (RuntimeException e) {
+            // Unresolved addresses and other connection failures are unchecked
+            handleException(currentChannel, e);
+        } finally {
+            PAYLOAD_ENCODERS.release(payloadEncoder);
+        }
+    }
+
+    private void writePayload(final DatagramChannel currentChannel, final ByteBuffer payload,
+                              final InetSocketAddress target) throws IOException {
+        int end = payload.limit();
+        int start = 0;
+
+        while (start < end) {
+            int datagramEnd = packer.datagramEnd(payload, start, end);
+            if (datagramEnd > start) {
+                payload.limit(datagramEnd).position(start);
+                writeDatagram(currentChannel, payload, target != null || resolver.isSingleAddress() ? target : resolver.next());
+                payload.limit(end);
+            }
+            start = datagramEnd + 1;
+        }
+    }
+
+    private void writeDatagram(final DatagramChannel currentChannel, final ByteBuffer datagram,
+                               final InetSocketAddress target) throws IOException {
+        int length = datagram.remaining();
+        int written = target == null ? currentChannel.write(datagram) : currentChannel.send(datagram, target);
+
+        if (written == 0) {
+            packetsDropped.increment();
+            DIAGNOSTICS.warning("The UDP send buffer is full, datagram dropped.");
+        } else {
+            packetsSent.increment();
+            bytesSent.add(length);
+            if (packer.isOversized(length)) {
+                packetsOversized.increment();
+            }
+        }
+    }
+
+    private void handleException(final DatagramChannel failedChannel, final Exception e) {
+        errors.increment();
+        closeChannel(failedChannel);
+        DIAGNOSTICS.warning("Unable to send UDP message", e);
+    }
+
+    @Override
+    public final void send(final String message, final String uri) {
+        send(message);
+    }
+
+    @Override
+    public final void shutdown() {
+        resolver.stop();
+        closeChannel(channel);
+    }
+
+    @Override
+    public final void registerStats(final StatsRegistry registry) {
+        registry.register("udp.batches", batches);
+        registry.register("udp.packets_sent", packetsSent);
+        registry.register("udp.packets_oversized", packetsOversized);
+        registry.register("udp.bytes_sent", bytesSent);
+        registry.register("udp.packets_dropped", packetsDropped);
+        registry.register("udp.errors", errors);
+        resolver.registerStats(registry);
+    }
+
+    private DatagramChannel openChannelIfClosed() throws IOException {
+        DatagramChannel currentChannel = channel;
+        if (currentChannel != null && currentChannel.isOpen() && isConnectedToCurrentTarget()) {
+            return currentChannel;
+        }
+
+        synchronized (this) {
+            resolver.start();
+            InetSocketAddress target = resolver.isSingleAddress() ? resolver.next() : null;
+
+            if (channel == null || !channel.isOpen() || !isConnectedTo(target)) {
+                closeChannel(channel);
+                openChannel(target);
+            }
+            return channel;
+        }
+    }
+
+    private boolean isConnectedToCurrentTarget() {
+        return !resolver.isSingleAddress() || isConnectedTo(resolver.next());
+    }
+
+    private boolean isConnectedTo(final InetSocketAddress target) {
+        return target == null ? connectedTarget == null : target.equals(connectedTarget);
+    }
+
+    private synchronized void openChannel(final InetSocketAddress target) throws IOException {
+        DatagramChannel newChannel = DatagramChannel.open();
+        try {
+            newChannel.configureBlocking(false);
+            if (target != null) {
+                newChannel.connect(target);
+            }
+        } catch (IOException e) {
+            newChannel.close();
+            throw e;
+        } catch (RuntimeException e) {
+            newChannel.close();
+            throw e;
+        }
+        channel = newChannel;
+        connectedTarget = target;
+    }
+
+    private synchronized void closeChannel(final DatagramChannel failedChannel) {
+        // Another thread may have already replaced the channel that failed
+        if (failedChannel == null || failedChannel != channel) {
+            return;
+        }
+
+        try {
+            channel.close();
+        } catch (IOException e) {
+            LOGGER.fine("Unable to close UDP channel: " + e.toString());
+        }
+        channel = null;
+        connectedTarget = null;
+    }
+}
@@ -1,35 +1,108 @@
 package com.statful.client.transport;
 
-import com.statful.client.core.transport.TransportSender;
+import com.statful.client.core.diagnostics.Diagnostics;
+import com.statful.client.core.stats.StatsCounter;
+import com.statful.client.core.stats.StatsRegistry;
+import com.statful.client.core.stats.StatsSource;
+import com.statful.client.core.transport.BatchTransportSender;
+import com.statful.client.core.transport.ObjectPool;
+import com.statful.client.domain.api.AddressSelection;
 
 import java.io.IOException;
 import java.net.*;
-import java.nio.charset.Charset;
+import java.nio.ByteBuffer;
+import java.util.Collections;
+import java.util.List;
+import java.util.Map;
 import java.util.logging.Logger;
 
 /**
  * This class is an implementation of {@link com.statful.client.core.transport.TransportSender} to send metrics
  * using UDP.
+ * <p>
+ * Each batch of metrics is packed into as few datagrams as possible without exceeding the maximum payload size, and
+ * without splitting any metric, so large flushes aren't fragmented or dropped by the network. Batches sent together
+ * through {@link #send(List)} are encoded once and packed together, and their datagrams are sent in a single loop on
+ * the same socket.
+ * <p>
+ * The host is resolved again in the background by an {@link AddressResolver}, so that metrics follow the host when
+ * it moves, and may be spread over every address it resolves to.
  */
-public class UDPSender implements TransportSender {
+public class UDPSender implements BatchTransportSender, StatsSource {
 
     private static final Logger LOGGER = Logger.getLogger(UDPSender.class.getName());
+    private static final Diagnostics DIAGNOSTICS = new Diagnostics(LOGGER);
 
-    private final int port;
-    private final String host;
+    private static final int MAX_IDLE_ENCODERS = 16;
+
+    /**
+     * Pooled encoding state, so sending a message doesn't allocate a new byte array and packet every time, even on a
+     * new virtual thread.
+     */
+    private static final ObjectPool<PacketEncoder> PACKET_ENCODERS = new ObjectPool<PacketEncoder>(MAX_IDLE_ENCODERS) {
+        @Override
+        protected PacketEncoder create() {
+            return new PacketEncoder();
+        }
+    };
+
+    private final DatagramPacker packer;
+    private final AddressResolver resolver;
+
+    private final StatsCounter batches = new StatsCounter();
+    private final StatsCounter packetsSent = new StatsCounter();
+    private final StatsCounter packetsOversized = new StatsCounter();
+    private final StatsCounter bytesSent = new StatsCounter();
+    private final StatsCounter errors = new StatsCounter();
 
-    private InetAddress address;
     private DatagramSocket socket;
 
     /**
-     * Default constructor.
+     * Default constructor, which packs datagrams up to the default maximum payload size of 1432 bytes.
      *
      * @param host The hostname of the UDP server
      * @param port The port of the UDP server
      */
     public UDPSender(final String host, final int port) {
-        this.port = port;
-        this.host = host;
+        this(host, port, DatagramPacker.DEFAULT_MAX_PAYLOAD_SIZE);
+    }
+
+    /**
+     * Constructor.
+     *
+     * @param host The hostname of the UDP server
+     * @param port The port of the UDP server
+     * @param maxPayloadSize The maximum payload size of each datagram, in bytes
+     */
+    public UDPSender(final String host, final int port, final int maxPayloadSize) {
+        this(host, port, maxPayloadSize, AddressResolver.DEFAULT_REFRESH_INTERVAL_MILLIS, AddressSelection.FIRST);
+    }
+
+    /**
+     * Constructor.
+     *
+     * @param host The hostname of the UDP server
+     * @param port The port of the UDP server
+     * @param maxPayloadSize The maximum payload size of each datagram, in bytes
+     * @param dnsRefreshIntervalMillis The interval between resolutions of the host, in milliseconds. Zero resolves
+     *                                 the host only once
+     * @param addressSelection The {@link AddressSelection} to choose between the addresses of the host
+     */
+    public UDPSender(final String host, final int port, final int maxPayloadSize, final long dnsRefreshIntervalMillis,
+                     final AddressSelection addressSelection) {
+        this(maxPayloadSize, new AddressResolver(host, port, dnsRefreshIntervalMillis, addressSelection,
+                AddressResolver.SYSTEM_RESOLVER));
+    }
+
+    /**
+     * Constructor.
+     *
+     * @param maxPayloadSize The maximum payload size of each datagram, in bytes
+     * @param resolver The {@link AddressResolver} of the UDP server
+     */
+    UDPSender(final int maxPayloadSize, final AddressResolver resolver) {
+        this.packer = new DatagramPacker(maxPayloadSize);
+        this.resolver = resolver;
 
         try {
             createSocket();
@@ -40,29 +113,79 @@ public class UDPSender implements TransportSender {
 
     @Override
     public final void send(final String message) {
+        send(Collections.singletonList(message));
+    }
+
+    @Override
+    public final void send(final List<String> messages) {
+        PacketEncoder packetEncoder = PACKET_ENCODERS.acquire();
         try {
-            sendMessage(message);
+            createSocketIfClosed();
+
+            if (resolver.isConsistentHash()) {
+                for (Map.Entry<InetSocketAddress, String> partition : resolver.partition(messages).entrySet()) {
+                    sendPayload(packetEncoder.packet, packetEncoder.payloadEncoder.encode(partition.getValue()), partition.getKey());
+                }
+            } else {
+                sendPayload(packetEncoder.packet, packetEncoder.payloadEncoder.encode(messages), null);
+            }
+            batches.add(messages.size());
         } catch (IOException e) {
-            LOGGER.warning("I/O exception while sending message.");
+            handleException(e);
+        } finally {
+            PACKET_ENCODERS.release(packetEncoder);
         }
     }
 
     @Override
     public final void send(final String message, final String uri) { }
 
-    private void sendMessage(final String message) throws IOException {
-        try {
-            createSocketIfClosed();
-            socket.send(createPacket(message));
-        } catch (SocketException e) {
-            LOGGER.warning("Unable to open UDP socket: " + e.toString());
-        } catch (UnknownHostException e) {
-            LOGGER.warning("Unable to open UDP socket: " + e.toString());
+    private void sendPayload(final DatagramPacket packet, final ByteBuffer payload, final InetSocketAddress target)
+            throws IOException {
+        int end = payload.limit();
+        int start = 0;
+
+        while (start < end) {
+            int datagramEnd = packer.datagramEnd(payload, start, end);
+            int length = datagramEnd - start;
+
+            if (length > 0) {
+                packet.setData(payload.array(), start, length);
+                packet.setSocketAddress(target == null ? resolver.next() : target);
+                socket.send(packet);
+
+                packetsSent.increment();
+                bytesSent.add(length);
+                if (packer.isOversized(length)) {
+                    packetsOversized.increment();
+                }
+            }
+            start = datagramEnd + 1;
         }
     }
 
+    private void handleException(final IOException e) {
+        errors.increment();
+        if (e instanceof SocketException || e instanceof UnknownHostException) {
+            DIAGNOSTICS.warning("Unable to open UDP socket", e);
+        } else {
+            DIAGNOSTICS.warning("I/O exception while sending message", e);
+        }
+    }
+
+    @Override
+    public final void registerStats(final StatsRegistry registry) {
+        registry.register("udp.batches", batches);
+        registry.register("udp.packets_sent", packetsSent);
+        registry.register("udp.packets_oversized", packetsOversized);
+        registry.register("udp.bytes_sent", bytesSent);
+        registry.register("udp.errors", errors);
+        resolver.registerStats(registry);
+    }
+
     @Override
     public final void shutdown() {
+        resolver.stop();
         socket.disconnect();
         socket.close();
     }
@@ -74,15 +197,10 @@ public class UDPSender implements TransportSender {
     }
 
     private void createSocket() throws UnknownHostException, SocketException {
-        address = InetAddress.getByName(host);
+        resolver.start();
         socket = new DatagramSocket();
     }
 
-    private DatagramPacket createPacket(final String message) {
-        byte[] byteMessage = message.getBytes(Charset.forName("UTF-8"));
-        return new DatagramPacket(byteMessage, byteMessage.length, address, port);
-    }
-
     /**
      * Setter for datagram socket.
      *
@@ -91,4 +209,13 @@ public class UDPSender implements TransportSender {
     final void setSocket(final DatagramSocket socket) {
         this.socket = socket;
     }
+
+    /**
+     * The encoder and packet used by a single send.
+     */
+    private static final class PacketEncoder {
+
+        private final PayloadEncoder payloadEncoder = new PayloadEncoder(false);
+        private final DatagramPacket packet = new DatagramPacket(new byte[0], 0);
+    }
 }
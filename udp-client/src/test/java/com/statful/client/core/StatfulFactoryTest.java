@@ -31,6 +31,25 @@ public class StatfulFactoryTest {
         executorService.shutdown();
     }
 
+    @Test
+    public void shouldCreateNonBlockingUDPClient() throws Exception {
+        // Given
+        ExecutorService executorService = Executors.newFixedThreadPool(1);
+        Future<String> response = executorService.submit(new UdpEcho(2013));
+
+        // When
+        StatfulClient client = StatfulFactory.buildNonBlockingUDPClient().with()
+                .flushSize(1)
+                .build();
+        client.counter("test_counter").send();
+
+        // Then
+        String responseString = response.get();
+        assertTrue("Should receive message", responseString.startsWith("application.counter.test_counter 1"));
+        executorService.shutdown();
+        client.shutdown();
+    }
+
     @Test
     public void shouldCreateUDPClientWithoutOptionalConfigurations() throws Exception {
         StatfulClient client = StatfulFactory.buildUDPClient().build();
@@ -0,0 +1,196 @@
+package com.statful.client.transport;
+
+import com.statful.client.core.stats.StatsRegistry;
+import com.statful.client.domain.api.AddressSelection;
+import com.statful.client.domain.api.ClientStats;
+import org.junit.Test;
+
+import java.net.InetAddress;
+import java.net.InetSocketAddress;
+import java.net.UnknownHostException;
+import java.util.HashSet;
+import java.util.Map;
+import java.util.Set;
+
+import static java.util.Arrays.asList;
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertTrue;
+
+public class AddressResolverTest {
+
+    @Test
+    public void shouldResolveHostWhenStarted() throws Exception {
+        StubHostResolver hostResolver = new StubHostResolver("10.0.0.1", "10.0.0.2");
+        AddressResolver subject = new AddressResolver("relay", 2013, 0, AddressSelection.FIRST, hostResolver);
+
+        subject.start();
+
+        assertEquals(new InetSocketAddress("10.0.0.1", 2013), subject.next());
+        assertEquals(new InetSocketAddress("10.0.0.1", 2013), subject.next());
+        assertTrue("Should use a single address", subject.isSingleAddress());
+    }
+
+    @Test(expected = UnknownHostException.class)
+    public void shouldFailToStartIfHostCantBeResolved() throws Exception {
+        AddressResolver subject = new AddressResolver("relay", 2013, 0, AddressSelection.FIRST, new StubHostResolver());
+
+        subject.start();
+    }
+
+    @Test
+    public void shouldSwapAddressesWhenHostMoves() throws Exception {
+        StubHostResolver hostResolver = new StubHostResolver("10.0.0.1");
+        AddressResolver subject = new AddressResolver("relay", 2013, 0, AddressSelection.FIRST, hostResolver);
+        StatsRegistry registry = new StatsRegistry();
+        subject.registerStats(registry);
+        subject.start();
+
+        hostResolver.setAddresses("10.0.0.3");
+        subject.refresh();
+
+        assertEquals(new InetSocketAddress("10.0.0.3", 2013), subject.next());
+        assertEquals("Should count the change", 1, registry.snapshot().getValue("udp.dns_changes"));
+    }
+
+    @Test
+    public void shouldKeepAddressesIfOnlyTheirOrderChanges() throws Exception {
+        StubHostResolver hostResolver = new StubHostResolver("10.0.0.1", "10.0.0.2");
+        AddressResolver subject = new AddressResolver("relay", 2013, 0, AddressSelection.FIRST, hostResolver);
+        StatsRegistry registry = new StatsRegistry();
+        subject.registerStats(registry);
+        subject.start();
+
+        hostResolver.setAddresses("10.0.0.2", "10.0.0.1");
+        subject.refresh();
+
+        assertEquals(new InetSocketAddress("10.0.0.1", 2013), subject.next());
+        assertEquals("Should not count a change", 0, registry.snapshot().getValue("udp.dns_changes"));
+    }
+
+    @Test
+    public void shouldKeepPreviousAddressesIfResolutionFails() throws Exception {
+        StubHostResolver hostResolver = new StubHostResolver("10.0.0.1");
+        AddressResolver subject = new AddressResolver("relay", 2013, 0, AddressSelection.FIRST, hostResolver);
+        StatsRegistry registry = new StatsRegistry();
+        subject.registerStats(registry);
+        subject.start();
+
+        hostResolver.setAddresses();
+        subject.refresh();
+
+        ClientStats stats = registry.snapshot();
+        assertEquals(new InetSocketAddress("10.0.0.1", 2013), subject.next());
+        assertEquals("Should count the error", 1, stats.getValue("udp.dns_errors"));
+        assertEquals("Should not count a change", 0, stats.getValue("udp.dns_changes"));
+    }
+
+    @Test
+    public void shouldRefreshAddressesInBackground() throws Exception {
+        StubHostResolver hostResolver = new StubHostResolver("10.0.0.1");
+        AddressResolver subject = new AddressResolver("relay", 2013, 10, AddressSelection.FIRST, hostResolver);
+        subject.start();
+
+        hostResolver.setAddresses("10.0.0.3");
+
+        long deadline = System.currentTimeMillis() + 5000;
+        while (!subject.next().equals(new InetSocketAddress("10.0.0.3", 2013)) && System.currentTimeMillis() < deadline) {
+            Thread.sleep(5);
+        }
+        subject.stop();
+
+        assertEquals(new InetSocketAddress("10.0.0.3", 2013), subject.next());
+    }
+
+    @Test
+    public void shouldRoundRobinOverEveryAddress() throws Exception {
+        StubHostResolver hostResolver = new StubHostResolver("10.0.0.1", "10.0.0.2", "10.0.0.3");
+        AddressResolver subject = new AddressResolver("relay", 2013, 0, AddressSelection.ROUND_ROBIN, hostResolver);
+        subject.start();
+
+        assertEquals(new InetSocketAddress("10.0.0.1", 2013), subject.next());
+        assertEquals(new InetSocketAddress("10.0.0.2", 2013), subject.next());
+        assertEquals(new InetSocketAddress("10.0.0.3", 2013), subject.next());
+        assertEquals(new InetSocketAddress("10.0.0.1", 2013), subject.next());
+        assertFalse("Should not use a single address", subject.isSingleAddress());
+    }
+
+    @Test
+    public void shouldPartitionMetricsBySeries() throws Exception {
+        StubHostResolver hostResolver = new StubHostResolver("10.0.0.1", "10.0.0.2", "10.0.0.3");
+        AddressResolver subject = new AddressResolver("relay", 2013, 0, AddressSelection.CONSISTENT_HASH, hostResolver);
+        subject.start();
+
+        StringBuilder batch = new StringBuilder();
+        for (int i = 0; i < 100; i++) {
+            batch.append("application.metric").append(i % 20).append(",tag=value ").append(i).append(" 123456789\n");
+        }
+
+        Map<InetSocketAddress, String> partitions = subject.partition(asList(batch.toString()));
+
+        assertTrue("Should be a consistent hash", subject.isConsistentHash());
+        assertEquals("Should spread series over every address", 3, partitions.size());
+
+        Set<String> seen = new HashSet<String>();
+        int lines = 0;
+        for (String partition : partitions.values()) {
+            Set<String> series = new HashSet<String>();
+            for (String line : partition.split("\n")) {
+                series.add(line.substring(0, line.indexOf(' ')));
+                lines++;
+            }
+            for (String name : series) {
+                assertTrue("Each series should be sent to a single address", seen.add(name));
+            }
+        }
+        assertEquals("Should keep every metric", 100, lines);
+    }
+
+    @Test
+    public void shouldOnlyMoveSeriesOfRemovedAddress() throws Exception {
+        StubHostResolver hostResolver = new StubHostResolver("10.0.0.1", "10.0.0.2", "10.0.0.3");
+        AddressResolver subject = new AddressResolver("relay", 2013, 0, AddressSelection.CONSISTENT_HASH, hostResolver);
+        subject.start();
+
+        String batch = "metric1 1 1\nmetric2 1 1\nmetric3 1 1\nmetric4 1 1\nmetric5 1 1\nmetric6 1 1\nmetric7 1 1\n";
+        Map<InetSocketAddress, String> before = subject.partition(asList(batch));
+
+        hostResolver.setAddresses("10.0.0.1", "10.0.0.2");
+        subject.refresh();
+        Map<InetSocketAddress, String> after = subject.partition(asList(batch));
+
+        for (String address : asList("10.0.0.1", "10.0.0.2")) {
+            String kept = before.get(new InetSocketAddress(address, 2013));
+            if (kept != null) {
+                for (String line : kept.split("\n")) {
+                    assertTrue("Should keep series of remaining addresses", after.get(new InetSocketAddress(address, 2013)).contains(line));
+                }
+            }
+        }
+    }
+
+    private static final class StubHostResolver implements AddressResolver.HostResolver {
+
+        private volatile InetAddress[] addresses;
+
+        private StubHostResolver(final String... addresses) throws UnknownHostException {
+            setAddresses(addresses);
+        }
+
+        private void setAddresses(final String... addresses) throws UnknownHostException {
+            InetAddress[] resolved = new InetAddress[addresses.length];
+            for (int i = 0; i < addresses.length; i++) {
+                resolved[i] = InetAddress.getByName(addresses[i]);
+            }
+            this.addresses = resolved;
+        }
+
+        @Override
+        public InetAddress[] resolve(final String host) throws UnknownHostException {
+            if (addresses.length == 0) {
+                throw new UnknownHostException(host);
+            }
+            return addresses;
+        }
+    }
+}
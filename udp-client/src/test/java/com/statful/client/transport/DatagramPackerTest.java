@@ -0,0 +1,84 @@
+package com.statful.client.transport;
+
+import org.junit.Test;
+
+import java.nio.ByteBuffer;
+import java.nio.charset.Charset;
+import java.util.ArrayList;
+import java.util.List;
+
+import static java.util.Arrays.asList;
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertTrue;
+
+public class DatagramPackerTest {
+
+    private static final Charset UTF_8 = Charset.forName("UTF-8");
+
+    @Test
+    public void shouldKeepBatchThatFitsInOneDatagram() {
+        DatagramPacker subject = new DatagramPacker(20);
+
+        assertEquals(asList("metric1\nmetric2"), pack(subject, "metric1\nmetric2"));
+    }
+
+    @Test
+    public void shouldSplitBatchAtLineBoundaries() {
+        DatagramPacker subject = new DatagramPacker(16);
+
+        List<String> datagrams = pack(subject, "metric1\nmetric2\nmetric3\nmetric4\nmetric5");
+
+        assertEquals(asList("metric1\nmetric2", "metric3\nmetric4", "metric5"), datagrams);
+    }
+
+    @Test
+    public void shouldPackAsManyLinesAsFit() {
+        DatagramPacker subject = new DatagramPacker(23);
+
+        List<String> datagrams = pack(subject, "metric1\nmetric2\nmetric3\nmetric4");
+
+        assertEquals(asList("metric1\nmetric2\nmetric3", "metric4"), datagrams);
+    }
+
+    @Test
+    public void shouldSendLineLargerThanMaxPayloadSizeAlone() {
+        DatagramPacker subject = new DatagramPacker(10);
+
+        List<String> datagrams = pack(subject, "short\nvery_long_metric_line\nshort");
+
+        assertEquals(asList("short", "very_long_metric_line", "short"), datagrams);
+        assertTrue("Should be oversized", subject.isOversized("very_long_metric_line".length()));
+        assertFalse("Should not be oversized", subject.isOversized("short".length()));
+    }
+
+    @Test
+    public void shouldNotSplitMultiByteCharacters() {
+        DatagramPacker subject = new DatagramPacker(12);
+
+        List<String> datagrams = pack(subject, "métricá\nmétricé");
+
+        assertEquals(asList("métricá", "métricé"), datagrams);
+    }
+
+    @Test
+    public void shouldSanitizeMaxPayloadSize() {
+        assertEquals(DatagramPacker.DEFAULT_MAX_PAYLOAD_SIZE, new DatagramPacker(0).getMaxPayloadSize());
+        assertEquals(DatagramPacker.MAX_UDP_PAYLOAD_SIZE, new DatagramPacker(100000).getMaxPayloadSize());
+        assertEquals(8932, new DatagramPacker(8932).getMaxPayloadSize());
+    }
+
+    private static List<String> pack(final DatagramPacker packer, final String message) {
+        ByteBuffer payload = ByteBuffer.wrap(message.getBytes(UTF_8));
+        List<String> datagrams = new ArrayList<String>();
+
+        int end = payload.limit();
+        int start = 0;
+        while (start < end) {
+            int datagramEnd = packer.datagramEnd(payload, start, end);
+            datagrams.add(new String(payload.array(), start, datagramEnd - start, UTF_8));
+            start = datagramEnd + 1;
+        }
+        return datagrams;
+    }
+}
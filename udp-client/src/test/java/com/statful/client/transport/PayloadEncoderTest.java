@@ -0,0 +1,50 @@
+package com.statful.client.transport;
+
+import org.junit.Test;
+
+import java.nio.ByteBuffer;
+import java.nio.charset.Charset;
+
+import static java.util.Arrays.asList;
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertTrue;
+
+public class PayloadEncoderTest {
+
+    private static final Charset UTF_8 = Charset.forName("UTF-8");
+
+    @Test
+    public void shouldEncodeMessageAsUTF8() {
+        PayloadEncoder subject = new PayloadEncoder(false);
+
+        assertEquals("métric 1", decode(subject.encode("métric 1")));
+    }
+
+    @Test
+    public void shouldSeparateBatchesWithNewlines() {
+        PayloadEncoder subject = new PayloadEncoder(false);
+
+        ByteBuffer payload = subject.encode(asList("metric1\n", "metric2\nmetric3", "metric4"));
+
+        assertEquals("metric1\nmetric2\nmetric3\nmetric4", decode(payload));
+    }
+
+    @Test
+    public void shouldGrowBufferForLargePayloads() {
+        PayloadEncoder subject = new PayloadEncoder(true);
+        StringBuilder message = new StringBuilder();
+        for (int i = 0; i < 1000; i++) {
+            message.append("metric").append(i).append('\n');
+        }
+
+        ByteBuffer payload = subject.encode(message.toString());
+
+        assertTrue("Should use a direct buffer", payload.isDirect());
+        assertEquals(message.toString(), decode(payload));
+        assertEquals("short", decode(subject.encode("short")));
+    }
+
+    private static String decode(final ByteBuffer payload) {
+        return UTF_8.decode(payload.duplicate()).toString();
+    }
+}
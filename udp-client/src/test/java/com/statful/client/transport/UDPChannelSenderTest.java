@@ -0,0 +1,237 @@
+package com.statful.client.transport;
+
+import com.statful.client.core.stats.StatsRegistry;
+import com.statful.client.domain.api.AddressSelection;
+import com.statful.client.domain.api.ClientStats;
+import org.junit.AfterClass;
+import org.junit.BeforeClass;
+import org.junit.Test;
+
+import java.net.DatagramPacket;
+import java.net.DatagramSocket;
+import java.net.InetAddress;
+import java.net.UnknownHostException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+
+import static java.util.Arrays.asList;
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertNotNull;
+
+public class UDPChannelSenderTest {
+
+    private static ExecutorService executorService;
+
+    @BeforeClass
+    public static void setUp() {
+        executorService = Executors.newFixedThreadPool(1);
+    }
+
+    @AfterClass
+    public static void tearDown() {
+        executorService.shutdownNow();
+    }
+
+    @Test
+    public void shouldInstantiateIfChannelCreationFails() {
+        UDPChannelSender subject = new UDPChannelSender(null, 1000);
+
+        assertNotNull("UDP channel sender should always instantiate", subject);
+    }
+
+    @Test
+    public void shouldSendUDPMessage() throws Exception {
+        Future<String> response = executorService.submit(new UdpEcho(2016));
+
+        UDPChannelSender subject = new UDPChannelSender("127.0.0.1", 2016);
+        subject.send("Hello world");
+
+        assertEquals("Should send UDP message", "Hello world", response.get());
+        subject.shutdown();
+    }
+
+    @Test
+    public void shouldSendAggregatedUDPMessage() throws Exception {
+        Future<String> response = executorService.submit(new UdpEcho(2016));
+
+        UDPChannelSender subject = new UDPChannelSender("127.0.0.1", 2016);
+        subject.send("Hello aggregated world", "/tel/v2.0/metrics/aggregation/avg/frequency/10");
+
+        assertEquals("Should send aggregated UDP message", "Hello aggregated world", response.get());
+        subject.shutdown();
+    }
+
+    @Test
+    public void shouldReopenChannelAfterShutdown() throws Exception {
+        Future<String> response = executorService.submit(new UdpEcho(2016));
+
+        UDPChannelSender subject = new UDPChannelSender("127.0.0.1", 2016);
+        subject.shutdown();
+        subject.send("Hello world");
+
+        assertEquals("Should send UDP message", "Hello world", response.get());
+        subject.shutdown();
+    }
+
+    @Test
+    public void shouldReuseBufferForMessagesOfDifferentSizes() throws Exception {
+        StringBuilder longMessage = new StringBuilder();
+        for (int i = 0; i < 100; i++) {
+            longMessage.append("metric").append(i).append(' ');
+        }
+
+        UDPChannelSender subject = new UDPChannelSender("127.0.0.1", 2016);
+
+        Future<String> response = executorService.submit(new UdpEcho(2016));
+        subject.send(longMessage.toString().trim());
+        assertEquals(longMessage.toString().trim(), response.get());
+
+        response = executorService.submit(new UdpEcho(2016));
+        subject.send("short");
+        assertEquals("short", response.get());
+        subject.shutdown();
+    }
+
+    @Test
+    public void shouldCountSentPacketsAndErrors() throws Exception {
+        Future<String> response = executorService.submit(new UdpEcho(2016));
+
+        UDPChannelSender subject = new UDPChannelSender("127.0.0.1", 2016);
+        StatsRegistry registry = new StatsRegistry();
+        subject.registerStats(registry);
+        subject.send("Hello world");
+        response.get();
+
+        UDPChannelSender unknownHost = new UDPChannelSender("batatas", 2013);
+        StatsRegistry unknownHostRegistry = new StatsRegistry();
+        unknownHost.registerStats(unknownHostRegistry);
+        unknownHost.send("Hello world");
+
+        ClientStats stats = registry.snapshot();
+        assertEquals("Should count sent packets", 1, stats.getValue("udp.packets_sent"));
+        assertEquals("Should count sent bytes", 11, stats.getValue("udp.bytes_sent"));
+        assertEquals("Should count errors", 1, unknownHostRegistry.snapshot().getValue("udp.errors"));
+        subject.shutdown();
+    }
+
+    @Test
+    public void shouldPackBatchIntoDatagramsUpToMaxPayloadSize() throws Exception {
+        DatagramSocket server = new DatagramSocket(2017, InetAddress.getByName("127.0.0.1"));
+        server.setSoTimeout(5000);
+
+        UDPChannelSender subject = new UDPChannelSender("127.0.0.1", 2017, 10);
+        StatsRegistry registry = new StatsRegistry();
+        subject.registerStats(registry);
+
+        try {
+            subject.send("short\nvery_long_metric_line\nshort");
+
+            assertEquals("short", receive(server));
+            assertEquals("very_long_metric_line", receive(server));
+            assertEquals("short", receive(server));
+        } finally {
+            server.close();
+            subject.shutdown();
+        }
+
+        ClientStats stats = registry.snapshot();
+        assertEquals("Should count one batch", 1, stats.getValue("udp.batches"));
+        assertEquals("Should count a packet per datagram", 3, stats.getValue("udp.packets_sent"));
+        assertEquals("Should count oversized packets", 1, stats.getValue("udp.packets_oversized"));
+    }
+
+    @Test
+    public void shouldPackSeveralBatchesTogether() throws Exception {
+        DatagramSocket server = new DatagramSocket(2017, InetAddress.getByName("127.0.0.1"));
+        server.setSoTimeout(5000);
+
+        UDPChannelSender subject = new UDPChannelSender("127.0.0.1", 2017, 16);
+        StatsRegistry registry = new StatsRegistry();
+        subject.registerStats(registry);
+
+        try {
+            subject.send(asList("metric1\n", "metric2\nmetric3", "metric4"));
+
+            assertEquals("metric1\nmetric2", receive(server));
+            assertEquals("metric3\nmetric4", receive(server));
+        } finally {
+            server.close();
+            subject.shutdown();
+        }
+
+        ClientStats stats = registry.snapshot();
+        assertEquals("Should count every batch", 3, stats.getValue("udp.batches"));
+        assertEquals("Should count a packet per datagram", 2, stats.getValue("udp.packets_sent"));
+    }
+
+    @Test
+    public void shouldReconnectWhenHostMoves() throws Exception {
+        final InetAddress[] addresses = {InetAddress.getByName("127.0.0.1")};
+        AddressResolver resolver = new AddressResolver("relay", 2018, 0, AddressSelection.FIRST,
+                new AddressResolver.HostResolver() {
+                    @Override
+                    public InetAddress[] resolve(final String host) {
+                        return addresses.clone();
+                    }
+                });
+
+        DatagramSocket oldServer = new DatagramSocket(2018, InetAddress.getByName("127.0.0.1"));
+        DatagramSocket newServer = new DatagramSocket(2018, InetAddress.getByName("127.0.0.2"));
+        oldServer.setSoTimeout(5000);
+        newServer.setSoTimeout(5000);
+
+        UDPChannelSender subject = new UDPChannelSender(1432, resolver);
+        try {
+            subject.send("before");
+            assertEquals("before", receive(oldServer));
+
+            addresses[0] = InetAddress.getByName("127.0.0.2");
+            resolver.refresh();
+
+            subject.send("after");
+            assertEquals("after", receive(newServer));
+        } finally {
+            oldServer.close();
+            newServer.close();
+            subject.shutdown();
+        }
+    }
+
+    @Test
+    public void shouldRoundRobinDatagramsOverEveryAddress() throws Exception {
+        AddressResolver resolver = new AddressResolver("relay", 2019, 0, AddressSelection.ROUND_ROBIN,
+                new AddressResolver.HostResolver() {
+                    @Override
+                    public InetAddress[] resolve(final String host) throws UnknownHostException {
+                        return new InetAddress[] {InetAddress.getByName("127.0.0.1"), InetAddress.getByName("127.0.0.2")};
+                    }
+                });
+
+        DatagramSocket firstServer = new DatagramSocket(2019, InetAddress.getByName("127.0.0.1"));
+        DatagramSocket secondServer = new DatagramSocket(2019, InetAddress.getByName("127.0.0.2"));
+        firstServer.setSoTimeout(5000);
+        secondServer.setSoTimeout(5000);
+
+        UDPChannelSender subject = new UDPChannelSender(8, resolver);
+        try {
+            subject.send("metric1\nmetric2\nmetric3\nmetric4");
+
+            assertEquals("metric1", receive(firstServer));
+            assertEquals("metric2", receive(secondServer));
+            assertEquals("metric3", receive(firstServer));
+            assertEquals("metric4", receive(secondServer));
+        } finally {
+            firstServer.close();
+            secondServer.close();
+            subject.shutdown();
+        }
+    }
+
+    private static String receive(final DatagramSocket server) throws Exception {
+        byte[] buffer = new byte[1024];
+        DatagramPacket packet = new DatagramPacket(buffer, buffer.length);
+        server.receive(packet);
+        return new String(packet.getData(), packet.getOffset(), packet.getLength(), "UTF-8");
+    }
+}
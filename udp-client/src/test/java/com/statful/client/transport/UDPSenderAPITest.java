@@ -1,17 +1,28 @@
 package com.statful.client.transport;
 
+import com.statful.client.core.stats.StatsRegistry;
+import com.statful.client.domain.api.AddressSelection;
+import com.statful.client.domain.api.ClientStats;
 import org.junit.AfterClass;
 import org.junit.BeforeClass;
 import org.junit.Test;
+import org.mockito.invocation.InvocationOnMock;
+import org.mockito.stubbing.Answer;
 
 import java.io.IOException;
 import java.net.DatagramPacket;
 import java.net.DatagramSocket;
+import java.net.InetAddress;
 import java.net.SocketException;
+import java.net.UnknownHostException;
+import java.util.ArrayList;
+import java.util.HashSet;
+import java.util.List;
 import java.util.concurrent.ExecutorService;
 import java.util.concurrent.Executors;
 import java.util.concurrent.Future;
 
+import static java.util.Arrays.asList;
 import static org.junit.Assert.assertEquals;
 import static org.junit.Assert.assertNotNull;
 import static org.mockito.Mockito.*;
@@ -47,6 +58,22 @@ public class UDPSenderAPITest {
         assertEquals("Should send UDP message", "Hello world", response.get());
     }
 
+    @Test
+    public void shouldCountSentPacketsAndBytes() throws Exception {
+        Future<String> response = executorService.submit(new UdpEcho(2015));
+
+        UDPSender subject = new UDPSender("127.0.0.1", 2015);
+        StatsRegistry registry = new StatsRegistry();
+        subject.registerStats(registry);
+        subject.send("Hello world");
+        response.get();
+
+        ClientStats stats = registry.snapshot();
+        assertEquals("Should count sent packets", 1, stats.getValue("udp.packets_sent"));
+        assertEquals("Should count sent bytes", 11, stats.getValue("udp.bytes_sent"));
+        assertEquals("Should not count errors", 0, stats.getValue("udp.errors"));
+    }
+
     @Test
     public void shouldRecoverFromClosedSocket() throws Exception {
         Future<String> response = executorService.submit(new UdpEcho(2015));
@@ -109,4 +136,72 @@ public class UDPSenderAPITest {
         // When
         subject.send("Hello world");
     }
-}
\ No newline at end of file
+
+    @Test
+    public void shouldPackBatchIntoDatagramsUpToMaxPayloadSize() throws Exception {
+        // Given
+        final List<String> datagrams = new ArrayList<String>();
+        DatagramSocket socket = mock(DatagramSocket.class);
+        doAnswer(new Answer<Void>() {
+            @Override
+            public Void answer(final InvocationOnMock invocation) {
+                DatagramPacket packet = (DatagramPacket) invocation.getArguments()[0];
+                datagrams.add(new String(packet.getData(), packet.getOffset(), packet.getLength()));
+                return null;
+            }
+        }).when(socket).send(any(DatagramPacket.class));
+
+        UDPSender subject = new UDPSender("127.0.0.1", 2015, 16);
+        subject.setSocket(socket);
+        StatsRegistry registry = new StatsRegistry();
+        subject.registerStats(registry);
+
+        // When
+        subject.send("metric1\nmetric2\nmetric3\nmetric4\nmetric5");
+
+        // Then
+        assertEquals(asList("metric1\nmetric2", "metric3\nmetric4", "metric5"), datagrams);
+
+        ClientStats stats = registry.snapshot();
+        assertEquals("Should count one batch", 1, stats.getValue("udp.batches"));
+        assertEquals("Should count a packet per datagram", 3, stats.getValue("udp.packets_sent"));
+        assertEquals("Should count sent bytes without separators", 37, stats.getValue("udp.bytes_sent"));
+        assertEquals("Should not count oversized packets", 0, stats.getValue("udp.packets_oversized"));
+    }
+
+    @Test
+    public void shouldSendEachSeriesToTheSameAddressWithConsistentHash() throws Exception {
+        // Given
+        final List<String> targets = new ArrayList<String>();
+        DatagramSocket socket = mock(DatagramSocket.class);
+        doAnswer(new Answer<Void>() {
+            @Override
+            public Void answer(final InvocationOnMock invocation) {
+                DatagramPacket packet = (DatagramPacket) invocation.getArguments()[0];
+                String payload = new String(packet.getData(), packet.getOffset(), packet.getLength());
+                for (String line : payload.split("\n")) {
+                    targets.add(line.substring(0, line.indexOf(' ')) + "@" + packet.getAddress().getHostAddress());
+                }
+                return null;
+            }
+        }).when(socket).send(any(DatagramPacket.class));
+
+        AddressResolver resolver = new AddressResolver("relay", 2015, 0, AddressSelection.CONSISTENT_HASH,
+                new AddressResolver.HostResolver() {
+                    @Override
+                    public InetAddress[] resolve(final String host) throws UnknownHostException {
+                        return new InetAddress[] {InetAddress.getByName("10.0.0.1"), InetAddress.getByName("10.0.0.2")};
+                    }
+                });
+        UDPSender subject = new UDPSender(1432, resolver);
+        subject.setSocket(socket);
+
+        // When
+        subject.send("metric1 1 1\nmetric2 1 1\nmetric3 1 1\nmetric4 1 1");
+        subject.send("metric1 2 2\nmetric2 2 2\nmetric3 2 2\nmetric4 2 2");
+
+        // Then
+        assertEquals("Should send every metric", 8, targets.size());
+        assertEquals("Should send each series to a single address", 4, new HashSet<String>(targets).size());
+    }
+}